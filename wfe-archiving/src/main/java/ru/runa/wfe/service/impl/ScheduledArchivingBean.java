@@ -0,0 +1,59 @@
+package ru.runa.wfe.service.impl;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.Timer;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionManagement;
+import javax.ejb.TransactionManagementType;
+import javax.interceptor.Interceptors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
+
+import ru.runa.wfe.service.logic.archiving.ArchivingLogic;
+import ru.runa.wfe.service.logic.archiving.ArchivingResources;
+
+/**
+ * Periodically moves ended processes to archive database if enabled in archiving.properties. Singleton write lock prevents overlapping
+ * runs.
+ *
+ * @since 4.3.0
+ */
+@Singleton
+@Startup
+@TransactionManagement(TransactionManagementType.BEAN)
+@Interceptors({ SpringBeanAutowiringInterceptor.class })
+public class ScheduledArchivingBean {
+    private static final Log log = LogFactory.getLog(ScheduledArchivingBean.class);
+    @Resource
+    private TimerService timerService;
+    @Autowired
+    private ArchivingLogic archivingLogic;
+
+    @PostConstruct
+    public void initialize() {
+        if (!ArchivingResources.isScheduledArchivingEnabled()) {
+            log.info("Scheduled archiving is disabled");
+            return;
+        }
+        long period = ArchivingResources.getScheduledArchivingPeriodSeconds() * 1000;
+        timerService.createIntervalTimer(period, period, new TimerConfig(null, false));
+        log.info("Scheduled archiving every " + period + " ms");
+    }
+
+    @Timeout
+    public void timeOutHandler(Timer timer) {
+        try {
+            archivingLogic.archiveEndedProcesses();
+        } catch (Throwable th) {
+            log.error("Scheduled archiving failed", th);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ru.runa.wfe.service.logic.archiving;
 
 import java.sql.SQLException;
+import java.util.Calendar;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -55,6 +56,7 @@ import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.Variable;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -108,6 +110,32 @@ public class ArchivingLogic extends WFCommonLogic implements ArchivingService {
         deploymentLogic(user, definitionName, version, false);
     }
 
+    /**
+     * Moves process trees ended {@link ArchivingResources#getProcessEndedDaysAgo()} days ago to archive database in bulk. Runs in own JDBC
+     * transactions, see {@link BulkArchivingEngine}.
+     */
+    public ArchivingReport archiveEndedProcesses() {
+        try {
+            boolean identityInsert = getConfiguration(true).getProperty("hibernate.dialect").contains("SQLServer");
+            BulkArchivingEngine engine = new BulkArchivingEngine(ApplicationContextFactory.getDataSource(), getArchivingDataSource(), identityInsert);
+            Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.DAY_OF_YEAR, -ArchivingResources.getProcessEndedDaysAgo());
+            ArchivingReport report = engine.archiveProcessesEndedBefore(calendar.getTime(), ArchivingResources.getMaxProcessesPerRun());
+            if (report.getProcessCount() > 0) {
+                // rows were deleted bypassing hibernate
+                SessionFactory sessionFactory = ApplicationContextFactory.getSessionFactory();
+                sessionFactory.evict(Process.class);
+                sessionFactory.evict(Token.class);
+                sessionFactory.evict(NodeProcess.class);
+                sessionFactory.evict(Swimlane.class);
+                sessionFactory.evictQueries();
+            }
+            return report;
+        } catch (NamingException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
     private void processLogic(User user, Long processId, boolean toArchive) {
         try {
             HibernateTemplate targetTemplate = null;
@@ -0,0 +1,64 @@
+package ru.runa.wfe.service.logic.archiving;
+
+/**
+ * Bulk archiving run results and throughput.
+ *
+ * @since 4.3.0
+ */
+public class ArchivingReport {
+    private final long startTime = System.currentTimeMillis();
+    private long endTime;
+    private int rootProcessCount;
+    private int processCount;
+    private long rowCount;
+    private int failedPartitionCount;
+
+    synchronized void partitionArchived(int rootProcesses, int processes, int rows) {
+        rootProcessCount += rootProcesses;
+        processCount += processes;
+        rowCount += rows;
+    }
+
+    synchronized void partitionFailed() {
+        failedPartitionCount++;
+    }
+
+    synchronized void finish() {
+        endTime = System.currentTimeMillis();
+    }
+
+    public synchronized int getRootProcessCount() {
+        return rootProcessCount;
+    }
+
+    public synchronized int getProcessCount() {
+        return processCount;
+    }
+
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    public synchronized int getFailedPartitionCount() {
+        return failedPartitionCount;
+    }
+
+    public synchronized long getDurationMillis() {
+        return (endTime != 0 ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    public double getProcessesPerSecond() {
+        return getProcessCount() * 1000.0 / Math.max(1, getDurationMillis());
+    }
+
+    public double getRowsPerSecond() {
+        return getRowCount() * 1000.0 / Math.max(1, getDurationMillis());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Archived %d root processes (%d processes, %d rows) in %d ms: %.1f processes/s, %.1f rows/s, failed partitions: %d",
+                getRootProcessCount(), getProcessCount(), getRowCount(), getDurationMillis(), getProcessesPerSecond(), getRowsPerSecond(),
+                getFailedPartitionCount());
+    }
+}
@@ -0,0 +1,43 @@
+package ru.runa.wfe.service.logic.archiving;
+
+import ru.runa.wfe.commons.PropertyResources;
+
+/**
+ * Scheduled bulk archiving configuration.
+ *
+ * @since 4.3.0
+ */
+public class ArchivingResources {
+    private static final PropertyResources RESOURCES = new PropertyResources("archiving.properties", false);
+
+    public static boolean isScheduledArchivingEnabled() {
+        return RESOURCES.getBooleanProperty("scheduled.archiving.enabled", false);
+    }
+
+    public static long getScheduledArchivingPeriodSeconds() {
+        return RESOURCES.getLongProperty("scheduled.archiving.period.seconds", 3600);
+    }
+
+    /**
+     * Root processes ended more than this number of days ago are archived together with their subprocesses.
+     */
+    public static int getProcessEndedDaysAgo() {
+        return RESOURCES.getIntegerProperty("process.ended.days.ago", 365);
+    }
+
+    public static int getPartitionSize() {
+        return RESOURCES.getIntegerProperty("partition.size", 100);
+    }
+
+    public static int getParallelism() {
+        return RESOURCES.getIntegerProperty("parallelism", 2);
+    }
+
+    public static int getJdbcBatchSize() {
+        return RESOURCES.getIntegerProperty("jdbc.batch.size", 500);
+    }
+
+    public static int getMaxProcessesPerRun() {
+        return RESOURCES.getIntegerProperty("max.processes.per.run", 10000);
+    }
+}
@@ -0,0 +1,534 @@
+package ru.runa.wfe.service.logic.archiving;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.SQLCommons;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.security.SecuredObjectType;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Moves ended process trees (root process with all subprocesses) to archive database with plain JDBC. Root processes are selected by end date
+ * and split into partitions; each partition is copied table by table with batched inserts, committed in archive, verified by row counts and
+ * only then deleted from source database. Partitions are processed in parallel, each with own connections.
+ *
+ * Root processes of partition are claimed by row locks in source transaction before copy, so partition is archived by single cluster node at
+ * a time and processes already moved by other node are skipped. Partition processing is idempotent: archive rows of claimed processes are
+ * removed before copy, so partition which failed after archive commit is simply archived again by next run.
+ *
+ * @since 4.3.0
+ */
+public class BulkArchivingEngine {
+    private static final Log log = LogFactory.getLog(BulkArchivingEngine.class);
+    private static final String PROCESS_TABLE = "BPM_PROCESS";
+    private static final String TOKEN_TABLE = "BPM_TOKEN";
+    /**
+     * Process tree tables in insertion order with column matching partition process ids.
+     */
+    private static final String[][] PROCESS_TABLES = { { TOKEN_TABLE, "PROCESS_ID" }, { PROCESS_TABLE, "ID" },
+            { "BPM_SUBPROCESS", "PARENT_PROCESS_ID" }, { "BPM_SWIMLANE", "PROCESS_ID" }, { "BPM_VARIABLE", "PROCESS_ID" },
+            { "BPM_JOB", "PROCESS_ID" }, { "BPM_LOG", "PROCESS_ID" } };
+
+    private final DataSource sourceDataSource;
+    private final DataSource archiveDataSource;
+    private final boolean identityInsert;
+    private final int partitionSize;
+    private final int parallelism;
+    private final int batchSize;
+    private final int parametersCount = SystemProperties.getDatabaseParametersCount();
+    /**
+     * Executors and definitions which are known to exist in archive.
+     */
+    private final Set<Long> archivedExecutorIds = Sets.newConcurrentHashSet();
+    private final Set<Long> archivedDefinitionIds = Sets.newConcurrentHashSet();
+    private final Object referencesLock = new Object();
+
+    /**
+     * @param identityInsert
+     *            whether archive database requires SET IDENTITY_INSERT for explicit identifiers (SQL Server)
+     */
+    public BulkArchivingEngine(DataSource sourceDataSource, DataSource archiveDataSource, boolean identityInsert) {
+        this.sourceDataSource = sourceDataSource;
+        this.archiveDataSource = archiveDataSource;
+        this.identityInsert = identityInsert;
+        this.partitionSize = ArchivingResources.getPartitionSize();
+        this.parallelism = ArchivingResources.getParallelism();
+        this.batchSize = ArchivingResources.getJdbcBatchSize();
+    }
+
+    /**
+     * Archives process trees which root process ended before specified date.
+     *
+     * @param maxProcesses
+     *            maximum count of root processes to archive in this run
+     */
+    public ArchivingReport archiveProcessesEndedBefore(Date endDate, int maxProcesses) {
+        final ArchivingReport report = new ArchivingReport();
+        List<Long> rootProcessIds = getRootProcessIds(endDate, maxProcesses);
+        List<List<Long>> partitions = Lists.partition(rootProcessIds, partitionSize);
+        log.info("Archiving " + rootProcessIds.size() + " root processes ended before " + endDate + " in " + partitions.size() + " partitions");
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, partitions.size())));
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            for (final List<Long> partition : partitions) {
+                futures.add(executorService.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() {
+                        archivePartition(partition, report);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Archiving interrupted");
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        report.finish();
+        log.info(report);
+        return report;
+    }
+
+    private List<Long> getRootProcessIds(Date endDate, int maxProcesses) {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = sourceDataSource.getConnection();
+            statement = connection.prepareStatement("select ID from " + PROCESS_TABLE
+                    + " where PARENT_ID is null and END_DATE is not null and END_DATE < ? order by ID");
+            statement.setMaxRows(maxProcesses);
+            statement.setTimestamp(1, new Timestamp(endDate.getTime()));
+            resultSet = statement.executeQuery();
+            List<Long> result = Lists.newArrayList();
+            while (resultSet.next()) {
+                result.add(resultSet.getLong(1));
+            }
+            return result;
+        } catch (SQLException e) {
+            throw Throwables.propagate(e);
+        } finally {
+            SQLCommons.releaseResources(connection, statement, resultSet);
+        }
+    }
+
+    void archivePartition(List<Long> rootProcessIds, ArchivingReport report) {
+        long start = System.currentTimeMillis();
+        Connection source = null;
+        Connection archive = null;
+        try {
+            source = sourceDataSource.getConnection();
+            source.setAutoCommit(false);
+            List<Long> claimedRootProcessIds = claimRootProcesses(source, rootProcessIds);
+            if (claimedRootProcessIds.isEmpty()) {
+                source.commit();
+                return;
+            }
+            List<Long> processIds = getEndedProcessTrees(source, claimedRootProcessIds);
+            if (processIds.isEmpty()) {
+                // releases claimed root processes
+                source.commit();
+                return;
+            }
+            copyReferences(source, processIds);
+            archive = archiveDataSource.getConnection();
+            archive.setAutoCommit(false);
+            deleteProcessRows(archive, processIds, false);
+            Map<String, Integer> copiedRows = Maps.newLinkedHashMap();
+            List<Object[]> tokenProcessIds = Lists.newArrayList();
+            for (String[] table : PROCESS_TABLES) {
+                List<Object[]> deferred = TOKEN_TABLE.equals(table[0]) ? tokenProcessIds : null;
+                copiedRows.put(table[0], copyRows(source, archive, table[0], table[1], processIds, deferred));
+                if (PROCESS_TABLE.equals(table[0])) {
+                    // token and process reference each other: token is inserted without process which is set after process insertion
+                    executeBatch(archive, "update " + TOKEN_TABLE + " set PROCESS_ID = ? where ID = ?", tokenProcessIds);
+                }
+            }
+            archive.commit();
+            verify(archive, processIds, copiedRows);
+            deleteProcessRows(source, processIds, true);
+            source.commit();
+            int rows = 0;
+            for (Integer count : copiedRows.values()) {
+                rows += count;
+            }
+            report.partitionArchived(claimedRootProcessIds.size(), processIds.size(), rows);
+            log.debug("Archived " + processIds.size() + " processes (" + rows + " rows) in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (Exception e) {
+            log.error("Unable to archive partition starting from process " + rootProcessIds.get(0), e);
+            rollback(archive);
+            rollback(source);
+            report.partitionFailed();
+        } finally {
+            SQLCommons.releaseResources(archive);
+            SQLCommons.releaseResources(source);
+        }
+    }
+
+    /**
+     * Locks ended root processes until source transaction completes. Other node archiving the same processes waits for the lock and then finds
+     * them deleted.
+     *
+     * @return ids of root processes which are still in source database
+     */
+    private List<Long> claimRootProcesses(Connection source, List<Long> rootProcessIds) throws SQLException {
+        executeUpdate(source, "update " + PROCESS_TABLE + " set END_DATE = END_DATE where END_DATE is not null and ID in ", rootProcessIds);
+        Set<Long> existingIds = selectIds(source, "select ID from " + PROCESS_TABLE + " where END_DATE is not null and ID in ", rootProcessIds);
+        List<Long> result = Lists.newArrayList(rootProcessIds);
+        result.retainAll(existingIds);
+        return result;
+    }
+
+    /**
+     * @return ids of processes in trees which are ended entirely
+     */
+    private List<Long> getEndedProcessTrees(Connection source, List<Long> rootProcessIds) throws SQLException {
+        Map<Long, Long> rootIds = Maps.newLinkedHashMap();
+        for (Long rootProcessId : rootProcessIds) {
+            rootIds.put(rootProcessId, rootProcessId);
+        }
+        Set<Long> activeRootIds = Sets.newHashSet();
+        List<Long> level = rootProcessIds;
+        while (!level.isEmpty()) {
+            List<Long> nextLevel = Lists.newArrayList();
+            for (List<Long> window : Lists.partition(level, parametersCount)) {
+                PreparedStatement statement = source.prepareStatement("select ID, PARENT_ID, END_DATE from " + PROCESS_TABLE + " where PARENT_ID in "
+                        + inClause(window.size()));
+                ResultSet resultSet = null;
+                try {
+                    setParameters(statement, window, 1);
+                    resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        Long id = resultSet.getLong(1);
+                        Long rootId = rootIds.get(resultSet.getLong(2));
+                        rootIds.put(id, rootId);
+                        if (resultSet.getTimestamp(3) == null) {
+                            activeRootIds.add(rootId);
+                        }
+                        nextLevel.add(id);
+                    }
+                } finally {
+                    SQLCommons.releaseResources(statement, resultSet);
+                }
+            }
+            level = nextLevel;
+        }
+        List<Long> result = Lists.newArrayListWithExpectedSize(rootIds.size());
+        for (Map.Entry<Long, Long> entry : rootIds.entrySet()) {
+            if (!activeRootIds.contains(entry.getValue())) {
+                result.add(entry.getKey());
+            }
+        }
+        if (!activeRootIds.isEmpty()) {
+            log.debug("Skipping process trees with active subprocesses: " + activeRootIds);
+        }
+        return result;
+    }
+
+    /**
+     * Copies definitions and swimlane executors which are not in archive yet. Done in separate transaction and serialized between partitions
+     * as they share these rows.
+     */
+    private void copyReferences(Connection source, List<Long> processIds) throws SQLException {
+        Set<Long> definitionIds = selectIds(source, "select distinct DEFINITION_ID from " + PROCESS_TABLE + " where ID in ", processIds);
+        definitionIds.removeAll(archivedDefinitionIds);
+        Set<Long> executorIds = selectIds(source, "select distinct EXECUTOR_ID from BPM_SWIMLANE where EXECUTOR_ID is not null and PROCESS_ID in ",
+                processIds);
+        if (!definitionIds.isEmpty()) {
+            List<Long> ids = Lists.newArrayList(definitionIds);
+            executorIds.addAll(selectIds(source, "select CREATE_USER_ID from BPM_PROCESS_DEFINITION where CREATE_USER_ID is not null and ID in ", ids));
+            executorIds.addAll(selectIds(source, "select UPDATE_USER_ID from BPM_PROCESS_DEFINITION where UPDATE_USER_ID is not null and ID in ", ids));
+        }
+        executorIds.removeAll(archivedExecutorIds);
+        if (definitionIds.isEmpty() && executorIds.isEmpty()) {
+            return;
+        }
+        synchronized (referencesLock) {
+            Connection archive = archiveDataSource.getConnection();
+            try {
+                archive.setAutoCommit(false);
+                copyMissingRows(source, archive, "EXECUTOR", executorIds);
+                copyMissingRows(source, archive, "BPM_PROCESS_DEFINITION", definitionIds);
+                archive.commit();
+            } catch (SQLException e) {
+                rollback(archive);
+                throw e;
+            } finally {
+                SQLCommons.releaseResources(archive);
+            }
+            archivedExecutorIds.addAll(executorIds);
+            archivedDefinitionIds.addAll(definitionIds);
+        }
+    }
+
+    private void copyMissingRows(Connection source, Connection archive, String table, Set<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> missingIds = Lists.newArrayList(ids);
+        missingIds.removeAll(selectIds(archive, "select ID from " + table + " where ID in ", missingIds));
+        copyRows(source, archive, table, "ID", missingIds, null);
+    }
+
+    /**
+     * Streams rows selected by key column values from source to archive with batched inserts.
+     *
+     * @param deferredProcessIds
+     *            if not null, PROCESS_ID column is inserted as null and (PROCESS_ID, ID) pairs are collected to this list
+     * @return copied rows count
+     */
+    private int copyRows(Connection source, Connection archive, String table, String keyColumn, List<Long> ids, List<Object[]> deferredProcessIds)
+            throws SQLException {
+        int count = 0;
+        if (ids.isEmpty()) {
+            return count;
+        }
+        setIdentityInsert(archive, table, true);
+        try {
+            for (List<Long> window : Lists.partition(ids, parametersCount)) {
+                PreparedStatement select = source.prepareStatement("select * from " + table + " where " + keyColumn + " in " + inClause(window.size())
+                        + " order by ID");
+                select.setFetchSize(batchSize);
+                ResultSet resultSet = null;
+                PreparedStatement insert = null;
+                try {
+                    setParameters(select, window, 1);
+                    resultSet = select.executeQuery();
+                    ResultSetMetaData metaData = resultSet.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+                    List<String> columns = Lists.newArrayListWithExpectedSize(columnCount);
+                    int idColumn = 0;
+                    int deferredColumn = 0;
+                    for (int i = 1; i <= columnCount; i++) {
+                        String column = metaData.getColumnName(i);
+                        columns.add(column);
+                        if ("ID".equalsIgnoreCase(column)) {
+                            idColumn = i;
+                        } else if (deferredProcessIds != null && "PROCESS_ID".equalsIgnoreCase(column)) {
+                            deferredColumn = i;
+                        }
+                    }
+                    insert = archive.prepareStatement("insert into " + table + " (" + Joiner.on(", ").join(columns) + ") values "
+                            + inClause(columnCount));
+                    int batchCount = 0;
+                    while (resultSet.next()) {
+                        for (int i = 1; i <= columnCount; i++) {
+                            Object value = getValue(resultSet, i);
+                            if (i == deferredColumn) {
+                                deferredProcessIds.add(new Object[] { value, resultSet.getObject(idColumn) });
+                                value = null;
+                            }
+                            if (value == null) {
+                                insert.setNull(i, metaData.getColumnType(i));
+                            } else {
+                                insert.setObject(i, value);
+                            }
+                        }
+                        insert.addBatch();
+                        count++;
+                        if (++batchCount == batchSize) {
+                            insert.executeBatch();
+                            batchCount = 0;
+                        }
+                    }
+                    if (batchCount > 0) {
+                        insert.executeBatch();
+                    }
+                } finally {
+                    SQLCommons.releaseResources(insert);
+                    SQLCommons.releaseResources(select, resultSet);
+                }
+            }
+        } finally {
+            setIdentityInsert(archive, table, false);
+        }
+        return count;
+    }
+
+    private Object getValue(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        // LOB locators are bound to source connection
+        if (value instanceof Blob) {
+            Blob blob = (Blob) value;
+            return blob.getBytes(1, (int) blob.length());
+        }
+        if (value instanceof Clob) {
+            Clob clob = (Clob) value;
+            return clob.getSubString(1, (int) clob.length());
+        }
+        return value;
+    }
+
+    private void verify(Connection archive, List<Long> processIds, Map<String, Integer> copiedRows) throws SQLException {
+        for (String[] table : PROCESS_TABLES) {
+            int archivedRows = 0;
+            for (List<Long> window : Lists.partition(processIds, parametersCount)) {
+                PreparedStatement statement = archive.prepareStatement("select count(*) from " + table[0] + " where " + table[1] + " in "
+                        + inClause(window.size()));
+                ResultSet resultSet = null;
+                try {
+                    setParameters(statement, window, 1);
+                    resultSet = statement.executeQuery();
+                    resultSet.next();
+                    archivedRows += resultSet.getInt(1);
+                } finally {
+                    SQLCommons.releaseResources(statement, resultSet);
+                }
+            }
+            if (PROCESS_TABLE.equals(table[0]) && (archivedRows == 0 || archivedRows != processIds.size())) {
+                throw new SQLException("Archive verification failed for " + PROCESS_TABLE + ": expected " + processIds.size() + " processes, found "
+                        + archivedRows);
+            }
+            if (archivedRows != copiedRows.get(table[0])) {
+                throw new SQLException("Archive verification failed for " + table[0] + ": copied " + copiedRows.get(table[0]) + ", found "
+                        + archivedRows);
+            }
+        }
+    }
+
+    /**
+     * Deletes process trees with set-based statements.
+     */
+    private void deleteProcessRows(Connection connection, List<Long> processIds, boolean deletePermissions) throws SQLException {
+        List<Long> tokenIds = Lists.newArrayList(selectIds(connection, "select ID from " + TOKEN_TABLE + " where PROCESS_ID in ", processIds));
+        if (deletePermissions) {
+            executeUpdate(connection, "delete from PERMISSION_MAPPING where TYPE_ID = " + SecuredObjectType.PROCESS.ordinal()
+                    + " and IDENTIFIABLE_ID in ", processIds);
+        }
+        executeUpdate(connection, "delete from BPM_LOG where PROCESS_ID in ", processIds);
+        executeUpdate(connection, "delete from BPM_JOB where PROCESS_ID in ", processIds);
+        executeUpdate(connection, "delete from BPM_VARIABLE where PROCESS_ID in ", processIds);
+        executeUpdate(connection, "delete from BPM_SWIMLANE where PROCESS_ID in ", processIds);
+        executeUpdate(connection, "delete from BPM_SUBPROCESS where PARENT_PROCESS_ID in ", processIds);
+        // breaks token - process and token - parent token references
+        executeUpdate(connection, "update " + TOKEN_TABLE + " set PROCESS_ID = null, PARENT_ID = null where ID in ", tokenIds);
+        executeUpdate(connection, "delete from " + PROCESS_TABLE + " where ID in ", processIds);
+        executeUpdate(connection, "delete from " + TOKEN_TABLE + " where ID in ", tokenIds);
+    }
+
+    private Set<Long> selectIds(Connection connection, String sqlPrefix, Collection<Long> ids) throws SQLException {
+        Set<Long> result = Sets.newHashSet();
+        for (List<Long> window : Lists.partition(Lists.newArrayList(ids), parametersCount)) {
+            PreparedStatement statement = connection.prepareStatement(sqlPrefix + inClause(window.size()));
+            ResultSet resultSet = null;
+            try {
+                setParameters(statement, window, 1);
+                resultSet = statement.executeQuery();
+                while (resultSet.next()) {
+                    result.add(resultSet.getLong(1));
+                }
+            } finally {
+                SQLCommons.releaseResources(statement, resultSet);
+            }
+        }
+        return result;
+    }
+
+    private void executeUpdate(Connection connection, String sqlPrefix, List<Long> ids) throws SQLException {
+        for (List<Long> window : Lists.partition(ids, parametersCount)) {
+            PreparedStatement statement = connection.prepareStatement(sqlPrefix + inClause(window.size()));
+            try {
+                setParameters(statement, window, 1);
+                statement.executeUpdate();
+            } finally {
+                SQLCommons.releaseResources(statement);
+            }
+        }
+    }
+
+    private void executeBatch(Connection connection, String sql, List<Object[]> parameters) throws SQLException {
+        if (parameters.isEmpty()) {
+            return;
+        }
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (List<Object[]> batch : Lists.partition(parameters, batchSize)) {
+                for (Object[] values : batch) {
+                    for (int i = 0; i < values.length; i++) {
+                        statement.setObject(i + 1, values[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        } finally {
+            SQLCommons.releaseResources(statement);
+        }
+    }
+
+    private void setIdentityInsert(Connection connection, String table, boolean enabled) {
+        if (!identityInsert) {
+            return;
+        }
+        Statement statement = null;
+        try {
+            statement = connection.createStatement();
+            statement.execute("SET IDENTITY_INSERT " + table + (enabled ? " ON" : " OFF"));
+        } catch (SQLException e) {
+            // table without identity column
+            log.debug("Unable to set identity insert for " + table + ": " + e);
+        } finally {
+            SQLCommons.releaseResources(statement);
+        }
+    }
+
+    private static void setParameters(PreparedStatement statement, List<Long> ids, int firstIndex) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            statement.setLong(firstIndex + i, ids.get(i));
+        }
+    }
+
+    private static String inClause(int size) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < size; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.append(")").toString();
+    }
+
+    private static void rollback(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.warn("Unable to rollback", e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ru.runa.wfe.service.logic.archiving;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.security.SecuredObjectType;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs archiving between two in-memory H2 databases with simplified process tables.
+ */
+public class BulkArchivingEngineTest extends Assert {
+    private static final int ROOT_PROCESS_COUNT = 5;
+    private static final String[] SCHEMA = { "create table BPM_PROCESS (ID bigint primary key, PARENT_ID bigint, END_DATE timestamp, DEFINITION_ID bigint)",
+            "create table BPM_TOKEN (ID bigint primary key, PROCESS_ID bigint, PARENT_ID bigint)",
+            "create table BPM_SUBPROCESS (ID bigint primary key, PARENT_PROCESS_ID bigint)",
+            "create table BPM_SWIMLANE (ID bigint primary key, PROCESS_ID bigint, EXECUTOR_ID bigint)",
+            "create table BPM_VARIABLE (ID bigint primary key, PROCESS_ID bigint)", "create table BPM_JOB (ID bigint primary key, PROCESS_ID bigint)",
+            "create table BPM_LOG (ID bigint primary key, PROCESS_ID bigint)",
+            "create table PERMISSION_MAPPING (ID bigint auto_increment primary key, TYPE_ID int, IDENTIFIABLE_ID bigint)",
+            "create table BPM_PROCESS_DEFINITION (ID bigint primary key, CREATE_USER_ID bigint, UPDATE_USER_ID bigint)",
+            "create table EXECUTOR (ID bigint primary key)" };
+    private final DataSource sourceDataSource = createDataSource("source");
+    private final DataSource archiveDataSource = createDataSource("archive");
+
+    private static DataSource createDataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        return dataSource;
+    }
+
+    @BeforeMethod
+    public void createDatabases() throws SQLException {
+        List<String> data = Lists.newArrayList("insert into EXECUTOR values (1)", "insert into BPM_PROCESS_DEFINITION values (1, 1, null)");
+        for (int i = 1; i <= ROOT_PROCESS_COUNT; i++) {
+            int subprocessId = 100 + i;
+            data.add("insert into BPM_PROCESS values (" + i + ", null, '2000-01-01 00:00:00', 1)");
+            data.add("insert into BPM_PROCESS values (" + subprocessId + ", " + i + ", '2000-01-01 00:00:00', 1)");
+            data.add("insert into BPM_TOKEN values (" + i + ", " + i + ", null)");
+            data.add("insert into BPM_TOKEN values (" + subprocessId + ", " + subprocessId + ", null)");
+            data.add("insert into BPM_SUBPROCESS values (" + i + ", " + i + ")");
+            data.add("insert into BPM_SWIMLANE values (" + i + ", " + i + ", 1)");
+            data.add("insert into BPM_VARIABLE values (" + i + ", " + subprocessId + ")");
+            data.add("insert into BPM_LOG values (" + i + ", " + i + ")");
+            data.add("insert into BPM_LOG values (" + subprocessId + ", " + subprocessId + ")");
+            data.add("insert into PERMISSION_MAPPING (TYPE_ID, IDENTIFIABLE_ID) values (" + SecuredObjectType.PROCESS.ordinal() + ", " + i + ")");
+        }
+        execute(sourceDataSource, "drop all objects");
+        execute(sourceDataSource, SCHEMA);
+        execute(sourceDataSource, data.toArray(new String[data.size()]));
+        execute(archiveDataSource, "drop all objects");
+        execute(archiveDataSource, SCHEMA);
+    }
+
+    @Test
+    public void testArchive() throws SQLException {
+        ArchivingReport report = new BulkArchivingEngine(sourceDataSource, archiveDataSource, false).archiveProcessesEndedBefore(new Date(), 100);
+        assertEquals(report.getRootProcessCount(), ROOT_PROCESS_COUNT);
+        assertEquals(report.getFailedPartitionCount(), 0);
+        assertArchived();
+    }
+
+    @Test
+    public void testRepeatedPartitionKeepsArchive() throws SQLException {
+        BulkArchivingEngine engine = new BulkArchivingEngine(sourceDataSource, archiveDataSource, false);
+        engine.archiveProcessesEndedBefore(new Date(), 100);
+        // other node with stale list of root processes
+        ArchivingReport report = new ArchivingReport();
+        new BulkArchivingEngine(sourceDataSource, archiveDataSource, false).archivePartition(Lists.newArrayList(1L, 2L, 3L, 4L, 5L), report);
+        assertEquals(report.getRootProcessCount(), 0);
+        assertEquals(report.getFailedPartitionCount(), 0);
+        assertArchived();
+    }
+
+    @Test
+    public void testPartitionRetriedAfterArchiveCommit() throws SQLException {
+        // rows left in archive by run which failed before source deletion
+        execute(archiveDataSource, "insert into BPM_PROCESS values (1, null, '2000-01-01 00:00:00', 1)", "insert into BPM_LOG values (1, 1)",
+                "insert into BPM_LOG values (101, 101)");
+        ArchivingReport report = new BulkArchivingEngine(sourceDataSource, archiveDataSource, false).archiveProcessesEndedBefore(new Date(), 100);
+        assertEquals(report.getFailedPartitionCount(), 0);
+        assertArchived();
+    }
+
+    @Test
+    public void testConcurrentRuns() throws Exception {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<ArchivingReport>> futures = Lists.newArrayList();
+            for (int i = 0; i < 2; i++) {
+                final BulkArchivingEngine engine = new BulkArchivingEngine(sourceDataSource, archiveDataSource, false);
+                futures.add(executorService.submit(new Callable<ArchivingReport>() {
+
+                    @Override
+                    public ArchivingReport call() throws Exception {
+                        startLatch.await();
+                        return engine.archiveProcessesEndedBefore(new Date(), 100);
+                    }
+                }));
+            }
+            startLatch.countDown();
+            int rootProcessCount = 0;
+            for (Future<ArchivingReport> future : futures) {
+                ArchivingReport report = future.get();
+                assertEquals(report.getFailedPartitionCount(), 0);
+                rootProcessCount += report.getRootProcessCount();
+            }
+            assertEquals(rootProcessCount, ROOT_PROCESS_COUNT);
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertArchived();
+    }
+
+    private void assertArchived() throws SQLException {
+        assertEquals(count(sourceDataSource, "BPM_PROCESS"), 0);
+        assertEquals(count(sourceDataSource, "BPM_LOG"), 0);
+        assertEquals(count(sourceDataSource, "PERMISSION_MAPPING"), 0);
+        assertEquals(count(archiveDataSource, "BPM_PROCESS"), 2 * ROOT_PROCESS_COUNT);
+        assertEquals(count(archiveDataSource, "BPM_TOKEN"), 2 * ROOT_PROCESS_COUNT);
+        assertEquals(count(archiveDataSource, "BPM_SUBPROCESS"), ROOT_PROCESS_COUNT);
+        assertEquals(count(archiveDataSource, "BPM_SWIMLANE"), ROOT_PROCESS_COUNT);
+        assertEquals(count(archiveDataSource, "BPM_VARIABLE"), ROOT_PROCESS_COUNT);
+        assertEquals(count(archiveDataSource, "BPM_LOG"), 2 * ROOT_PROCESS_COUNT);
+        assertEquals(count(archiveDataSource, "EXECUTOR"), 1);
+        assertEquals(count(archiveDataSource, "BPM_PROCESS_DEFINITION"), 1);
+    }
+
+    private static int count(DataSource dataSource, String table) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            ResultSet resultSet = connection.createStatement().executeQuery("select count(*) from " + table);
+            resultSet.next();
+            return resultSet.getInt(1);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void execute(DataSource dataSource, String... sqls) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.runa.wf.logic.bot.webservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 100 bot task threads call SOAP endpoint stub on loopback which answers in {@value #SERVICE_LATENCY_MILLIS} ms: requests through
+ * {@link WebServiceConnections} (per-endpoint limit, keep-alive reuse) against new connection per request as web service bot tasks did before.
+ * Does not need database.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@Threads(100)
+@State(Scope.Benchmark)
+public class WebServiceConnectionsBenchmark {
+    private static final int SERVICE_LATENCY_MILLIS = 10;
+    private static final byte[] REQUEST = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body><request>"
+            + Strings.repeat("<item>benchmark</item>", 50) + "</request></soapenv:Body></soapenv:Envelope>").getBytes(Charsets.UTF_8);
+    private static final byte[] RESPONSE = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body><response>"
+            + Strings.repeat("<item>benchmark</item>", 200) + "</response></soapenv:Body></soapenv:Envelope>").getBytes(Charsets.UTF_8);
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private URL url;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 200);
+        server.createContext("/service", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    ByteStreams.toByteArray(exchange.getRequestBody());
+                    Thread.sleep(SERVICE_LATENCY_MILLIS);
+                    exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+                    exchange.sendResponseHeaders(200, RESPONSE.length);
+                    OutputStream outputStream = exchange.getResponseBody();
+                    outputStream.write(RESPONSE);
+                    outputStream.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        serverExecutor = Executors.newFixedThreadPool(100);
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/service");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int pooledConnection() throws Exception {
+        WebServiceConnections.acquire(url);
+        HttpURLConnection connection = null;
+        try {
+            connection = WebServiceConnections.open(url);
+            send(connection);
+            int responseCode = connection.getResponseCode();
+            // response is parsed by XSLT which stops at the end of document
+            connection.getInputStream().read(new byte[RESPONSE.length / 2]);
+            return responseCode;
+        } finally {
+            WebServiceConnections.release(url, connection);
+        }
+    }
+
+    @Benchmark
+    public int connectionPerRequest() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            send(connection);
+            int responseCode = connection.getResponseCode();
+            InputStream inputStream = connection.getInputStream();
+            inputStream.read(new byte[RESPONSE.length / 2]);
+            return responseCode;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void send(HttpURLConnection connection) throws IOException {
+        connection.setRequestProperty("Content-Type", "text/xml; charset=UTF-8");
+        connection.setRequestProperty("SOAPAction", "\"\"");
+        connection.setFixedLengthStreamingMode(REQUEST.length);
+        connection.setDoOutput(true);
+        OutputStream outputStream = connection.getOutputStream();
+        try {
+            outputStream.write(REQUEST);
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+}
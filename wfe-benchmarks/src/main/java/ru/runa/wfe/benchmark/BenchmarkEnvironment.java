@@ -0,0 +1,209 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.transaction.UserTransaction;
+
+import org.springframework.mock.jndi.SimpleNamingContextBuilder;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionListeners;
+import ru.runa.wfe.commons.Utils;
+import ru.runa.wfe.commons.logic.InitializerLogic;
+import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
+import ru.runa.wfe.definition.logic.DefinitionLogic;
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.execution.Process;
+import ru.runa.wfe.execution.dao.ProcessDAO;
+import ru.runa.wfe.execution.logic.ExecutionLogic;
+import ru.runa.wfe.security.auth.SubjectPrincipalsHelper;
+import ru.runa.wfe.security.auth.UserHolder;
+import ru.runa.wfe.security.logic.AuthenticationLogic;
+import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.task.logic.TaskLogic;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.User;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import bitronix.tm.BitronixTransactionManager;
+import bitronix.tm.TransactionManagerServices;
+import bitronix.tm.resource.jdbc.PoolingDataSource;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Runs core services with real system.context.xml outside of application server: Bitronix JTA transaction manager and pooled in-memory H2
+ * database are bound to JNDI names from wfe.custom.database.properties, database is created by {@link InitializerLogic} as on the first server
+ * start. One environment is created per benchmark JVM.
+ *
+ * @since 4.3.0
+ */
+public class BenchmarkEnvironment {
+    public static final String DATASOURCE_JNDI_NAME = "java:/benchmark-ds";
+    public static final String APPROVERS_GROUP_NAME = "benchmark.approvers";
+    public static final String APPROVER_NAME = "benchmark.approver";
+    private static BenchmarkEnvironment instance;
+    private final BitronixTransactionManager transactionManager;
+    private final User administrator;
+    private final User approver;
+    private final Long definitionId;
+
+    public static synchronized BenchmarkEnvironment getInstance() {
+        if (instance == null) {
+            instance = new BenchmarkEnvironment();
+        }
+        return instance;
+    }
+
+    private BenchmarkEnvironment() {
+        try {
+            TransactionManagerServices.getConfiguration().setServerId("wfe-benchmarks");
+            TransactionManagerServices.getConfiguration().setJournal("null");
+            transactionManager = TransactionManagerServices.getTransactionManager();
+            PoolingDataSource dataSource = new PoolingDataSource();
+            dataSource.setUniqueName("benchmark-ds");
+            dataSource.setClassName("org.h2.jdbcx.JdbcDataSource");
+            dataSource.setMaxPoolSize(20);
+            dataSource.setAllowLocalTransactions(true);
+            dataSource.getDriverProperties().setProperty("URL", "jdbc:h2:mem:wfe;DB_CLOSE_DELAY=-1;MVCC=TRUE");
+            dataSource.getDriverProperties().setProperty("user", "sa");
+            dataSource.getDriverProperties().setProperty("password", "");
+            dataSource.init();
+            SimpleNamingContextBuilder builder = SimpleNamingContextBuilder.emptyActivatedContextBuilder();
+            builder.bind(DATASOURCE_JNDI_NAME, dataSource);
+            // names used by Spring JtaTransactionManager, Hibernate JBossTransactionManagerLookup and Utils
+            builder.bind("java:comp/UserTransaction", transactionManager);
+            builder.bind("UserTransaction", transactionManager);
+            builder.bind("java:/TransactionManager", transactionManager);
+            builder.bind("java:jboss/TransactionSynchronizationRegistry", TransactionManagerServices.getTransactionSynchronizationRegistry());
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+        getBean(InitializerLogic.class).onStartup(transactionManager);
+        administrator = execute(null, new Callable<User>() {
+
+            @Override
+            public User call() {
+                return getBean(AuthenticationLogic.class).authenticate(SystemProperties.getAdministratorName(),
+                        SystemProperties.getAdministratorDefaultPassword());
+            }
+        });
+        approver = execute(administrator, new Callable<User>() {
+
+            @Override
+            public User call() {
+                ExecutorDAO executorDAO = getBean(ExecutorDAO.class);
+                Group group = executorDAO.create(new Group(APPROVERS_GROUP_NAME, APPROVERS_GROUP_NAME));
+                Actor actor = executorDAO.create(new Actor(APPROVER_NAME, APPROVER_NAME));
+                executorDAO.addExecutorToGroup(actor, group);
+                return SubjectPrincipalsHelper.createUser(actor);
+            }
+        });
+        definitionId = execute(administrator, new Callable<Long>() {
+
+            @Override
+            public Long call() {
+                byte[] archive = BenchmarkProcessArchive.create();
+                return getBean(DefinitionLogic.class).deployProcessDefinition(administrator, archive, Lists.newArrayList("benchmark")).getId();
+            }
+        });
+    }
+
+    public <T> T getBean(Class<T> beanClass) {
+        return ApplicationContextFactory.getContext().getBean(beanClass);
+    }
+
+    public UserTransaction getTransaction() {
+        return transactionManager;
+    }
+
+    public User getAdministrator() {
+        return administrator;
+    }
+
+    /**
+     * @return member of the group to which benchmark process tasks are assigned.
+     */
+    public User getApprover() {
+        return approver;
+    }
+
+    /**
+     * @return identity of deployed benchmark process definition, see {@link BenchmarkProcessArchive}.
+     */
+    public Long getDefinitionId() {
+        return definitionId;
+    }
+
+    /**
+     * Executes callable in own transaction like service bean interceptor does.
+     *
+     * @param user
+     *            user bound to execution thread, can be <code>null</code>
+     */
+    public <T> T execute(User user, Callable<T> callable) {
+        try {
+            if (user != null) {
+                UserHolder.set(user);
+            }
+            transactionManager.begin();
+            T result = callable.call();
+            transactionManager.commit();
+            return result;
+        } catch (Throwable th) {
+            Utils.rollbackTransaction(transactionManager);
+            throw Throwables.propagate(th);
+        } finally {
+            UserHolder.reset();
+            TransactionListeners.fireTransactionComplete(transactionManager);
+        }
+    }
+
+    /**
+     * Starts benchmark process which stops at approver task.
+     *
+     * @return started process id
+     */
+    public Long startProcess() {
+        return execute(administrator, new Callable<Long>() {
+
+            @Override
+            public Long call() {
+                Map<String, Object> variables = Maps.newHashMap();
+                variables.put("amount", 10L);
+                variables.put("comment", "benchmark");
+                variables.put("deadline", new Date());
+                return getBean(ExecutionLogic.class).startProcess(administrator, definitionId, variables);
+            }
+        });
+    }
+
+    /**
+     * @return identity of the single active task of process
+     */
+    public Long getTaskId(final Long processId) {
+        return execute(administrator, new Callable<Long>() {
+
+            @Override
+            public Long call() {
+                List<WfTask> tasks = getBean(TaskLogic.class).getTasks(administrator, processId, false);
+                return tasks.get(0).getId();
+            }
+        });
+    }
+
+    /**
+     * Creates execution context of process like action handlers receive; must be invoked inside {@link #execute(User, Callable)}.
+     */
+    public ExecutionContext createExecutionContext(Long processId) {
+        Process process = getBean(ProcessDAO.class).getNotNull(processId);
+        return new ExecutionContext(getBean(IProcessDefinitionLoader.class).getDefinition(process), process);
+    }
+}
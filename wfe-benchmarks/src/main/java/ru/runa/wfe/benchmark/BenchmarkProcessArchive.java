@@ -0,0 +1,61 @@
+package ru.runa.wfe.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.definition.IFileDataProvider;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Builds process archive of benchmark process: start task, groovy script node, task assigned to
+ * {@link BenchmarkEnvironment#APPROVERS_GROUP_NAME} and end. Graph image is generated as blank picture.
+ *
+ * @since 4.3.0
+ */
+public class BenchmarkProcessArchive {
+    private static final String RESOURCE_PATH = "ru/runa/wfe/benchmark/process/";
+
+    public static byte[] create() {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+            for (String fileName : new String[] { IFileDataProvider.PROCESSDEFINITION_XML_FILE_NAME, IFileDataProvider.VARIABLES_XML_FILE_NAME,
+                    IFileDataProvider.GPD_XML_FILE_NAME }) {
+                byte[] data = ByteStreams.toByteArray(ClassLoaderUtil.getAsStreamNotNull(RESOURCE_PATH + fileName, BenchmarkProcessArchive.class));
+                addEntry(zipOutputStream, fileName, data);
+            }
+            addEntry(zipOutputStream, IFileDataProvider.GRAPH_IMAGE_NEW_FILE_NAME, createGraphImage());
+            zipOutputStream.close();
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private static void addEntry(ZipOutputStream zipOutputStream, String fileName, byte[] data) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(fileName));
+        zipOutputStream.write(data);
+        zipOutputStream.closeEntry();
+    }
+
+    private static byte[] createGraphImage() throws IOException {
+        BufferedImage image = new BufferedImage(300, 400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        return outputStream.toByteArray();
+    }
+}
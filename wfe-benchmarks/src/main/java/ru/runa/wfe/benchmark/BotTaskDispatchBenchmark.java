@@ -0,0 +1,99 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.bot.BotTaskDescriptor;
+import ru.runa.wfe.bot.BotTaskQueues;
+import ru.runa.wfe.presentation.BatchPresentation;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.task.logic.TaskLogic;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Cost for bot station to pick up one new task of bot which already has many assigned tasks: polling loads whole task list of bot, push
+ * dispatch passes queued descriptor and loads the single task.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BotTaskDispatchBenchmark {
+    private static final Long BOT_STATION_ID = 1L;
+    private static final Long BOT_ID = 1L;
+    @Param({ "100", "1000" })
+    public int tasksCount;
+    private BenchmarkEnvironment environment;
+    private BatchPresentation batchPresentation;
+    private Long taskId;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        Long processId = null;
+        for (int i = 0; i < tasksCount; i++) {
+            processId = environment.startProcess();
+        }
+        taskId = environment.getTaskId(processId);
+        batchPresentation = BatchPresentationFactory.TASKS.createNonPaged();
+        BotTaskQueues.registerConsumer(BOT_STATION_ID, new BotTaskQueues.Consumer() {
+
+            @Override
+            public void onBotTasksQueued(Long botStationId) {
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        BotTaskQueues.unregisterConsumer(BOT_STATION_ID);
+    }
+
+    @Benchmark
+    public List<WfTask> poll() {
+        return environment.execute(environment.getApprover(), new Callable<List<WfTask>>() {
+
+            @Override
+            public List<WfTask> call() {
+                return environment.getBean(TaskLogic.class).getMyTasks(environment.getApprover(), batchPresentation);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<WfTask> push() {
+        BotTaskQueues.offer(Lists.newArrayList(new BotTaskDescriptor(BOT_STATION_ID, BOT_ID, taskId)));
+        final List<BotTaskDescriptor> descriptors = BotTaskQueues.drain(BOT_STATION_ID);
+        return environment.execute(environment.getApprover(), new Callable<List<WfTask>>() {
+
+            @Override
+            public List<WfTask> call() {
+                List<WfTask> tasks = Lists.newArrayList();
+                for (BotTaskDescriptor descriptor : descriptors) {
+                    tasks.add(environment.getBean(TaskLogic.class).getTask(environment.getApprover(), descriptor.getTaskId()));
+                }
+                return tasks;
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.commons.cache.CachingLogic;
+import ru.runa.wfe.commons.logic.CacheWarmupLogic;
+import ru.runa.wfe.presentation.BatchPresentation;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.task.logic.TaskLogic;
+
+/**
+ * First task list request after restart: all caches are reset before each measured call as on server start, then they are either built by
+ * {@link CacheWarmupLogic} before the request or lazily by the request itself. Warmup duration is not included.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheWarmupBenchmark {
+    @Param({ "true", "false" })
+    public boolean warmup;
+    private BenchmarkEnvironment environment;
+    private BatchPresentation batchPresentation;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        for (int i = 0; i < 100; i++) {
+            environment.startProcess();
+        }
+        batchPresentation = BatchPresentationFactory.TASKS.createDefault();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCaches() {
+        CachingLogic.resetAllCaches();
+        if (warmup) {
+            environment.getBean(CacheWarmupLogic.class).warmup();
+        }
+    }
+
+    @Benchmark
+    public List<WfTask> firstTaskList() {
+        return environment.execute(environment.getApprover(), new Callable<List<WfTask>>() {
+
+            @Override
+            public List<WfTask> call() {
+                return environment.getBean(TaskLogic.class).getMyTasks(environment.getApprover(), batchPresentation);
+            }
+        });
+    }
+}
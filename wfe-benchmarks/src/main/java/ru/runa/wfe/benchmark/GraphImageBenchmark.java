@@ -0,0 +1,52 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.execution.logic.ExecutionLogic;
+
+/**
+ * Process graph rendering with passed transitions and active task highlighted, as shown on process page.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphImageBenchmark {
+    private BenchmarkEnvironment environment;
+    private Long processId;
+    private Long taskId;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        processId = environment.startProcess();
+        taskId = environment.getTaskId(processId);
+    }
+
+    @Benchmark
+    public byte[] getProcessDiagram() {
+        return environment.execute(environment.getAdministrator(), new Callable<byte[]>() {
+
+            @Override
+            public byte[] call() {
+                return environment.getBean(ExecutionLogic.class).getProcessDiagram(environment.getAdministrator(), processId, taskId, null, null);
+            }
+        });
+    }
+}
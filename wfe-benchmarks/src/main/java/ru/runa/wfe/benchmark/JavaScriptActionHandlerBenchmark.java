@@ -0,0 +1,66 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.extension.handler.JavaScriptActionHandler;
+
+/**
+ * JavaScript action handler execution in own transaction: script reads two of process variables and writes one. Measured by single thread and
+ * by 8 threads sharing pooled engines, each thread works with own process.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JavaScriptActionHandlerBenchmark {
+    private static final String SCRIPT = "total = amount * 2; if (comment == null) { comment = 'none'; }";
+    private BenchmarkEnvironment environment;
+    private Long processId;
+    private final JavaScriptActionHandler handler = new JavaScriptActionHandler();
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        processId = environment.startProcess();
+        handler.setConfiguration(SCRIPT);
+    }
+
+    @Benchmark
+    public void execute() {
+        executeHandler();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void executeConcurrently() {
+        executeHandler();
+    }
+
+    private void executeHandler() {
+        environment.execute(environment.getAdministrator(), new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                handler.execute(environment.createExecutionContext(processId));
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.security.Permission;
+import ru.runa.wfe.security.auth.SubjectPrincipalsHelper;
+import ru.runa.wfe.security.dao.PermissionDAO;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.User;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Permission checks of actor which gets permissions through nested groups.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionBenchmark {
+    private static final int GROUPS_DEPTH = 5;
+    @Param({ "100" })
+    public int securedObjectsCount;
+    private BenchmarkEnvironment environment;
+    private User user;
+    private final List<Actor> securedObjects = Lists.newArrayList();
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        user = environment.execute(environment.getAdministrator(), new Callable<User>() {
+
+            @Override
+            public User call() {
+                ExecutorDAO executorDAO = environment.getBean(ExecutorDAO.class);
+                PermissionDAO permissionDAO = environment.getBean(PermissionDAO.class);
+                Actor actor = executorDAO.create(new Actor("permission.actor", "permission.actor"));
+                Group topGroup = null;
+                Group group = null;
+                for (int i = 0; i < GROUPS_DEPTH; i++) {
+                    Group parent = group;
+                    group = executorDAO.create(new Group("permission.group." + i, "permission.group." + i));
+                    if (parent != null) {
+                        executorDAO.addExecutorToGroup(group, parent);
+                    } else {
+                        topGroup = group;
+                    }
+                }
+                executorDAO.addExecutorToGroup(actor, group);
+                for (int i = 0; i < securedObjectsCount; i++) {
+                    Actor securedObject = executorDAO.create(new Actor("permission.object." + i, "permission.object." + i));
+                    permissionDAO.setPermissions(topGroup, Lists.newArrayList(Permission.READ), securedObject);
+                    securedObjects.add(securedObject);
+                }
+                return SubjectPrincipalsHelper.createUser(actor);
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean isAllowed() {
+        return environment.execute(user, new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() {
+                return environment.getBean(PermissionDAO.class).isAllowed(user, Permission.READ, securedObjects.get(0));
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean[] isAllowedForList() {
+        return environment.execute(user, new Callable<boolean[]>() {
+
+            @Override
+            public boolean[] call() {
+                return environment.getBean(PermissionDAO.class).isAllowed(user, Permission.READ, securedObjects);
+            }
+        });
+    }
+}
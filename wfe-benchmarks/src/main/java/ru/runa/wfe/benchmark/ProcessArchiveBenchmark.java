@@ -0,0 +1,54 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.definition.par.ProcessArchive;
+import ru.runa.wfe.lang.ProcessDefinition;
+
+/**
+ * Unpacking and parsing of process archive as done on deployment and on process definition cache miss.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessArchiveBenchmark {
+    private BenchmarkEnvironment environment;
+    private byte[] archive;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        archive = BenchmarkProcessArchive.create();
+    }
+
+    @Benchmark
+    public ProcessDefinition parse() {
+        return environment.execute(environment.getAdministrator(), new Callable<ProcessDefinition>() {
+
+            @Override
+            public ProcessDefinition call() {
+                Deployment deployment = new Deployment();
+                deployment.setContent(archive);
+                return new ProcessArchive(deployment).parseProcessDefinition();
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.task.logic.TaskLogic;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Process start (start task, script node, task creation with group assignment) and task completion (variables, transition to end node) in own
+ * transactions.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessExecutionBenchmark {
+    private BenchmarkEnvironment environment;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+    }
+
+    @Benchmark
+    public Long startProcess() {
+        return environment.startProcess();
+    }
+
+    @Benchmark
+    public void completeTask(final ActiveTask activeTask) {
+        environment.execute(environment.getApprover(), new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                Map<String, Object> variables = Maps.newHashMap();
+                variables.put("comment", "approved");
+                environment.getBean(TaskLogic.class).completeTask(environment.getApprover(), activeTask.taskId, variables, null);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Task to complete is created before each invocation, operation is long enough for per invocation setup.
+     */
+    @State(Scope.Thread)
+    public static class ActiveTask {
+        private Long taskId;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            BenchmarkEnvironment environment = BenchmarkEnvironment.getInstance();
+            taskId = environment.getTaskId(environment.startProcess());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ru.runa.wfe.audit.IAttributes;
+import ru.runa.wfe.audit.ProcessLogAttributesCodec;
+import ru.runa.wfe.commons.xml.XmlUtils;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Process log attributes decoding in legacy XML and binary formats over typical history sample: node, transition, task, escalation and
+ * variable logs. Storage sizes of the sample are printed on setup. Does not need database.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessLogAttributesBenchmark {
+    private final List<String> contents = Lists.newArrayList();
+    private final List<byte[]> attributesData = Lists.newArrayList();
+
+    @Setup
+    public void setUp() {
+        List<Map<String, String>> sample = Lists.newArrayList();
+        sample.add(attributes(IAttributes.ATTR_NODE_NAME, "Согласование заявки", IAttributes.ATTR_NODE_TYPE, "TASK_STATE"));
+        sample.add(attributes(IAttributes.ATTR_TRANSITION_ID, "tr1", IAttributes.ATTR_NODE_ID_FROM, "ID3", IAttributes.ATTR_NODE_ID_TO, "ID4"));
+        sample.add(attributes(IAttributes.ATTR_TASK_ID, "1048576", IAttributes.ATTR_TASK_NAME, "Согласование заявки", IAttributes.ATTR_DUE_DATE,
+                "19.10.2026 18:00"));
+        sample.add(attributes(IAttributes.ATTR_TASK_ID, "1048576", IAttributes.ATTR_TASK_NAME, "Согласование заявки",
+                IAttributes.ATTR_MESSAGE, "12;15;301"));
+        sample.add(attributes(IAttributes.ATTR_TASK_ID, "1048576", IAttributes.ATTR_TASK_NAME, "Согласование заявки",
+                IAttributes.ATTR_ACTOR_NAME, BenchmarkEnvironment.APPROVER_NAME));
+        sample.add(attributes(IAttributes.ATTR_VARIABLE_NAME, "amount", IAttributes.ATTR_OLD_VALUE, "10", IAttributes.ATTR_NEW_VALUE, "20",
+                IAttributes.ATTR_IS_FILE_VALUE, "false"));
+        sample.add(attributes(IAttributes.ATTR_VARIABLE_NAME, "comment", IAttributes.ATTR_NEW_VALUE, "benchmark comment",
+                IAttributes.ATTR_IS_FILE_VALUE, "false"));
+        long contentBytes = 0;
+        long attributesDataBytes = 0;
+        for (Map<String, String> attributes : sample) {
+            String content = XmlUtils.serialize(attributes);
+            byte[] data = ProcessLogAttributesCodec.encode(attributes);
+            contents.add(content);
+            attributesData.add(data);
+            contentBytes += content.getBytes(Charsets.UTF_8).length;
+            attributesDataBytes += data.length;
+        }
+        System.out.println("Sample of " + sample.size() + " logs: XML " + contentBytes + " bytes, binary " + attributesDataBytes + " bytes, saved "
+                + (100 - 100 * attributesDataBytes / contentBytes) + "%");
+    }
+
+    private static Map<String, String> attributes(String... namesAndValues) {
+        Map<String, String> attributes = Maps.newHashMap();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            attributes.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return attributes;
+    }
+
+    /**
+     * Legacy loading: XML is parsed on each entity load.
+     */
+    @Benchmark
+    public void decodeXml(Blackhole blackhole) {
+        for (String content : contents) {
+            blackhole.consume(XmlUtils.deserialize(content));
+        }
+    }
+
+    @Benchmark
+    public void decodeBinary(Blackhole blackhole) {
+        for (byte[] data : attributesData) {
+            blackhole.consume(ProcessLogAttributesCodec.decode(data));
+        }
+    }
+
+    /**
+     * History rendering and task list checks read one or two attributes of loaded log.
+     */
+    @Benchmark
+    public void decodeBinarySingleAttribute(Blackhole blackhole) {
+        for (byte[] data : attributesData) {
+            blackhole.consume(ProcessLogAttributesCodec.decode(data, IAttributes.ATTR_TASK_NAME));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.audit.TransitionLog;
+import ru.runa.wfe.audit.dao.ProcessLogDAO;
+import ru.runa.wfe.commons.PropertyResources;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.execution.Process;
+import ru.runa.wfe.execution.dao.ProcessDAO;
+
+/**
+ * Process log inserts per second: each invocation writes {@value #LOGS_PER_TRANSACTION} logs in one transaction with per-transaction buffer
+ * (jdbc batches) or with one insert per log.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessLogInsertBenchmark {
+    private static final String BUFFER_ENABLED_PROPERTY = "process.log.buffer.enabled";
+    private static final int LOGS_PER_TRANSACTION = 100;
+    @Param({ "true", "false" })
+    public boolean bufferEnabled;
+    private BenchmarkEnvironment environment;
+    private boolean defaultBufferEnabled;
+    private Long processId;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        defaultBufferEnabled = SystemProperties.isProcessLogBufferEnabled();
+        PropertyResources.renewCachedProperty(SystemProperties.CONFIG_FILE_NAME, BUFFER_ENABLED_PROPERTY, String.valueOf(bufferEnabled));
+        processId = environment.startProcess();
+    }
+
+    @TearDown
+    public void tearDown() {
+        PropertyResources.renewCachedProperty(SystemProperties.CONFIG_FILE_NAME, BUFFER_ENABLED_PROPERTY, String.valueOf(defaultBufferEnabled));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOGS_PER_TRANSACTION)
+    public void addLogs() {
+        environment.execute(environment.getAdministrator(), new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                Process process = environment.getBean(ProcessDAO.class).getNotNull(processId);
+                ProcessLogDAO processLogDAO = environment.getBean(ProcessLogDAO.class);
+                for (int i = 0; i < LOGS_PER_TRANSACTION; i++) {
+                    processLogDAO.addLog(new TransitionLog(), process, null);
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.commons.GroovyScriptExecutor;
+import ru.runa.wfe.commons.ftl.ExpressionEvaluator;
+import ru.runa.wfe.var.MapVariableProvider;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Expression substitution and groovy evaluation used by decisions, script nodes and handler configurations. Does not need database.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptEvaluationBenchmark {
+    private MapVariableProvider variableProvider;
+    private final GroovyScriptExecutor scriptExecutor = new GroovyScriptExecutor();
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> variables = Maps.newHashMap();
+        variables.put("amount", 10L);
+        variables.put("bonus", 5L);
+        variables.put("comment", "benchmark");
+        variableProvider = new MapVariableProvider(variables);
+    }
+
+    @Benchmark
+    public String substitute() {
+        return ExpressionEvaluator.substitute("Request of ${amount} with ${comment}", variableProvider);
+    }
+
+    @Benchmark
+    public Object evaluateVariable() {
+        return ExpressionEvaluator.evaluateVariable(variableProvider, "${amount}");
+    }
+
+    @Benchmark
+    public Object evaluateGroovyExpression() {
+        return scriptExecutor.evaluateScript(variableProvider, "amount * 2 + bonus > 20");
+    }
+
+    @Benchmark
+    public Map<String, Object> executeGroovyScript() {
+        return scriptExecutor.executeScript(variableProvider, "total = amount * 2 + bonus");
+    }
+}
@@ -0,0 +1,60 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.presentation.BatchPresentation;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.task.logic.ITaskListBuilder;
+
+/**
+ * Task list of actor which receives group tasks of many processes.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskListBenchmark {
+    @Param({ "100", "1000" })
+    public int tasksCount;
+    private BenchmarkEnvironment environment;
+    private BatchPresentation batchPresentation;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        for (int i = 0; i < tasksCount; i++) {
+            environment.startProcess();
+        }
+        batchPresentation = BatchPresentationFactory.TASKS.createDefault();
+    }
+
+    @Benchmark
+    public List<WfTask> getTasks() {
+        return environment.execute(environment.getApprover(), new Callable<List<WfTask>>() {
+
+            @Override
+            public List<WfTask> call() {
+                return environment.getBean(ITaskListBuilder.class).getTasks(environment.getApprover().getActor(), batchPresentation);
+            }
+        });
+    }
+}
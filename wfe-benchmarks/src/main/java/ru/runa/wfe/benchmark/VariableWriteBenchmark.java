@@ -0,0 +1,95 @@
+package ru.runa.wfe.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Variable writes of one setVariableValue(s) call in own transaction: list variable of {@value #LIST_SIZE} elements, date variable on which
+ * active task deadline depends and both together.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariableWriteBenchmark {
+    private static final int LIST_SIZE = 100;
+    private BenchmarkEnvironment environment;
+    private Long processId;
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        processId = environment.startProcess();
+    }
+
+    @Benchmark
+    public void writeList() {
+        setVariableValues(createListValue());
+    }
+
+    @Benchmark
+    public void writeDate() {
+        setVariableValues(createDateValue());
+    }
+
+    @Benchmark
+    public void writeListAndDate() {
+        Map<String, Object> variables = createListValue();
+        variables.putAll(createDateValue());
+        setVariableValues(variables);
+    }
+
+    /**
+     * Values differ between invocations so each call writes changes.
+     */
+    private Map<String, Object> createListValue() {
+        counter++;
+        List<Long> items = Lists.newArrayListWithCapacity(LIST_SIZE);
+        for (int i = 0; i < LIST_SIZE; i++) {
+            items.add(counter + i);
+        }
+        Map<String, Object> variables = Maps.newHashMap();
+        variables.put("items", items);
+        return variables;
+    }
+
+    private Map<String, Object> createDateValue() {
+        counter++;
+        Map<String, Object> variables = Maps.newHashMap();
+        variables.put("deadline", new Date(System.currentTimeMillis() + counter * 1000));
+        return variables;
+    }
+
+    private void setVariableValues(final Map<String, Object> variables) {
+        environment.execute(environment.getAdministrator(), new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                environment.createExecutionContext(processId).setVariableValues(variables);
+                return null;
+            }
+        });
+    }
+}
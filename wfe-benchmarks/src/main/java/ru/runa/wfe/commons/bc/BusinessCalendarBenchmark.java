@@ -0,0 +1,50 @@
+package ru.runa.wfe.commons.bc;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Business time arithmetic of default calendar with working time index and with day by day stepping. Placed in calendar package to switch index
+ * off.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BusinessCalendarBenchmark {
+    @Param({ "true", "false" })
+    public boolean indexEnabled;
+    @Param({ "90 business minutes", "20 business days", "-20 business days", "1 business years" })
+    public String duration;
+    private final DefaultBusinessCalendar calendar = new DefaultBusinessCalendar();
+    private Date date;
+
+    @Setup
+    public void setUp() {
+        calendar.setIndexEnabled(indexEnabled);
+        date = new Date();
+        // builds index
+        calendar.apply(date, duration);
+    }
+
+    @Benchmark
+    public Date apply() {
+        return calendar.apply(date, duration);
+    }
+}
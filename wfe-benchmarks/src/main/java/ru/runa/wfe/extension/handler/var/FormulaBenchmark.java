@@ -0,0 +1,89 @@
+package ru.runa.wfe.extension.handler.var;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.runa.wfe.benchmark.BenchmarkEnvironment;
+import ru.runa.wfe.execution.ExecutionContext;
+
+/**
+ * {@link FormulaActionHandler} configuration executed by compiled expression trees and by {@link FormulaInterpreter} against benchmark
+ * process variables. Formula is executed {@value #EXECUTIONS_PER_TRANSACTION} times in one transaction so variable loading and commit do not
+ * dominate.
+ *
+ * @since 4.3.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormulaBenchmark {
+    private static final String CONFIGURATION = "total = round((amount * 3 + 7) / 2); comment = \"total \" + total";
+    private static final int EXECUTIONS_PER_TRANSACTION = 100;
+    private BenchmarkEnvironment environment;
+    private Long processId;
+    private CompiledFormula compiledFormula;
+    private List<String> statements;
+
+    @Setup
+    public void setUp() {
+        environment = BenchmarkEnvironment.getInstance();
+        processId = environment.startProcess();
+        compiledFormula = FormulaCompiler.compile(CONFIGURATION);
+        for (CompiledFormula.Statement statement : compiledFormula.getStatements()) {
+            if (!statement.isCompiled()) {
+                throw new IllegalStateException("Not compiled: " + CONFIGURATION);
+            }
+        }
+        statements = FormulaTokenizer.splitStatements(CONFIGURATION);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXECUTIONS_PER_TRANSACTION)
+    public void compiled() {
+        environment.execute(environment.getAdministrator(), new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                ExecutionContext context = environment.createExecutionContext(processId);
+                for (int i = 0; i < EXECUTIONS_PER_TRANSACTION; i++) {
+                    compiledFormula.execute(context);
+                }
+                return null;
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EXECUTIONS_PER_TRANSACTION)
+    public void interpreted() {
+        environment.execute(environment.getAdministrator(), new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                ExecutionContext context = environment.createExecutionContext(processId);
+                for (int i = 0; i < EXECUTIONS_PER_TRANSACTION; i++) {
+                    for (String statement : statements) {
+                        new FormulaInterpreter(context).interpret(statement);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package ru.runa.wfe.user.cache;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Group membership closures on large organization: building as done on executor cache initialization and membership check. Placed in cache
+ * package to access closure directly.
+ *
+ * @since 4.3.0
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MembershipClosureBenchmark {
+    private static final int MEMBERSHIPS_PER_ACTOR = 3;
+    @Param({ "20000" })
+    public int groupsCount;
+    @Param({ "100000" })
+    public int actorsCount;
+    private final Set<Long> groupIds = Sets.newHashSet();
+    private final List<long[]> memberships = Lists.newArrayList();
+    private MembershipClosure closure;
+    private final Random random = new Random(1);
+
+    @Setup
+    public void setUp() {
+        // groups have identities [0, groupsCount), each group but roots is nested into group with lesser id
+        for (long groupId = 0; groupId < groupsCount; groupId++) {
+            groupIds.add(groupId);
+            if (groupId > 0 && random.nextInt(10) < 7) {
+                memberships.add(new long[] { random.nextInt((int) groupId), groupId });
+            }
+        }
+        for (long actorId = groupsCount; actorId < groupsCount + actorsCount; actorId++) {
+            for (int i = 0; i < MEMBERSHIPS_PER_ACTOR; i++) {
+                memberships.add(new long[] { random.nextInt(groupsCount), actorId });
+            }
+        }
+        // closures are memoized, lookups become stable after warmup
+        closure = new MembershipClosure(memberships, groupIds);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public MembershipClosure build(Blackhole blackhole) {
+        MembershipClosure closure = new MembershipClosure(memberships, groupIds);
+        for (long executorId = 0; executorId < groupsCount + actorsCount; executorId++) {
+            blackhole.consume(closure.getAllParents(executorId));
+            if (executorId < groupsCount) {
+                blackhole.consume(closure.getAllActorMembers(executorId));
+            }
+        }
+        return closure;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 10, time = 1)
+    public boolean isExecutorInGroup() {
+        long actorId = groupsCount + random.nextInt(actorsCount);
+        return MembershipClosure.contains(closure.getAllParents(actorId), random.nextInt(groupsCount));
+    }
+}
@@ -53,6 +53,72 @@ public class BotStationResources {
         }
     }
 
+    public static int getIoThreadPoolSize() {
+        try {
+            return RESOURCES.getIntegerProperty("io.thread.pool.size", 4);
+        } catch (Exception e) {
+            log.warn("io.thread.pool.size is incorrect. Reset to default", e);
+            return 4;
+        }
+    }
+
+    /**
+     * Task handlers which mostly wait for external systems, executed in separate thread pool.
+     */
+    public static List<String> getIoBoundTaskHandlerClassNames() {
+        return RESOURCES.getMultipleStringProperty("io.task.handler.classes");
+    }
+
+    /**
+     * @return max simultaneously executed tasks for bot, 0 means thread pool size
+     */
+    public static int getBotMaxConcurrentTasks(String botUsername) {
+        try {
+            int defaultValue = RESOURCES.getIntegerProperty("bot.max.concurrent.tasks", 0);
+            return RESOURCES.getIntegerProperty("bot." + botUsername + ".max.concurrent.tasks", defaultValue);
+        } catch (Exception e) {
+            log.warn("bot.max.concurrent.tasks is incorrect for " + botUsername + ". Reset to default", e);
+            return 0;
+        }
+    }
+
+    /**
+     * @return relative share of thread pool time for bot
+     */
+    public static int getBotWeight(String botUsername) {
+        try {
+            int weight = RESOURCES.getIntegerProperty("bot." + botUsername + ".weight", 1);
+            return weight > 0 ? weight : 1;
+        } catch (Exception e) {
+            log.warn("bot weight is incorrect for " + botUsername + ". Reset to default", e);
+            return 1;
+        }
+    }
+
+    /**
+     * @return max tasks waiting for execution per bot, further tasks are rejected until next invocation
+     */
+    public static int getBotMaxQueuedTasks() {
+        try {
+            return RESOURCES.getIntegerProperty("bot.max.queued.tasks", 100);
+        } catch (Exception e) {
+            log.warn("bot.max.queued.tasks is incorrect. Reset to default", e);
+            return 100;
+        }
+    }
+
+    /**
+     * @return max stuck executions abandoned at the same time, their threads are added to thread pool size
+     */
+    public static int getBotMaxAbandonedThreads() {
+        try {
+            return RESOURCES.getIntegerProperty("bot.max.abandoned.threads", 2);
+        } catch (Exception e) {
+            log.warn("bot.max.abandoned.threads is incorrect. Reset to default", e);
+            return 2;
+        }
+    }
+
     public static BotInvoker createBotInvoker() {
         return (BotInvoker) ClassLoaderUtil.instantiate(RESOURCES.getStringProperty("bot.invoker.class"));
     }
@@ -94,6 +160,33 @@ public class BotStationResources {
         return periodInSeconds * 1000;
     }
 
+    /**
+     * Period of full bot tasks poll when tasks are pushed by server.
+     */
+    public static long getTasksReconciliationPeriod() {
+        long periodInSeconds = RESOURCES.getLongProperty("botstation.tasks.reconciliation.period.seconds", 60);
+        if (periodInSeconds < 1) {
+            log.warn("botstation.tasks.reconciliation.period.seconds is less than 1 sec. Reset to default");
+            periodInSeconds = 60;
+        }
+        return periodInSeconds * 1000;
+    }
+
+    public static int getWebServiceConnectTimeout() {
+        return RESOURCES.getIntegerProperty("webservice.connect.timeout.millis", 30000);
+    }
+
+    public static int getWebServiceReadTimeout() {
+        return RESOURCES.getIntegerProperty("webservice.read.timeout.millis", 300000);
+    }
+
+    /**
+     * @return simultaneous requests to one host and port from web service bots
+     */
+    public static int getWebServiceMaxConnectionsPerEndpoint() {
+        return RESOURCES.getIntegerProperty("webservice.max.connections.per.endpoint", 20);
+    }
+
     public static List<String> getTaskHandlerJarNames() {
         return RESOURCES.getMultipleStringProperty("taskhandler.jar.names");
     }
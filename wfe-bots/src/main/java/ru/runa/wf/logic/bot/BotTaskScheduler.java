@@ -0,0 +1,362 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wf.logic.bot;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.bot.Bot;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Executes bot tasks with per bot concurrency limits and weighted fair
+ * queuing (start-time fair queuing) between bots, so one slow bot can not
+ * occupy all threads. I/O bound task handlers are executed in separate lane.
+ *
+ * Stuck executions are interrupted and then abandoned: lane slot is
+ * released for other tasks while handler finishes cooperatively. Abandoned
+ * execution is not finished until its thread exits, so the same task is not
+ * scheduled again meanwhile. Thread pool is bounded by lane sizes and max
+ * abandoned executions; when this limit is reached stuck execution keeps its
+ * lane slot.
+ *
+ * @since 4.3.0
+ */
+public class BotTaskScheduler {
+    private static final Log log = LogFactory.getLog(BotTaskScheduler.class);
+    /**
+     * Threads are created on demand and expire when idle, sized by lanes and
+     * abandoned executions.
+     */
+    private final ThreadPoolExecutor threadPool;
+    private final Lane defaultLane = new Lane("default");
+    private final Lane ioLane = new Lane("io");
+    private final Map<Long, BotQueue> queues = Maps.newHashMap();
+    private final Set<Execution> running = Sets.newHashSet();
+    private double virtualTime;
+    private int maxAbandoned;
+    private int abandoned;
+
+    public BotTaskScheduler(ThreadFactory threadFactory) {
+        threadPool = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        threadPool.allowCoreThreadTimeOut(true);
+        configure();
+    }
+
+    /**
+     * Applies pool sizes from configuration.
+     */
+    public synchronized void configure() {
+        defaultLane.size = BotStationResources.getThreadPoolSize();
+        ioLane.size = BotStationResources.getIoThreadPoolSize();
+        maxAbandoned = BotStationResources.getBotMaxAbandonedThreads();
+        int poolSize = Math.max(1, defaultLane.size + ioLane.size + maxAbandoned);
+        if (poolSize > threadPool.getMaximumPoolSize()) {
+            threadPool.setMaximumPoolSize(poolSize);
+            threadPool.setCorePoolSize(poolSize);
+        } else {
+            threadPool.setCorePoolSize(poolSize);
+            threadPool.setMaximumPoolSize(poolSize);
+        }
+        dispatch();
+    }
+
+    /**
+     * Applies bot limits and removes idle queues of deleted bots.
+     */
+    public synchronized void configureBots(Collection<Bot> bots) {
+        Map<Long, Bot> botsById = Maps.newHashMap();
+        for (Bot bot : bots) {
+            botsById.put(bot.getId(), bot);
+            getQueue(bot).configure(bot);
+        }
+        for (Iterator<BotQueue> iterator = queues.values().iterator(); iterator.hasNext();) {
+            BotQueue queue = iterator.next();
+            if (!botsById.containsKey(queue.botId) && queue.pending.isEmpty() && queue.running == 0) {
+                iterator.remove();
+            }
+        }
+        dispatch();
+    }
+
+    public boolean isIoBound(String taskHandlerClassName) {
+        return taskHandlerClassName != null && BotStationResources.getIoBoundTaskHandlerClassNames().contains(taskHandlerClassName);
+    }
+
+    /**
+     * Queues task for execution.
+     *
+     * @return execution or <code>null</code> if bot queue is full
+     */
+    public synchronized <T extends Runnable & BotExecutionStatus> Execution submit(Bot bot, T task, boolean ioBound) {
+        BotQueue queue = getQueue(bot);
+        if (queue.pending.size() >= BotStationResources.getBotMaxQueuedTasks()) {
+            queue.rejected++;
+            log.debug("Queue is full for " + bot.getUsername() + ", rejected " + task);
+            return null;
+        }
+        Execution execution = new Execution(queue, task, ioBound ? ioLane : defaultLane);
+        queue.pending.add(execution);
+        dispatch();
+        return execution;
+    }
+
+    /**
+     * Interrupts executions running longer than timeout; executions not
+     * reacted on interruption are abandoned on next check unless max abandoned
+     * executions are still running.
+     */
+    public synchronized void checkTimeouts(long timeoutSeconds) {
+        for (Execution execution : Lists.newArrayList(running)) {
+            BotExecutionStatus status = execution.task;
+            // status of interrupted task executor is changed to failed while thread is still occupied
+            if (execution.interrupted || status.getExecutionStatus() == WorkflowBotTaskExecutionStatus.STARTED
+                    && status.getExecutionInSeconds() > timeoutSeconds) {
+                execution.interrupted = true;
+                if (status.interruptExecution()) {
+                    if (abandoned >= maxAbandoned) {
+                        log.error(status + " can not be abandoned, " + abandoned + " abandoned executions are still running");
+                        continue;
+                    }
+                    execution.abandoned = true;
+                    abandoned++;
+                    execution.queue.timedOut++;
+                    release(execution);
+                    log.error(status + " is abandoned, it's thread " + execution.thread + " is still occupied");
+                }
+            }
+        }
+    }
+
+    public synchronized List<BotExecutionMetrics> getMetrics() {
+        List<BotExecutionMetrics> result = Lists.newArrayList();
+        for (BotQueue queue : queues.values()) {
+            result.add(queue.toMetrics());
+        }
+        return result;
+    }
+
+    private BotQueue getQueue(Bot bot) {
+        BotQueue queue = queues.get(bot.getId());
+        if (queue == null) {
+            queue = new BotQueue(bot);
+            queues.put(bot.getId(), queue);
+        }
+        return queue;
+    }
+
+    private void dispatch() {
+        dispatch(defaultLane);
+        dispatch(ioLane);
+    }
+
+    private void dispatch(Lane lane) {
+        while (lane.running < lane.size) {
+            BotQueue selected = null;
+            for (BotQueue queue : queues.values()) {
+                if (queue.running < queue.getConcurrencyLimit() && queue.hasPending(lane)
+                        && (selected == null || queue.getVirtualStart() < selected.getVirtualStart())) {
+                    selected = queue;
+                }
+            }
+            if (selected == null) {
+                return;
+            }
+            Execution execution = selected.poll(lane);
+            virtualTime = selected.getVirtualStart();
+            selected.virtualFinish = virtualTime + 1.0 / selected.weight;
+            selected.running++;
+            lane.running++;
+            running.add(execution);
+            execution.dispatchTime = System.currentTimeMillis();
+            threadPool.execute(execution);
+        }
+    }
+
+    private synchronized void onFinished(Execution execution) {
+        if (execution.abandoned) {
+            abandoned--;
+            log.info(execution + " abandoned earlier is finished");
+        } else {
+            execution.queue.completed++;
+            execution.queue.executionMillis += System.currentTimeMillis() - execution.dispatchTime;
+            release(execution);
+        }
+        execution.finished = true;
+    }
+
+    private void release(Execution execution) {
+        running.remove(execution);
+        execution.queue.running--;
+        execution.lane.running--;
+        long waitMillis = execution.dispatchTime - execution.enqueueTime;
+        execution.queue.waitMillis += waitMillis;
+        execution.queue.maxWaitMillis = Math.max(execution.queue.maxWaitMillis, waitMillis);
+        execution.queue.dispatched++;
+        dispatch();
+    }
+
+    private static class Lane {
+        private final String name;
+        private int size;
+        private int running;
+
+        public Lane(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private class BotQueue {
+        private final Long botId;
+        private String botUsername;
+        private int weight;
+        private int concurrencyLimit;
+        private final LinkedList<Execution> pending = Lists.newLinkedList();
+        private int running;
+        private double virtualFinish;
+        private long dispatched;
+        private long completed;
+        private long rejected;
+        private long timedOut;
+        private long waitMillis;
+        private long maxWaitMillis;
+        private long executionMillis;
+
+        public BotQueue(Bot bot) {
+            this.botId = bot.getId();
+            configure(bot);
+        }
+
+        public void configure(Bot bot) {
+            botUsername = bot.getUsername();
+            weight = BotStationResources.getBotWeight(botUsername);
+            concurrencyLimit = BotStationResources.getBotMaxConcurrentTasks(botUsername);
+        }
+
+        public int getConcurrencyLimit() {
+            return concurrencyLimit > 0 ? concurrencyLimit : defaultLane.size + ioLane.size;
+        }
+
+        public double getVirtualStart() {
+            return Math.max(virtualTime, virtualFinish);
+        }
+
+        public boolean hasPending(Lane lane) {
+            for (Execution execution : pending) {
+                if (execution.lane == lane) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public Execution poll(Lane lane) {
+            for (Iterator<Execution> iterator = pending.iterator(); iterator.hasNext();) {
+                Execution execution = iterator.next();
+                if (execution.lane == lane) {
+                    iterator.remove();
+                    return execution;
+                }
+            }
+            return null;
+        }
+
+        public BotExecutionMetrics toMetrics() {
+            BotExecutionMetrics metrics = new BotExecutionMetrics();
+            metrics.setBotId(botId);
+            metrics.setBotUsername(botUsername);
+            metrics.setQueueDepth(pending.size());
+            metrics.setRunning(running);
+            metrics.setCompleted(completed);
+            metrics.setRejected(rejected);
+            metrics.setTimedOut(timedOut);
+            metrics.setAverageWaitMillis(dispatched > 0 ? waitMillis / dispatched : 0);
+            metrics.setMaxWaitMillis(maxWaitMillis);
+            metrics.setAverageExecutionMillis(completed > 0 ? executionMillis / completed : 0);
+            return metrics;
+        }
+    }
+
+    /**
+     * Scheduled bot task.
+     */
+    public class Execution implements Runnable {
+        private final BotQueue queue;
+        private final Runnable runnable;
+        private final BotExecutionStatus task;
+        private final Lane lane;
+        private final long enqueueTime = System.currentTimeMillis();
+        private long dispatchTime;
+        private volatile Thread thread;
+        private boolean interrupted;
+        private volatile boolean abandoned;
+        private volatile boolean finished;
+
+        private <T extends Runnable & BotExecutionStatus> Execution(BotQueue queue, T task, Lane lane) {
+            this.queue = queue;
+            this.runnable = task;
+            this.task = task;
+            this.lane = lane;
+        }
+
+        /**
+         * @return whether execution thread is exited
+         */
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            try {
+                runnable.run();
+            } catch (Throwable th) {
+                log.error("Bot task execution error " + task, th);
+            } finally {
+                thread = null;
+                onFinished(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return task + " in " + lane + " lane";
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.commons.logging.LogFactory;
 import ru.runa.wfe.bot.Bot;
 import ru.runa.wfe.bot.BotStation;
 import ru.runa.wfe.bot.BotTask;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
 import ru.runa.wfe.bot.invoker.BotInvoker;
 import ru.runa.wfe.execution.logic.ProcessExecutionErrors;
 import ru.runa.wfe.security.AuthenticationException;
@@ -65,6 +66,12 @@ public class SingleThreadBotInvoker implements BotInvoker {
         }
     }
 
+    @Override
+    public List<BotExecutionMetrics> getBotExecutionMetrics() {
+        // tasks are executed synchronously in invokeBots
+        return Lists.newArrayList();
+    }
+
     private void configure() {
         try {
             if (botStation.getVersion() != configurationVersion) {
@@ -18,13 +18,13 @@
 package ru.runa.wf.logic.bot;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.net.HttpURLConnection;
@@ -33,7 +33,9 @@ import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -42,6 +44,7 @@ import org.apache.commons.codec.binary.Base64;
 
 import ru.runa.wf.logic.bot.webservice.ErrorResponseProcessingResult;
 import ru.runa.wf.logic.bot.webservice.Interaction;
+import ru.runa.wf.logic.bot.webservice.WebServiceConnections;
 import ru.runa.wf.logic.bot.webservice.WebServiceTaskHandlerSettings;
 import ru.runa.wf.logic.bot.webservice.WebServiceTaskHandlerXMLParser;
 import ru.runa.wf.logic.bot.webservice.WebServiceTaskHandlerXSLTHelper;
@@ -55,8 +58,11 @@ import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.dto.WfVariable;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 
 /**
  * Web service task handler. Making web requests to web services and receiving
@@ -72,6 +78,14 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
      */
     private static ThreadLocal<WebServiceTaskHandlerXSLTHelper> xsltHelper = new ThreadLocal<WebServiceTaskHandlerXSLTHelper>();
 
+    /**
+     * Compiled response XSLT of bot tasks configurations; {@link Templates} are
+     * thread safe.
+     */
+    private static final Cache<String, Templates> responseTemplates = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+    private static volatile Templates requestTemplates;
+
     /**
      * Web service bot settings.
      */
@@ -90,15 +104,21 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
         for (int index = getStartInteraction(user, task); index < settings.interactions.size(); ++index) {
             Interaction interaction = settings.interactions.get(index);
             byte[] soapData = prepareRequest(task, interaction);
-            HttpURLConnection connection = sendRequest(url, soapData);
-            if (connection.getResponseCode() < 200 || connection.getResponseCode() >= 300) {
-                // Something goes wrong
-                if (!onErrorResponse(user, task, connection, interaction)) {
-                    variables.put(SKIP_TASK_COMPLETION_VARIABLE_NAME, Boolean.TRUE);
-                    return variables;
+            WebServiceConnections.acquire(url);
+            HttpURLConnection connection = null;
+            try {
+                connection = sendRequest(url, soapData);
+                if (connection.getResponseCode() < 200 || connection.getResponseCode() >= 300) {
+                    // Something goes wrong
+                    if (!onErrorResponse(user, task, connection, interaction)) {
+                        variables.put(SKIP_TASK_COMPLETION_VARIABLE_NAME, Boolean.TRUE);
+                        return variables;
+                    }
+                } else {
+                    onResponse(task, connection, interaction);
                 }
-            } else {
-                onResponse(task, connection, interaction);
+            } finally {
+                WebServiceConnections.release(url, connection);
             }
         }
         xsltHelper.get().mergeVariablesIn(variables);
@@ -184,9 +204,8 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
      */
     private byte[] prepareRequest(WfTask task, Interaction interaction) throws Exception {
         ByteArrayOutputStream res2 = new ByteArrayOutputStream();
-        Transformer transformer = TransformerFactory.newInstance().newTransformer(
-                new StreamSource(ClassLoaderUtil.getAsStreamNotNull("webServiceTaskHandlerRequest.xslt", getClass())));
-        transformer.transform(new StreamSource(new ByteArrayInputStream(interaction.requestXML.getBytes(settings.encoding))), new StreamResult(res2));
+        Transformer transformer = getRequestTemplates().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(interaction.requestXML)), new StreamResult(res2));
         byte[] soapData = res2.toByteArray();
         if (settings.isLoggingEnable && log.isDebugEnabled()) {
             log.debug("Web service bot request for task " + task.getId() + " is:\n" + new String(soapData, settings.encoding));
@@ -205,7 +224,7 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
      * @return HTTP connection to communicate with web service.
      */
     private HttpURLConnection sendRequest(URL url, byte[] soapData) throws Exception {
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        HttpURLConnection connection = WebServiceConnections.open(url);
         connection.setRequestProperty("Content-Type", "text/xml; charset=" + settings.encoding);
         if (settings.authBase != null) {
             String auth = Base64.encodeBase64String(settings.authBase.getBytes());
@@ -219,8 +238,12 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
         connection.setFixedLengthStreamingMode(soapData.length);
         connection.setDoOutput(true);
         OutputStream os = connection.getOutputStream();
-        os.write(soapData);
-        os.flush();
+        try {
+            os.write(soapData);
+            os.flush();
+        } finally {
+            os.close();
+        }
         return connection;
     }
 
@@ -282,12 +305,34 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
             return;
         }
         String response = logResponseAndSetVariable(task, connection, interaction);
-        InputStream inputStream = response == null ? connection.getInputStream() : new ByteArrayInputStream(response.getBytes(settings.encoding));
         if (interaction.responseXSLT != null) {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer(
-                    new StreamSource(new ByteArrayInputStream(interaction.responseXSLT.getBytes(settings.encoding))));
-            transformer.transform(new StreamSource(inputStream), new StreamResult(ByteStreams.nullOutputStream()));
+            // response is transformed directly from connection unless it was
+            // already read for variable or log
+            StreamSource source = response == null ? new StreamSource(connection.getInputStream()) : new StreamSource(new StringReader(response));
+            Transformer transformer = getResponseTemplates(interaction.responseXSLT).newTransformer();
+            transformer.transform(source, new StreamResult(ByteStreams.nullOutputStream()));
+        }
+    }
+
+    private Templates getRequestTemplates() throws TransformerConfigurationException {
+        if (requestTemplates == null) {
+            InputStream inputStream = ClassLoaderUtil.getAsStreamNotNull("webServiceTaskHandlerRequest.xslt", getClass());
+            try {
+                requestTemplates = TransformerFactory.newInstance().newTemplates(new StreamSource(inputStream));
+            } finally {
+                Closeables.closeQuietly(inputStream);
+            }
+        }
+        return requestTemplates;
+    }
+
+    private Templates getResponseTemplates(String responseXSLT) throws TransformerConfigurationException {
+        Templates templates = responseTemplates.getIfPresent(responseXSLT);
+        if (templates == null) {
+            templates = TransformerFactory.newInstance().newTemplates(new StreamSource(new StringReader(responseXSLT)));
+            responseTemplates.put(responseXSLT, templates);
         }
+        return templates;
     }
 
     /**
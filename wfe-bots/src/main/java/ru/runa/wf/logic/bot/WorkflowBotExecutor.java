@@ -17,6 +17,7 @@
  */
 package ru.runa.wf.logic.bot;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -28,10 +29,11 @@ import ru.runa.wfe.bot.Bot;
 import ru.runa.wfe.bot.BotTask;
 import ru.runa.wfe.presentation.BatchPresentationFactory;
 import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.task.TaskDoesNotExistException;
 import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.user.Actor;
 import ru.runa.wfe.user.User;
 
-import com.google.common.base.Objects;
 import com.google.common.collect.Maps;
 
 /**
@@ -48,7 +50,7 @@ public class WorkflowBotExecutor {
     private final User user;
     private Bot bot;
     private final Map<String, BotTask> botTasks = Maps.newHashMap();
-    private final Set<WorkflowBotTaskExecutor> botTaskExecutors = new HashSet<WorkflowBotTaskExecutor>();
+    private final Map<Long, WorkflowBotTaskExecutor> botTaskExecutors = Maps.newHashMap();
 
     public WorkflowBotExecutor(User user, Bot bot, List<BotTask> tasks) {
         this.user = user;
@@ -64,7 +66,7 @@ public class WorkflowBotExecutor {
     }
 
     public void resetFailedDelay() {
-        for (WorkflowBotTaskExecutor botTaskExecutor : botTaskExecutors) {
+        for (WorkflowBotTaskExecutor botTaskExecutor : botTaskExecutors.values()) {
             botTaskExecutor.resetFailedDelay();
         }
     }
@@ -82,56 +84,99 @@ public class WorkflowBotExecutor {
     }
 
     public WorkflowBotTaskExecutor createBotTaskExecutor(WfTask task) {
-        WorkflowBotTaskExecutor result = new WorkflowBotTaskExecutor(this, task);
-        if (botTaskExecutors.contains(result)) {
-            for (WorkflowBotTaskExecutor existingBotTaskExecutor : botTaskExecutors) {
-                if (existingBotTaskExecutor.equals(result)) {
-                    if (existingBotTaskExecutor.getExecutionStatus() != WorkflowBotTaskExecutionStatus.FAILED) {
-                        throw new InternalApplicationException("only failed tasks may be recreated: " + existingBotTaskExecutor);
-                    }
-                    result = existingBotTaskExecutor;
-                    result.setExecutionStatus(WorkflowBotTaskExecutionStatus.SCHEDULED);
-                    break;
-                }
+        WorkflowBotTaskExecutor result = botTaskExecutors.get(task.getId());
+        if (result != null) {
+            if (result.getExecutionStatus() != WorkflowBotTaskExecutionStatus.FAILED) {
+                throw new InternalApplicationException("only failed tasks may be recreated: " + result);
+            }
+            if (result.isRunning()) {
+                throw new InternalApplicationException("abandoned task is still running: " + result);
             }
+            result.setExecutionStatus(WorkflowBotTaskExecutionStatus.SCHEDULED);
         } else {
-            botTaskExecutors.add(result);
+            result = new WorkflowBotTaskExecutor(this, task);
+            botTaskExecutors.put(task.getId(), result);
         }
         return result;
     }
 
+    /**
+     * Full reconciliation: loads all bot tasks.
+     */
     public Set<WfTask> getNewTasks() {
+        removeFinishedTaskExecutors();
         Set<WfTask> result = new HashSet<WfTask>();
-        for (Iterator<WorkflowBotTaskExecutor> botIterator = botTaskExecutors.iterator(); botIterator.hasNext();) {
-            BotExecutionStatus taskExecutor = botIterator.next();
-            if (taskExecutor.getExecutionStatus() == WorkflowBotTaskExecutionStatus.COMPLETED) {
-                // Completed bot task hold time is elapsed
-                botIterator.remove();
-            }
-            if (taskExecutor.getExecutionStatus() == WorkflowBotTaskExecutionStatus.SCHEDULING_FAILURE) {
-                // Bot task must be rescheduled.
-                botIterator.remove();
-            }
-        }
         List<WfTask> currentTasks = Delegates.getTaskService().getMyTasks(user, BatchPresentationFactory.TASKS.createNonPaged());
         for (WfTask task : currentTasks) {
-            BotExecutionStatus testingExecutor = new WorkflowBotTaskExecutor(this, task);
-            if (!botTaskExecutors.contains(testingExecutor)) {
+            WorkflowBotTaskExecutor taskExecutor = botTaskExecutors.get(task.getId());
+            if (taskExecutor == null || taskExecutor.isReadyToAttemptExecuteFailedTask()) {
                 result.add(task);
-                continue;
             }
-            for (WorkflowBotTaskExecutor taskExecutor : botTaskExecutors) {
-                if (Objects.equal(task, taskExecutor.getTask())) {
-                    if (taskExecutor.isReadyToAttemptExecuteFailedTask()) {
-                        result.add(task);
-                    }
-                    break;
+        }
+        return result;
+    }
+
+    /**
+     * Loads only pushed tasks and failed tasks which are ready for next attempt. Failed tasks are checked on server as in full reconciliation:
+     * executors of completed or reassigned tasks are removed.
+     *
+     * @param queuedTaskIds
+     *            task ids received from bot task queue
+     */
+    public Set<WfTask> getNewTasks(Collection<Long> queuedTaskIds) {
+        removeFinishedTaskExecutors();
+        Set<WfTask> result = new HashSet<WfTask>();
+        for (Iterator<WorkflowBotTaskExecutor> iterator = botTaskExecutors.values().iterator(); iterator.hasNext();) {
+            WorkflowBotTaskExecutor taskExecutor = iterator.next();
+            if (taskExecutor.isReadyToAttemptExecuteFailedTask()) {
+                WfTask task = getAssignedTask(taskExecutor.getTask().getId());
+                if (task != null) {
+                    result.add(task);
+                } else {
+                    iterator.remove();
                 }
             }
         }
+        for (Long taskId : queuedTaskIds) {
+            if (botTaskExecutors.containsKey(taskId)) {
+                continue;
+            }
+            WfTask task = getAssignedTask(taskId);
+            if (task != null) {
+                result.add(task);
+            }
+        }
         return result;
     }
 
+    /**
+     * @return task or <code>null</code> if it is completed, assignment transaction was rolled back or task was reassigned
+     */
+    private WfTask getAssignedTask(Long taskId) {
+        try {
+            WfTask task = Delegates.getTaskService().getTask(user, taskId);
+            if (task.getOwner() instanceof Actor && !bot.getUsername().equals(task.getOwner().getName())) {
+                return null;
+            }
+            return task;
+        } catch (TaskDoesNotExistException e) {
+            return null;
+        }
+    }
+
+    private void removeFinishedTaskExecutors() {
+        for (Iterator<WorkflowBotTaskExecutor> botIterator = botTaskExecutors.values().iterator(); botIterator.hasNext();) {
+            BotExecutionStatus taskExecutor = botIterator.next();
+            if (taskExecutor.getExecutionStatus() == WorkflowBotTaskExecutionStatus.COMPLETED) {
+                // Completed bot task hold time is elapsed
+                botIterator.remove();
+            } else if (taskExecutor.getExecutionStatus() == WorkflowBotTaskExecutionStatus.SCHEDULING_FAILURE) {
+                // Bot task must be rescheduled.
+                botIterator.remove();
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "Template " + bot;
@@ -59,7 +59,7 @@ public class WorkflowBotTaskExecutor implements Runnable, BotExecutionStatus {
 
     private final WorkflowBotExecutor botExecutor;
     private final WfTask task;
-    private WorkflowBotTaskExecutionStatus executionStatus = WorkflowBotTaskExecutionStatus.SCHEDULED;
+    private volatile WorkflowBotTaskExecutionStatus executionStatus = WorkflowBotTaskExecutionStatus.SCHEDULED;
     private Calendar started = Calendar.getInstance();
     /**
      * Next wait is 2*wait, but no more FAILED_EXECUTION_MAX_DELAY_SECONDS
@@ -90,22 +90,25 @@ public class WorkflowBotTaskExecutor implements Runnable, BotExecutionStatus {
         failedDelaySeconds = BotStationResources.getFailedExecutionInitialDelay();
     }
 
+    /**
+     * Cooperative cancellation: first call interrupts execution thread, next
+     * call reports that execution should be abandoned. Thread is never
+     * stopped forcibly, task handler is expected to react on interruption.
+     */
     @Override
-    @SuppressWarnings("deprecation")
     public boolean interruptExecution() {
-        if (executionThread.get() == null) {
+        Thread thread = executionThread.get();
+        if (thread == null) {
             return false;
         }
         executionStatus = WorkflowBotTaskExecutionStatus.FAILED;
         if (!threadInterrupting) {
-            // Try to stop thread soft
             log.warn(this + " seems to be stuck (not completted at " + getExecutionInSeconds() + " sec). Interrupt signal will be send.");
-            executionThread.get().interrupt();
+            thread.interrupt();
             threadInterrupting = true;
             return false;
         } else {
-            log.error(this + " seems to be stuck (not completted at " + getExecutionInSeconds() + " sec). Will be terminated.");
-            executionThread.get().stop();
+            log.error(this + " seems to be stuck (not completted at " + getExecutionInSeconds() + " sec). Execution will be abandoned.");
             return true;
         }
     }
@@ -115,8 +118,16 @@ public class WorkflowBotTaskExecutor implements Runnable, BotExecutionStatus {
         return new CalendarInterval(started, Calendar.getInstance()).getLengthInSeconds();
     }
 
+    /**
+     * @return whether handler is executed in some thread, abandoned execution
+     *         is running until handler returns
+     */
+    public boolean isRunning() {
+        return executionThread.get() != null;
+    }
+
     public boolean isReadyToAttemptExecuteFailedTask() {
-        return getExecutionStatus() == WorkflowBotTaskExecutionStatus.FAILED && started.before(Calendar.getInstance());
+        return getExecutionStatus() == WorkflowBotTaskExecutionStatus.FAILED && !isRunning() && started.before(Calendar.getInstance());
     }
 
     private void doHandle() throws Exception {
@@ -33,12 +33,12 @@ public class WorkflowSequentialBotTaskExecutor implements Runnable, BotExecution
     /**
      * Current execution status.
      */
-    private WorkflowBotTaskExecutionStatus executionStatus = WorkflowBotTaskExecutionStatus.SCHEDULED;
+    private volatile WorkflowBotTaskExecutionStatus executionStatus = WorkflowBotTaskExecutionStatus.SCHEDULED;
     /**
      * Flag, equals true, if execution must be stopped; false if sequential bot
      * execution may be continue.
      */
-    private boolean stopExecution = false;
+    private volatile boolean stopExecution = false;
 
     public WorkflowSequentialBotTaskExecutor(Bot bot, BotTask botTask, List<WorkflowBotTaskExecutor> tasksToExecute) {
         super();
@@ -20,10 +20,8 @@ package ru.runa.wf.logic.bot;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -35,6 +33,9 @@ import org.apache.commons.logging.LogFactory;
 import ru.runa.wfe.bot.Bot;
 import ru.runa.wfe.bot.BotStation;
 import ru.runa.wfe.bot.BotTask;
+import ru.runa.wfe.bot.BotTaskDescriptor;
+import ru.runa.wfe.bot.BotTaskQueues;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
 import ru.runa.wfe.bot.invoker.BotInvoker;
 import ru.runa.wfe.execution.logic.ProcessExecutionErrors;
 import ru.runa.wfe.security.AuthenticationException;
@@ -42,26 +43,51 @@ import ru.runa.wfe.service.delegate.Delegates;
 import ru.runa.wfe.task.dto.WfTask;
 import ru.runa.wfe.user.User;
 
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 
-public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
+public class WorkflowThreadPoolBotInvoker implements BotInvoker, BotTaskQueues.Consumer, Runnable {
     private final Log log = LogFactory.getLog(WorkflowThreadPoolBotInvoker.class);
 
     private static final long STUCK_TIMEOUT_SECONDS = BotStationResources.getStuckTimeoutInMinutes() * 60;
 
+    private static final long PUSHED_INVOCATION_DELAY_MILLIS = 50;
+
+    /**
+     * Used for bots invocation only, bot tasks are executed by taskScheduler.
+     */
     private ScheduledThreadPoolExecutor executor;
 
+    private BotTaskScheduler taskScheduler;
+
     private long configurationVersion = -1;
 
     private final Map<Bot, WorkflowBotExecutor> botExecutors = Maps.newHashMap();
 
     private Future<?> botInvokerInvocation;
 
-    private final Map<BotExecutionStatus, ScheduledFuture<?>> scheduledTasks = Maps.newConcurrentMap();
+    private final Map<BotExecutionStatus, BotTaskScheduler.Execution> scheduledTasks = Maps.newConcurrentMap();
 
     private BotStation botStation;
 
+    private long lastReconciliationTime;
+
+    private boolean pushedInvocationRequested;
+
+    /**
+     * Pushed tasks which could not be scheduled due to sequential execution, accessed only from run().
+     */
+    private final SetMultimap<Long, Long> deferredTaskIds = HashMultimap.create();
+
+    /**
+     * Bots which should poll all their tasks on next invocation: requested by dispatcher or skipped during reconciliation, accessed only from
+     * run().
+     */
+    private final Set<Long> fullPollBotIds = Sets.newHashSet();
+
     /**
      * Checking botInvokerInvocation.isDone() leads to run() method called only
      * once per moment.
@@ -73,19 +99,16 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
             log.debug("botInvokerInvocation != null && !botInvokerInvocation.isDone()");
             return;
         }
-        int poolSize = BotStationResources.getThreadPoolSize();
         if (executor == null) {
-            log.debug(String.format("Creating new executor(ScheduledExecutorService),size %d", poolSize));
-            executor = new ScheduledThreadPoolExecutor(poolSize, new BotNamedThreadFactory());
-
+            log.debug("Creating new executor(ScheduledExecutorService)");
+            executor = new ScheduledThreadPoolExecutor(1, new BotNamedThreadFactory());
+            taskScheduler = new BotTaskScheduler(new BotNamedThreadFactory());
         } else {
-            if (executor.getMaximumPoolSize() != poolSize) {
-                log.debug(String.format("change thread pool size from %d to %d", executor.getMaximumPoolSize(), poolSize));
-                executor.setMaximumPoolSize(poolSize);
-            }
+            taskScheduler.configure();
         }
         checkStuckBots();
         botInvokerInvocation = executor.schedule(this, 1000, TimeUnit.MILLISECONDS);
+        pushedInvocationRequested = false;
         logBotsActivites();
         if (resetFailedDelay) {
             for (WorkflowBotExecutor botExecutor : botExecutors.values()) {
@@ -94,20 +117,40 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
         }
     }
 
+    /**
+     * Invoked after commit of transaction which assigned tasks to bots of this bot station.
+     */
+    @Override
+    public synchronized void onBotTasksQueued(Long botStationId) {
+        if (executor == null) {
+            return;
+        }
+        if (botInvokerInvocation != null && !botInvokerInvocation.isDone()) {
+            // run() may have drained queue already
+            pushedInvocationRequested = true;
+            return;
+        }
+        botInvokerInvocation = executor.schedule(this, PUSHED_INVOCATION_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void scheduleRequestedPushedInvocation() {
+        if (pushedInvocationRequested && executor != null) {
+            pushedInvocationRequested = false;
+            botInvokerInvocation = executor.schedule(this, PUSHED_INVOCATION_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
     private void checkStuckBots() {
         try {
-            for (Iterator<Entry<BotExecutionStatus, ScheduledFuture<?>>> iter = scheduledTasks.entrySet().iterator(); iter.hasNext();) {
-                Entry<BotExecutionStatus, ScheduledFuture<?>> entry = iter.next();
-                if (entry.getValue().isDone()) {
+            taskScheduler.checkTimeouts(STUCK_TIMEOUT_SECONDS);
+            for (Iterator<BotTaskScheduler.Execution> iter = scheduledTasks.values().iterator(); iter.hasNext();) {
+                if (iter.next().isFinished()) {
                     iter.remove();
-                    continue;
                 }
-                BotExecutionStatus executor = entry.getKey();
-                if (executor.getExecutionStatus() == WorkflowBotTaskExecutionStatus.STARTED
-                        && executor.getExecutionInSeconds() > STUCK_TIMEOUT_SECONDS) {
-                    if (executor.interruptExecution()) {
-                        iter.remove();
-                    }
+            }
+            if (log.isDebugEnabled()) {
+                for (BotExecutionMetrics metrics : taskScheduler.getMetrics()) {
+                    log.debug(metrics);
                 }
             }
         } catch (Exception e) {
@@ -143,6 +186,7 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
                         ProcessExecutionErrors.addBotTaskConfigurationError(bot, null, e);
                     }
                 }
+                taskScheduler.configureBots(bots);
                 configurationVersion = botStation.getVersion();
             } else {
                 log.debug("bots configuration is up to date, version = " + botStation.getVersion());
@@ -163,12 +207,49 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
             log.warn("executor(ScheduledExecutorService) == null");
             return;
         }
+        boolean pushDispatch = BotTaskQueues.isDispatchActive();
+        SetMultimap<Long, Long> queuedTaskIds = HashMultimap.create();
+        boolean reconciliation = true;
+        if (pushDispatch) {
+            BotTaskQueues.registerConsumer(botStation.getId(), this);
+            for (BotTaskDescriptor descriptor : BotTaskQueues.drain(botStation.getId())) {
+                if (descriptor.getTaskId() != null) {
+                    queuedTaskIds.put(descriptor.getBotId(), descriptor.getTaskId());
+                } else {
+                    fullPollBotIds.add(descriptor.getBotId());
+                }
+            }
+            boolean overflow = BotTaskQueues.resetOverflow(botStation.getId());
+            reconciliation = overflow || System.currentTimeMillis() - lastReconciliationTime >= BotStationResources.getTasksReconciliationPeriod();
+        }
+        if (reconciliation) {
+            lastReconciliationTime = System.currentTimeMillis();
+            fullPollBotIds.clear();
+        } else {
+            queuedTaskIds.putAll(deferredTaskIds);
+        }
+        deferredTaskIds.clear();
         for (WorkflowBotExecutor botExecutor : botExecutors.values()) {
             try {
+                Long botId = botExecutor.getBot().getId();
+                if (botExecutor.getBot().isSequentialExecution()
+                        && scheduledTasks.containsKey(new WorkflowSequentialBotTaskExecutor(botExecutor.getBot(), null, null))) {
+                    deferredTaskIds.putAll(botId, queuedTaskIds.get(botId));
+                    if (reconciliation) {
+                        // tasks were not loaded, next invocation should not wait for next reconciliation
+                        fullPollBotIds.add(botId);
+                    }
+                    continue;
+                }
+                Set<WfTask> tasks;
+                if (reconciliation || fullPollBotIds.remove(botId)) {
+                    tasks = botExecutor.getNewTasks();
+                } else {
+                    tasks = botExecutor.getNewTasks(queuedTaskIds.get(botId));
+                }
                 if (botExecutor.getBot().isSequentialExecution()) {
-                    scheduleSequentialBot(botExecutor);
+                    scheduleSequentialBot(botExecutor, tasks);
                 } else {
-                    Set<WfTask> tasks = botExecutor.getNewTasks();
                     scheduleTasks(botExecutor, tasks);
                 }
             } catch (AuthenticationException e) {
@@ -178,6 +259,7 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
                 log.error("BotRunner execution failed.", e);
             }
         }
+        scheduleRequestedPushedInvocation();
     }
 
     /**
@@ -201,6 +283,7 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
                 log.error("No handler for bot task " + task.getName() + " in " + botExecutor.getBot());
             } else if (botTaskConfiguration.isSequentialExecution()
                     && scheduledTasks.containsKey(new WorkflowSequentialBotTaskExecutor(botExecutor.getBot(), botTaskConfiguration, null))) {
+                deferredTaskIds.put(botExecutor.getBot().getId(), task.getId());
                 continue;
             }
             WorkflowBotTaskExecutor botTaskExecutor = botExecutor.createBotTaskExecutor(task);
@@ -212,15 +295,36 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
                 }
                 botTasks.add(botTaskExecutor);
             } else {
-                ScheduledFuture<?> future = executor.schedule(botTaskExecutor, 200, TimeUnit.MILLISECONDS);
-                scheduledTasks.put(botTaskExecutor, future);
+                boolean ioBound = botTaskConfiguration != null && taskScheduler.isIoBound(botTaskConfiguration.getTaskHandlerClassName());
+                BotTaskScheduler.Execution execution = taskScheduler.submit(botExecutor.getBot(), botTaskExecutor, ioBound);
+                if (execution != null) {
+                    scheduledTasks.put(botTaskExecutor, execution);
+                } else {
+                    rejectTasks(botExecutor, Lists.newArrayList(botTaskExecutor));
+                }
             }
         }
         for (String taskName : sequentialTasks.keySet()) {
-            WorkflowSequentialBotTaskExecutor botTaskExecutor = new WorkflowSequentialBotTaskExecutor(botExecutor.getBot(), botExecutor.getBotTasks()
-                    .get(taskName), sequentialTasks.get(taskName));
-            ScheduledFuture<?> future = executor.schedule(botTaskExecutor, 200, TimeUnit.MILLISECONDS);
-            scheduledTasks.put(botTaskExecutor, future);
+            BotTask botTask = botExecutor.getBotTasks().get(taskName);
+            WorkflowSequentialBotTaskExecutor botTaskExecutor = new WorkflowSequentialBotTaskExecutor(botExecutor.getBot(), botTask,
+                    sequentialTasks.get(taskName));
+            boolean ioBound = botTask != null && taskScheduler.isIoBound(botTask.getTaskHandlerClassName());
+            BotTaskScheduler.Execution execution = taskScheduler.submit(botExecutor.getBot(), botTaskExecutor, ioBound);
+            if (execution != null) {
+                scheduledTasks.put(botTaskExecutor, execution);
+            } else {
+                rejectTasks(botExecutor, sequentialTasks.get(taskName));
+            }
+        }
+    }
+
+    /**
+     * Backpressure: rejected tasks will be loaded again on next invocation.
+     */
+    private void rejectTasks(WorkflowBotExecutor botExecutor, List<WorkflowBotTaskExecutor> botTaskExecutors) {
+        for (WorkflowBotTaskExecutor botTaskExecutor : botTaskExecutors) {
+            botTaskExecutor.setExecutionStatus(WorkflowBotTaskExecutionStatus.SCHEDULING_FAILURE);
+            deferredTaskIds.put(botExecutor.getBot().getId(), botTaskExecutor.getTask().getId());
         }
     }
 
@@ -229,19 +333,32 @@ public class WorkflowThreadPoolBotInvoker implements BotInvoker, Runnable {
      *
      * @param botExecutor
      *            Component, used to create new bot task executors.
+     * @param tasks
+     *            New tasks.
      */
-    private void scheduleSequentialBot(WorkflowBotExecutor botExecutor) {
-        if (scheduledTasks.containsKey(new WorkflowSequentialBotTaskExecutor(botExecutor.getBot(), null, null))) {
-            return;
-        }
+    private void scheduleSequentialBot(WorkflowBotExecutor botExecutor, Set<WfTask> tasks) {
         List<WorkflowBotTaskExecutor> tasksToExecute = Lists.newLinkedList();
-        Set<WfTask> tasks = botExecutor.getNewTasks();
         for (WfTask task : tasks) {
             tasksToExecute.add(botExecutor.createBotTaskExecutor(task));
         }
+        if (tasksToExecute.isEmpty()) {
+            return;
+        }
         WorkflowSequentialBotTaskExecutor botTaskExecutor = new WorkflowSequentialBotTaskExecutor(botExecutor.getBot(), null, tasksToExecute);
-        ScheduledFuture<?> future = executor.schedule(botTaskExecutor, 200, TimeUnit.MILLISECONDS);
-        scheduledTasks.put(botTaskExecutor, future);
+        BotTaskScheduler.Execution execution = taskScheduler.submit(botExecutor.getBot(), botTaskExecutor, false);
+        if (execution != null) {
+            scheduledTasks.put(botTaskExecutor, execution);
+        } else {
+            rejectTasks(botExecutor, tasksToExecute);
+        }
+    }
+
+    @Override
+    public synchronized List<BotExecutionMetrics> getBotExecutionMetrics() {
+        if (taskScheduler == null) {
+            return Lists.newArrayList();
+        }
+        return taskScheduler.getMetrics();
     }
 
     private void logBotsActivites() {
@@ -0,0 +1,108 @@
+package ru.runa.wf.logic.bot.webservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wf.logic.bot.BotStationResources;
+import ru.runa.wf.logic.bot.WebServiceTaskHandler;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+
+/**
+ * HTTP connections for {@link WebServiceTaskHandler}. Limits simultaneous
+ * requests per endpoint and returns connections to JDK keep-alive cache: it
+ * reuses socket only if response is read up to the end and closed.
+ */
+public class WebServiceConnections {
+    private static final Log log = LogFactory.getLog(WebServiceConnections.class);
+    /**
+     * Larger unread responses are dropped together with connection.
+     */
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+    private static final ConcurrentMap<String, Semaphore> endpointPermits = Maps.newConcurrentMap();
+
+    /**
+     * Waits for free connection slot to endpoint.
+     */
+    public static void acquire(URL url) throws IOException, InterruptedException {
+        Semaphore semaphore = getPermits(url);
+        if (!semaphore.tryAcquire(BotStationResources.getWebServiceConnectTimeout(), TimeUnit.MILLISECONDS)) {
+            throw new IOException("No free connection to " + getEndpoint(url) + " within connect timeout");
+        }
+    }
+
+    public static HttpURLConnection open(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(BotStationResources.getWebServiceConnectTimeout());
+        connection.setReadTimeout(BotStationResources.getWebServiceReadTimeout());
+        return connection;
+    }
+
+    /**
+     * Consumes rest of response so connection can be reused and frees
+     * endpoint slot.
+     */
+    public static void release(URL url, HttpURLConnection connection) {
+        try {
+            if (connection != null) {
+                InputStream stream;
+                try {
+                    stream = connection.getInputStream();
+                } catch (IOException e) {
+                    stream = connection.getErrorStream();
+                }
+                drainAndClose(connection, stream);
+            }
+        } finally {
+            getPermits(url).release();
+        }
+    }
+
+    private static void drainAndClose(HttpURLConnection connection, InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[4096];
+            int total = 0;
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                total += read;
+                if (total > MAX_DRAIN_BYTES) {
+                    connection.disconnect();
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Unable to read rest of response: " + e);
+        } finally {
+            Closeables.closeQuietly(stream);
+        }
+    }
+
+    private static Semaphore getPermits(URL url) {
+        String endpoint = getEndpoint(url);
+        Semaphore semaphore = endpointPermits.get(endpoint);
+        if (semaphore == null) {
+            semaphore = new Semaphore(BotStationResources.getWebServiceMaxConnectionsPerEndpoint());
+            Semaphore existing = endpointPermits.putIfAbsent(endpoint, semaphore);
+            if (existing != null) {
+                semaphore = existing;
+            }
+        }
+        return semaphore;
+    }
+
+    private static String getEndpoint(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ":" + (url.getPort() != -1 ? url.getPort() : url.getDefaultPort());
+    }
+}
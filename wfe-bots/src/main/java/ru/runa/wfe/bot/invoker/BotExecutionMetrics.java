@@ -0,0 +1,117 @@
+package ru.runa.wfe.bot.invoker;
+
+import java.io.Serializable;
+
+import com.google.common.base.Objects;
+
+/**
+ * Bot tasks execution statistics since bot station start.
+ *
+ * @since 4.3.0
+ */
+public class BotExecutionMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private Long botId;
+    private String botUsername;
+    private int queueDepth;
+    private int running;
+    private long completed;
+    private long rejected;
+    private long timedOut;
+    private long averageWaitMillis;
+    private long maxWaitMillis;
+    private long averageExecutionMillis;
+
+    public Long getBotId() {
+        return botId;
+    }
+
+    public void setBotId(Long botId) {
+        this.botId = botId;
+    }
+
+    public String getBotUsername() {
+        return botUsername;
+    }
+
+    public void setBotUsername(String botUsername) {
+        this.botUsername = botUsername;
+    }
+
+    /**
+     * @return tasks waiting for free thread
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(int running) {
+        this.running = running;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * @return tasks not accepted due to full queue
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(long timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public long getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public void setAverageWaitMillis(long averageWaitMillis) {
+        this.averageWaitMillis = averageWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getAverageExecutionMillis() {
+        return averageExecutionMillis;
+    }
+
+    public void setAverageExecutionMillis(long averageExecutionMillis) {
+        this.averageExecutionMillis = averageExecutionMillis;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("bot", botUsername).add("queueDepth", queueDepth).add("running", running)
+                .add("completed", completed).add("rejected", rejected).add("timedOut", timedOut).add("averageWaitMillis", averageWaitMillis)
+                .add("maxWaitMillis", maxWaitMillis).add("averageExecutionMillis", averageExecutionMillis).toString();
+    }
+}
@@ -17,6 +17,8 @@
  */
 package ru.runa.wfe.bot.invoker;
 
+import java.util.List;
+
 import ru.runa.wfe.bot.BotStation;
 
 /**
@@ -29,4 +31,9 @@ public interface BotInvoker {
 
     public void invokeBots(BotStation botStation, boolean resetFailedDelay);
 
+    /**
+     * @return per bot queue depth and latency statistics
+     */
+    public List<BotExecutionMetrics> getBotExecutionMetrics();
+
 }
@@ -1,8 +1,11 @@
 package ru.runa.wfe.service;
 
+import java.util.List;
+
 import javax.ejb.Remote;
 
 import ru.runa.wfe.bot.BotStation;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
 
 @Remote
 public interface BotInvokerService {
@@ -33,4 +36,11 @@ public interface BotInvokerService {
      */
     public void cancelPeriodicBotsInvocation();
 
+    /**
+     * Bot tasks queue depth and latency statistics of this bot station.
+     * 
+     * @return not <code>null</code>
+     */
+    public List<BotExecutionMetrics> getBotExecutionMetrics();
+
 }
@@ -17,7 +17,10 @@
  */
 package ru.runa.wfe.service.delegate;
 
+import java.util.List;
+
 import ru.runa.wfe.bot.BotStation;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
 import ru.runa.wfe.service.BotInvokerService;
 
 import com.google.common.base.Strings;
@@ -55,6 +58,11 @@ public class BotInvokerServiceDelegate extends EJB3Delegate implements BotInvoke
         getBotInvokerService().invokeBots(botStation);
     }
 
+    @Override
+    public List<BotExecutionMetrics> getBotExecutionMetrics() {
+        return getBotInvokerService().getBotExecutionMetrics();
+    }
+
     public static BotInvokerService getService(BotStation botStation) {
         BotInvokerServiceDelegate botInvokerService = Delegates.createDelegate(BotInvokerServiceDelegate.class);
         if (botStation != null && !Strings.isNullOrEmpty(botStation.getAddress())) {
@@ -17,6 +17,8 @@
  */
 package ru.runa.wfe.service.impl;
 
+import java.util.List;
+
 import javax.annotation.Resource;
 import javax.ejb.Stateless;
 import javax.ejb.Timeout;
@@ -34,6 +36,7 @@ import org.apache.commons.logging.LogFactory;
 import ru.runa.wf.logic.bot.BotStationResources;
 import ru.runa.wfe.bot.BotStation;
 import ru.runa.wfe.bot.BotStationDoesNotExistException;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
 import ru.runa.wfe.bot.invoker.BotInvokerFactory;
 import ru.runa.wfe.service.BotInvokerService;
 import ru.runa.wfe.service.delegate.Delegates;
@@ -81,6 +84,11 @@ public class BotInvokerServiceBean implements BotInvokerService {
         invokeBotsImpl(botStation, false);
     }
 
+    @Override
+    public List<BotExecutionMetrics> getBotExecutionMetrics() {
+        return BotInvokerFactory.getBotInvoker().getBotExecutionMetrics();
+    }
+
     @WebMethod(exclude = true)
     @Timeout
     public void timeOutHandler(Timer timer) {
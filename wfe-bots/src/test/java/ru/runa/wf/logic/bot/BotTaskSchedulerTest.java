@@ -0,0 +1,339 @@
+package ru.runa.wf.logic.bot;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.bot.Bot;
+import ru.runa.wfe.bot.invoker.BotExecutionMetrics;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Uses settings from wfe.custom.botstation.properties: default lane of 2 threads, io lane of 1 thread, 4 queued tasks per bot, 1 abandoned
+ * execution.
+ */
+public class BotTaskSchedulerTest extends Assert {
+    private static final long TIMEOUT_SECONDS = 10;
+    private final AtomicInteger createdThreads = new AtomicInteger();
+    private final List<String> startedBots = Collections.synchronizedList(Lists.<String> newArrayList());
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private final AtomicInteger maxRunningTasks = new AtomicInteger();
+    private BotTaskScheduler scheduler;
+
+    @BeforeMethod
+    public void createScheduler() {
+        createdThreads.set(0);
+        startedBots.clear();
+        runningTasks.set(0);
+        maxRunningTasks.set(0);
+        scheduler = new BotTaskScheduler(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                createdThreads.incrementAndGet();
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Test
+    public void testBotConcurrencyLimit() throws Exception {
+        Bot bot = createBot(1L, "limited");
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            TestTask task = new TestTask(bot, true);
+            tasks.add(task);
+            assertNotNull(scheduler.submit(bot, task, false));
+        }
+        assertTrue(tasks.get(0).awaitStarted());
+        assertEquals(getMetrics(bot).getRunning(), 1);
+        assertEquals(getMetrics(bot).getQueueDepth(), 2);
+        for (TestTask task : tasks) {
+            assertTrue(task.awaitStarted());
+            task.finish();
+        }
+        for (TestTask task : tasks) {
+            assertTrue(task.awaitFinished());
+        }
+        assertEquals(maxRunningTasks.get(), 1);
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        Bot bot = createBot(1L, "queued");
+        List<TestTask> tasks = Lists.newArrayList();
+        List<BotTaskScheduler.Execution> executions = Lists.newArrayList();
+        // 2 running and 4 queued
+        for (int i = 0; i < 6; i++) {
+            TestTask task = new TestTask(bot, true);
+            tasks.add(task);
+            BotTaskScheduler.Execution execution = scheduler.submit(bot, task, false);
+            assertNotNull(execution);
+            executions.add(execution);
+        }
+        assertNull(scheduler.submit(bot, new TestTask(bot, false), false));
+        assertEquals(getMetrics(bot).getRejected(), 1);
+        assertEquals(getMetrics(bot).getQueueDepth(), 4);
+        for (TestTask task : tasks) {
+            assertTrue(task.awaitStarted());
+            task.finish();
+        }
+        for (BotTaskScheduler.Execution execution : executions) {
+            assertTrue(waitFinished(execution));
+        }
+        assertEquals(maxRunningTasks.get(), 2);
+        assertEquals(getMetrics(bot).getCompleted(), 6);
+        assertTrue(createdThreads.get() <= 4, "threads " + createdThreads.get());
+    }
+
+    @Test
+    public void testIoLaneIsSeparated() throws Exception {
+        Bot bot = createBot(1L, "io");
+        TestTask ioTask = new TestTask(bot, true);
+        assertNotNull(scheduler.submit(bot, ioTask, true));
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 2; i++) {
+            TestTask task = new TestTask(bot, true);
+            tasks.add(task);
+            assertNotNull(scheduler.submit(bot, task, false));
+        }
+        for (TestTask task : tasks) {
+            assertTrue(task.awaitStarted());
+        }
+        assertTrue(ioTask.awaitStarted());
+        assertEquals(maxRunningTasks.get(), 3);
+        ioTask.finish();
+        for (TestTask task : tasks) {
+            task.finish();
+        }
+    }
+
+    @Test
+    public void testWeightedFairness() throws Exception {
+        Bot blocker = createBot(1L, "blocker");
+        Bot heavy = createBot(2L, "heavy");
+        Bot light = createBot(3L, "light");
+        // one slot of default lane is kept, second one executes tasks one by one
+        TestTask keptTask = new TestTask(blocker, true);
+        TestTask blockingTask = new TestTask(blocker, true);
+        scheduler.submit(blocker, keptTask, false);
+        scheduler.submit(blocker, blockingTask, false);
+        assertTrue(keptTask.awaitStarted());
+        assertTrue(blockingTask.awaitStarted());
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            TestTask task = new TestTask(heavy, false);
+            tasks.add(task);
+            assertNotNull(scheduler.submit(heavy, task, false));
+        }
+        for (int i = 0; i < 2; i++) {
+            TestTask task = new TestTask(light, false);
+            tasks.add(task);
+            assertNotNull(scheduler.submit(light, task, false));
+        }
+        startedBots.clear();
+        blockingTask.finish();
+        for (TestTask task : tasks) {
+            assertTrue(task.awaitFinished());
+        }
+        List<String> firstStarted = Lists.newArrayList(startedBots.subList(0, 4));
+        assertEquals(Collections.frequency(firstStarted, "heavy"), 3, firstStarted.toString());
+        assertEquals(Collections.frequency(firstStarted, "light"), 1, firstStarted.toString());
+        keptTask.finish();
+    }
+
+    @Test
+    public void testFairnessBetweenBots() throws Exception {
+        Bot blocker = createBot(1L, "blocker");
+        Bot first = createBot(2L, "first");
+        Bot second = createBot(3L, "second");
+        TestTask keptTask = new TestTask(blocker, true);
+        TestTask blockingTask = new TestTask(blocker, true);
+        scheduler.submit(blocker, keptTask, false);
+        scheduler.submit(blocker, blockingTask, false);
+        assertTrue(keptTask.awaitStarted());
+        assertTrue(blockingTask.awaitStarted());
+        List<TestTask> tasks = Lists.newArrayList();
+        for (int i = 0; i < 4; i++) {
+            TestTask task = new TestTask(first, false);
+            tasks.add(task);
+            assertNotNull(scheduler.submit(first, task, false));
+        }
+        for (int i = 0; i < 2; i++) {
+            TestTask task = new TestTask(second, false);
+            tasks.add(task);
+            assertNotNull(scheduler.submit(second, task, false));
+        }
+        startedBots.clear();
+        blockingTask.finish();
+        for (TestTask task : tasks) {
+            assertTrue(task.awaitFinished());
+        }
+        // second bot is not waiting for all tasks of first bot
+        List<String> firstStarted = Lists.newArrayList(startedBots.subList(0, 4));
+        assertEquals(Collections.frequency(firstStarted, "second"), 2, firstStarted.toString());
+        keptTask.finish();
+    }
+
+    @Test
+    public void testAbandonedExecutionIsNotFinishedUntilThreadExits() throws Exception {
+        Bot bot = createBot(1L, "stuck");
+        TestTask stuckTask1 = new TestTask(bot, true);
+        TestTask stuckTask2 = new TestTask(bot, true);
+        stuckTask1.ignoreInterruption = true;
+        stuckTask2.ignoreInterruption = true;
+        BotTaskScheduler.Execution execution1 = scheduler.submit(bot, stuckTask1, false);
+        BotTaskScheduler.Execution execution2 = scheduler.submit(bot, stuckTask2, false);
+        assertTrue(stuckTask1.awaitStarted());
+        assertTrue(stuckTask2.awaitStarted());
+        // executions are interrupted on first check and abandoned on next one
+        scheduler.checkTimeouts(0);
+        assertEquals(getMetrics(bot).getTimedOut(), 0);
+        assertEquals(getMetrics(bot).getRunning(), 2);
+        scheduler.checkTimeouts(0);
+        // only 1 execution may be abandoned
+        assertEquals(getMetrics(bot).getTimedOut(), 1);
+        assertEquals(getMetrics(bot).getRunning(), 1);
+        assertFalse(execution1.isFinished());
+        assertFalse(execution2.isFinished());
+        scheduler.checkTimeouts(0);
+        assertEquals(getMetrics(bot).getTimedOut(), 1);
+        // released slot is used by next task
+        TestTask task = new TestTask(bot, false);
+        BotTaskScheduler.Execution execution = scheduler.submit(bot, task, false);
+        assertTrue(task.awaitFinished());
+        assertTrue(waitFinished(execution));
+        assertEquals(createdThreads.get(), 3);
+        assertFalse(execution1.isFinished());
+        assertFalse(execution2.isFinished());
+        stuckTask1.finish();
+        stuckTask2.finish();
+        assertTrue(waitFinished(execution1));
+        assertTrue(waitFinished(execution2));
+        // slot of abandoned execution is not released twice
+        assertEquals(getMetrics(bot).getRunning(), 0);
+    }
+
+    private boolean waitFinished(BotTaskScheduler.Execution execution) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (!execution.isFinished()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private BotExecutionMetrics getMetrics(Bot bot) {
+        for (BotExecutionMetrics metrics : scheduler.getMetrics()) {
+            if (bot.getId().equals(metrics.getBotId())) {
+                return metrics;
+            }
+        }
+        throw new AssertionError("No metrics for " + bot);
+    }
+
+    private static Bot createBot(Long id, String username) {
+        Bot bot = new Bot(null, username, null);
+        bot.setId(id);
+        return bot;
+    }
+
+    private class TestTask implements Runnable, BotExecutionStatus {
+        private final Bot bot;
+        private final CountDownLatch startedLatch = new CountDownLatch(1);
+        private final CountDownLatch finishLatch;
+        private final CountDownLatch finishedLatch = new CountDownLatch(1);
+        private volatile WorkflowBotTaskExecutionStatus status = WorkflowBotTaskExecutionStatus.SCHEDULED;
+        private volatile boolean ignoreInterruption;
+        private volatile boolean interrupted;
+
+        public TestTask(Bot bot, boolean blocking) {
+            this.bot = bot;
+            this.finishLatch = new CountDownLatch(blocking ? 1 : 0);
+        }
+
+        @Override
+        public void run() {
+            status = WorkflowBotTaskExecutionStatus.STARTED;
+            startedBots.add(bot.getUsername());
+            int running = runningTasks.incrementAndGet();
+            while (true) {
+                int max = maxRunningTasks.get();
+                if (running <= max || maxRunningTasks.compareAndSet(max, running)) {
+                    break;
+                }
+            }
+            startedLatch.countDown();
+            try {
+                while (true) {
+                    try {
+                        finishLatch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        if (!ignoreInterruption) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                runningTasks.decrementAndGet();
+                if (status == WorkflowBotTaskExecutionStatus.STARTED) {
+                    status = WorkflowBotTaskExecutionStatus.COMPLETED;
+                }
+                finishedLatch.countDown();
+            }
+        }
+
+        @Override
+        public WorkflowBotTaskExecutionStatus getExecutionStatus() {
+            return status;
+        }
+
+        /**
+         * Same contract as in {@link WorkflowBotTaskExecutor}: abandon is requested on second call.
+         */
+        @Override
+        public boolean interruptExecution() {
+            status = WorkflowBotTaskExecutionStatus.FAILED;
+            if (!interrupted) {
+                interrupted = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int getExecutionInSeconds() {
+            return status == WorkflowBotTaskExecutionStatus.SCHEDULED ? 0 : 1;
+        }
+
+        public boolean awaitStarted() throws InterruptedException {
+            return startedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        public boolean awaitFinished() throws InterruptedException {
+            return finishedLatch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        public void finish() {
+            finishLatch.countDown();
+        }
+
+        @Override
+        public String toString() {
+            return "test task of " + bot.getUsername();
+        }
+    }
+}
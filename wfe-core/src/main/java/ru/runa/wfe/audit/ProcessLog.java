@@ -81,8 +81,23 @@ public abstract class ProcessLog implements IAttributes, Serializable, Comparabl
     private Long tokenId;
     private Date createDate;
     private Severity severity = Severity.DEBUG;
+    /**
+     * Decoded attributes, loaded only for modification or full view.
+     */
     @XmlTransient
-    private HashMap<String, String> attributes = Maps.newHashMap();
+    private HashMap<String, String> attributes;
+    /**
+     * Stored attributes in legacy XML format.
+     */
+    @XmlTransient
+    private String content;
+    /**
+     * Stored attributes in {@link ProcessLogAttributesCodec} format.
+     */
+    @XmlTransient
+    private byte[] attributesData;
+    @XmlTransient
+    private boolean attributesModified;
     private byte[] bytes;
     private String nodeId;
 
@@ -148,13 +163,63 @@ public abstract class ProcessLog implements IAttributes, Serializable, Comparabl
         this.severity = severity;
     }
 
+    /**
+     * @return attributes in legacy XML format, <code>null</code> for logs stored in binary format
+     */
     @Column(name = "CONTENT", length = 4000)
     public String getContent() {
-        return XmlUtils.serialize(attributes);
+        storeModifiedAttributes();
+        return content;
     }
 
     public void setContent(String content) {
-        attributes = XmlUtils.deserialize(content);
+        this.content = content;
+        attributes = null;
+        attributesModified = false;
+    }
+
+    /**
+     * @return attributes in {@link ProcessLogAttributesCodec} format, <code>null</code> for logs stored in legacy XML format
+     */
+    @Column(name = "ATTRIBUTES", length = 4000)
+    public byte[] getAttributesData() {
+        storeModifiedAttributes();
+        return attributesData;
+    }
+
+    public void setAttributesData(byte[] attributesData) {
+        this.attributesData = attributesData;
+        attributes = null;
+        attributesModified = false;
+    }
+
+    /**
+     * Stored values are returned as is until attributes are modified so loaded logs are never updated by dirty checking.
+     */
+    private void storeModifiedAttributes() {
+        if (attributesModified) {
+            if (SystemProperties.isProcessLogBinaryAttributesEnabled()) {
+                attributesData = ProcessLogAttributesCodec.encode(attributes);
+                content = null;
+            } else {
+                content = XmlUtils.serialize(attributes);
+                attributesData = null;
+            }
+            attributesModified = false;
+        }
+    }
+
+    private HashMap<String, String> loadAttributes() {
+        if (attributes == null) {
+            if (attributesData != null) {
+                attributes = ProcessLogAttributesCodec.decode(attributesData);
+            } else if (content != null) {
+                attributes = XmlUtils.deserialize(content);
+            } else {
+                attributes = Maps.newHashMap();
+            }
+        }
+        return attributes;
     }
 
     @Lob
@@ -177,7 +242,8 @@ public abstract class ProcessLog implements IAttributes, Serializable, Comparabl
     }
 
     protected void addAttribute(String name, String value) {
-        attributes.put(name, value);
+        loadAttributes().put(name, value);
+        attributesModified = true;
     }
 
     protected void addAttributeWithTruncation(String name, String value) {
@@ -188,7 +254,10 @@ public abstract class ProcessLog implements IAttributes, Serializable, Comparabl
     }
 
     protected String getAttribute(String name) {
-        return attributes.get(name);
+        if (attributes == null && attributesData != null) {
+            return ProcessLogAttributesCodec.decode(attributesData, name);
+        }
+        return loadAttributes().get(name);
     }
 
     protected String getAttributeNotNull(String name) {
@@ -239,6 +308,6 @@ public abstract class ProcessLog implements IAttributes, Serializable, Comparabl
     @Override
     public String toString() {
         return Objects.toStringHelper(this).add("id", id).add("nodeId", nodeId).add("tokenId", tokenId)
-                .add("date", CalendarUtil.formatDateTime(createDate)).add("attributes", attributes).toString();
+                .add("date", CalendarUtil.formatDateTime(createDate)).add("attributes", loadAttributes()).toString();
     }
 }
@@ -0,0 +1,293 @@
+package ru.runa.wfe.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import ru.runa.wfe.InternalApplicationException;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Maps;
+
+/**
+ * Compact versioned binary encoding of {@link ProcessLog} attributes stored in BPM_LOG.ATTRIBUTES column instead of XML in CONTENT column.
+ *
+ * Version 1 layout is version byte followed by entries up to the end of data. Entry header byte holds attribute name code (upper 6 bits, 0
+ * means literal name follows) and value type (lower 2 bits):
+ * <ul>
+ * <li>string: UTF-8 bytes prefixed with varint length;</li>
+ * <li>number: canonical decimal value as zigzag varint (ids, indexes);</li>
+ * <li>prefixed number: prefix code and varint, node ids like <code>ID12</code> and transition names like <code>tr1</code>;</li>
+ * <li>dictionary: code of frequent value (node types, booleans).</li>
+ * </ul>
+ * Dictionaries are append-only: codes of existing entries must never change, other layout changes require new version.
+ *
+ * Single attribute is read without decoding other ones, see {@link #decode(byte[], String)}. Node ids, node names and variable names are
+ * interned on decoding so logs of loaded history share their instances.
+ *
+ * @since 4.3.0
+ */
+public class ProcessLogAttributesCodec {
+    public static final byte VERSION_1 = 1;
+    private static final int TYPE_STRING = 0;
+    private static final int TYPE_NUMBER = 1;
+    private static final int TYPE_PREFIXED_NUMBER = 2;
+    private static final int TYPE_DICTIONARY = 3;
+    private static final int LITERAL_NAME_CODE = 0;
+    private static final int MAX_NUMBER_DIGITS = 18;
+    private static final String[] NAMES = { IAttributes.ATTR_ACTION, IAttributes.ATTR_NODE_NAME, IAttributes.ATTR_NODE_TYPE,
+            IAttributes.ATTR_NODE_ID_FROM, IAttributes.ATTR_NODE_ID_TO, IAttributes.ATTR_TRANSITION_ID, IAttributes.ATTR_MESSAGE,
+            IAttributes.ATTR_INFO, IAttributes.ATTR_PROCESS_ID, IAttributes.ATTR_TOKEN_ID, IAttributes.ATTR_ACTOR_ID, IAttributes.ATTR_ACTOR_NAME,
+            IAttributes.ATTR_OLD_VALUE, IAttributes.ATTR_NEW_VALUE, IAttributes.ATTR_VARIABLE_NAME, IAttributes.ATTR_TASK_ID,
+            IAttributes.ATTR_TASK_NAME, IAttributes.ATTR_INDEX, IAttributes.ATTR_IS_FILE_VALUE, IAttributes.ATTR_DUE_DATE, IAttributes.ATTR_ID,
+            "nodeId", IAttributes.ATTR_PARAM + 0, IAttributes.ATTR_PARAM + 1, IAttributes.ATTR_PARAM + 2, IAttributes.ATTR_PARAM + 3 };
+    private static final String[] VALUES = { "true", "false", "START_EVENT", "ACTION_NODE", "END_PROCESS", "WAIT_STATE", "TASK_STATE", "FORK",
+            "JOIN", "DECISION", "SUBPROCESS", "MULTI_SUBPROCESS", "SEND_MESSAGE", "RECEIVE_MESSAGE", "END_TOKEN", "MULTI_TASK_STATE", "MERGE",
+            "EXCLUSIVE_GATEWAY", "PARALLEL_GATEWAY", "TEXT_ANNOTATION" };
+    private static final String[] NUMBER_PREFIXES = { "ID", "tr" };
+    private static final Set<String> INTERNED_NAMES = ImmutableSet.of(IAttributes.ATTR_NODE_NAME, IAttributes.ATTR_NODE_ID_FROM,
+            IAttributes.ATTR_NODE_ID_TO, IAttributes.ATTR_TRANSITION_ID, IAttributes.ATTR_VARIABLE_NAME, IAttributes.ATTR_TASK_NAME);
+    // name code 0 is reserved for literal names
+    private static final Map<String, Integer> NAME_CODES = createCodes(NAMES, 1);
+    private static final Map<String, Integer> VALUE_CODES = createCodes(VALUES, 0);
+    private static final Interner<String> INTERNER = Interners.newWeakInterner();
+
+    private static Map<String, Integer> createCodes(String[] dictionary, int firstCode) {
+        Map<String, Integer> codes = Maps.newHashMap();
+        for (int i = 0; i < dictionary.length; i++) {
+            codes.put(dictionary[i], firstCode + i);
+        }
+        return codes;
+    }
+
+    /**
+     * Encodes attributes in current version. Entries are ordered so equal maps always produce equal data.
+     */
+    public static byte[] encode(Map<String, String> attributes) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(16 + 16 * attributes.size());
+        outputStream.write(VERSION_1);
+        Map<String, String> sorted = new TreeMap<String, String>(attributes);
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            Integer nameCode = NAME_CODES.get(entry.getKey());
+            String value = String.valueOf(entry.getValue());
+            int type = getType(value);
+            outputStream.write((nameCode != null ? nameCode : LITERAL_NAME_CODE) << 2 | type);
+            if (nameCode == null) {
+                writeString(outputStream, entry.getKey());
+            }
+            switch (type) {
+            case TYPE_DICTIONARY:
+                outputStream.write(VALUE_CODES.get(value));
+                break;
+            case TYPE_NUMBER:
+                long number = parseNumber(value, 0);
+                writeVarLong(outputStream, number << 1 ^ number >> 63);
+                break;
+            case TYPE_PREFIXED_NUMBER:
+                int prefixCode = getPrefixCode(value);
+                outputStream.write(prefixCode);
+                writeVarLong(outputStream, parseNumber(value, NUMBER_PREFIXES[prefixCode].length()));
+                break;
+            default:
+                writeString(outputStream, value);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Decodes all attributes.
+     */
+    public static HashMap<String, String> decode(byte[] data) {
+        HashMap<String, String> result = Maps.newHashMap();
+        Reader reader = new Reader(data);
+        while (reader.hasNext()) {
+            int header = reader.readByte();
+            String name = getName(reader, header >>> 2);
+            result.put(name, readValue(reader, name, header & 3));
+        }
+        return result;
+    }
+
+    /**
+     * Decodes single attribute skipping other ones.
+     *
+     * @return attribute value or <code>null</code>
+     */
+    public static String decode(byte[] data, String name) {
+        Integer nameCode = NAME_CODES.get(name);
+        Reader reader = new Reader(data);
+        while (reader.hasNext()) {
+            int header = reader.readByte();
+            int entryNameCode = header >>> 2;
+            boolean found;
+            if (entryNameCode == LITERAL_NAME_CODE) {
+                String entryName = reader.readString();
+                found = nameCode == null && name.equals(entryName);
+            } else {
+                found = nameCode != null && nameCode == entryNameCode;
+            }
+            if (found) {
+                return readValue(reader, name, header & 3);
+            }
+            skipValue(reader, header & 3);
+        }
+        return null;
+    }
+
+    private static int getType(String value) {
+        if (VALUE_CODES.containsKey(value)) {
+            return TYPE_DICTIONARY;
+        }
+        if (parseNumber(value, 0) != null) {
+            return TYPE_NUMBER;
+        }
+        if (getPrefixCode(value) != -1) {
+            return TYPE_PREFIXED_NUMBER;
+        }
+        return TYPE_STRING;
+    }
+
+    private static int getPrefixCode(String value) {
+        for (int i = 0; i < NUMBER_PREFIXES.length; i++) {
+            String prefix = NUMBER_PREFIXES[i];
+            if (value.startsWith(prefix) && value.length() > prefix.length() && value.charAt(prefix.length()) != '-'
+                    && parseNumber(value, prefix.length()) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number if string from offset is its canonical decimal representation, <code>null</code> otherwise
+     */
+    private static Long parseNumber(String value, int offset) {
+        boolean negative = value.length() > offset && value.charAt(offset) == '-';
+        int start = negative ? offset + 1 : offset;
+        int digits = value.length() - start;
+        if (digits == 0 || digits > MAX_NUMBER_DIGITS || value.charAt(start) == '0' && (digits > 1 || negative)) {
+            return null;
+        }
+        long number = 0;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            number = number * 10 + c - '0';
+        }
+        return negative ? -number : number;
+    }
+
+    private static String getName(Reader reader, int nameCode) {
+        if (nameCode == LITERAL_NAME_CODE) {
+            return reader.readString();
+        }
+        if (nameCode > NAMES.length) {
+            throw new InternalApplicationException("Unknown attribute name code " + nameCode);
+        }
+        return NAMES[nameCode - 1];
+    }
+
+    private static String readValue(Reader reader, String name, int type) {
+        switch (type) {
+        case TYPE_DICTIONARY:
+            return VALUES[reader.readByte()];
+        case TYPE_NUMBER:
+            long number = reader.readVarLong();
+            return String.valueOf(number >>> 1 ^ -(number & 1));
+        case TYPE_PREFIXED_NUMBER:
+            String prefix = NUMBER_PREFIXES[reader.readByte()];
+            return INTERNER.intern(prefix + reader.readVarLong());
+        default:
+            String value = reader.readString();
+            return INTERNED_NAMES.contains(name) ? INTERNER.intern(value) : value;
+        }
+    }
+
+    private static void skipValue(Reader reader, int type) {
+        switch (type) {
+        case TYPE_DICTIONARY:
+            reader.readByte();
+            break;
+        case TYPE_NUMBER:
+            reader.readVarLong();
+            break;
+        case TYPE_PREFIXED_NUMBER:
+            reader.readByte();
+            reader.readVarLong();
+            break;
+        default:
+            reader.skip(reader.readVarInt());
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream outputStream, String value) {
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        writeVarLong(outputStream, bytes.length);
+        outputStream.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream outputStream, long value) {
+        while ((value & ~0x7FL) != 0) {
+            outputStream.write((int) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        outputStream.write((int) value);
+    }
+
+    private static class Reader {
+        private final byte[] data;
+        private int position;
+
+        public Reader(byte[] data) {
+            this.data = data;
+            if (data.length == 0 || data[0] != VERSION_1) {
+                throw new InternalApplicationException("Unsupported process log attributes version " + (data.length == 0 ? "" : data[0]));
+            }
+            position = 1;
+        }
+
+        public boolean hasNext() {
+            return position < data.length;
+        }
+
+        public int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        public long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        public int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        public String readString() {
+            int length = readVarInt();
+            String value = new String(data, position, length, Charsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        public void skip(int length) {
+            position += length;
+        }
+    }
+
+}
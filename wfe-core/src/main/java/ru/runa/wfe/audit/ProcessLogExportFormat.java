@@ -0,0 +1,104 @@
+package ru.runa.wfe.audit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+
+import org.json.simple.JSONObject;
+
+import ru.runa.wfe.commons.CalendarUtil;
+
+/**
+ * Line based formats of process logs export. Each log is written as soon as it is read so export of large history is not held in memory.
+ *
+ * @since 4.3.0
+ */
+public enum ProcessLogExportFormat {
+    /**
+     * JSON object per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson") {
+
+        @Override
+        public void writeHeader(Writer writer) {
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void write(Writer writer, ProcessLog log, String description) throws IOException {
+            JSONObject object = new JSONObject();
+            object.put("id", log.getId());
+            object.put("processId", log.getProcessId());
+            object.put("tokenId", log.getTokenId());
+            object.put("nodeId", log.getNodeId());
+            object.put("createDate", formatDate(log));
+            object.put("severity", log.getSeverity().name());
+            object.put("type", log.getClass().getSimpleName());
+            object.put("description", description);
+            writer.write(object.toJSONString());
+            writer.write('\n');
+        }
+    },
+    /**
+     * RFC 4180 comma separated values with header line.
+     */
+    CSV("text/csv", "csv") {
+
+        @Override
+        public void writeHeader(Writer writer) throws IOException {
+            writer.write("id,processId,tokenId,nodeId,createDate,severity,type,description\r\n");
+        }
+
+        @Override
+        public void write(Writer writer, ProcessLog log, String description) throws IOException {
+            Object[] values = { log.getId(), log.getProcessId(), log.getTokenId(), log.getNodeId(), formatDate(log), log.getSeverity().name(),
+                    log.getClass().getSimpleName(), description };
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writer.write(escapeCsv(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+    };
+
+    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    private final String contentType;
+    private final String fileExtension;
+
+    private ProcessLogExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public abstract void writeHeader(Writer writer) throws IOException;
+
+    /**
+     * @param description
+     *            formatted log description, can be <code>null</code>
+     */
+    public abstract void write(Writer writer, ProcessLog log, String description) throws IOException;
+
+    private static String formatDate(ProcessLog log) {
+        return CalendarUtil.format(log.getCreateDate(), DATE_FORMAT);
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1 && value.indexOf('\r') == -1) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -6,6 +6,10 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 
+/**
+ * Filter for process logs. Logs are ordered by id, so large histories are read page by page: next page is requested with
+ * {@link #setIdFrom(Long)} set to {@link ProcessLogs#getNextPageIdFrom()} of previous one.
+ */
 public class ProcessLogFilter implements Serializable {
     private static final long serialVersionUID = 1L;
     private Long idFrom;
@@ -17,6 +21,8 @@ public class ProcessLogFilter implements Serializable {
     private String nodeId;
     private boolean includeSubprocessLogs;
     private List<Severity> severities = Lists.newArrayList();
+    private List<String> logClassNames = Lists.newArrayList();
+    private Integer pageSize;
 
     public ProcessLogFilter() {
     }
@@ -100,4 +106,30 @@ public class ProcessLogFilter implements Serializable {
     public void setSeverities(List<Severity> severities) {
         this.severities = severities;
     }
+
+    /**
+     * @return names of log classes to load including their subclasses, all logs are loaded if empty
+     */
+    public List<String> getLogClassNames() {
+        return logClassNames;
+    }
+
+    public void addLogClass(Class<? extends ProcessLog> logClass) {
+        this.logClassNames.add(logClass.getName());
+    }
+
+    public void setLogClassNames(List<String> logClassNames) {
+        this.logClassNames = logClassNames;
+    }
+
+    /**
+     * @return maximum logs count loaded at once or <code>null</code> to load all logs
+     */
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
 }
@@ -26,6 +26,7 @@ public class ProcessLogs implements Serializable {
     private final List<ProcessLog> logs = Lists.newArrayList();
     @XmlTransient
     private final HashMap<Long, Long> subprocessToProcessIds = Maps.newHashMap();
+    private Long nextPageIdFrom;
 
     public ProcessLogs() {
     }
@@ -47,6 +48,24 @@ public class ProcessLogs implements Serializable {
         Collections.sort(logs);
     }
 
+    /**
+     * Registers subprocess in hierarchy independently of loaded {@link SubprocessStartLog}, which can be absent in a page.
+     */
+    public void addSubprocess(Long subprocessId, Long processId) {
+        subprocessToProcessIds.put(subprocessId, processId);
+    }
+
+    /**
+     * @return id to request next page with {@link ProcessLogFilter#setIdFrom(Long)} or <code>null</code> if all logs are loaded
+     */
+    public Long getNextPageIdFrom() {
+        return nextPageIdFrom;
+    }
+
+    public void setNextPageIdFrom(Long nextPageIdFrom) {
+        this.nextPageIdFrom = nextPageIdFrom;
+    }
+
     public int getMaxSubprocessLevel() {
         final Map<Long, Long> tmpIds = Maps.newHashMap(subprocessToProcessIds);
         final Map<Long, Integer> levels = Maps.newHashMap();
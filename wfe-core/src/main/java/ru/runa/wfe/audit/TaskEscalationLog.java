@@ -37,6 +37,14 @@ public class TaskEscalationLog extends TaskLog {
         setSeverity(Severity.INFO);
     }
 
+    /**
+     * @return ids of executors the task was escalated to
+     */
+    @Transient
+    public List<Long> getExecutorIds() {
+        return new ExecutorIdsValue(getAttributeNotNull(ATTR_MESSAGE)).getIds();
+    }
+
     @Override
     @Transient
     public Object[] getPatternArguments() {
@@ -112,6 +112,7 @@ public abstract class VariableLog extends ProcessLog {
         }
         copyLog.setBytes(getBytes());
         copyLog.setContent(getContent());
+        copyLog.setAttributesData(getAttributesData());
         return copyLog;
     }
 }
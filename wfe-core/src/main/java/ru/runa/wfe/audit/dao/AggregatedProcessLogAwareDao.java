@@ -1,5 +1,7 @@
 package ru.runa.wfe.audit.dao;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 
 import ru.runa.wfe.audit.ProcessLog;
@@ -25,4 +27,14 @@ public class AggregatedProcessLogAwareDao extends CommonDAO implements ProcessLo
         UpdateAggregatedLogOperation operation = new UpdateAggregatedLogOperation(getHibernateTemplate(), processDefinitionLoader, process, token);
         processLog.processBy(operation);
     }
+
+    @Override
+    public void addLogs(List<BufferedProcessLog> processLogs) {
+        UpdateAggregatedLogOperation.LoadedLogs loadedLogs = new UpdateAggregatedLogOperation.LoadedLogs();
+        for (BufferedProcessLog bufferedProcessLog : processLogs) {
+            UpdateAggregatedLogOperation operation = new UpdateAggregatedLogOperation(getHibernateTemplate(), processDefinitionLoader,
+                    bufferedProcessLog.getProcess(), bufferedProcessLog.getToken(), loadedLogs);
+            bufferedProcessLog.getProcessLog().processBy(operation);
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package ru.runa.wfe.audit.dao;
+
+import ru.runa.wfe.audit.ProcessLog;
+import ru.runa.wfe.execution.Process;
+import ru.runa.wfe.execution.Token;
+
+/**
+ * Process log waiting in transaction buffer to be saved.
+ *
+ * @since 4.3.0
+ */
+public class BufferedProcessLog {
+    private final ProcessLog processLog;
+    private final Process process;
+    private final Token token;
+
+    public BufferedProcessLog(ProcessLog processLog, Process process, Token token) {
+        this.processLog = processLog;
+        this.process = process;
+        this.token = token;
+    }
+
+    public ProcessLog getProcessLog() {
+        return processLog;
+    }
+
+    public Process getProcess() {
+        return process;
+    }
+
+    public Token getToken() {
+        return token;
+    }
+}
@@ -1,5 +1,7 @@
 package ru.runa.wfe.audit.dao;
 
+import java.util.List;
+
 import ru.runa.wfe.audit.ProcessLog;
 import ru.runa.wfe.execution.Process;
 import ru.runa.wfe.execution.Token;
@@ -9,4 +11,8 @@ public class DoNothingProcessLogAwareDao implements ProcessLogAwareDao {
     @Override
     public void addLog(ProcessLog processLog, Process process, Token token) {
     }
+
+    @Override
+    public void addLogs(List<BufferedProcessLog> processLogs) {
+    }
 }
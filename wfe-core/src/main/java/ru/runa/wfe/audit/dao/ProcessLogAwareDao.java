@@ -1,9 +1,16 @@
 package ru.runa.wfe.audit.dao;
 
+import java.util.List;
+
 import ru.runa.wfe.audit.ProcessLog;
 import ru.runa.wfe.execution.Process;
 import ru.runa.wfe.execution.Token;
 
 public interface ProcessLogAwareDao {
     public void addLog(ProcessLog processLog, Process process, Token token);
+
+    /**
+     * Invoked for logs saved together from transaction buffer.
+     */
+    public void addLogs(List<BufferedProcessLog> processLogs);
 }
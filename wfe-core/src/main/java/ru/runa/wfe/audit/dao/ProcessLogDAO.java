@@ -1,24 +1,40 @@
 package ru.runa.wfe.audit.dao;
 
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.hibernate.EntityMode;
 import org.hibernate.Query;
 import org.hibernate.Session;
+import org.hibernate.metadata.ClassMetadata;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.orm.hibernate3.HibernateCallback;
 
+import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.audit.NodeEnterLog;
 import ru.runa.wfe.audit.NodeLeaveLog;
 import ru.runa.wfe.audit.ProcessLog;
 import ru.runa.wfe.audit.ProcessLogFilter;
 import ru.runa.wfe.audit.Severity;
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.dao.GenericDAO;
 import ru.runa.wfe.execution.Process;
 import ru.runa.wfe.execution.Token;
 import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.lang.SubprocessDefinition;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 
@@ -29,6 +45,17 @@ import com.google.common.collect.Lists;
  * @since 4.0
  */
 public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLogDAO<ProcessLog> {
+    /**
+     * Key of log buffer in current transaction resources.
+     */
+    private static final String BUFFER_RESOURCE_KEY = ProcessLogDAO.class.getName() + ".buffer";
+    private static final Comparator<ProcessLog> ID_COMPARATOR = new Comparator<ProcessLog>() {
+
+        @Override
+        public int compare(ProcessLog o1, ProcessLog o2) {
+            return o1.getId().compareTo(o2.getId());
+        }
+    };
 
     @Autowired
     private ProcessLogAwareDao customizationDao;
@@ -36,12 +63,14 @@ public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLog
     @SuppressWarnings("unchecked")
     @Override
     public List<ProcessLog> getAll(Long processId) {
+        flushBuffer();
         return getHibernateTemplate().find("from ProcessLog where processId=? order by id asc", processId);
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public List<ProcessLog> get(Long processId, ProcessDefinition definition) {
+        flushBuffer();
         String checkQuery = "select count(t) from TransitionLog t where processId=? and t.nodeId is null";
         Number oldLogsCount = (Number) getHibernateTemplate().find(checkQuery, processId).get(0);
         boolean fallbackToOldAlgorithm = oldLogsCount.intValue() > 0;
@@ -100,39 +129,71 @@ public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLog
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public List<ProcessLog> getAll(final ProcessLogFilter filter) {
+    public List<ProcessLog> getAll(ProcessLogFilter filter) {
+        return getAll(Lists.newArrayList(filter.getProcessId()), filter);
+    }
+
+    /**
+     * Loads logs of processes ordered by id. Token and node criteria are applied to logs of {@link ProcessLogFilter#getProcessId()} only, at most
+     * {@link ProcessLogFilter#getPageSize()} logs are loaded. Large process lists are queried by parts of
+     * {@link SystemProperties#getDatabaseParametersCount()} ids, each part is limited by page size and results are merged by id.
+     */
+    public List<ProcessLog> getAll(List<Long> processIds, ProcessLogFilter filter) {
+        flushBuffer();
+        // reserved for id and date bounds, process, token, node and severities parameters
+        int window = SystemProperties.getDatabaseParametersCount() - 7 - filter.getSeverities().size();
+        List<List<Long>> processIdsParts = Lists.partition(processIds, window);
+        if (processIdsParts.size() == 1) {
+            return getAllPart(processIds, filter);
+        }
+        List<ProcessLog> result = Lists.newArrayList();
+        for (List<Long> processIdsPart : processIdsParts) {
+            result.addAll(getAllPart(processIdsPart, filter));
+        }
+        Collections.sort(result, ID_COMPARATOR);
+        if (filter.getPageSize() != null && result.size() > filter.getPageSize()) {
+            result = Lists.newArrayList(result.subList(0, filter.getPageSize()));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProcessLog> getAllPart(final List<Long> processIds, final ProcessLogFilter filter) {
         return getHibernateTemplate().executeFind(new HibernateCallback<List<ProcessLog>>() {
 
             @Override
             public List<ProcessLog> doInHibernate(Session session) {
                 boolean filterBySeverity = filter.getSeverities().size() != 0 && filter.getSeverities().size() != Severity.values().length;
-                String hql = "from ProcessLog where processId = :processId";
+                List<String> logClassNames = getMappedLogClassNames(session, filter.getLogClassNames());
+                String hql = "from ProcessLog l where l.processId in (:processIds)";
                 if (filter.getIdFrom() != null) {
-                    hql += " and id >= :idFrom";
+                    hql += " and l.id >= :idFrom";
                 }
                 if (filter.getIdTo() != null) {
-                    hql += " and id <= :idTo";
+                    hql += " and l.id <= :idTo";
                 }
                 if (filter.getCreateDateFrom() != null) {
-                    hql += " and createDate >= :createDateFrom";
+                    hql += " and l.createDate >= :createDateFrom";
                 }
                 if (filter.getCreateDateTo() != null) {
-                    hql += " and createDate <= :createDateTo";
+                    hql += " and l.createDate <= :createDateTo";
                 }
                 if (filter.getTokenId() != null) {
-                    hql += " and tokenId = :tokenId";
+                    hql += " and (l.processId <> :processId or l.tokenId = :tokenId)";
                 }
                 if (filter.getNodeId() != null) {
-                    hql += " and nodeId = :nodeId";
+                    hql += " and (l.processId <> :processId or l.nodeId = :nodeId)";
                 }
                 if (filterBySeverity) {
-                    hql += " and severity in (:severities)";
+                    hql += " and l.severity in (:severities)";
                 }
-                hql += " order by id asc";
+                if (logClassNames != null) {
+                    hql += " and (l.class = " + Joiner.on(" or l.class = ").join(logClassNames) + ")";
+                }
+                hql += " order by l.id asc";
                 Query query = session.createQuery(hql);
-                query.setParameter("processId", filter.getProcessId());
+                query.setParameterList("processIds", processIds);
                 if (filter.getIdFrom() != null) {
                     query.setParameter("idFrom", filter.getIdFrom());
                 }
@@ -145,6 +206,9 @@ public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLog
                 if (filter.getCreateDateTo() != null) {
                     query.setParameter("createDateTo", filter.getCreateDateTo());
                 }
+                if (filter.getTokenId() != null || filter.getNodeId() != null) {
+                    query.setParameter("processId", filter.getProcessId());
+                }
                 if (filter.getTokenId() != null) {
                     query.setParameter("tokenId", filter.getTokenId());
                 }
@@ -154,20 +218,111 @@ public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLog
                 if (filterBySeverity) {
                     query.setParameterList("severities", filter.getSeverities());
                 }
+                if (filter.getPageSize() != null) {
+                    query.setMaxResults(filter.getPageSize());
+                }
                 return query.list();
             }
         });
     }
 
+    /**
+     * Expands requested log classes to mapped entity classes as polymorphic class criterion does not include subclasses.
+     *
+     * @return entity names or <code>null</code> if logs are not filtered by class
+     */
+    private List<String> getMappedLogClassNames(Session session, List<String> logClassNames) {
+        if (logClassNames.isEmpty()) {
+            return null;
+        }
+        List<Class<?>> logClasses = Lists.newArrayList();
+        for (String logClassName : logClassNames) {
+            logClasses.add(ClassLoaderUtil.loadClass(logClassName));
+        }
+        List<String> result = Lists.newArrayList();
+        for (Object metadata : session.getSessionFactory().getAllClassMetadata().values()) {
+            Class<?> mappedClass = ((ClassMetadata) metadata).getMappedClass(EntityMode.POJO);
+            if (Modifier.isAbstract(mappedClass.getModifiers())) {
+                continue;
+            }
+            for (Class<?> logClass : logClasses) {
+                if (logClass.isAssignableFrom(mappedClass)) {
+                    result.add(mappedClass.getName());
+                    break;
+                }
+            }
+        }
+        if (result.isEmpty()) {
+            throw new InternalApplicationException("No process log entities found for " + logClassNames);
+        }
+        return result;
+    }
+
     /**
      * Deletes all process logs.
      */
     public void deleteAll(Long processId) {
         log.debug("deleting logs for process " + processId);
+        flushBuffer();
         getHibernateTemplate().bulkUpdate("delete from ProcessLog where processId=?", processId);
     }
 
+    public void deleteAll(List<Long> processIds) {
+        log.debug("deleting logs for " + processIds.size() + " processes");
+        flushBuffer();
+        bulkUpdateByIds("delete from ProcessLog where processId in (:ids)", processIds);
+    }
+
+    /**
+     * @return pairs of log id and legacy XML attributes of logs not converted to binary format yet, ordered by id
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> getLegacyContents(final Long fromId, final int limit) {
+        return getHibernateTemplate().executeFind(new HibernateCallback<List<Object[]>>() {
+
+            @Override
+            public List<Object[]> doInHibernate(Session session) {
+                Query query = session.createQuery("select l.id, l.content from ProcessLog l where l.id >= :fromId "
+                        + "and l.content is not null and l.attributesData is null order by l.id");
+                query.setParameter("fromId", fromId);
+                query.setMaxResults(limit);
+                return query.list();
+            }
+        });
+    }
+
+    /**
+     * Replaces legacy XML attributes by binary ones in jdbc batch. Cached logs with legacy attributes stay valid as they are decoded the same
+     * way.
+     *
+     * @param attributesData
+     *            binary attributes by log id
+     */
+    public void setAttributesData(final Map<Long, byte[]> attributesData) {
+        getHibernateTemplate().executeWithNativeSession(new HibernateCallback<Object>() {
+
+            @SuppressWarnings("deprecation")
+            @Override
+            public Object doInHibernate(Session session) throws SQLException {
+                PreparedStatement statement = session.connection().prepareStatement(
+                        "UPDATE BPM_LOG SET ATTRIBUTES = ?, CONTENT = NULL WHERE ID = ? AND ATTRIBUTES IS NULL");
+                try {
+                    for (Map.Entry<Long, byte[]> entry : attributesData.entrySet()) {
+                        statement.setBytes(1, entry.getValue());
+                        statement.setLong(2, entry.getKey());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                } finally {
+                    statement.close();
+                }
+                return null;
+            }
+        });
+    }
+
     public boolean isNodeEntered(Process process, String nodeId) {
+        flushBuffer();
         return getHibernateTemplate().find("from NodeEnterLog where processId=? and nodeId=?", process.getId(), nodeId).size() > 0;
     }
 
@@ -181,8 +336,73 @@ public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLog
             processLog.setNodeId(token.getNodeId());
         }
         processLog.setCreateDate(new Date());
-        this.create(processLog);
-        registerInCustomizationDao(processLog, process, token);
+        List<BufferedProcessLog> buffer = getTransactionBuffer();
+        if (buffer == null) {
+            this.create(processLog);
+            registerInCustomizationDao(processLog, process, token);
+            return;
+        }
+        buffer.add(new BufferedProcessLog(processLog, process, token));
+        if (buffer.size() >= SystemProperties.getProcessLogBufferSize()) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Saves logs buffered in current transaction. Invoked automatically before transaction completion and before logs are read.
+     */
+    public void flushBuffer() {
+        if (!SystemProperties.isProcessLogBufferEnabled()) {
+            return;
+        }
+        TransactionSynchronizationRegistry registry = Utils.getTransactionSynchronizationRegistry();
+        if (registry == null || registry.getTransactionKey() == null) {
+            return;
+        }
+        List<BufferedProcessLog> buffer = getBuffer(registry);
+        if (buffer == null || buffer.isEmpty()) {
+            return;
+        }
+        List<BufferedProcessLog> processLogs = Lists.newArrayList(buffer);
+        buffer.clear();
+        for (BufferedProcessLog bufferedProcessLog : processLogs) {
+            this.create(bufferedProcessLog.getProcessLog());
+        }
+        // inserts are sent in jdbc batches before aggregated logs queries
+        flushPendingChanges();
+        try {
+            customizationDao.addLogs(processLogs);
+        } catch (Throwable e) {
+            log.warn("Custom log handler throws exception", e);
+        }
+    }
+
+    private List<BufferedProcessLog> getTransactionBuffer() {
+        if (!SystemProperties.isProcessLogBufferEnabled()) {
+            return null;
+        }
+        TransactionSynchronizationRegistry registry = Utils.getTransactionSynchronizationRegistry();
+        if (registry == null || registry.getTransactionKey() == null) {
+            return null;
+        }
+        List<BufferedProcessLog> buffer = getBuffer(registry);
+        if (buffer == null) {
+            buffer = Lists.newArrayList();
+            registry.putResource(BUFFER_RESOURCE_KEY, buffer);
+            // transaction is looked up once per transaction; synchronization is not interposed so buffer is flushed along with session
+            try {
+                Utils.getTransaction().registerSynchronization(new BufferSynchronization());
+            } catch (Exception e) {
+                registry.putResource(BUFFER_RESOURCE_KEY, null);
+                throw new InternalApplicationException("Unexpected error on process log buffer synchronization registration", e);
+            }
+        }
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BufferedProcessLog> getBuffer(TransactionSynchronizationRegistry registry) {
+        return (List<BufferedProcessLog>) registry.getResource(BUFFER_RESOURCE_KEY);
     }
 
     private void registerInCustomizationDao(ProcessLog processLog, Process process, Token token) {
@@ -193,4 +413,19 @@ public class ProcessLogDAO extends GenericDAO<ProcessLog> implements IProcessLog
         }
     }
 
+    /**
+     * Saves buffered logs before transaction commit; buffer is released together with transaction resources.
+     */
+    private class BufferSynchronization implements Synchronization {
+
+        @Override
+        public void beforeCompletion() {
+            flushBuffer();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+        }
+    }
+
 }
@@ -1,6 +1,7 @@
 package ru.runa.wfe.audit.dao;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.orm.hibernate3.HibernateTemplate;
 
@@ -41,19 +42,28 @@ import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
 import ru.runa.wfe.execution.Process;
 import ru.runa.wfe.execution.Token;
 
+import com.google.common.collect.Maps;
+
 public class UpdateAggregatedLogOperation implements ProcessLogVisitor {
 
     private final HibernateTemplate hibernateTemplate;
     private final Process process;
     private final Token token;
     private final IProcessDefinitionLoader processDefinitionLoader;
+    private final LoadedLogs loadedLogs;
 
     public UpdateAggregatedLogOperation(HibernateTemplate hibernateTemplate, IProcessDefinitionLoader processDefinitionLoader, Process process,
             Token token) {
+        this(hibernateTemplate, processDefinitionLoader, process, token, new LoadedLogs());
+    }
+
+    public UpdateAggregatedLogOperation(HibernateTemplate hibernateTemplate, IProcessDefinitionLoader processDefinitionLoader, Process process,
+            Token token, LoadedLogs loadedLogs) {
         this.hibernateTemplate = hibernateTemplate;
         this.processDefinitionLoader = processDefinitionLoader;
         this.process = process;
         this.token = token;
+        this.loadedLogs = loadedLogs;
     }
 
     @Override
@@ -61,7 +71,9 @@ public class UpdateAggregatedLogOperation implements ProcessLogVisitor {
         if (getProcessInstanceLog(processStartLog.getProcessId()) != null) {
             return;
         }
-        hibernateTemplate.save(new ProcessInstanceAggregatedLog(processStartLog, process, token));
+        ProcessInstanceAggregatedLog logEntry = new ProcessInstanceAggregatedLog(processStartLog, process, token);
+        hibernateTemplate.save(logEntry);
+        loadedLogs.processInstanceLogs.put(processStartLog.getProcessId(), logEntry);
     }
 
     @Override
@@ -129,7 +141,9 @@ public class UpdateAggregatedLogOperation implements ProcessLogVisitor {
         if (getTaskLog(taskCreateLog.getTaskId()) != null) {
             return;
         }
-        hibernateTemplate.save(new TaskAggregatedLog(taskCreateLog, processDefinitionLoader, process, token));
+        TaskAggregatedLog logEntry = new TaskAggregatedLog(taskCreateLog, processDefinitionLoader, process, token);
+        hibernateTemplate.save(logEntry);
+        loadedLogs.taskLogs.put(taskCreateLog.getTaskId(), logEntry);
     }
 
     @Override
@@ -205,21 +219,31 @@ public class UpdateAggregatedLogOperation implements ProcessLogVisitor {
     }
 
     private ProcessInstanceAggregatedLog getProcessInstanceLog(long processId) {
+        if (loadedLogs.processInstanceLogs.containsKey(processId)) {
+            return loadedLogs.processInstanceLogs.get(processId);
+        }
         String query = "from ProcessInstanceAggregatedLog where processInstanceId=? order by processInstanceId desc";
         List<ProcessInstanceAggregatedLog> existing = hibernateTemplate.find(query, processId);
+        ProcessInstanceAggregatedLog result = null;
         if (existing != null && !existing.isEmpty()) {
-            return existing.get(0);
+            result = existing.get(0);
         }
-        return null;
+        loadedLogs.processInstanceLogs.put(processId, result);
+        return result;
     }
 
     private TaskAggregatedLog getTaskLog(long taskId) {
+        if (loadedLogs.taskLogs.containsKey(taskId)) {
+            return loadedLogs.taskLogs.get(taskId);
+        }
         String query = "from TaskAggregatedLog where taskId=? order by taskId desc";
         List<TaskAggregatedLog> existing = hibernateTemplate.find(query, taskId);
+        TaskAggregatedLog result = null;
         if (existing != null && !existing.isEmpty()) {
-            return existing.get(0);
+            result = existing.get(0);
         }
-        return null;
+        loadedLogs.taskLogs.put(taskId, result);
+        return result;
     }
 
     private void onTaskEnd(TaskEndLog taskEndLog, EndReason endReason) {
@@ -230,4 +254,13 @@ public class UpdateAggregatedLogOperation implements ProcessLogVisitor {
         logEntry.updateOnEnd(taskEndLog.getCreateDate(), taskEndLog.getActorName(), endReason);
         hibernateTemplate.merge(logEntry);
     }
+
+    /**
+     * Aggregated log entries loaded or created while processing logs of one batch. Shared between operations to coalesce updates of the same task or
+     * process.
+     */
+    public static class LoadedLogs {
+        private final Map<Long, ProcessInstanceAggregatedLog> processInstanceLogs = Maps.newHashMap();
+        private final Map<Long, TaskAggregatedLog> taskLogs = Maps.newHashMap();
+    }
 }
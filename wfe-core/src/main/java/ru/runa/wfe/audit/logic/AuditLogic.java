@@ -71,16 +71,16 @@ public class AuditLogic extends CommonLogic {
     public ProcessLogs getProcessLogs(User user, ProcessLogFilter filter) {
         Preconditions.checkNotNull(filter.getProcessId(), "filter.processId");
         ProcessLogs result = new ProcessLogs(filter.getProcessId());
-        List<ProcessLog> logs = processLogDAO.getAll(filter);
-        result.addLogs(logs, filter.isIncludeSubprocessLogs());
         ru.runa.wfe.execution.Process process = processDAO.getNotNull(filter.getProcessId());
+        List<Long> processIds = Lists.newArrayList(process.getId());
         if (filter.isIncludeSubprocessLogs()) {
-            for (ru.runa.wfe.execution.Process subprocess : nodeProcessDAO.getSubprocessesRecursive(process)) {
-                ProcessLogFilter subprocessFilter = new ProcessLogFilter(subprocess.getId());
-                subprocessFilter.setSeverities(filter.getSeverities());
-                logs = processLogDAO.getAll(subprocessFilter);
-                result.addLogs(logs, filter.isIncludeSubprocessLogs());
-            }
+            addSubprocesses(result, process, processIds);
+        }
+        // logs of process and subprocesses are merged by log id so that page boundaries are defined by log id
+        List<ProcessLog> logs = processLogDAO.getAll(processIds, filter);
+        result.addLogs(logs, filter.isIncludeSubprocessLogs());
+        if (filter.getPageSize() != null && logs.size() == filter.getPageSize()) {
+            result.setNextPageIdFrom(logs.get(logs.size() - 1).getId() + 1);
         }
         if (!isPermissionAllowed(user, process, Permission.READ)) {
             filterPublicLogs(result);
@@ -88,6 +88,14 @@ public class AuditLogic extends CommonLogic {
         return result;
     }
 
+    private void addSubprocesses(ProcessLogs processLogs, ru.runa.wfe.execution.Process process, List<Long> processIds) {
+        for (ru.runa.wfe.execution.Process subprocess : nodeProcessDAO.getSubprocesses(process)) {
+            processLogs.addSubprocess(subprocess.getId(), process.getId());
+            processIds.add(subprocess.getId());
+            addSubprocesses(processLogs, subprocess, processIds);
+        }
+    }
+
     public Object getProcessLogValue(User user, Long logId) {
         Preconditions.checkNotNull(logId, "logId");
         ProcessLog processLog = processLogDAO.getNotNull(logId);
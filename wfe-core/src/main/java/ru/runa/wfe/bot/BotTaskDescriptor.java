@@ -0,0 +1,57 @@
+package ru.runa.wfe.bot;
+
+import java.io.Serializable;
+
+import com.google.common.base.Objects;
+
+/**
+ * Compact notification about task which became available for bot. Descriptor without task id requests full tasks poll of bot.
+ *
+ * @since 4.3.0
+ */
+public class BotTaskDescriptor implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final Long botStationId;
+    private final Long botId;
+    private final Long taskId;
+
+    public BotTaskDescriptor(Long botStationId, Long botId, Long taskId) {
+        this.botStationId = botStationId;
+        this.botId = botId;
+        this.taskId = taskId;
+    }
+
+    public Long getBotStationId() {
+        return botStationId;
+    }
+
+    public Long getBotId() {
+        return botId;
+    }
+
+    /**
+     * @return task id or <code>null</code> if bot should poll all its tasks
+     */
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(botId, taskId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof BotTaskDescriptor) {
+            BotTaskDescriptor descriptor = (BotTaskDescriptor) obj;
+            return Objects.equal(botId, descriptor.botId) && Objects.equal(taskId, descriptor.taskId);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("botStationId", botStationId).add("botId", botId).add("taskId", taskId).toString();
+    }
+}
@@ -0,0 +1,119 @@
+package ru.runa.wfe.bot;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Per bot station queues of tasks assigned to bots. Filled on task assignment, consumed by local bot station invoker. Only bot stations with
+ * registered consumer receive notifications; if queue overflows consumer is asked to make full tasks reconciliation.
+ *
+ * @since 4.3.0
+ */
+public class BotTaskQueues {
+    private static final Log log = LogFactory.getLog(BotTaskQueues.class);
+    private static Map<Long, Set<BotTaskDescriptor>> queues = Maps.newHashMap();
+    private static Map<Long, Consumer> consumers = Maps.newHashMap();
+    private static Set<Long> overflowedBotStationIds = Sets.newHashSet();
+    private static volatile boolean dispatcherRegistered;
+
+    /**
+     * Invoked by dispatcher in server JVM; remote bot stations never see queued descriptors and continue polling. In cluster (cache invalidation
+     * bus enabled) tasks are assigned on other nodes too, so bot stations continue polling as well.
+     */
+    public static void setDispatcherRegistered(boolean registered) {
+        dispatcherRegistered = registered;
+    }
+
+    public static boolean isDispatchActive() {
+        return dispatcherRegistered && SystemProperties.isBotTaskPushDispatchEnabled() && !SystemProperties.isCacheInvalidationBusEnabled();
+    }
+
+    public static synchronized void registerConsumer(Long botStationId, Consumer consumer) {
+        consumers.put(botStationId, consumer);
+        if (!queues.containsKey(botStationId)) {
+            queues.put(botStationId, Sets.<BotTaskDescriptor> newLinkedHashSet());
+        }
+    }
+
+    public static synchronized void unregisterConsumer(Long botStationId) {
+        consumers.remove(botStationId);
+        queues.remove(botStationId);
+        overflowedBotStationIds.remove(botStationId);
+    }
+
+    /**
+     * Enqueues descriptors and notifies consumers of affected bot stations.
+     */
+    public static void offer(Collection<BotTaskDescriptor> descriptors) {
+        Map<Long, Consumer> notifiedConsumers = Maps.newHashMap();
+        synchronized (BotTaskQueues.class) {
+            int maxSize = SystemProperties.getBotTaskQueueMaxSize();
+            for (BotTaskDescriptor descriptor : descriptors) {
+                Set<BotTaskDescriptor> queue = queues.get(descriptor.getBotStationId());
+                if (queue == null) {
+                    continue;
+                }
+                if (queue.size() < maxSize) {
+                    queue.add(descriptor);
+                } else if (overflowedBotStationIds.add(descriptor.getBotStationId())) {
+                    log.warn("Queue overflow for bot station " + descriptor.getBotStationId() + ", reconciliation will be requested");
+                }
+                notifiedConsumers.put(descriptor.getBotStationId(), consumers.get(descriptor.getBotStationId()));
+            }
+        }
+        for (Map.Entry<Long, Consumer> entry : notifiedConsumers.entrySet()) {
+            try {
+                entry.getValue().onBotTasksQueued(entry.getKey());
+            } catch (Exception e) {
+                log.warn("Unable to notify bot station " + entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * @return all queued descriptors, queue is emptied
+     */
+    public static synchronized List<BotTaskDescriptor> drain(Long botStationId) {
+        Set<BotTaskDescriptor> queue = queues.get(botStationId);
+        if (queue == null || queue.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        List<BotTaskDescriptor> result = Lists.newArrayList(queue);
+        queue.clear();
+        return result;
+    }
+
+    /**
+     * @return whether descriptors were lost due to overflow since previous call
+     */
+    public static synchronized boolean resetOverflow(Long botStationId) {
+        return overflowedBotStationIds.remove(botStationId);
+    }
+
+    public static synchronized boolean hasConsumers() {
+        return !consumers.isEmpty();
+    }
+
+    /**
+     * Local bot station invoker callback.
+     */
+    public interface Consumer {
+
+        /**
+         * Invoked after new descriptors were queued for bot station. Should not block.
+         */
+        public void onBotTasksQueued(Long botStationId);
+
+    }
+}
@@ -0,0 +1,141 @@
+package ru.runa.wfe.bot.logic;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.bot.Bot;
+import ru.runa.wfe.bot.BotTaskDescriptor;
+import ru.runa.wfe.bot.BotTaskQueues;
+import ru.runa.wfe.bot.dao.BotDAO;
+import ru.runa.wfe.commons.Utils;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.ss.logic.ISubstitutionLogic;
+import ru.runa.wfe.task.Task;
+import ru.runa.wfe.task.logic.ITaskNotifier;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.dao.IExecutorDAO;
+import ru.runa.wfe.var.IVariableProvider;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+/**
+ * Pushes task assignments to bots into {@link BotTaskQueues} after transaction commit. Bots substituting assigned actors are asked for full
+ * tasks poll.
+ *
+ * @since 4.3.0
+ */
+public class BotTaskDispatcher implements ITaskNotifier {
+    private static final Log log = LogFactory.getLog(BotTaskDispatcher.class);
+    private static final long BOTS_REFRESH_PERIOD_MILLIS = 10000;
+    @Autowired
+    private BotDAO botDAO;
+    @Autowired
+    private IExecutorDAO executorDAO;
+    @Autowired
+    private ISubstitutionLogic substitutionLogic;
+    private volatile SetMultimap<String, Bot> botsByUsername;
+    private volatile long botsLoadTime;
+
+    public BotTaskDispatcher() {
+        BotTaskQueues.setDispatcherRegistered(true);
+    }
+
+    @Override
+    public void onTaskAssigned(ProcessDefinition processDefinition, IVariableProvider variableProvider, Task task, Executor previousExecutor) {
+        if (!BotTaskQueues.isDispatchActive() || !BotTaskQueues.hasConsumers() || task.getExecutor() == null) {
+            return;
+        }
+        try {
+            List<BotTaskDescriptor> descriptors = Lists.newArrayList();
+            SetMultimap<String, Bot> bots = getBotsByUsername();
+            Set<Actor> actors;
+            if (task.getExecutor() instanceof Actor) {
+                actors = Sets.newHashSet((Actor) task.getExecutor());
+            } else if (task.getExecutor() instanceof Group) {
+                actors = executorDAO.getGroupActors((Group) task.getExecutor());
+            } else {
+                return;
+            }
+            for (Actor actor : actors) {
+                for (Bot bot : bots.get(actor.getName())) {
+                    descriptors.add(new BotTaskDescriptor(bot.getBotStation().getId(), bot.getId(), task.getId()));
+                }
+                // substitution criteria are checked by task list of substitutor
+                for (Set<Long> substitutorIds : substitutionLogic.getSubstitutors(actor).values()) {
+                    for (Long substitutorId : substitutorIds) {
+                        for (Bot bot : bots.get(executorDAO.getActor(substitutorId).getName())) {
+                            descriptors.add(new BotTaskDescriptor(bot.getBotStation().getId(), bot.getId(), null));
+                        }
+                    }
+                }
+            }
+            if (!descriptors.isEmpty()) {
+                dispatchAfterCommit(descriptors);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to dispatch " + task + ", it will be found by reconciliation", e);
+        }
+    }
+
+    private void dispatchAfterCommit(List<BotTaskDescriptor> descriptors) {
+        TransactionSynchronizationRegistry registry = Utils.getTransactionSynchronizationRegistry();
+        if (registry == null) {
+            log.debug("Transaction synchronization registry is not available, " + descriptors + " will be found by reconciliation");
+            return;
+        }
+        if (registry.getTransactionKey() == null) {
+            BotTaskQueues.offer(descriptors);
+            return;
+        }
+        registry.registerInterposedSynchronization(new DispatchSynchronization(descriptors));
+    }
+
+    private SetMultimap<String, Bot> getBotsByUsername() {
+        if (botsByUsername == null || System.currentTimeMillis() - botsLoadTime > BOTS_REFRESH_PERIOD_MILLIS) {
+            SetMultimap<String, Bot> result = HashMultimap.create();
+            for (Bot bot : botDAO.getAll()) {
+                result.put(bot.getUsername(), bot);
+            }
+            botsByUsername = result;
+            botsLoadTime = System.currentTimeMillis();
+        }
+        return botsByUsername;
+    }
+
+    private static class DispatchSynchronization implements Synchronization {
+        private final List<BotTaskDescriptor> descriptors;
+
+        public DispatchSynchronization(List<BotTaskDescriptor> descriptors) {
+            this.descriptors = descriptors;
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+                BotTaskQueues.offer(descriptors);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + descriptors;
+        }
+    }
+}
@@ -66,7 +66,7 @@ public class GroovyScriptExecutor implements IScriptExecutor {
 
     public static class GroovyScriptBinding extends Binding {
         private final static String EXECUTION_CONTEXT_VARIABLE_NAME = "executionContext";
-        private final static String VARIABLE_PROVIDER_VARIABLE_NAME = "variableProvider";
+        public final static String VARIABLE_PROVIDER_VARIABLE_NAME = "variableProvider";
         private final IVariableProvider variableProvider;
         private final Map<String, String> variableScriptingNameToNameMap = Maps.newHashMap();
         // complex variables does not returned from binding...
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -24,6 +25,7 @@ public class PropertyResources {
     private static boolean databaseAvailable = false;
 
     private static Map<String, String> propertiesCache = new HashMap<String, String>();
+    private static final AtomicInteger modificationsCount = new AtomicInteger();
 
     public static void setDatabaseAvailable(boolean available) {
         databaseAvailable = available;
@@ -60,10 +62,19 @@ public class PropertyResources {
     public static void renewCachedProperty(String fileName, String name, String value) {
         String fullName = fileName + '#' + name;
         propertiesCache.put(fullName, value);
+        modificationsCount.incrementAndGet();
     }
 
     public static void clearPropertiesCache() {
         propertiesCache.clear();
+        modificationsCount.incrementAndGet();
+    }
+
+    /**
+     * @return counter incremented on each properties change, allows to rebuild data derived from properties
+     */
+    public static int getModificationsCount() {
+        return modificationsCount.get();
     }
 
     public String getStringProperty(String name) {
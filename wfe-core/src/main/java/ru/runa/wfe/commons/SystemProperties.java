@@ -68,6 +68,27 @@ public class SystemProperties {
         return NO_DATABASE_RESOURCES.getBooleanProperty("isolated.cache.state.machine", true);
     }
 
+    /**
+     * Whether caches are initialized in background on system startup.
+     */
+    public static boolean isCacheWarmupEnabled() {
+        return NO_DATABASE_RESOURCES.getBooleanProperty("cache.warmup.enabled", true);
+    }
+
+    /**
+     * Threads count for cache warmup.
+     */
+    public static int getCacheWarmupParallelism() {
+        return NO_DATABASE_RESOURCES.getIntegerProperty("cache.warmup.parallelism", 3);
+    }
+
+    /**
+     * Whether latest versions of process definitions are parsed during cache warmup.
+     */
+    public static boolean isCacheWarmupDefinitionsEnabled() {
+        return NO_DATABASE_RESOURCES.getBooleanProperty("cache.warmup.definitions.enabled", false);
+    }
+
     /**
      * System version
      */
@@ -99,6 +120,14 @@ public class SystemProperties {
         return RESOURCES.getStringPropertyNotNull("date.format.pattern");
     }
 
+    public static int getProcessBulkOperationBatchSize() {
+        return RESOURCES.getIntegerProperty("process.bulk.operation.batch.size", 100);
+    }
+
+    public static int getProcessBulkOperationRetentionSeconds() {
+        return RESOURCES.getIntegerProperty("process.bulk.operation.retention.seconds", 86400);
+    }
+
     public static boolean isLocalFileStorageEnabled() {
         return RESOURCES.getBooleanProperty("file.variable.local.storage.enabled", true);
     }
@@ -111,6 +140,13 @@ public class SystemProperties {
         return RESOURCES.getIntegerProperty("file.variable.local.storage.enableforfilesgreaterthan", 100000);
     }
 
+    /**
+     * @return max size of file uploaded by chunks
+     */
+    public static long getLocalFileStorageUploadMaxSize() {
+        return RESOURCES.getLongProperty("file.variable.local.storage.upload.max.size", 1024L * 1024 * 1024);
+    }
+
     public static String getStrongPasswordsRegexp() {
         return RESOURCES.getStringProperty("strong.passwords.regexp");
     }
@@ -146,6 +182,45 @@ public class SystemProperties {
         return RESOURCES.getIntegerProperty("log.attribute.max.length", 512);
     }
 
+    /**
+     * Process logs are saved in jdbc batches before transaction completion.
+     */
+    public static boolean isProcessLogBufferEnabled() {
+        return RESOURCES.getBooleanProperty("process.log.buffer.enabled", true);
+    }
+
+    public static int getProcessLogBufferSize() {
+        return RESOURCES.getIntegerProperty("process.log.buffer.size", 500);
+    }
+
+    public static boolean isProcessLogBinaryAttributesEnabled() {
+        return RESOURCES.getBooleanProperty("process.log.binary.attributes.enabled", true);
+    }
+
+    public static int getProcessLogAttributesMigrationBatchSize() {
+        return RESOURCES.getIntegerProperty("process.log.attributes.migration.batch.size", 1000);
+    }
+
+    /**
+     * Committed cache changes are broadcasted to other cluster nodes.
+     */
+    public static boolean isCacheInvalidationBusEnabled() {
+        return NO_DATABASE_RESOURCES.getBooleanProperty("cache.invalidation.bus.enabled", false);
+    }
+
+    public static String getCacheInvalidationTransportClassName() {
+        return NO_DATABASE_RESOURCES.getStringProperty("cache.invalidation.bus.transport",
+                "ru.runa.wfe.commons.cache.sm.cluster.JmsCacheInvalidationTransport");
+    }
+
+    public static String getCacheInvalidationConnectionFactoryJndiName() {
+        return NO_DATABASE_RESOURCES.getStringProperty("cache.invalidation.bus.jms.connection.factory", "java:/ConnectionFactory");
+    }
+
+    public static String getCacheInvalidationTopicJndiName() {
+        return NO_DATABASE_RESOURCES.getStringProperty("cache.invalidation.bus.jms.topic", "topic/cacheInvalidation");
+    }
+
     public static int getTokenMaximumDepth() {
         return RESOURCES.getIntegerProperty("token.maximum.depth", 100);
     }
@@ -194,6 +269,14 @@ public class SystemProperties {
         return RESOURCES.getBooleanProperty("auto.invocation.local.botstation.enabled", true);
     }
 
+    public static boolean isBotTaskPushDispatchEnabled() {
+        return RESOURCES.getBooleanProperty("bot.task.push.dispatch.enabled", true);
+    }
+
+    public static int getBotTaskQueueMaxSize() {
+        return RESOURCES.getIntegerProperty("bot.task.queue.max.size", 10000);
+    }
+
     public static boolean isUpdateProcessVariablesInAPIEnabled() {
         return RESOURCES.getBooleanProperty("executionServiceAPI.updateVariables.enabled", false);
     }
@@ -202,6 +285,14 @@ public class SystemProperties {
         return RESOURCES.getBooleanProperty("scriptingServiceAPI.executeGroovyScript.enabled", false);
     }
 
+    public static int getAdminScriptTransactionBatchSize() {
+        return RESOURCES.getIntegerProperty("adminscript.transaction.batch.size", 1);
+    }
+
+    public static int getAdminScriptParallelism() {
+        return RESOURCES.getIntegerProperty("adminscript.parallelism", 1);
+    }
+
     public static boolean isUpgradeProcessToDefinitionVersionEnabled() {
         return RESOURCES.getBooleanProperty("upgrade.process.to.definition.version.enabled", true);
     }
@@ -290,6 +381,49 @@ public class SystemProperties {
         return RESOURCES.getBooleanProperty("process.execution.node.async.default", false);
     }
 
+    /**
+     * Deliveries of node async execution message before token and process are marked as failed.
+     */
+    public static int getNodeAsyncExecutionMaxAttempts() {
+        return RESOURCES.getIntegerProperty("node.async.execution.max.attempts", 3);
+    }
+
+    /**
+     * Maximum count of idle script engines kept for JavaScript action handler.
+     */
+    public static int getJavaScriptEnginePoolSize() {
+        return RESOURCES.getIntegerProperty("javascript.engine.pool.size", 8);
+    }
+
+    /**
+     * Whether process execution after task completion continues asynchronously by default, see
+     * {@link ru.runa.wfe.lang.InteractionNode#isAsyncContinuation(ru.runa.wfe.execution.ExecutionContext)}.
+     */
+    public static boolean isTaskCompletionAsyncContinuationEnabled() {
+        return RESOURCES.getBooleanProperty("task.completion.async.continuation.enabled", false);
+    }
+
+    /**
+     * Percent of process executions traced by {@link ru.runa.wfe.execution.trace.ExecutionTracer}, 0 disables tracing.
+     */
+    public static int getExecutionTracingSamplePercent() {
+        return RESOURCES.getIntegerProperty("execution.tracing.sample.percent", 0);
+    }
+
+    /**
+     * Number of latest execution traces kept in memory.
+     */
+    public static int getExecutionTracingBufferSize() {
+        return RESOURCES.getIntegerProperty("execution.tracing.buffer.size", 100);
+    }
+
+    /**
+     * Spans limit per execution trace.
+     */
+    public static int getExecutionTracingMaxSpans() {
+        return RESOURCES.getIntegerProperty("execution.tracing.max.spans", 10000);
+    }
+
     public static boolean isProcessSuspensionEnabled() {
         return RESOURCES.getBooleanProperty("process.suspension.enabled", true);
     }
@@ -2,6 +2,8 @@ package ru.runa.wfe.commons;
 
 import java.util.List;
 
+import javax.transaction.UserTransaction;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -40,4 +42,18 @@ public class TransactionListeners {
         listeners.remove();
     }
 
+    /**
+     * Notifies registered listeners about transaction completion and resets them. Listener failures are logged.
+     */
+    public static void fireTransactionComplete(UserTransaction transaction) {
+        for (ITransactionListener listener : listeners.get()) {
+            try {
+                listener.onTransactionComplete(transaction);
+            } catch (Throwable th) {
+                log.error(th);
+            }
+        }
+        reset();
+    }
+
 }
@@ -21,6 +21,7 @@ import javax.transaction.Status;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
 import javax.transaction.UserTransaction;
 
 import org.apache.commons.logging.Log;
@@ -41,6 +42,8 @@ public class Utils {
     private static Log log = LogFactory.getLog(Utils.class);
     private static InitialContext initialContext;
     private static TransactionManager transactionManager;
+    private static volatile TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private static volatile boolean transactionSynchronizationRegistryMissing;
     private static ConnectionFactory connectionFactory;
     private static Queue bpmMessageQueue;
     private static Queue emailQueue;
@@ -83,6 +86,29 @@ public class Utils {
         }
     }
 
+    /**
+     * Not synchronized unlike {@link #getTransaction()}: registry keeps resources of current transaction and is used on each process log write.
+     *
+     * @return registry or <code>null</code> if it is not bound in JNDI
+     */
+    public static TransactionSynchronizationRegistry getTransactionSynchronizationRegistry() {
+        TransactionSynchronizationRegistry registry = transactionSynchronizationRegistry;
+        if (registry == null && !transactionSynchronizationRegistryMissing) {
+            String jndiName = SystemProperties.getResources().getStringProperty("jndi.transaction.synchronization.registry",
+                    "java:jboss/TransactionSynchronizationRegistry");
+            try {
+                synchronized (Utils.class) {
+                    registry = (TransactionSynchronizationRegistry) getInitialContext().lookup(jndiName);
+                }
+                transactionSynchronizationRegistry = registry;
+            } catch (NamingException e) {
+                log.warn("Unable to find TransactionSynchronizationRegistry by name '" + jndiName + "', transaction resources are not used", e);
+                transactionSynchronizationRegistryMissing = true;
+            }
+        }
+        return registry;
+    }
+
     private static synchronized void init() throws JMSException, NamingException {
         if (connectionFactory == null) {
             String connectionFactoryJndiName = SystemProperties.getResources().getStringProperty("jndi.jms.connection.factory", "java:/JmsXA");
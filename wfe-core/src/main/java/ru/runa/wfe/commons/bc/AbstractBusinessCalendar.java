@@ -17,9 +17,35 @@ import ru.runa.wfe.commons.SafeIndefiniteLoop;
 
 public abstract class AbstractBusinessCalendar implements BusinessCalendar {
     protected final Log log = LogFactory.getLog(getClass());
+    private volatile BusinessCalendarIndex index;
+    private boolean indexEnabled = true;
 
     protected abstract BusinessDay getBusinessDay(Calendar calendar);
 
+    void setIndexEnabled(boolean indexEnabled) {
+        this.indexEnabled = indexEnabled;
+    }
+
+    /**
+     * @return working time index or <code>null</code> if disabled
+     */
+    private BusinessCalendarIndex getIndex() {
+        if (!indexEnabled) {
+            return null;
+        }
+        BusinessCalendarIndex index = this.index;
+        if (index == null || index.isOutdated()) {
+            int yearsBefore = BusinessCalendarProperties.getIndexYearsBefore();
+            int yearsAfter = BusinessCalendarProperties.getIndexYearsAfter();
+            if (yearsBefore + yearsAfter <= 0) {
+                return null;
+            }
+            index = new BusinessCalendarIndex(this, yearsBefore, yearsAfter);
+            this.index = index;
+        }
+        return index;
+    }
+
     @Override
     public boolean isHoliday(Calendar calendar) {
         BusinessDay businessDay = getBusinessDay(calendar);
@@ -45,21 +71,27 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
             return calendar.getTime();
         }
         if (duration.getCalendarField() == Calendar.MINUTE) {
-            applyUsingMinutes(calendar, duration.getAmount());
+            applyUsingMinutes(calendar, duration.getAmount(), getIndex());
         } else if (duration.getCalendarField() == Calendar.DAY_OF_YEAR) {
-            applyUsingDays(calendar, duration.getAmount());
+            applyUsingDays(calendar, duration.getAmount(), getIndex());
         } else {
             throw new InternalApplicationException("Business duration expressed in unexpected unit: " + duration);
         }
         return calendar.getTime();
     }
 
-    private void applyUsingMinutes(final Calendar calendar, int minutesAmount) {
+    /**
+     * Processes day by day; whole days after the first one are skipped with index if available.
+     */
+    private void applyUsingMinutes(final Calendar calendar, int minutesAmount, final BusinessCalendarIndex index) {
         if (minutesAmount > 0) {
             new SafeBusinessDayIterator(minutesAmount) {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime && index != null) {
+                        amount = index.skipMinutesForward(calendar, amount);
+                    }
                     BusinessDay businessDay = getBusinessDay(calendar);
                     for (CalendarInterval interval : businessDay.getWorkingIntervals()) {
                         if (CalendarUtil.compareTime(calendar, interval.getFrom()) <= 0) {
@@ -100,6 +132,9 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime && index != null) {
+                        amount = index.skipMinutesBackward(calendar, amount);
+                    }
                     BusinessDay businessDay = getBusinessDay(calendar);
                     List<CalendarInterval> workingIntervals = businessDay.getWorkingIntervals();
                     Collections.reverse(workingIntervals);
@@ -147,12 +182,18 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
         return new CalendarInterval(time1, time2).getLengthInMinutes();
     }
 
-    private void applyUsingDays(final Calendar calendar, int daysAmount) {
+    private void applyUsingDays(final Calendar calendar, int daysAmount, final BusinessCalendarIndex index) {
         if (daysAmount > 0) {
             new SafeBusinessDayIterator(daysAmount) {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime && index != null) {
+                        amount = index.skipDaysForward(calendar, amount);
+                        if (amount == 0) {
+                            return;
+                        }
+                    }
                     calendar.add(Calendar.DAY_OF_YEAR, 1);
                     BusinessDay businessDay = getBusinessDay(calendar);
                     if (!businessDay.isHoliday()) {
@@ -191,6 +232,12 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime && index != null) {
+                        amount = index.skipDaysBackward(calendar, amount);
+                        if (amount == 0) {
+                            return;
+                        }
+                    }
                     calendar.add(Calendar.DAY_OF_YEAR, -1);
                     BusinessDay businessDay = getBusinessDay(calendar);
                     if (!businessDay.isHoliday()) {
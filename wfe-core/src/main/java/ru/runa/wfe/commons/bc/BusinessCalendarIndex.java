@@ -0,0 +1,159 @@
+package ru.runa.wfe.commons.bc;
+
+import java.util.Calendar;
+
+import ru.runa.wfe.commons.CalendarInterval;
+import ru.runa.wfe.commons.CalendarUtil;
+import ru.runa.wfe.commons.PropertyResources;
+
+/**
+ * Cumulative working minutes and business days over days horizon. Allows {@link AbstractBusinessCalendar} to jump over whole days with binary
+ * search instead of stepping day by day; partial first and last days are still processed by calendar itself.
+ *
+ * @since 4.3.0
+ */
+class BusinessCalendarIndex {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    /**
+     * Index is rebuilt once horizon shifts by this number of days.
+     */
+    private static final long REBUILD_AFTER_MILLIS = 30 * DAY_MILLIS;
+    private final long firstEpochDay;
+    private final int daysCount;
+    /**
+     * Working minutes in days [0, i)
+     */
+    private final long[] minutesBefore;
+    /**
+     * Business days in days [0, i)
+     */
+    private final long[] businessDaysBefore;
+    /**
+     * Reverse traversal starts day from 23:59:59 which is not after working interval ending at 23:59.
+     */
+    private final boolean backwardMinutesSupported;
+    private final long buildTime = System.currentTimeMillis();
+    private final int propertiesModificationsCount = PropertyResources.getModificationsCount();
+
+    BusinessCalendarIndex(AbstractBusinessCalendar businessCalendar, int yearsBefore, int yearsAfter) {
+        Calendar calendar = CalendarUtil.getZeroTimeCalendar(Calendar.getInstance());
+        calendar.add(Calendar.YEAR, -yearsBefore);
+        Calendar last = CalendarUtil.getZeroTimeCalendar(Calendar.getInstance());
+        last.add(Calendar.YEAR, yearsAfter);
+        firstEpochDay = getEpochDay(calendar);
+        daysCount = (int) (getEpochDay(last) - firstEpochDay);
+        minutesBefore = new long[daysCount + 1];
+        businessDaysBefore = new long[daysCount + 1];
+        boolean backwardMinutesSupported = true;
+        for (int i = 0; i < daysCount; i++) {
+            BusinessDay businessDay = businessCalendar.getBusinessDay(calendar);
+            long minutes = 0;
+            for (CalendarInterval interval : businessDay.getWorkingIntervals()) {
+                minutes += interval.getLengthInMinutes();
+                if (interval.getTo().get(Calendar.HOUR_OF_DAY) == 23 && interval.getTo().get(Calendar.MINUTE) == 59) {
+                    backwardMinutesSupported = false;
+                }
+            }
+            minutesBefore[i + 1] = minutesBefore[i] + minutes;
+            businessDaysBefore[i + 1] = businessDaysBefore[i] + (businessDay.isHoliday() ? 0 : 1);
+            calendar.add(Calendar.DAY_OF_YEAR, 1);
+        }
+        this.backwardMinutesSupported = backwardMinutesSupported;
+    }
+
+    boolean isOutdated() {
+        return System.currentTimeMillis() - buildTime > REBUILD_AFTER_MILLIS
+                || propertiesModificationsCount != PropertyResources.getModificationsCount();
+    }
+
+    /**
+     * Moves calendar positioned at day start forward over whole days which working time is consumed by specified minutes.
+     *
+     * @return minutes left
+     */
+    int skipMinutesForward(Calendar calendar, int minutes) {
+        int day = getDayIndex(calendar);
+        if (day < 0 || day >= daysCount) {
+            return minutes;
+        }
+        int lastSkipped = firstIndexAtLeast(minutesBefore, day, daysCount + 1, minutesBefore[day] + minutes) - 1;
+        calendar.add(Calendar.DAY_OF_YEAR, lastSkipped - day);
+        return (int) (minutes - (minutesBefore[lastSkipped] - minutesBefore[day]));
+    }
+
+    /**
+     * Moves calendar positioned at day end backward over whole days which working time is consumed by specified (negative) minutes.
+     *
+     * @return minutes left
+     */
+    int skipMinutesBackward(Calendar calendar, int minutes) {
+        int day = getDayIndex(calendar);
+        if (!backwardMinutesSupported || day < 0 || day >= daysCount) {
+            return minutes;
+        }
+        int firstNotSkipped = firstIndexAtLeast(minutesBefore, 0, day + 2, minutesBefore[day + 1] + minutes + 1);
+        calendar.add(Calendar.DAY_OF_YEAR, firstNotSkipped - 1 - day);
+        return (int) (minutes + (minutesBefore[day + 1] - minutesBefore[firstNotSkipped]));
+    }
+
+    /**
+     * Moves calendar forward to the day which is specified business day after current one or to horizon end.
+     *
+     * @return business days left
+     */
+    int skipDaysForward(Calendar calendar, int days) {
+        int day = getDayIndex(calendar);
+        if (day < 0 || day >= daysCount) {
+            return days;
+        }
+        int target = firstIndexAtLeast(businessDaysBefore, day + 1, daysCount + 1, businessDaysBefore[day + 1] + days) - 1;
+        if (target == daysCount) {
+            target = daysCount - 1;
+        }
+        calendar.add(Calendar.DAY_OF_YEAR, target - day);
+        return (int) (days - (businessDaysBefore[target + 1] - businessDaysBefore[day + 1]));
+    }
+
+    /**
+     * Moves calendar backward to the day which is specified (negative) business day before current one or to horizon start.
+     *
+     * @return business days left
+     */
+    int skipDaysBackward(Calendar calendar, int days) {
+        int day = getDayIndex(calendar);
+        if (day < 0 || day >= daysCount) {
+            return days;
+        }
+        int target = Math.max(0, firstIndexAtLeast(businessDaysBefore, 0, day, businessDaysBefore[day] + days + 1) - 1);
+        calendar.add(Calendar.DAY_OF_YEAR, target - day);
+        return (int) (days + (businessDaysBefore[day] - businessDaysBefore[target]));
+    }
+
+    private int getDayIndex(Calendar calendar) {
+        long day = getEpochDay(calendar) - firstEpochDay;
+        return day < 0 || day > daysCount ? -1 : (int) day;
+    }
+
+    private static long getEpochDay(Calendar calendar) {
+        long localMillis = calendar.getTimeInMillis() + calendar.get(Calendar.ZONE_OFFSET) + calendar.get(Calendar.DST_OFFSET);
+        long day = localMillis / DAY_MILLIS;
+        return localMillis < 0 && localMillis % DAY_MILLIS != 0 ? day - 1 : day;
+    }
+
+    /**
+     * @return smallest index in [from, to) which value is not less than specified one or <code>to</code>
+     */
+    private static int firstIndexAtLeast(long[] values, int from, int to, long value) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -33,6 +33,17 @@ public class BusinessCalendarProperties {
         return RESOURCES.getIntegerProperty("business.year.expressed.in.business.days", 220);
     }
 
+    /**
+     * Working time index horizon before current date, index is disabled if horizon is empty.
+     */
+    public static int getIndexYearsBefore() {
+        return RESOURCES.getIntegerProperty("index.years.before", 2);
+    }
+
+    public static int getIndexYearsAfter() {
+        return RESOURCES.getIntegerProperty("index.years.after", 10);
+    }
+
     public static String getWeekWorkingTime(int weekDay) {
         String dayName;
         switch (weekDay) {
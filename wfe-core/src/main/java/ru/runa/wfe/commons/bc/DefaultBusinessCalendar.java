@@ -4,29 +4,30 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import ru.runa.wfe.commons.CalendarInterval;
 import ru.runa.wfe.commons.CalendarUtil;
+import ru.runa.wfe.commons.PropertyResources;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class DefaultBusinessCalendar extends AbstractBusinessCalendar {
-    private static final Map<Integer, BusinessDay> WEEK_DAYS = Maps.newHashMap();
-    private static final List<Calendar> HOLIDAYS = Lists.newArrayList();
-    static {
-        for (int weekDay = Calendar.SUNDAY; weekDay <= Calendar.SATURDAY; weekDay++) {
-            WEEK_DAYS.put(weekDay, parse(BusinessCalendarProperties.getWeekWorkingTime(weekDay)));
-        }
-        for (String propertyName : BusinessCalendarProperties.getResources().getAllPropertyNames()) {
-            if (propertyName.startsWith("holiday")) {
-                String string = BusinessCalendarProperties.getResources().getStringProperty(propertyName);
-                Calendar calendar = CalendarUtil.convertToCalendar(string, CalendarUtil.DATE_WITHOUT_TIME_FORMAT);
-                CalendarUtil.setZeroTimeCalendar(calendar);
-                HOLIDAYS.add(calendar);
-            }
+    private volatile WorkingTime workingTime;
+
+    /**
+     * Week days and holidays are reloaded on properties change.
+     */
+    private WorkingTime getWorkingTime() {
+        WorkingTime workingTime = this.workingTime;
+        if (workingTime == null || workingTime.propertiesModificationsCount != PropertyResources.getModificationsCount()) {
+            workingTime = new WorkingTime();
+            this.workingTime = workingTime;
         }
+        return workingTime;
     }
 
     private static BusinessDay parse(String string) {
@@ -49,11 +50,32 @@ public class DefaultBusinessCalendar extends AbstractBusinessCalendar {
 
     @Override
     protected BusinessDay getBusinessDay(Calendar calendar) {
+        WorkingTime workingTime = getWorkingTime();
         calendar = CalendarUtil.getZeroTimeCalendar(calendar);
-        if (HOLIDAYS.contains(calendar)) {
+        if (workingTime.holidays.contains(calendar)) {
             return BusinessDay.HOLIDAY;
         }
-        return WEEK_DAYS.get(calendar.get(Calendar.DAY_OF_WEEK));
+        return workingTime.weekDays.get(calendar.get(Calendar.DAY_OF_WEEK));
+    }
+
+    private static class WorkingTime {
+        private final int propertiesModificationsCount = PropertyResources.getModificationsCount();
+        private final Map<Integer, BusinessDay> weekDays = Maps.newHashMap();
+        private final Set<Calendar> holidays = Sets.newHashSet();
+
+        public WorkingTime() {
+            for (int weekDay = Calendar.SUNDAY; weekDay <= Calendar.SATURDAY; weekDay++) {
+                weekDays.put(weekDay, parse(BusinessCalendarProperties.getWeekWorkingTime(weekDay)));
+            }
+            for (String propertyName : BusinessCalendarProperties.getResources().getAllPropertyNames()) {
+                if (propertyName.startsWith("holiday")) {
+                    String string = BusinessCalendarProperties.getResources().getStringProperty(propertyName);
+                    Calendar calendar = CalendarUtil.convertToCalendar(string, CalendarUtil.DATE_WITHOUT_TIME_FORMAT);
+                    CalendarUtil.setZeroTimeCalendar(calendar);
+                    holidays.add(calendar);
+                }
+            }
+        }
     }
 
 }
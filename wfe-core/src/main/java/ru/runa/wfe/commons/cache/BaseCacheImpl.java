@@ -103,9 +103,7 @@ public abstract class BaseCacheImpl implements CacheImplementation {
      * @return Cache to store cached values.
      */
     protected <K extends Serializable, V extends Serializable> Cache<K, V> createCache(String cacheName) {
-        Cache<K, V> result = new CacheStatisticProxy<K, V>(new EhCacheSupport<K, V>(cacheName), cacheName);
-        caches.add(result);
-        return result;
+        return createCache(cacheName, false, null);
     }
 
     /**
@@ -122,7 +120,36 @@ public abstract class BaseCacheImpl implements CacheImplementation {
      * @return Cache to store cached values.
      */
     protected <K extends Serializable, V extends Serializable> Cache<K, V> createCache(String cacheName, boolean infiniteLifeTime) {
-        Cache<K, V> result = new CacheStatisticProxy<K, V>(new EhCacheSupport<K, V>(cacheName, infiniteLifeTime), cacheName);
+        return createCache(cacheName, infiniteLifeTime, null);
+    }
+
+    /**
+     * Create cache to store cached values.
+     * 
+     * @param <K>
+     *            Key type.
+     * @param <V>
+     *            Value type.
+     * @param cacheName
+     *            Cache name.
+     * @param weigher
+     *            Weigher for entries of on-heap tier, used if tiered storage is enabled for cache in cache.properties.
+     * @return Cache to store cached values.
+     */
+    protected <K extends Serializable, V extends Serializable> Cache<K, V> createCache(String cacheName, CacheWeigher<K, V> weigher) {
+        return createCache(cacheName, false, weigher);
+    }
+
+    private <K extends Serializable, V extends Serializable> Cache<K, V> createCache(String cacheName, boolean infiniteLifeTime,
+            CacheWeigher<K, V> weigher) {
+        TieredCacheSettings tieredSettings = TieredCacheSettings.getSettings(cacheName);
+        Cache<K, V> storage;
+        if (tieredSettings != null) {
+            storage = new TieredCache<K, V>(cacheName, tieredSettings, weigher);
+        } else {
+            storage = new EhCacheSupport<K, V>(cacheName, infiniteLifeTime);
+        }
+        Cache<K, V> result = new CacheStatisticProxy<K, V>(storage, cacheName);
         caches.add(result);
         return result;
     }
@@ -85,6 +85,14 @@ public class CacheStatistic {
                 append(getPerSecond(counter.getHitOnContainsValue(), elapsedMillis)).append(" per second); ");
             logMessage.append("Miss on contains: ").append(counter.getMissOnContainsValue()).append(" (").
                 append(getPerSecond(counter.getMissOnContainsValue(), elapsedMillis)).append(" per second).\n");
+            if (counter.hasTierUsage()) {
+                logMessage.append("  Heap hit: ").append(counter.getHeapHitValue()).append("; ");
+                logMessage.append("Off-heap hit: ").append(counter.getOffHeapHitValue()).append("; ");
+                logMessage.append("Demoted: ").append(counter.getDemotionValue()).append("; ");
+                logMessage.append("Evicted: ").append(counter.getEvictionValue()).append("; ");
+                logMessage.append("Heap weight: ").append(counter.getHeapWeight()).append("; ");
+                logMessage.append("Off-heap bytes: ").append(counter.getOffHeapBytes()).append(".\n");
+            }
         }
         if (!statisticSnapshot.isEmpty()) {
             log.debug(logMessage);
@@ -0,0 +1,34 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache;
+
+import java.io.Serializable;
+
+/**
+ * Calculates weight of cached entry. Weight is used to bound on-heap tier of {@link TieredCache}; units are defined by weigher and cache
+ * settings, by default each entry weights 1.
+ *
+ * @since 4.3.0
+ */
+public interface CacheWeigher<K extends Serializable, V extends Serializable> {
+
+    /**
+     * @return positive entry weight.
+     */
+    public int weigh(K key, V value);
+}
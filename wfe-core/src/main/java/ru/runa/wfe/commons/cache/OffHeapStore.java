@@ -0,0 +1,205 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Second tier of {@link TieredCache}: serialized values are kept in direct byte buffers outside of java heap, so they are not scanned by
+ * garbage collector. Values are written to few large slabs and referenced by offset and length, so entries churn does not allocate direct
+ * buffers which native memory is freed only by garbage collection. Slabs are allocated on demand up to store size and kept until the store is
+ * dropped; free ranges of each slab are merged on release. Total size of stored values is bounded, entries are evicted according to
+ * {@link CacheEvictionPolicy} until value fits into free range. Not thread safe, access is guarded by owning cache.
+ *
+ * @since 4.3.0
+ */
+class OffHeapStore<K extends Serializable> {
+    private static final int MAX_SLAB_BYTES = 16 * 1024 * 1024;
+    private final long maxBytes;
+    private final int slabBytes;
+    private final List<ByteBuffer> slabs = Lists.newArrayList();
+    /**
+     * Free ranges (offset to length) of each allocated slab.
+     */
+    private final List<TreeMap<Integer, Integer>> freeRanges = Lists.newArrayList();
+    private final LinkedHashMap<K, Entry> entries;
+    private long usedBytes;
+
+    OffHeapStore(long maxBytes, CacheEvictionPolicy evictionPolicy) {
+        this.maxBytes = maxBytes;
+        this.slabBytes = (int) Math.min(maxBytes, MAX_SLAB_BYTES);
+        this.entries = new LinkedHashMap<K, Entry>(16, 0.75f, evictionPolicy.isAccessOrder());
+    }
+
+    /**
+     * Stores serialized value replacing previous one.
+     *
+     * @return count of entries evicted to free space; value which does not fit into store at all is counted as evicted too.
+     */
+    int put(K key, byte[] data) {
+        remove(key);
+        if (data.length > slabBytes) {
+            return 1;
+        }
+        int evicted = 0;
+        Iterator<Map.Entry<K, Entry>> iterator = entries.entrySet().iterator();
+        Entry entry;
+        while ((entry = allocate(data.length)) == null) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            release(eldest);
+            evicted++;
+        }
+        ByteBuffer view = slabs.get(entry.slab).duplicate();
+        view.position(entry.offset);
+        view.put(data);
+        entries.put(key, entry);
+        return evicted;
+    }
+
+    /**
+     * @return serialized value or <code>null</code>.
+     */
+    byte[] get(K key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        byte[] data = new byte[entry.length];
+        ByteBuffer view = slabs.get(entry.slab).duplicate();
+        view.position(entry.offset);
+        view.get(data);
+        return data;
+    }
+
+    boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    boolean remove(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        release(entry);
+        return true;
+    }
+
+    /**
+     * Slabs are kept for next values.
+     */
+    void clear() {
+        entries.clear();
+        for (int i = 0; i < slabs.size(); i++) {
+            freeRanges.get(i).clear();
+            freeRanges.get(i).put(0, slabs.get(i).capacity());
+        }
+        usedBytes = 0;
+    }
+
+    Set<K> keySet() {
+        return entries.keySet();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * First fit in allocated slabs, then in new slab while store size allows.
+     *
+     * @return allocated range or <code>null</code> if entries must be evicted.
+     */
+    private Entry allocate(int length) {
+        for (int i = 0; i < slabs.size(); i++) {
+            for (Map.Entry<Integer, Integer> range : freeRanges.get(i).entrySet()) {
+                if (range.getValue() >= length) {
+                    return allocate(i, range.getKey(), range.getValue(), length);
+                }
+            }
+        }
+        long allocatedBytes = (long) slabs.size() * slabBytes;
+        if (allocatedBytes < maxBytes) {
+            int capacity = (int) Math.min(slabBytes, maxBytes - allocatedBytes);
+            if (capacity >= length) {
+                slabs.add(ByteBuffer.allocateDirect(capacity));
+                TreeMap<Integer, Integer> ranges = new TreeMap<Integer, Integer>();
+                ranges.put(0, capacity);
+                freeRanges.add(ranges);
+                return allocate(slabs.size() - 1, 0, capacity, length);
+            }
+        }
+        return null;
+    }
+
+    private Entry allocate(int slab, int rangeOffset, int rangeLength, int length) {
+        TreeMap<Integer, Integer> ranges = freeRanges.get(slab);
+        ranges.remove(rangeOffset);
+        if (rangeLength > length) {
+            ranges.put(rangeOffset + length, rangeLength - length);
+        }
+        usedBytes += length;
+        return new Entry(slab, rangeOffset, length);
+    }
+
+    private void release(Entry entry) {
+        usedBytes -= entry.length;
+        if (entry.length == 0) {
+            return;
+        }
+        TreeMap<Integer, Integer> ranges = freeRanges.get(entry.slab);
+        int offset = entry.offset;
+        int length = entry.length;
+        Map.Entry<Integer, Integer> previous = ranges.lowerEntry(offset);
+        if (previous != null && previous.getKey() + previous.getValue() == offset) {
+            ranges.remove(previous.getKey());
+            offset = previous.getKey();
+            length += previous.getValue();
+        }
+        Integer nextLength = ranges.remove(entry.offset + entry.length);
+        if (nextLength != null) {
+            length += nextLength;
+        }
+        ranges.put(offset, length);
+    }
+
+    private static class Entry {
+        private final int slab;
+        private final int offset;
+        private final int length;
+
+        Entry(int slab, int offset, int length) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
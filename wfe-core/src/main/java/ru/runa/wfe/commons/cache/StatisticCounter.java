@@ -50,6 +50,30 @@ public class StatisticCounter {
      * Counter for cache commit events.
      */
     private final AtomicInteger commitCounter = new AtomicInteger();
+    /**
+     * Counter for hits in on-heap tier of {@linkplain TieredCache}.
+     */
+    private final AtomicInteger heapHitCounter = new AtomicInteger();
+    /**
+     * Counter for hits in off-heap tier of {@linkplain TieredCache}.
+     */
+    private final AtomicInteger offHeapHitCounter = new AtomicInteger();
+    /**
+     * Counter for entries moved from on-heap to off-heap tier.
+     */
+    private final AtomicInteger demotionCounter = new AtomicInteger();
+    /**
+     * Counter for entries evicted from cache by size limits.
+     */
+    private final AtomicInteger evictionCounter = new AtomicInteger();
+    /**
+     * Current total weight of entries in on-heap tier. Not reset on snapshot.
+     */
+    private final AtomicLong heapWeight = new AtomicLong();
+    /**
+     * Current total size of values in off-heap tier. Not reset on snapshot.
+     */
+    private final AtomicLong offHeapBytes = new AtomicLong();
 
     /**
      * Counter creation date. 
@@ -82,6 +106,12 @@ public class StatisticCounter {
         missOnContainsCounter.set(counter.missOnContainsCounter.getAndSet(0));
         rebuildCounter.set(counter.rebuildCounter.getAndSet(0));
         commitCounter.set(counter.commitCounter.getAndSet(0));
+        heapHitCounter.set(counter.heapHitCounter.getAndSet(0));
+        offHeapHitCounter.set(counter.offHeapHitCounter.getAndSet(0));
+        demotionCounter.set(counter.demotionCounter.getAndSet(0));
+        evictionCounter.set(counter.evictionCounter.getAndSet(0));
+        heapWeight.set(counter.heapWeight.get());
+        offHeapBytes.set(counter.offHeapBytes.get());
         creationDate = System.currentTimeMillis();
         resetDate = new AtomicLong(counter.resetDate.getAndSet(creationDate));
     }
@@ -128,6 +158,45 @@ public class StatisticCounter {
         commitCounter.incrementAndGet();
     }
 
+    /**
+     * Register hit in on-heap tier event.
+     */
+    public void registerHeapHit() {
+        heapHitCounter.incrementAndGet();
+    }
+
+    /**
+     * Register hit in off-heap tier event.
+     */
+    public void registerOffHeapHit() {
+        offHeapHitCounter.incrementAndGet();
+    }
+
+    /**
+     * Register entry demotion from on-heap to off-heap tier event.
+     */
+    public void registerDemotion() {
+        demotionCounter.incrementAndGet();
+    }
+
+    /**
+     * Register entries eviction from cache event.
+     * @param count Evicted entries count.
+     */
+    public void registerEviction(int count) {
+        evictionCounter.addAndGet(count);
+    }
+
+    /**
+     * Set current tiers usage.
+     * @param heapWeight Total weight of entries in on-heap tier.
+     * @param offHeapBytes Total size of values in off-heap tier.
+     */
+    public void setTierSizes(long heapWeight, long offHeapBytes) {
+        this.heapWeight.set(heapWeight);
+        this.offHeapBytes.set(offHeapBytes);
+    }
+
     /**
      * Register get operation from cache. Fires miss or hit on get event depends on loaded from cache value.
      * @param <V> Type of values, loaded from cache.
@@ -199,6 +268,55 @@ public class StatisticCounter {
         return commitCounter.get();
     }
 
+    /**
+     * @return Hit counts in on-heap tier.
+     */
+    public int getHeapHitValue() {
+        return heapHitCounter.get();
+    }
+
+    /**
+     * @return Hit counts in off-heap tier.
+     */
+    public int getOffHeapHitValue() {
+        return offHeapHitCounter.get();
+    }
+
+    /**
+     * @return Entries demotion counts.
+     */
+    public int getDemotionValue() {
+        return demotionCounter.get();
+    }
+
+    /**
+     * @return Entries eviction counts.
+     */
+    public int getEvictionValue() {
+        return evictionCounter.get();
+    }
+
+    /**
+     * @return Total weight of entries in on-heap tier.
+     */
+    public long getHeapWeight() {
+        return heapWeight.get();
+    }
+
+    /**
+     * @return Total size of values in off-heap tier.
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes.get();
+    }
+
+    /**
+     * @return true, if cache is stored in {@linkplain TieredCache} tiers.
+     */
+    public boolean hasTierUsage() {
+        return heapHitCounter.get() + offHeapHitCounter.get() + demotionCounter.get() + evictionCounter.get() > 0 || heapWeight.get() > 0;
+    }
+
     /**
      * @return Counter creation date.
      */
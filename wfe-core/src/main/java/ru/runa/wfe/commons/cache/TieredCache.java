@@ -0,0 +1,189 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.SerializationUtils;
+
+/**
+ * Cache with two storage tiers. On-heap tier is bounded by total weight of entries calculated with {@link CacheWeigher}; entries evicted from it
+ * are serialized and demoted to {@link OffHeapStore}, entries found there are promoted back on get. Entries are lost only when off-heap tier
+ * overflows, so large caches keep working set on heap without holding all values as java objects.
+ *
+ * Values are visible immediately after put, ehcache settings (lifetime, idle time) are not applied. Tier usage is registered in
+ * {@link StatisticCounter} of cache.
+ *
+ * @since 4.3.0
+ */
+class TieredCache<K extends Serializable, V extends Serializable> implements Cache<K, V> {
+    private final CacheWeigher<K, V> weigher;
+    private final long maxHeapWeight;
+    private final LinkedHashMap<K, HeapEntry<V>> heap;
+    private final OffHeapStore<K> offHeap;
+    private final StatisticCounter stats;
+    private long heapWeight;
+
+    /**
+     * @param weigher
+     *            weigher for on-heap entries, <code>null</code> to count each entry as 1.
+     */
+    TieredCache(String cacheName, TieredCacheSettings settings, CacheWeigher<K, V> weigher) {
+        this.weigher = weigher;
+        this.maxHeapWeight = settings.getHeapWeight();
+        this.heap = new LinkedHashMap<K, HeapEntry<V>>(16, 0.75f, settings.getEvictionPolicy().isAccessOrder());
+        this.offHeap = settings.getOffHeapBytes() > 0 ? new OffHeapStore<K>(settings.getOffHeapBytes(), settings.getEvictionPolicy()) : null;
+        this.stats = CacheStatistic.registerCacheCounter(cacheName);
+    }
+
+    /**
+     * Values are stored in tiers on put, nothing to commit.
+     */
+    @Override
+    public void commitCache() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized V get(K key) {
+        HeapEntry<V> entry = heap.get(key);
+        if (entry != null) {
+            stats.registerHeapHit();
+            return entry.value;
+        }
+        if (offHeap == null) {
+            return null;
+        }
+        byte[] data = offHeap.get(key);
+        if (data == null) {
+            return null;
+        }
+        stats.registerOffHeapHit();
+        offHeap.remove(key);
+        V value = (V) SerializationUtils.deserialize(data);
+        putToHeap(key, value);
+        return value;
+    }
+
+    @Override
+    public synchronized boolean contains(K key) {
+        return heap.containsKey(key) || offHeap != null && offHeap.contains(key);
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        if (offHeap != null) {
+            offHeap.remove(key);
+        }
+        putToHeap(key, value);
+    }
+
+    @Override
+    public synchronized void putAll(Map<K, V> collection) {
+        for (Map.Entry<K, V> entry : collection.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(K key) {
+        boolean removed = removeFromHeap(key);
+        if (offHeap != null) {
+            removed |= offHeap.remove(key);
+        }
+        updateTierSizes();
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        heap.clear();
+        heapWeight = 0;
+        if (offHeap != null) {
+            offHeap.clear();
+        }
+        updateTierSizes();
+    }
+
+    /**
+     * @return snapshot of keys from both tiers.
+     */
+    @Override
+    public synchronized Iterable<K> keySet() {
+        List<K> keys = new ArrayList<K>(heap.keySet());
+        if (offHeap != null) {
+            keys.addAll(offHeap.keySet());
+        }
+        return keys;
+    }
+
+    private void putToHeap(K key, V value) {
+        removeFromHeap(key);
+        int weight = weigher != null ? weigher.weigh(key, value) : 1;
+        heap.put(key, new HeapEntry<V>(value, weight));
+        heapWeight += weight;
+        Iterator<Map.Entry<K, HeapEntry<V>>> iterator = heap.entrySet().iterator();
+        while (heapWeight > maxHeapWeight && iterator.hasNext()) {
+            Map.Entry<K, HeapEntry<V>> eldest = iterator.next();
+            iterator.remove();
+            heapWeight -= eldest.getValue().weight;
+            demote(eldest.getKey(), eldest.getValue().value);
+        }
+        updateTierSizes();
+    }
+
+    private boolean removeFromHeap(K key) {
+        HeapEntry<V> entry = heap.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        heapWeight -= entry.weight;
+        return true;
+    }
+
+    private void demote(K key, V value) {
+        if (offHeap == null) {
+            stats.registerEviction(1);
+            return;
+        }
+        stats.registerDemotion();
+        int evicted = offHeap.put(key, SerializationUtils.serialize(value));
+        if (evicted > 0) {
+            stats.registerEviction(evicted);
+        }
+    }
+
+    private void updateTierSizes() {
+        stats.setTierSizes(heapWeight, offHeap != null ? offHeap.getUsedBytes() : 0);
+    }
+
+    private static class HeapEntry<V> {
+        private final V value;
+        private final int weight;
+
+        HeapEntry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
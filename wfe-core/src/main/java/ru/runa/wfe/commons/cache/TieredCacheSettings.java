@@ -0,0 +1,77 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache;
+
+import ru.runa.wfe.commons.PropertyResources;
+
+/**
+ * Settings of {@link TieredCache} loaded from cache.properties. Tiered storage is enabled per cache with
+ * <code>tiered.&lt;cache name&gt;.enabled=true</code>; other caches are stored in ehcache as before.
+ *
+ * @since 4.3.0
+ */
+class TieredCacheSettings {
+    private static final PropertyResources RESOURCES = new PropertyResources("cache.properties", true, false);
+    private static final String PREFIX = "tiered.";
+    private static final int DEFAULT_HEAP_WEIGHT = 15000;
+    private static final long DEFAULT_OFF_HEAP_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Maximum total weight of entries in on-heap tier.
+     */
+    private final long heapWeight;
+
+    /**
+     * Maximum total size of serialized values in off-heap tier; 0 disables the tier.
+     */
+    private final long offHeapBytes;
+
+    private final CacheEvictionPolicy evictionPolicy;
+
+    TieredCacheSettings(long heapWeight, long offHeapBytes, CacheEvictionPolicy evictionPolicy) {
+        this.heapWeight = heapWeight;
+        this.offHeapBytes = offHeapBytes;
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * @return settings for cache or <code>null</code> if tiered storage is not enabled for it.
+     */
+    static TieredCacheSettings getSettings(String cacheName) {
+        String prefix = PREFIX + cacheName + ".";
+        if (!RESOURCES.getBooleanProperty(prefix + "enabled", false)) {
+            return null;
+        }
+        long heapWeight = RESOURCES.getLongProperty(prefix + "heap.weight", DEFAULT_HEAP_WEIGHT);
+        long offHeapBytes = RESOURCES.getLongProperty(prefix + "offheap.bytes", DEFAULT_OFF_HEAP_BYTES);
+        String eviction = RESOURCES.getStringProperty(prefix + "eviction", CacheEvictionPolicy.LRU.name());
+        return new TieredCacheSettings(heapWeight, offHeapBytes, CacheEvictionPolicy.valueOf(eviction.trim().toUpperCase()));
+    }
+
+    public long getHeapWeight() {
+        return heapWeight;
+    }
+
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    public CacheEvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+}
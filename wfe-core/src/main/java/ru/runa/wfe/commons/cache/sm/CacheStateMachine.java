@@ -414,7 +414,9 @@ public class CacheStateMachine<CacheImpl extends CacheImplementation> implements
                                 if (log.isDebugEnabled()) {
                                     log.debug("Creating cache from " + factory);
                                 }
+                                long start = System.currentTimeMillis();
                                 cache.set(factory.buildCache(context));
+                                log.info("Cache from " + factory + " built in " + (System.currentTimeMillis() - start) + " ms");
                                 if (log.isDebugEnabled()) {
                                     log.debug("Created cache from " + factory + ": " + cache.get());
                                 }
@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import javax.transaction.HeuristicMixedException;
 import javax.transaction.HeuristicRollbackException;
 import javax.transaction.RollbackException;
+import javax.transaction.Status;
 import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
@@ -34,10 +35,12 @@ import org.apache.commons.logging.LogFactory;
 import org.hibernate.type.Type;
 
 import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.cache.CacheImplementation;
 import ru.runa.wfe.commons.cache.Change;
 import ru.runa.wfe.commons.cache.ChangedObjectParameter;
+import ru.runa.wfe.commons.cache.sm.cluster.CacheInvalidationBus;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
@@ -67,6 +70,11 @@ public class CachingLogic {
      */
     private static ConcurrentMap<Class<?>, Set<ChangeListener>> objectTypeToListenersAll = Maps.newConcurrentMap();
 
+    /**
+     * Bus to invalidate caches on other cluster nodes. Null if cluster mode is disabled.
+     */
+    private static volatile CacheInvalidationBus invalidationBus;
+
     /**
      * Register listener. Listener will be notified on events, according to implemented interfaces.
      * 
@@ -84,6 +92,14 @@ public class CachingLogic {
             listeners.add(guarded);
         }
         objectTypeToListenersAll.clear();
+        if (SystemProperties.isCacheInvalidationBusEnabled()) {
+            if (invalidationBus == null) {
+                CacheInvalidationBus bus = CacheInvalidationBus.create();
+                bus.start();
+                invalidationBus = bus;
+            }
+            invalidationBus.registerListener(guarded, listener.getClass());
+        }
     }
 
     /**
@@ -209,12 +225,14 @@ public class CachingLogic {
     /**
      * Called, then thread transaction is completed. If thread transaction change nothing, when do nothing. If thread transaction change some objects,
      * when all related listeners is notified on transaction complete. All related listeners first receive markTransactionComplete event, after what
-     * all related listeners receive onTransactionComplete event.
+     * all related listeners receive onTransactionComplete event. Committed changes are broadcasted to other cluster nodes.
      * 
      * @param transaction
      *            Transaction, which completed.
+     * @param status
+     *            Transaction completion status.
      */
-    public static void onTransactionComplete(Transaction transaction) {
+    public static void onTransactionComplete(Transaction transaction, int status) {
         Set<ChangeListener> toNotify = dirtyTransactions.remove(transaction);
         if (toNotify == null) {
             return;
@@ -222,6 +240,10 @@ public class CachingLogic {
         for (ChangeListener listener : toNotify) {
             listener.onTransactionCompleted(transaction);
         }
+        CacheInvalidationBus bus = invalidationBus;
+        if (bus != null && status == Status.STATUS_COMMITTED) {
+            bus.publish(toNotify);
+        }
     }
 
     /**
@@ -280,7 +302,7 @@ public class CachingLogic {
 
         @Override
         public void afterCompletion(int status) {
-            CachingLogic.onTransactionComplete(transaction);
+            CachingLogic.onTransactionComplete(transaction, status);
         }
 
         public static void register(Transaction transaction) {
@@ -0,0 +1,176 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache.sm.cluster;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.cache.Change;
+import ru.runa.wfe.commons.cache.sm.ChangeListener;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Keeps cache state machines of cluster nodes coherent. After commit of changing transaction affected cache controller types are broadcasted to other
+ * nodes, which drop corresponding caches.
+ * <p/>
+ * Ordering: events of one node are numbered sequentially and sent under lock, so transport receives them in commit completion order. Receiver
+ * applies events of one node in sequence order, ignores duplicates and drops all caches if gap in sequence is detected (events lost). Node
+ * identity is regenerated on each start, so restarted node sequence never clashes with previous one.
+ * <p/>
+ * Versioning: events with unknown {@link CacheInvalidationEvent#FORMAT_VERSION} lead to all caches drop.
+ */
+public class CacheInvalidationBus implements CacheInvalidationReceiver {
+    private static final Log log = LogFactory.getLog(CacheInvalidationBus.class);
+
+    private final String nodeId;
+    private final CacheInvalidationTransport transport;
+    /**
+     * Local cache controllers by type.
+     */
+    private final Map<String, ChangeListener> listeners = Maps.newConcurrentMap();
+    /**
+     * Local cache controller types by registered (guarded) instance.
+     */
+    private final Map<ChangeListener, String> listenerTypes = Maps.newConcurrentMap();
+    /**
+     * Last sent event number. Guarded by sendLock.
+     */
+    private long sequence;
+    private final Object sendLock = new Object();
+    /**
+     * Last applied event number by sender node. Guarded by itself.
+     */
+    private final Map<String, Long> appliedSequences = Maps.newHashMap();
+
+    public CacheInvalidationBus(String nodeId, CacheInvalidationTransport transport) {
+        this.nodeId = nodeId;
+        this.transport = transport;
+    }
+
+    /**
+     * Creates bus with transport, configured in system properties.
+     */
+    public static CacheInvalidationBus create() {
+        CacheInvalidationTransport transport = ClassLoaderUtil.instantiate(SystemProperties.getCacheInvalidationTransportClassName());
+        return new CacheInvalidationBus(UUID.randomUUID().toString(), transport);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void start() {
+        transport.start(nodeId, this);
+        log.info("Cache invalidation bus started on node " + nodeId + " with " + transport.getClass().getName());
+    }
+
+    public void stop() {
+        transport.stop();
+    }
+
+    /**
+     * Registers local cache controller. Controllers of one type on different nodes are matched by listenerType.
+     * 
+     * @param listener
+     *            Controller instance as registered in caching logic.
+     * @param listenerType
+     *            Controller type.
+     */
+    public void registerListener(ChangeListener listener, Class<?> listenerType) {
+        listeners.put(listenerType.getName(), listener);
+        listenerTypes.put(listener, listenerType.getName());
+    }
+
+    /**
+     * Broadcasts invalidation of given caches. Must be called after transaction commit.
+     * 
+     * @param changed
+     *            Local cache controllers, affected by committed transaction.
+     */
+    public void publish(Collection<ChangeListener> changed) {
+        Set<String> types = Sets.newHashSet();
+        for (ChangeListener listener : changed) {
+            String type = listenerTypes.get(listener);
+            if (type != null) {
+                types.add(type);
+            }
+        }
+        if (types.isEmpty()) {
+            return;
+        }
+        synchronized (sendLock) {
+            CacheInvalidationEvent event = new CacheInvalidationEvent(nodeId, ++sequence, types);
+            try {
+                transport.send(event);
+            } catch (Exception e) {
+                // next event will expose gap and remote nodes will drop all caches
+                log.error("Unable to send " + event, e);
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(CacheInvalidationEvent event) {
+        if (nodeId.equals(event.getNodeId())) {
+            return;
+        }
+        if (event.getFormatVersion() != CacheInvalidationEvent.FORMAT_VERSION) {
+            log.warn("Unsupported event format version " + event.getFormatVersion() + ", dropping all caches");
+            uninitializeAll();
+            return;
+        }
+        synchronized (appliedSequences) {
+            Long applied = appliedSequences.get(event.getNodeId());
+            if (applied != null && event.getSequence() <= applied) {
+                log.debug("Ignored outdated " + event);
+                return;
+            }
+            appliedSequences.put(event.getNodeId(), event.getSequence());
+            if (applied != null && event.getSequence() != applied + 1) {
+                log.warn("Events " + (applied + 1) + ".." + (event.getSequence() - 1) + " from node " + event.getNodeId()
+                        + " are lost, dropping all caches");
+                uninitializeAll();
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Applying " + event);
+            }
+            for (String type : event.getListenerTypes()) {
+                ChangeListener listener = listeners.get(type);
+                if (listener != null) {
+                    listener.uninitialize(event, Change.REFRESH);
+                }
+            }
+        }
+    }
+
+    private void uninitializeAll() {
+        for (ChangeListener listener : listeners.values()) {
+            listener.uninitialize(this, Change.REFRESH);
+        }
+    }
+}
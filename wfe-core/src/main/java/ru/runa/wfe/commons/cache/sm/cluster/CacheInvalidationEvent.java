@@ -0,0 +1,85 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache.sm.cluster;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Sets;
+
+/**
+ * Compact cache invalidation event, broadcasted to other cluster nodes after transaction commit. Contains only affected cache controller types, not
+ * changed objects: remote nodes drop affected caches and rebuild them from committed database state.
+ */
+public class CacheInvalidationEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Current event format version. Nodes with different format version drop all caches on event receive.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private final int formatVersion;
+    private final String nodeId;
+    private final long sequence;
+    private final Set<String> listenerTypes;
+
+    public CacheInvalidationEvent(String nodeId, long sequence, Collection<String> listenerTypes) {
+        this(FORMAT_VERSION, nodeId, sequence, listenerTypes);
+    }
+
+    CacheInvalidationEvent(int formatVersion, String nodeId, long sequence, Collection<String> listenerTypes) {
+        this.formatVersion = formatVersion;
+        this.nodeId = nodeId;
+        this.sequence = sequence;
+        this.listenerTypes = Sets.newHashSet(listenerTypes);
+    }
+
+    public int getFormatVersion() {
+        return formatVersion;
+    }
+
+    /**
+     * @return sender node identity; changed on each node restart
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return sender node event number, starting from 1 without gaps
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return class names of cache controllers which must be uninitialized
+     */
+    public Set<String> getListenerTypes() {
+        return Collections.unmodifiableSet(listenerTypes);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("nodeId", nodeId).add("sequence", sequence).add("listenerTypes", listenerTypes).toString();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache.sm.cluster;
+
+/**
+ * Transport for cache invalidation events between cluster nodes. Transport may lose events but must not reorder events of one sender.
+ */
+public interface CacheInvalidationTransport {
+
+    /**
+     * Connects to cluster and starts events receiving.
+     * 
+     * @param nodeId
+     *            Current node identity.
+     * @param receiver
+     *            Receiver for events of other nodes.
+     */
+    public void start(String nodeId, CacheInvalidationReceiver receiver);
+
+    /**
+     * Sends event to all other cluster nodes.
+     * 
+     * @param event
+     *            Event to send.
+     */
+    public void send(CacheInvalidationEvent event);
+
+    /**
+     * Disconnects from cluster.
+     */
+    public void stop();
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache.sm.cluster;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Delivers events synchronously to all transports started in the same JVM. Used for tests and for several logical nodes in one JVM.
+ */
+public class InJvmCacheInvalidationTransport implements CacheInvalidationTransport {
+    private static final List<InJvmCacheInvalidationTransport> started = Lists.newCopyOnWriteArrayList();
+    private String nodeId;
+    private CacheInvalidationReceiver receiver;
+
+    @Override
+    public void start(String nodeId, CacheInvalidationReceiver receiver) {
+        this.nodeId = nodeId;
+        this.receiver = receiver;
+        started.add(this);
+    }
+
+    @Override
+    public void send(CacheInvalidationEvent event) {
+        for (InJvmCacheInvalidationTransport transport : started) {
+            if (!transport.nodeId.equals(nodeId)) {
+                transport.receiver.onEvent(event);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        started.remove(this);
+    }
+}
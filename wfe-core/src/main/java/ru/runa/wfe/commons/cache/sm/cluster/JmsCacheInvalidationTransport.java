@@ -0,0 +1,110 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.cache.sm.cluster;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.ExceptionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+import javax.jms.Topic;
+import javax.naming.InitialContext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.SystemProperties;
+
+/**
+ * Broadcasts events through JMS topic. Non-XA connection factory is required because events are sent after transaction completion and received
+ * asynchronously. Messages are non persistent: lost messages are detected by {@link CacheInvalidationBus} sequence check.
+ */
+public class JmsCacheInvalidationTransport implements CacheInvalidationTransport, MessageListener, ExceptionListener {
+    private static final Log log = LogFactory.getLog(JmsCacheInvalidationTransport.class);
+    private Connection connection;
+    private Session producerSession;
+    private MessageProducer producer;
+    private CacheInvalidationReceiver receiver;
+
+    @Override
+    public synchronized void start(String nodeId, CacheInvalidationReceiver receiver) {
+        this.receiver = receiver;
+        String connectionFactoryJndiName = SystemProperties.getCacheInvalidationConnectionFactoryJndiName();
+        String topicJndiName = SystemProperties.getCacheInvalidationTopicJndiName();
+        try {
+            InitialContext context = new InitialContext();
+            ConnectionFactory connectionFactory = (ConnectionFactory) context.lookup(connectionFactoryJndiName);
+            Topic topic = (Topic) context.lookup(topicJndiName);
+            connection = connectionFactory.createConnection();
+            connection.setExceptionListener(this);
+            Session consumerSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = consumerSession.createConsumer(topic, null, true);
+            consumer.setMessageListener(this);
+            producerSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            producer = producerSession.createProducer(topic);
+            producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+            connection.start();
+        } catch (Exception e) {
+            stop();
+            throw new InternalApplicationException("Unable to connect to cache invalidation topic '" + topicJndiName + "' using '"
+                    + connectionFactoryJndiName + "'", e);
+        }
+    }
+
+    @Override
+    public synchronized void send(CacheInvalidationEvent event) {
+        try {
+            ObjectMessage message = producerSession.createObjectMessage(event);
+            producer.send(message);
+        } catch (JMSException e) {
+            throw new InternalApplicationException(e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        try {
+            receiver.onEvent((CacheInvalidationEvent) ((ObjectMessage) message).getObject());
+        } catch (Exception e) {
+            log.error("Unable to handle " + message, e);
+        }
+    }
+
+    @Override
+    public void onException(JMSException e) {
+        log.error("Cache invalidation topic connection failure", e);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (Exception ignore) {
+            }
+            connection = null;
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package ru.runa.wfe.commons.dao;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.orm.hibernate3.support.HibernateDaoSupport;
 
+import ru.runa.wfe.commons.SystemProperties;
+
+import com.google.common.collect.Lists;
+
 /**
  * Common DAO implementation with useful operations.
  * 
@@ -49,4 +57,28 @@ public abstract class CommonDAO extends HibernateDaoSupport {
         return getFirstOrNull(list);
     }
 
+    /**
+     * Executes bulk update or delete with single collection parameter. Statement is executed by parts of
+     * {@link SystemProperties#getDatabaseParametersCount()} ids.
+     * 
+     * @param hql
+     *            Hibernate query with <code>:ids</code> parameter
+     * @return number of affected entities
+     */
+    protected int bulkUpdateByIds(final String hql, Collection<Long> ids) {
+        int result = 0;
+        for (final List<Long> idsPart : Lists.partition(Lists.newArrayList(ids), SystemProperties.getDatabaseParametersCount())) {
+            result += getHibernateTemplate().execute(new HibernateCallback<Integer>() {
+
+                @Override
+                public Integer doInHibernate(Session session) {
+                    Query query = session.createQuery(hql);
+                    query.setParameterList("ids", idsPart);
+                    return query.executeUpdate();
+                }
+            });
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,64 @@
+package ru.runa.wfe.commons.dbpatch.impl;
+
+import java.sql.Types;
+import java.util.List;
+
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+
+import ru.runa.wfe.commons.dbpatch.DBPatch;
+import ru.runa.wfe.commons.ftl.ExpressionEvaluator;
+
+/**
+ * Stores base date variable name of due date expressions in jobs and tasks, so dependent objects are found by equality instead of
+ * 'like' scan on date variable change.
+ *
+ * @since 4.3.0
+ */
+public class AddDueDateVariableToJobAndTask extends DBPatch {
+
+    @Override
+    protected List<String> getDDLQueriesBefore() {
+        List<String> sql = super.getDDLQueriesBefore();
+        sql.add(getDDLCreateColumn("BPM_JOB", new ColumnDef("DUE_DATE_VARIABLE", dialect.getTypeName(Types.VARCHAR, 1024, 1024, 1024), true)));
+        sql.add(getDDLCreateColumn("BPM_TASK", new ColumnDef("DEADLINE_DATE_VARIABLE", dialect.getTypeName(Types.VARCHAR, 1024, 1024, 1024), true)));
+        return sql;
+    }
+
+    @Override
+    protected void applyPatch(Session session) throws Exception {
+        updateVariableNames(session, "BPM_JOB", "DUE_DATE_EXPRESSION", "DUE_DATE_VARIABLE");
+        updateVariableNames(session, "BPM_TASK", "DEADLINE_DATE_EXPRESSION", "DEADLINE_DATE_VARIABLE");
+    }
+
+    /**
+     * Rows with equal expression get equal variable name, so rows are updated by distinct expression.
+     */
+    @SuppressWarnings("unchecked")
+    private void updateVariableNames(Session session, String tableName, String expressionColumnName, String variableColumnName) {
+        List<String> expressions = session.createSQLQuery(
+                "SELECT DISTINCT " + expressionColumnName + " FROM " + tableName + " WHERE " + expressionColumnName + " LIKE '#%'").list();
+        SQLQuery query = session.createSQLQuery("UPDATE " + tableName + " SET " + variableColumnName + " = :variableName WHERE "
+                + expressionColumnName + " = :expression");
+        int updated = 0;
+        for (String expression : expressions) {
+            if (expression.indexOf("}") < 2) {
+                log.warn("Skipped " + tableName + " rows with malformed expression '" + expression + "'");
+                continue;
+            }
+            query.setParameter("variableName", ExpressionEvaluator.getDueDateVariableName(expression));
+            query.setParameter("expression", expression);
+            updated += query.executeUpdate();
+        }
+        log.info("Updated " + updated + " rows of " + tableName + " by " + expressions.size() + " distinct expressions");
+    }
+
+    @Override
+    protected List<String> getDDLQueriesAfter() {
+        List<String> sql = super.getDDLQueriesAfter();
+        sql.add(getDDLCreateIndex("BPM_JOB", "IX_JOB_DUE_DATE_VARIABLE", "PROCESS_ID", "DUE_DATE_VARIABLE"));
+        sql.add(getDDLCreateIndex("BPM_TASK", "IX_TASK_DEADLINE_VARIABLE", "PROCESS_ID", "DEADLINE_DATE_VARIABLE"));
+        return sql;
+    }
+
+}
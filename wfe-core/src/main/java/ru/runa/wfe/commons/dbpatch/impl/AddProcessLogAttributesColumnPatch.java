@@ -0,0 +1,29 @@
+package ru.runa.wfe.commons.dbpatch.impl;
+
+import java.sql.Types;
+import java.util.List;
+
+import org.hibernate.Session;
+
+import ru.runa.wfe.commons.dbpatch.DBPatch;
+
+/**
+ * Adds BPM_LOG.ATTRIBUTES column for process log attributes in binary format. Existing XML attributes are converted in background by
+ * {@link ru.runa.wfe.job.impl.ProcessLogAttributesMigrationTask}.
+ *
+ * @since 4.3.0
+ */
+public class AddProcessLogAttributesColumnPatch extends DBPatch {
+
+    @Override
+    protected List<String> getDDLQueriesBefore() {
+        List<String> sql = super.getDDLQueriesBefore();
+        sql.add(getDDLCreateColumn("BPM_LOG", new ColumnDef("ATTRIBUTES", dialect.getTypeName(Types.VARBINARY, 4000, 4000, 0), true)));
+        return sql;
+    }
+
+    @Override
+    protected void applyPatch(Session session) throws Exception {
+    }
+
+}
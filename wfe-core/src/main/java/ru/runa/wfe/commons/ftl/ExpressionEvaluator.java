@@ -47,11 +47,21 @@ public class ExpressionEvaluator {
         }
     }
 
+    /**
+     * @return name of base date variable in due date expression like '#{dateVariable} + 1 days' or <code>null</code>
+     */
+    public static String getDueDateVariableName(String expression) {
+        if (expression != null && expression.startsWith("#")) {
+            return expression.substring(2, expression.indexOf("}"));
+        }
+        return null;
+    }
+
     public static Date evaluateDueDate(IVariableProvider variableProvider, String expression) {
         Date baseDate;
         String durationString = null;
         if (expression != null && expression.startsWith("#")) {
-            String baseDateVariableName = expression.substring(2, expression.indexOf("}"));
+            String baseDateVariableName = getDueDateVariableName(expression);
             Object o = variableProvider.getValue(baseDateVariableName);
             baseDate = TypeConversionUtil.convertTo(Date.class, o);
             if (baseDate == null) {
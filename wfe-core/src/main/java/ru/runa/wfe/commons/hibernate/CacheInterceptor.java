@@ -28,6 +28,7 @@ import ru.runa.wfe.commons.DBType;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.cache.CachingLogic;
 import ru.runa.wfe.commons.cache.Change;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 
 public class CacheInterceptor extends EmptyInterceptor {
     private static final long serialVersionUID = 1L;
@@ -66,6 +67,12 @@ public class CacheInterceptor extends EmptyInterceptor {
         onChanges(entity, Change.DELETE, state, null, propertyNames, types, false);
     }
 
+    @Override
+    public String onPrepareStatement(String sql) {
+        ExecutionTracer.onStatementPrepared();
+        return super.onPrepareStatement(sql);
+    }
+
     @Override
     public boolean onFlushDirty(Object entity, Serializable id, Object[] state, Object[] previousState, String[] propertyNames, Type[] types) {
         return onChanges(entity, Change.UPDATE, state, previousState, propertyNames, types, true);
@@ -0,0 +1,135 @@
+package ru.runa.wfe.commons.logic;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.definition.dao.DeploymentDAO;
+import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
+import ru.runa.wfe.ss.cache.SubstitutionCache;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Initializes independent caches in parallel on system startup so first requests after restart do not wait for cache building. Each phase runs
+ * in own transaction on bounded pool; phase timings are logged.
+ *
+ * @since 4.3.0
+ */
+public class CacheWarmupLogic {
+    private static final Log log = LogFactory.getLog(CacheWarmupLogic.class);
+    @Autowired
+    private ExecutorDAO executorDAO;
+    @Autowired
+    private SubstitutionCache substitutionCache;
+    @Autowired
+    private DeploymentDAO deploymentDAO;
+    @Autowired
+    private IProcessDefinitionLoader processDefinitionLoader;
+
+    /**
+     * Starts warmup in background thread.
+     */
+    public void startWarmup() {
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                warmup();
+            }
+        }, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void warmup() {
+        long start = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, SystemProperties.getCacheWarmupParallelism()));
+        try {
+            List<Future<?>> futures = Lists.newArrayList();
+            // executor cache is built by state machine in own thread, its build time is logged there
+            futures.add(executorService.submit(new WarmupPhase("executors") {
+
+                @Override
+                protected void doWarmup() {
+                    executorDAO.getExecutor(SystemProperties.getAdministratorName());
+                }
+            }));
+            futures.add(executorService.submit(new WarmupPhase("substitutions") {
+
+                @Override
+                protected void doWarmup() {
+                    Actor administrator = executorDAO.getActor(SystemProperties.getAdministratorName());
+                    substitutionCache.getSubstituted(administrator);
+                }
+            }));
+            if (SystemProperties.isCacheWarmupDefinitionsEnabled()) {
+                for (final String definitionName : getDefinitionNames()) {
+                    futures.add(executorService.submit(new WarmupPhase("definition " + definitionName) {
+
+                        @Override
+                        protected void doWarmup() {
+                            processDefinitionLoader.getLatestDefinition(definitionName);
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Cache warmup failed", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+        log.info("Cache warmup completed in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private List<String> getDefinitionNames() {
+        final AtomicReference<List<String>> names = new AtomicReference<List<String>>();
+        new TransactionalExecutor() {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                names.set(deploymentDAO.findDeploymentNames());
+            }
+        }.executeInTransaction(true);
+        return names.get();
+    }
+
+    private abstract static class WarmupPhase implements Runnable {
+        private final String name;
+
+        public WarmupPhase(String name) {
+            this.name = name;
+        }
+
+        protected abstract void doWarmup();
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            new TransactionalExecutor() {
+
+                @Override
+                protected void doExecuteInTransaction() {
+                    doWarmup();
+                }
+            }.executeInTransaction(false);
+            log.info("Cache warmup phase '" + name + "' took " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+}
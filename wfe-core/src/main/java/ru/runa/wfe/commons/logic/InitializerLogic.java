@@ -48,12 +48,14 @@ import ru.runa.wfe.commons.dbpatch.impl.AddColumnsToSubstituteEscalatedTasksPatc
 import ru.runa.wfe.commons.dbpatch.impl.AddCreateDateColumns;
 import ru.runa.wfe.commons.dbpatch.impl.AddDeploymentAuditPatch;
 import ru.runa.wfe.commons.dbpatch.impl.AddDueDateExpressionToJobAndTask;
+import ru.runa.wfe.commons.dbpatch.impl.AddDueDateVariableToJobAndTask;
 import ru.runa.wfe.commons.dbpatch.impl.AddEmbeddedFileForBotTask;
 import ru.runa.wfe.commons.dbpatch.impl.AddHierarchyProcess;
 import ru.runa.wfe.commons.dbpatch.impl.AddMultiTaskIndexToTaskPatch;
 import ru.runa.wfe.commons.dbpatch.impl.AddNodeIdToProcessLogPatch;
 import ru.runa.wfe.commons.dbpatch.impl.AddParentProcessIdPatch;
 import ru.runa.wfe.commons.dbpatch.impl.AddProcessAndTokenExecutionStatusPatch;
+import ru.runa.wfe.commons.dbpatch.impl.AddProcessLogAttributesColumnPatch;
 import ru.runa.wfe.commons.dbpatch.impl.AddSequentialFlagToBot;
 import ru.runa.wfe.commons.dbpatch.impl.AddSettingsTable;
 import ru.runa.wfe.commons.dbpatch.impl.AddSubProcessIndexColumn;
@@ -154,6 +156,8 @@ public class InitializerLogic {
         dbPatches.add(ExpandVarcharPatch.class);
         dbPatches.add(AddProcessAndTokenExecutionStatusPatch.class);
         dbPatches.add(CreateAdminScriptTables.class);
+        dbPatches.add(AddDueDateVariableToJobAndTask.class);
+        dbPatches.add(AddProcessLogAttributesColumnPatch.class);
     };
 
     @Autowired
@@ -164,6 +168,8 @@ public class InitializerLogic {
     protected PermissionDAO permissionDAO;
     @Autowired
     protected LocalizationDAO localizationDAO;
+    @Autowired
+    protected CacheWarmupLogic cacheWarmupLogic;
 
     /**
      * Initialize database if needed.
@@ -195,6 +201,9 @@ public class InitializerLogic {
             }
             setScheduledTaskTimerSettings();
             JobTask.setSystemStartupCompleted(true);
+            if (SystemProperties.isCacheWarmupEnabled()) {
+                cacheWarmupLogic.startWarmup();
+            }
         } catch (Exception e) {
             log.error("initialization failed", e);
         }
@@ -17,6 +17,7 @@
  */
 package ru.runa.wfe.commons.logic;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,6 +45,7 @@ import ru.runa.wfe.graph.view.NodeGraphElementVisitor;
 import ru.runa.wfe.job.dao.JobDAO;
 import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.security.AuthorizationException;
+import ru.runa.wfe.security.SecuredObjectType;
 import ru.runa.wfe.ss.logic.SubstitutionLogic;
 import ru.runa.wfe.task.Task;
 import ru.runa.wfe.task.TaskCompletionBy;
@@ -60,6 +62,8 @@ import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.dao.VariableDAO;
 
 import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 /**
@@ -199,6 +203,35 @@ public class WFCommonLogic extends CommonLogic {
         systemLogDAO.create(new ProcessDeleteLog(user.getActor().getId(), process.getDeployment().getName(), process.getId()));
     }
 
+    /**
+     * Deletes processes with their subprocesses using set-based statements for dependent data.
+     */
+    protected void deleteProcesses(User user, List<Process> processes) {
+        Map<Long, Process> processesToDelete = Maps.newLinkedHashMap();
+        for (Process process : processes) {
+            // subprocesses are deleted before parent as in deleteProcess
+            List<Process> subprocesses = nodeProcessDAO.getSubprocessesRecursive(process);
+            Collections.reverse(subprocesses);
+            for (Process subprocess : subprocesses) {
+                processesToDelete.put(subprocess.getId(), subprocess);
+            }
+            processesToDelete.put(process.getId(), process);
+        }
+        log.debug("deleting " + processesToDelete.size() + " processes");
+        List<Long> processIds = Lists.newArrayList(processesToDelete.keySet());
+        permissionDAO.deleteAllPermissions(SecuredObjectType.PROCESS, processIds);
+        nodeProcessDAO.deleteByProcesses(processIds);
+        processLogDAO.deleteAll(processIds);
+        jobDAO.deleteAll(processIds);
+        variableDAO.deleteAll(processIds);
+        taskDAO.deleteAll(processIds);
+        swimlaneDAO.deleteAll(processIds);
+        for (Process process : processesToDelete.values()) {
+            processDAO.delete(process);
+            systemLogDAO.create(new ProcessDeleteLog(user.getActor().getId(), process.getDeployment().getName(), process.getId()));
+        }
+    }
+
     /**
      * Loads graph presentation elements for process definition.
      *
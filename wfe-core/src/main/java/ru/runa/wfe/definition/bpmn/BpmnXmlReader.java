@@ -118,6 +118,7 @@ public class BpmnXmlReader {
     private static final String DISCRIMINATOR_VALUE = "discriminatorValue";
     private static final String DISCRIMINATOR_CONDITION = "discriminatorCondition";
     private static final String NODE_ASYNC_EXECUTION = "asyncExecution";
+    private static final String ASYNC_CONTINUATION = "asyncContinuation";
 
     @Autowired
     private LocalizationDAO localizationDAO;
@@ -167,6 +168,9 @@ public class BpmnXmlReader {
             if (processProperties.containsKey(NODE_ASYNC_EXECUTION)) {
                 processDefinition.setNodeAsyncExecution("new".equals(processProperties.get(NODE_ASYNC_EXECUTION)));
             }
+            if (processProperties.containsKey(ASYNC_CONTINUATION)) {
+                processDefinition.setTaskAsyncContinuation(Boolean.parseBoolean(processProperties.get(ASYNC_CONTINUATION)));
+            }
 
             // 1: read most content
             readSwimlanes(processDefinition, process);
@@ -246,13 +250,16 @@ public class BpmnXmlReader {
         }
     }
 
-    private void readNode(ProcessDefinition processDefinition, Element element, Map<String, String> properties, Node node) {
+    void readNode(ProcessDefinition processDefinition, Element element, Map<String, String> properties, Node node) {
         node.setNodeId(element.attributeValue(ID));
         node.setName(element.attributeValue(NAME));
         node.setDescription(element.elementTextTrim(DOCUMENTATION));
         if (properties.containsKey(NODE_ASYNC_EXECUTION)) {
             node.setAsyncExecution("new".equals(properties.get(NODE_ASYNC_EXECUTION)));
         }
+        if (node instanceof InteractionNode && properties.containsKey(ASYNC_CONTINUATION)) {
+            ((InteractionNode) node).setAsyncContinuation(Boolean.parseBoolean(properties.get(ASYNC_CONTINUATION)));
+        }
         processDefinition.addNode(node);
         if (node instanceof StartNode) {
             StartNode startNode = (StartNode) node;
@@ -362,7 +369,7 @@ public class BpmnXmlReader {
         event.addAction(action);
     }
 
-    private Map<String, String> parseExtensionProperties(Element element) {
+    Map<String, String> parseExtensionProperties(Element element) {
         Map<String, String> map = Maps.newHashMap();
         Element extensionsElement = element.element(EXTENSION_ELEMENTS);
         if (extensionsElement != null) {
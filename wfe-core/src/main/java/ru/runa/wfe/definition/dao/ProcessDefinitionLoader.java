@@ -5,6 +5,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import ru.runa.wfe.definition.DefinitionDoesNotExistException;
 import ru.runa.wfe.definition.cache.DefinitionCache;
 import ru.runa.wfe.execution.Process;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.lang.ProcessDefinition;
 
 import com.google.common.base.Preconditions;
@@ -15,7 +16,12 @@ public class ProcessDefinitionLoader implements IProcessDefinitionLoader {
 
     @Override
     public ProcessDefinition getDefinition(Long id) {
-        return processDefCacheCtrl.getDefinition(id);
+        ExecutionTracer.start(ExecutionTracer.DEFINITION, id);
+        try {
+            return processDefCacheCtrl.getDefinition(id);
+        } finally {
+            ExecutionTracer.end();
+        }
     }
 
     @Override
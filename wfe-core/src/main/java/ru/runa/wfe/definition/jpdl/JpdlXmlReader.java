@@ -104,6 +104,7 @@ public class JpdlXmlReader {
     private static final String IGNORE_SUBSTITUTION_RULES = "ignoreSubstitutionRules";
     private static final String CREATION_MODE = "creationMode";
     private static final String NODE_ASYNC_EXECUTION = "asyncExecution";
+    private static final String ASYNC_CONTINUATION = "asyncContinuation";
     private static final String BEHAVIOUR = "behavior";
     private static final String BEHAVIOUR_TERMINATE = "TERMINATE";
 
@@ -149,6 +150,10 @@ public class JpdlXmlReader {
             if (!Strings.isNullOrEmpty(nodeAsyncExecutionString)) {
                 processDefinition.setNodeAsyncExecution("new".equals(nodeAsyncExecutionString));
             }
+            String asyncContinuationString = root.attributeValue(ASYNC_CONTINUATION);
+            if (!Strings.isNullOrEmpty(asyncContinuationString)) {
+                processDefinition.setTaskAsyncContinuation(Boolean.parseBoolean(asyncContinuationString));
+            }
 
             // 1: read most content
             readSwimlanes(processDefinition, root);
@@ -287,7 +292,7 @@ public class JpdlXmlReader {
         return variableAccesses;
     }
 
-    private void readNode(ProcessDefinition processDefinition, Element element, Node node) {
+    void readNode(ProcessDefinition processDefinition, Element element, Node node) {
         node.setNodeId(element.attributeValue(ID_ATTR));
         node.setName(element.attributeValue(NAME_ATTR));
         node.setDescription(element.elementTextTrim(DESCRIPTION_NODE));
@@ -295,6 +300,10 @@ public class JpdlXmlReader {
         if (!Strings.isNullOrEmpty(nodeAsyncExecutionString)) {
             node.setAsyncExecution("new".equals(nodeAsyncExecutionString));
         }
+        String asyncContinuationString = element.attributeValue(ASYNC_CONTINUATION);
+        if (node instanceof InteractionNode && !Strings.isNullOrEmpty(asyncContinuationString)) {
+            ((InteractionNode) node).setAsyncContinuation(Boolean.parseBoolean(asyncContinuationString));
+        }
         processDefinition.addNode(node);
         readEvents(processDefinition, element, node);
         // save the transitions and parse them at the end
@@ -21,9 +21,11 @@
  */
 package ru.runa.wfe.execution;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,6 +47,7 @@ import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
 import ru.runa.wfe.execution.dao.NodeProcessDAO;
 import ru.runa.wfe.execution.dao.ProcessDAO;
 import ru.runa.wfe.execution.dao.SwimlaneDAO;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.job.Job;
 import ru.runa.wfe.job.dao.JobDAO;
 import ru.runa.wfe.lang.MultiSubprocessNode;
@@ -72,6 +75,7 @@ import ru.runa.wfe.var.format.VariableFormatContainer;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class ExecutionContext {
     private static Log log = LogFactory.getLog(ExecutionContext.class);
@@ -80,6 +84,8 @@ public class ExecutionContext {
     private Task task;
     private final Map<String, Object> transientVariables = Maps.newHashMap();
     private final SubprocessSyncCache subprocessSyncCache = new SubprocessSyncCache();
+    private final VariableChangeSet variableChangeSet = new VariableChangeSet();
+    private boolean asyncContinuation;
     @Autowired
     private IProcessDefinitionLoader processDefinitionLoader;
     @Autowired
@@ -170,6 +176,26 @@ public class ExecutionContext {
         return task;
     }
 
+    /**
+     * Next entered node will be executed asynchronously in separate transaction, see
+     * {@link ru.runa.wfe.lang.InteractionNode#isAsyncContinuation(ExecutionContext)}.
+     * 
+     * @since 4.3.0
+     */
+    public void setAsyncContinuation(boolean asyncContinuation) {
+        this.asyncContinuation = asyncContinuation;
+    }
+
+    /**
+     * @return whether async continuation was requested; resets it.
+     * @since 4.3.0
+     */
+    public boolean pollAsyncContinuation() {
+        boolean result = asyncContinuation;
+        asyncContinuation = false;
+        return result;
+    }
+
     public NodeProcess getParentNodeProcess() {
         return nodeProcessDAO.getNodeProcessByChild(getProcess().getId());
     }
@@ -228,6 +254,19 @@ public class ExecutionContext {
     }
 
     public void setVariableValue(String name, Object value) {
+        ExecutionTracer.start(ExecutionTracer.VARIABLE, name);
+        variableChangeSet.begin();
+        boolean completed = false;
+        try {
+            setVariableValueInternal(name, value);
+            completed = true;
+        } finally {
+            variableChangeSet.end(completed);
+            ExecutionTracer.end();
+        }
+    }
+
+    private void setVariableValueInternal(String name, Object value) {
         Preconditions.checkNotNull(name, "name");
         SwimlaneDefinition swimlaneDefinition = getProcessDefinition().getSwimlane(name);
         if (swimlaneDefinition != null) {
@@ -252,8 +291,15 @@ public class ExecutionContext {
      * Adds all the given variables. It doesn't remove any existing variables unless they are overwritten by the given variables.
      */
     public void setVariableValues(Map<String, Object> variables) {
-        for (Map.Entry<String, Object> entry : variables.entrySet()) {
-            setVariableValue(entry.getKey(), entry.getValue());
+        variableChangeSet.begin();
+        boolean completed = false;
+        try {
+            for (Map.Entry<String, Object> entry : variables.entrySet()) {
+                setVariableValueInternal(entry.getKey(), entry.getValue());
+            }
+            completed = true;
+        } finally {
+            variableChangeSet.end(completed);
         }
     }
 
@@ -320,6 +366,7 @@ public class ExecutionContext {
         if (value instanceof UserTypeMap) {
             UserTypeMap userTypeMap = (UserTypeMap) value;
             Map<VariableDefinition, Object> expanded = userTypeMap.expandAttributes(variableDefinition.getName());
+            variableChangeSet.preload(getProcess());
             for (Map.Entry<VariableDefinition, Object> entry : expanded.entrySet()) {
                 setVariableValue(entry.getKey(), entry.getValue());
             }
@@ -340,6 +387,9 @@ public class ExecutionContext {
             if (oldSizeVariable != null && oldSizeVariable.getValue() instanceof Integer) {
                 maxSize = Math.max((Integer) oldSizeVariable.getValue(), newSize);
             }
+            if (maxSize > 0) {
+                variableChangeSet.preload(getProcess());
+            }
             VariableDefinition sizeDefinition = new VariableDefinition(sizeVariableName, null, LongFormat.class.getName(), null);
             setSimpleVariableValue(getProcessDefinition(), getToken(), sizeDefinition, value != null ? newSize : null);
             String[] formatComponentClassNames = variableDefinition.getFormatComponentClassNames();
@@ -356,10 +406,11 @@ public class ExecutionContext {
             }
             if (SystemProperties.isV4ListVariableCompatibilityMode()) {
                 // delete old list variables as blobs (pre 4.3.0)
-                Variable<?> variable = variableLoader.get(getProcess(), variableDefinition.getName());
+                Variable<?> variable = variableChangeSet.get(getProcess(), variableDefinition.getName());
                 if (variable != null) {
                     log.debug("Removing old-style list variable '" + variableDefinition.getName() + "'");
                     variableDAO.delete(variable);
+                    variableChangeSet.onDelete(getProcess(), variable);
                 }
             }
             return;
@@ -369,11 +420,12 @@ public class ExecutionContext {
 
     private VariableLog setSimpleVariableValue(ProcessDefinition processDefinition, Token token, VariableDefinition variableDefinition, Object value) {
         VariableLog resultingVariableLog = null;
-        Variable<?> variable = variableLoader.get(token.getProcess(), variableDefinition.getName());
+        Variable<?> variable = variableChangeSet.get(token.getProcess(), variableDefinition.getName());
         // if there is exist variable and it doesn't support the current type
         if (variable != null && !variable.supports(value)) {
             log.debug("Variable type is changing: deleting old variable '" + variableDefinition.getName() + "' in " + token.getProcess());
             variableDAO.delete(variable);
+            variableChangeSet.onDelete(token.getProcess(), variable);
             resultingVariableLog = new VariableDeleteLog(variable);
             variable = null;
         }
@@ -397,6 +449,7 @@ public class ExecutionContext {
                     variable = variableCreator.create(token.getProcess(), variableDefinition, value);
                     resultingVariableLog = variable.setValue(this, value, variableDefinition.getFormatNotNull());
                     variableDAO.create(variable);
+                    variableChangeSet.onCreate(token.getProcess(), variable);
                     if (variableDefinition.getName().contains(VariableFormatContainer.COMPONENT_QUALIFIER_START)) {
                         String autoExtendVariableName = variableDefinition.getName();
                         while (autoExtendVariableName.contains(VariableFormatContainer.COMPONENT_QUALIFIER_START)
@@ -442,7 +495,7 @@ public class ExecutionContext {
             }
         }
         if (value instanceof Date) {
-            updateRelatedObjectsDueToDateVariableChange(variableDefinition.getName());
+            variableChangeSet.onDateVariableChange(variableDefinition.getName());
         }
         if (resultingVariableLog != null) {
             processLogDAO.addLog(resultingVariableLog, token.getProcess(), token);
@@ -450,14 +503,14 @@ public class ExecutionContext {
         return resultingVariableLog;
     }
 
-    private void updateRelatedObjectsDueToDateVariableChange(String variableName) {
-        List<Task> tasks = taskDAO.findByProcessAndDeadlineExpressionContaining(getProcess(), variableName);
+    private void updateRelatedObjectsDueToDateVariableChange(Collection<String> variableNames) {
+        List<Task> tasks = taskDAO.findByProcessAndDeadlineDateVariableNames(getProcess(), variableNames);
         for (Task task : tasks) {
             Date oldDate = task.getDeadlineDate();
             task.setDeadlineDate(ExpressionEvaluator.evaluateDueDate(getVariableProvider(), task.getDeadlineDateExpression()));
             log.info(String.format("Changed deadlineDate for %s from %s to %s", task, oldDate, task.getDeadlineDate()));
         }
-        List<Job> jobs = jobDAO.findByProcessAndDeadlineExpressionContaining(getProcess(), variableName);
+        List<Job> jobs = jobDAO.findByProcessAndDueDateVariableNames(getProcess(), variableNames);
         for (Job job : jobs) {
             Date oldDate = job.getDueDate();
             job.setDueDate(ExpressionEvaluator.evaluateDueDate(getVariableProvider(), job.getDueDateExpression()));
@@ -465,6 +518,72 @@ public class ExecutionContext {
         }
     }
 
+    /**
+     * Changes made by one top-level variable write. Variables of the process are loaded by one query for mass writes (lists, user types) and
+     * deadlines depending on changed date variables are recalculated once at the end.
+     */
+    private class VariableChangeSet {
+        private int depth;
+        private final Map<Process, Map<String, Variable<?>>> processVariables = Maps.newHashMap();
+        private final Set<String> dateVariableNames = Sets.newLinkedHashSet();
+
+        private void begin() {
+            depth++;
+        }
+
+        private void end(boolean completed) {
+            depth--;
+            if (depth > 0) {
+                return;
+            }
+            try {
+                if (completed && !dateVariableNames.isEmpty()) {
+                    updateRelatedObjectsDueToDateVariableChange(dateVariableNames);
+                }
+            } finally {
+                processVariables.clear();
+                dateVariableNames.clear();
+            }
+        }
+
+        private void preload(Process process) {
+            if (depth == 0 || processVariables.containsKey(process)) {
+                return;
+            }
+            processVariables.put(process, variableDAO.getVariables(process));
+        }
+
+        private Variable<?> get(Process process, String name) {
+            Map<String, Variable<?>> variables = processVariables.get(process);
+            if (variables == null) {
+                return variableLoader.get(process, name);
+            }
+            return variables.get(name);
+        }
+
+        private void onCreate(Process process, Variable<?> variable) {
+            Map<String, Variable<?>> variables = processVariables.get(process);
+            if (variables != null) {
+                variables.put(variable.getName(), variable);
+            }
+        }
+
+        private void onDelete(Process process, Variable<?> variable) {
+            Map<String, Variable<?>> variables = processVariables.get(process);
+            if (variables != null) {
+                variables.remove(variable.getName());
+            }
+        }
+
+        private void onDateVariableChange(String variableName) {
+            if (depth == 0) {
+                updateRelatedObjectsDueToDateVariableChange(Sets.newHashSet(variableName));
+                return;
+            }
+            dateVariableNames.add(variableName);
+        }
+    }
+
     private class SubprocessSyncCache {
         private Map<Process, NodeProcess> subprocessesInfoMap = Maps.newHashMap();
         private Map<Process, Boolean> baseProcessIdModesMap = Maps.newHashMap();
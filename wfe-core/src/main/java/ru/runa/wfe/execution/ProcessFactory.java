@@ -28,6 +28,8 @@ import ru.runa.wfe.user.dao.ExecutorDAO;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class ProcessFactory {
     @Autowired
@@ -107,24 +109,42 @@ public class ProcessFactory {
     }
 
     public void startSubprocess(ExecutionContext parentExecutionContext, ExecutionContext executionContext) {
-        parentExecutionContext.addLog(new SubprocessStartLog(parentExecutionContext.getNode(), parentExecutionContext.getToken(), executionContext
-                .getProcess()));
-        grantSubprocessPermissions(executionContext.getProcessDefinition(), executionContext.getProcess(), parentExecutionContext.getProcess());
-        startProcessInternal(executionContext, null);
+        startSubprocesses(parentExecutionContext, Lists.newArrayList(executionContext));
     }
 
-    private void grantSubprocessPermissions(ProcessDefinition processDefinition, Process subProcess, Process parentProcess) {
+    /**
+     * Starts subprocesses of the same definition created by one node. Permissions are resolved once for all subprocesses.
+     */
+    public void startSubprocesses(ExecutionContext parentExecutionContext, List<ExecutionContext> executionContexts) {
+        if (executionContexts.isEmpty()) {
+            return;
+        }
+        ProcessDefinition processDefinition = executionContexts.get(0).getProcessDefinition();
+        Map<Executor, Set<Permission>> permissions = getSubprocessPermissions(processDefinition, parentExecutionContext.getProcess());
+        for (ExecutionContext executionContext : executionContexts) {
+            parentExecutionContext.addLog(new SubprocessStartLog(parentExecutionContext.getNode(), parentExecutionContext.getToken(),
+                    executionContext.getProcess()));
+            for (Map.Entry<Executor, Set<Permission>> entry : permissions.entrySet()) {
+                permissionDAO.setPermissions(entry.getKey(), entry.getValue(), executionContext.getProcess());
+            }
+            startProcessInternal(executionContext, null);
+        }
+    }
+
+    private Map<Executor, Set<Permission>> getSubprocessPermissions(ProcessDefinition processDefinition, Process parentProcess) {
         Set<Executor> executors = new HashSet<Executor>();
         executors.addAll(permissionDAO.getExecutorsWithPermission(processDefinition.getDeployment()));
         executors.addAll(permissionDAO.getExecutorsWithPermission(parentProcess));
+        Map<Executor, Set<Permission>> result = Maps.newHashMap();
         for (Executor executor : executors) {
             List<Permission> permissionsByParentProcess = permissionDAO.getIssuedPermissions(executor, parentProcess);
             Set<Permission> permissionsByDefinition = getProcessPermissions(executor, processDefinition);
             Set<Permission> permissions = Permission.mergePermissions(permissionsByParentProcess, permissionsByDefinition);
             if (permissions.size() > 0) {
-                permissionDAO.setPermissions(executor, permissions, subProcess);
+                result.put(executor, permissions);
             }
         }
+        return result;
     }
 
     private ExecutionContext createProcessInternal(ProcessDefinition processDefinition, Map<String, Object> variables, Actor actor,
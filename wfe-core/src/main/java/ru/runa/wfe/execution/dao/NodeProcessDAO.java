@@ -68,6 +68,11 @@ public class NodeProcessDAO extends GenericDAO<NodeProcess> {
         getHibernateTemplate().bulkUpdate("delete from NodeProcess where process=?", process);
     }
 
+    public void deleteByProcesses(List<Long> processIds) {
+        log.debug("deleting subprocess nodes for " + processIds.size() + " processes");
+        bulkUpdateByIds("delete from NodeProcess where process.id in (:ids)", processIds);
+    }
+
     public List<Process> getSubprocesses(Process process) {
         List<NodeProcess> nodeProcesses = getNodeProcesses(process, null, null, null);
         List<Process> result = Lists.newArrayListWithExpectedSize(nodeProcesses.size());
@@ -45,6 +45,18 @@ public class ProcessDAO extends GenericDAO<Process> {
     }
 
     public List<Process> getProcesses(final ProcessFilter filter) {
+        return getProcesses(filter, null, 0);
+    }
+
+    /**
+     * Loads processes by filter in id order, used for streaming through large result.
+     * 
+     * @param idAfter
+     *            load processes with greater id, can be <code>null</code>
+     * @param maxResults
+     *            max processes count, 0 means no limit
+     */
+    public List<Process> getProcesses(final ProcessFilter filter, final Long idAfter, final int maxResults) {
         return getHibernateTemplate().executeFind(new HibernateCallback<List<Process>>() {
 
             @Override
@@ -98,10 +110,20 @@ public class ProcessDAO extends GenericDAO<Process> {
                     throw new IllegalArgumentException("Filter should be specified");
                 }
                 String hql = "from Process where " + Joiner.on(" and ").join(conditions);
+                if (idAfter != null) {
+                    hql += " and id > :idAfter";
+                    parameters.put("idAfter", idAfter);
+                }
+                if (maxResults > 0) {
+                    hql += " order by id";
+                }
                 Query query = session.createQuery(hql);
                 for (Entry<String, Object> param : parameters.entrySet()) {
                     query.setParameter(param.getKey(), param.getValue());
                 }
+                if (maxResults > 0) {
+                    query.setMaxResults(maxResults);
+                }
                 return query.list();
             }
         });
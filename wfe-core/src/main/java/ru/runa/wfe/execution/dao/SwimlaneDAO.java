@@ -52,4 +52,9 @@ public class SwimlaneDAO extends GenericDAO<Swimlane> {
         log.debug("deleting swimlanes for process " + process.getId());
         getHibernateTemplate().bulkUpdate("delete from Swimlane where process=?", process);
     }
+
+    public void deleteAll(List<Long> processIds) {
+        log.debug("deleting swimlanes for " + processIds.size() + " processes");
+        bulkUpdateByIds("delete from Swimlane where process.id in (:ids)", processIds);
+    }
 }
@@ -0,0 +1,71 @@
+package ru.runa.wfe.execution.dto;
+
+import java.io.Serializable;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+
+/**
+ * Result of single item processing in bulk operation.
+ *
+ * @since 4.3.0
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class BulkOperationResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private int index;
+    private Long id;
+    private String errorClassName;
+    private String errorMessage;
+
+    public BulkOperationResult() {
+    }
+
+    public BulkOperationResult(int index, Long id) {
+        this.index = index;
+        this.id = id;
+    }
+
+    public BulkOperationResult(int index, Throwable throwable) {
+        this.index = index;
+        this.errorClassName = throwable.getClass().getName();
+        this.errorMessage = throwable.getLocalizedMessage();
+        if (Strings.isNullOrEmpty(errorMessage)) {
+            errorMessage = errorClassName;
+        }
+    }
+
+    /**
+     * @return index of item in request list
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return process or task id
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isSuccess() {
+        return errorClassName == null;
+    }
+
+    public String getErrorClassName() {
+        return errorClassName;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("index", index).add("id", id).add("error", errorMessage).toString();
+    }
+}
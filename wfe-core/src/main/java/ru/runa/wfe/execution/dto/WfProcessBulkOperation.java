@@ -0,0 +1,117 @@
+package ru.runa.wfe.execution.dto;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+
+import ru.runa.wfe.execution.ProcessFilter;
+
+import com.google.common.base.Objects;
+
+/**
+ * State of background processes deletion or cancellation.
+ *
+ * @since 4.3.0
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class WfProcessBulkOperation implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        DELETE, CANCEL
+    }
+
+    public enum Status {
+        RUNNING, PAUSED, COMPLETED, FAILED
+    }
+
+    private Long id;
+    private Type type;
+    private Status status;
+    private ProcessFilter filter;
+    private String actorName;
+    private Date startDate;
+    private Date endDate;
+    private Long lastProcessId;
+    private int processedCount;
+    private int skippedCount;
+    private String errorMessage;
+
+    public WfProcessBulkOperation() {
+    }
+
+    public WfProcessBulkOperation(Long id, Type type, Status status, ProcessFilter filter, String actorName, Date startDate, Date endDate,
+            Long lastProcessId, int processedCount, int skippedCount, String errorMessage) {
+        this.id = id;
+        this.type = type;
+        this.status = status;
+        this.filter = filter;
+        this.actorName = actorName;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.lastProcessId = lastProcessId;
+        this.processedCount = processedCount;
+        this.skippedCount = skippedCount;
+        this.errorMessage = errorMessage;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public ProcessFilter getFilter() {
+        return filter;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    /**
+     * @return id of last handled process, operation continues from next one
+     */
+    public Long getLastProcessId() {
+        return lastProcessId;
+    }
+
+    /**
+     * @return count of deleted or cancelled processes
+     */
+    public int getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * @return count of processes skipped due to lack of permission or already ended
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("id", id).add("type", type).add("status", status).add("processed", processedCount).toString();
+    }
+}
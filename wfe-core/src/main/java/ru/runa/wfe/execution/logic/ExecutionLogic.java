@@ -17,6 +17,7 @@
  */
 package ru.runa.wfe.execution.logic;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -51,8 +52,10 @@ import ru.runa.wfe.execution.Swimlane;
 import ru.runa.wfe.execution.Token;
 import ru.runa.wfe.execution.async.INodeAsyncExecutor;
 import ru.runa.wfe.execution.dto.WfProcess;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation;
 import ru.runa.wfe.execution.dto.WfSwimlane;
 import ru.runa.wfe.execution.dto.WfToken;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.extension.assign.AssignmentHelper;
 import ru.runa.wfe.graph.DrawProperties;
 import ru.runa.wfe.graph.history.GraphHistoryBuilder;
@@ -67,6 +70,7 @@ import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.lang.SwimlaneDefinition;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.security.Permission;
 import ru.runa.wfe.security.SecuredObjectType;
 import ru.runa.wfe.task.Task;
@@ -80,6 +84,7 @@ import ru.runa.wfe.var.MapDelegableVariableProvider;
 import ru.runa.wfe.var.Variable;
 
 import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
@@ -126,9 +131,7 @@ public class ExecutionLogic extends WFCommonLogic {
         List<Process> processes = getProcessesInternal(user, filter);
         // TODO add ProcessPermission.DELETE_PROCESS
         processes = filterIdentifiable(user, processes, ProcessPermission.CANCEL_PROCESS);
-        for (Process process : processes) {
-            deleteProcess(user, process);
-        }
+        deleteProcesses(user, processes);
     }
 
     public void cancelProcesses(User user, final ProcessFilter filter) {
@@ -142,6 +145,121 @@ public class ExecutionLogic extends WFCommonLogic {
         }
     }
 
+    /**
+     * Starts background deletion of processes.
+     *
+     * @return operation id
+     */
+    public Long deleteProcessesAsync(User user, ProcessFilter filter) {
+        return startProcessBulkOperation(user, WfProcessBulkOperation.Type.DELETE, filter);
+    }
+
+    /**
+     * Starts background cancellation of processes.
+     *
+     * @return operation id
+     */
+    public Long cancelProcessesAsync(User user, ProcessFilter filter) {
+        return startProcessBulkOperation(user, WfProcessBulkOperation.Type.CANCEL, filter);
+    }
+
+    private Long startProcessBulkOperation(User user, WfProcessBulkOperation.Type type, ProcessFilter filter) {
+        if (!filter.getFailedOnly()) {
+            // validates filter
+            processDAO.getProcesses(filter, null, 1);
+        }
+        ProcessBulkOperation operation = new ProcessBulkOperation(ProcessBulkOperations.nextId(), type, filter, user);
+        ProcessBulkOperations.add(operation);
+        log.info(operation + " was started");
+        return operation.getId();
+    }
+
+    public List<WfProcessBulkOperation> getProcessBulkOperations(User user) {
+        boolean administrator = executorLogic.isAdministrator(user);
+        List<WfProcessBulkOperation> result = Lists.newArrayList();
+        for (ProcessBulkOperation operation : ProcessBulkOperations.getAll()) {
+            if (administrator || Objects.equal(operation.getUser().getActor().getId(), user.getActor().getId())) {
+                result.add(operation.toDto());
+            }
+        }
+        return result;
+    }
+
+    public boolean pauseProcessBulkOperation(User user, Long operationId) {
+        return getProcessBulkOperationNotNull(user, operationId).pause();
+    }
+
+    public boolean resumeProcessBulkOperation(User user, Long operationId) {
+        return getProcessBulkOperationNotNull(user, operationId).resume();
+    }
+
+    private ProcessBulkOperation getProcessBulkOperationNotNull(User user, Long operationId) {
+        ProcessBulkOperation operation = ProcessBulkOperations.get(operationId);
+        if (operation == null) {
+            throw new InternalApplicationException("No process bulk operation found by id " + operationId);
+        }
+        if (!Objects.equal(operation.getUser().getActor().getId(), user.getActor().getId()) && !executorLogic.isAdministrator(user)) {
+            throw new AuthorizationException(user + " does not have access to " + operation);
+        }
+        return operation;
+    }
+
+    /**
+     * Handles next batch of operation processes in current transaction, results are stored in operation.
+     */
+    public void executeProcessBulkOperationBatch(ProcessBulkOperation operation) {
+        User user = operation.getUser();
+        List<Process> processes = getProcessesBatch(operation.getFilter(), operation.getLastProcessId(),
+                SystemProperties.getProcessBulkOperationBatchSize());
+        if (processes.isEmpty()) {
+            operation.setBatchResult(null, 0, 0);
+            return;
+        }
+        Long lastProcessId = processes.get(processes.size() - 1).getId();
+        List<Process> allowedProcesses = filterIdentifiable(user, processes, ProcessPermission.READ);
+        allowedProcesses = filterIdentifiable(user, allowedProcesses, ProcessPermission.CANCEL_PROCESS);
+        int processedCount;
+        if (operation.getType() == WfProcessBulkOperation.Type.DELETE) {
+            deleteProcesses(user, allowedProcesses);
+            processedCount = allowedProcesses.size();
+        } else {
+            processedCount = 0;
+            for (Process process : allowedProcesses) {
+                if (process.hasEnded()) {
+                    continue;
+                }
+                ProcessDefinition processDefinition = getDefinition(process);
+                ExecutionContext executionContext = new ExecutionContext(processDefinition, process);
+                process.end(executionContext, user.getActor());
+                processedCount++;
+            }
+        }
+        log.debug(operation + ": handled " + processedCount + " of " + processes.size() + " processes up to " + lastProcessId);
+        operation.setBatchResult(lastProcessId, processedCount, processes.size() - processedCount);
+    }
+
+    private List<Process> getProcessesBatch(ProcessFilter filter, Long idAfter, int batchSize) {
+        if (!filter.getFailedOnly()) {
+            return processDAO.getProcesses(filter, idAfter, batchSize);
+        }
+        List<Long> processIds = Lists.newArrayList(ProcessExecutionErrors.getProcessErrors().keySet());
+        Collections.sort(processIds);
+        List<Process> processes = Lists.newArrayList();
+        for (Long processId : processIds) {
+            if (idAfter != null && processId <= idAfter) {
+                continue;
+            }
+            Process process = processDAO.get(processId);
+            if (process != null) {
+                processes.add(process);
+            }
+            if (processes.size() == batchSize) {
+                break;
+            }
+        }
+        return processes;
+    }
+
     public WfProcess getProcess(User user, Long id) throws ProcessDoesNotExistException {
         Process process = processDAO.getNotNull(id);
         checkPermissionAllowed(user, process, Permission.READ);
@@ -204,13 +322,44 @@ public class ExecutionLogic extends WFCommonLogic {
     }
 
     public Long startProcess(User user, Long definitionId, Map<String, Object> variables) {
-        if (variables == null) {
-            variables = Maps.newHashMap();
-        }
         ProcessDefinition processDefinition = getDefinition(definitionId);
+        checkProcessStartAllowed(user, processDefinition);
+        return startProcess(user, processDefinition, variables);
+    }
+
+    /**
+     * Loads latest process definition and checks start permission once for processes started in bulk.
+     *
+     * @see #startProcess(User, ProcessDefinition, Map)
+     */
+    public ProcessDefinition getLatestDefinitionForStart(User user, String definitionName) {
+        ProcessDefinition processDefinition = getLatestDefinition(definitionName);
+        checkProcessStartAllowed(user, processDefinition);
+        return processDefinition;
+    }
+
+    private void checkProcessStartAllowed(User user, ProcessDefinition processDefinition) {
         if (SystemProperties.isCheckProcessStartPermissions()) {
             checkPermissionAllowed(user, processDefinition.getDeployment(), DefinitionPermission.START_PROCESS);
         }
+    }
+
+    /**
+     * Starts process of definition obtained by {@link #getLatestDefinitionForStart(User, String)}.
+     */
+    public Long startProcess(User user, ProcessDefinition processDefinition, Map<String, Object> variables) {
+        ExecutionTracer.startTrace("startProcess");
+        try {
+            return startProcessInternal(user, processDefinition, variables);
+        } finally {
+            ExecutionTracer.end();
+        }
+    }
+
+    private Long startProcessInternal(User user, ProcessDefinition processDefinition, Map<String, Object> variables) {
+        if (variables == null) {
+            variables = Maps.newHashMap();
+        }
         String transitionName = (String) variables.remove(WfProcess.SELECTED_TRANSITION_KEY);
         Map<String, Object> extraVariablesMap = Maps.newHashMap();
         extraVariablesMap.put(WfProcess.SELECTED_TRANSITION_KEY, transitionName);
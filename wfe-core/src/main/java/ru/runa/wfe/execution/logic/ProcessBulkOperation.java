@@ -0,0 +1,141 @@
+package ru.runa.wfe.execution.logic;
+
+import java.util.Date;
+
+import ru.runa.wfe.execution.ProcessFilter;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation.Status;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation.Type;
+import ru.runa.wfe.user.User;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+
+/**
+ * Background processes deletion or cancellation. Processes are handled by batches in id order, each batch in separate transaction. Batch results
+ * are applied to operation state only after transaction commit.
+ *
+ * @since 4.3.0
+ */
+public class ProcessBulkOperation {
+    private final Long id;
+    private final Type type;
+    private final ProcessFilter filter;
+    private final User user;
+    private final Date startDate = new Date();
+    private Status status = Status.RUNNING;
+    private Date endDate;
+    private Long lastProcessId;
+    private int processedCount;
+    private int skippedCount;
+    private String errorMessage;
+    private Long batchLastProcessId;
+    private int batchProcessedCount;
+    private int batchSkippedCount;
+
+    public ProcessBulkOperation(Long id, Type type, ProcessFilter filter, User user) {
+        this.id = id;
+        this.type = type;
+        this.filter = filter;
+        this.user = user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public ProcessFilter getFilter() {
+        return filter;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return date of completion or failure, <code>null</code> for running or paused operation
+     */
+    public synchronized Date getEndDate() {
+        return endDate;
+    }
+
+    public synchronized Long getLastProcessId() {
+        return lastProcessId;
+    }
+
+    /**
+     * Remembers results of batch executed in current transaction.
+     *
+     * @param lastProcessId
+     *            last loaded process id or <code>null</code> if no processes left
+     */
+    public synchronized void setBatchResult(Long lastProcessId, int processedCount, int skippedCount) {
+        this.batchLastProcessId = lastProcessId;
+        this.batchProcessedCount = processedCount;
+        this.batchSkippedCount = skippedCount;
+    }
+
+    /**
+     * Applies batch results after transaction commit.
+     */
+    public synchronized void onBatchCommitted() {
+        if (batchLastProcessId == null) {
+            status = Status.COMPLETED;
+            endDate = new Date();
+        } else {
+            lastProcessId = batchLastProcessId;
+            processedCount += batchProcessedCount;
+            skippedCount += batchSkippedCount;
+        }
+        setBatchResult(null, 0, 0);
+    }
+
+    public synchronized void onBatchFailed(Throwable throwable) {
+        setBatchResult(null, 0, 0);
+        status = Status.FAILED;
+        endDate = new Date();
+        errorMessage = throwable.getLocalizedMessage();
+        if (Strings.isNullOrEmpty(errorMessage)) {
+            errorMessage = throwable.getClass().getName();
+        }
+    }
+
+    public synchronized boolean pause() {
+        if (status != Status.RUNNING) {
+            return false;
+        }
+        status = Status.PAUSED;
+        return true;
+    }
+
+    /**
+     * Resumes paused or failed operation, failed batch is executed again.
+     */
+    public synchronized boolean resume() {
+        if (status != Status.PAUSED && status != Status.FAILED) {
+            return false;
+        }
+        status = Status.RUNNING;
+        endDate = null;
+        errorMessage = null;
+        return true;
+    }
+
+    public synchronized WfProcessBulkOperation toDto() {
+        return new WfProcessBulkOperation(id, type, status, filter, user.getActor().getName(), startDate, endDate, lastProcessId, processedCount,
+                skippedCount, errorMessage);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("id", id).add("type", type).add("status", status).add("user", user).toString();
+    }
+}
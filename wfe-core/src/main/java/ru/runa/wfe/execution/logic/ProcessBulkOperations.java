@@ -0,0 +1,63 @@
+package ru.runa.wfe.execution.logic;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation.Status;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Registry of background process bulk operations of this server node.
+ *
+ * @since 4.3.0
+ */
+public class ProcessBulkOperations {
+    private static final AtomicLong idSequence = new AtomicLong();
+    private static final Map<Long, ProcessBulkOperation> operations = Maps.newLinkedHashMap();
+
+    public static long nextId() {
+        return idSequence.incrementAndGet();
+    }
+
+    public static synchronized void add(ProcessBulkOperation operation) {
+        operations.put(operation.getId(), operation);
+    }
+
+    public static synchronized ProcessBulkOperation get(Long id) {
+        return operations.get(id);
+    }
+
+    public static synchronized List<ProcessBulkOperation> getAll() {
+        return Lists.newArrayList(operations.values());
+    }
+
+    /**
+     * @return first running operation (in order of creation) or <code>null</code>
+     */
+    public static synchronized ProcessBulkOperation getNextRunning() {
+        for (ProcessBulkOperation operation : operations.values()) {
+            if (operation.getStatus() == Status.RUNNING) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes completed and failed operations which ended before given date.
+     */
+    public static synchronized void removeEnded(Date endedBefore) {
+        for (Iterator<ProcessBulkOperation> iterator = operations.values().iterator(); iterator.hasNext();) {
+            Date endDate = iterator.next().getEndDate();
+            if (endDate != null && endDate.before(endedBefore)) {
+                iterator.remove();
+            }
+        }
+    }
+
+}
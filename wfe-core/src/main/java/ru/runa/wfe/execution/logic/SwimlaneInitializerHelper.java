@@ -8,6 +8,7 @@ import java.util.Map;
 import org.apache.commons.logging.LogFactory;
 
 import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.var.IVariableProvider;
 
@@ -44,6 +45,7 @@ public class SwimlaneInitializerHelper {
 
     public static List<? extends Executor> evaluate(String swimlaneConfiguration, IVariableProvider variableProvider) {
         SwimlaneInitializer swimlaneInitializer = parse(swimlaneConfiguration);
+        ExecutionTracer.start(ExecutionTracer.SWIMLANE, swimlaneConfiguration);
         try {
             List<? extends Executor> result = swimlaneInitializer.evaluate(variableProvider);
             if (result == null) {
@@ -53,6 +55,8 @@ public class SwimlaneInitializerHelper {
         } catch (Exception e) {
             LogFactory.getLog(SwimlaneInitializerHelper.class).error(swimlaneInitializer);
             throw Throwables.propagate(e);
+        } finally {
+            ExecutionTracer.end();
         }
     }
 }
@@ -0,0 +1,58 @@
+package ru.runa.wfe.execution.trace;
+
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Exports traces to Chrome trace event format (complete events) which can be opened offline in chrome://tracing or Perfetto UI. Process id is
+ * used as trace event pid, each trace gets its own tid.
+ *
+ * @since 4.3.0
+ */
+public class ChromeTraceExporter {
+
+    @SuppressWarnings("unchecked")
+    public static String export(List<ExecutionTrace> traces) {
+        JSONArray events = new JSONArray();
+        int traceIndex = 0;
+        for (ExecutionTrace trace : traces) {
+            traceIndex++;
+            JSONObject threadName = new JSONObject();
+            threadName.put("name", "thread_name");
+            threadName.put("ph", "M");
+            threadName.put("pid", trace.getProcessId());
+            threadName.put("tid", traceIndex);
+            JSONObject threadNameArgs = new JSONObject();
+            threadNameArgs.put("name", trace.getThreadName());
+            threadName.put("args", threadNameArgs);
+            events.add(threadName);
+            long traceStartMicros = trace.getStartDate().getTime() * 1000;
+            addEvents(events, trace.getRootSpan(), trace.getProcessId(), traceIndex, traceStartMicros);
+        }
+        JSONObject root = new JSONObject();
+        root.put("traceEvents", events);
+        root.put("displayTimeUnit", "ms");
+        return root.toJSONString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addEvents(JSONArray events, ExecutionTraceSpan span, Long processId, int tid, long traceStartMicros) {
+        JSONObject event = new JSONObject();
+        event.put("name", span.getName());
+        event.put("cat", span.getKind());
+        event.put("ph", "X");
+        event.put("ts", traceStartMicros + span.getStartMicros());
+        event.put("dur", span.getDurationMicros());
+        event.put("pid", processId);
+        event.put("tid", tid);
+        JSONObject args = new JSONObject();
+        args.put("queries", span.getQueriesCount());
+        event.put("args", args);
+        events.add(event);
+        for (ExecutionTraceSpan child : span.getChildren()) {
+            addEvents(events, child, processId, tid, traceStartMicros);
+        }
+    }
+}
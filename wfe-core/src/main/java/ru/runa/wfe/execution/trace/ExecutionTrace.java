@@ -0,0 +1,47 @@
+package ru.runa.wfe.execution.trace;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import com.google.common.base.Objects;
+
+/**
+ * Spans tree of single process execution (task completion, process start, job execution, etc).
+ *
+ * @since 4.3.0
+ */
+public class ExecutionTrace implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final Long processId;
+    private final Date startDate;
+    private final String threadName;
+    private final ExecutionTraceSpan rootSpan;
+
+    public ExecutionTrace(Long processId, Date startDate, String threadName, ExecutionTraceSpan rootSpan) {
+        this.processId = processId;
+        this.startDate = startDate;
+        this.threadName = threadName;
+        this.rootSpan = rootSpan;
+    }
+
+    public Long getProcessId() {
+        return processId;
+    }
+
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public ExecutionTraceSpan getRootSpan() {
+        return rootSpan;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("processId", processId).add("startDate", startDate).add("root", rootSpan).toString();
+    }
+}
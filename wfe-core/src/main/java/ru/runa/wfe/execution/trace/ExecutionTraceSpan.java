@@ -0,0 +1,75 @@
+package ru.runa.wfe.execution.trace;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+
+/**
+ * Timed part of process execution; spans form tree.
+ *
+ * @since 4.3.0
+ */
+public class ExecutionTraceSpan implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final String kind;
+    private final String name;
+    private final long startMicros;
+    private long durationMicros;
+    private int queriesCount;
+    private final List<ExecutionTraceSpan> children = Lists.newArrayList();
+
+    public ExecutionTraceSpan(String kind, String name, long startMicros) {
+        this.kind = kind;
+        this.name = name;
+        this.startMicros = startMicros;
+    }
+
+    /**
+     * @return one of ExecutionTracer kinds.
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return start time relative to trace start.
+     */
+    public long getStartMicros() {
+        return startMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    /**
+     * @return SQL statements count prepared during span including child spans.
+     */
+    public int getQueriesCount() {
+        return queriesCount;
+    }
+
+    public void addQueriesCount(int count) {
+        queriesCount += count;
+    }
+
+    public List<ExecutionTraceSpan> getChildren() {
+        return children;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("kind", kind).add("name", name).add("duration", durationMicros).add("queries", queriesCount)
+                .toString();
+    }
+}
@@ -0,0 +1,175 @@
+package ru.runa.wfe.execution.trace;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+/**
+ * Collects timing spans of process execution in current thread. Trace is started by {@link #startTrace(String)} at execution entry points and
+ * sampled according to <code>execution.tracing.sample.percent</code>; spans outside of sampled trace cost single thread local lookup. Each
+ * start must be paired with {@link #end()} in finally block. Completed traces are kept in {@link ExecutionTraces}.
+ *
+ * @since 4.3.0
+ */
+public class ExecutionTracer {
+    public static final String EXECUTION = "execution";
+    public static final String NODE = "node";
+    public static final String LEAVE = "leave";
+    public static final String ACTION = "action";
+    public static final String SWIMLANE = "swimlane";
+    public static final String VARIABLE = "variable";
+    public static final String DEFINITION = "definition";
+    private static final ThreadLocal<ActiveTrace> activeTraces = new ThreadLocal<ActiveTrace>();
+    private static final AtomicLong tracesCounter = new AtomicLong();
+
+    /**
+     * Starts trace or nested span if trace is already started.
+     */
+    public static void startTrace(String name) {
+        ActiveTrace activeTrace = activeTraces.get();
+        if (activeTrace == null) {
+            int samplePercent = SystemProperties.getExecutionTracingSamplePercent();
+            if (samplePercent <= 0) {
+                return;
+            }
+            boolean sampled = tracesCounter.getAndIncrement() % 100 < samplePercent;
+            activeTrace = new ActiveTrace(sampled, SystemProperties.getExecutionTracingMaxSpans());
+            activeTraces.set(activeTrace);
+        }
+        activeTrace.start(EXECUTION, name);
+    }
+
+    /**
+     * Starts span if trace is active.
+     *
+     * @param subject
+     *            span name source, converted to string only for sampled trace
+     */
+    public static void start(String kind, Object subject) {
+        ActiveTrace activeTrace = activeTraces.get();
+        if (activeTrace != null) {
+            activeTrace.start(kind, subject);
+        }
+    }
+
+    /**
+     * Ends last started span; completes trace on its root span end.
+     */
+    public static void end() {
+        ActiveTrace activeTrace = activeTraces.get();
+        if (activeTrace != null && activeTrace.end()) {
+            activeTraces.remove();
+            if (activeTrace.isCompleted()) {
+                ExecutionTraces.add(activeTrace.toTrace());
+            }
+        }
+    }
+
+    /**
+     * Binds active trace to process; first bound process wins.
+     */
+    public static void setProcessId(Long processId) {
+        ActiveTrace activeTrace = activeTraces.get();
+        if (activeTrace != null && activeTrace.processId == null) {
+            activeTrace.processId = processId;
+        }
+    }
+
+    /**
+     * Counts SQL statement in current span.
+     */
+    public static void onStatementPrepared() {
+        ActiveTrace activeTrace = activeTraces.get();
+        if (activeTrace != null) {
+            activeTrace.onStatementPrepared();
+        }
+    }
+
+    private static class ActiveTrace {
+        private final boolean sampled;
+        private final int maxSpans;
+        private final long startNanos = System.nanoTime();
+        private final Date startDate = new Date();
+        // contains null for spans skipped due to maxSpans limit
+        private final List<ExecutionTraceSpan> stack = new ArrayList<ExecutionTraceSpan>();
+        private int depth;
+        private int spansCount;
+        private ExecutionTraceSpan rootSpan;
+        private Long processId;
+
+        public ActiveTrace(boolean sampled, int maxSpans) {
+            this.sampled = sampled;
+            this.maxSpans = maxSpans;
+        }
+
+        public void start(String kind, Object subject) {
+            depth++;
+            if (!sampled) {
+                return;
+            }
+            if (spansCount >= maxSpans) {
+                stack.add(null);
+                return;
+            }
+            spansCount++;
+            ExecutionTraceSpan span = new ExecutionTraceSpan(kind, String.valueOf(subject), (System.nanoTime() - startNanos) / 1000);
+            if (rootSpan == null) {
+                rootSpan = span;
+            } else {
+                ExecutionTraceSpan parent = getCurrentSpan();
+                if (parent != null) {
+                    parent.getChildren().add(span);
+                }
+            }
+            stack.add(span);
+        }
+
+        /**
+         * @return true if root span ended
+         */
+        public boolean end() {
+            depth--;
+            if (sampled && !stack.isEmpty()) {
+                ExecutionTraceSpan span = stack.remove(stack.size() - 1);
+                if (span != null) {
+                    span.setDurationMicros((System.nanoTime() - startNanos) / 1000 - span.getStartMicros());
+                    ExecutionTraceSpan parent = getCurrentSpan();
+                    if (parent != null) {
+                        parent.addQueriesCount(span.getQueriesCount());
+                    }
+                }
+            }
+            return depth <= 0;
+        }
+
+        public void onStatementPrepared() {
+            ExecutionTraceSpan span = getCurrentSpan();
+            if (sampled && span != null) {
+                span.addQueriesCount(1);
+            }
+        }
+
+        public boolean isCompleted() {
+            return sampled && rootSpan != null && processId != null;
+        }
+
+        public ExecutionTrace toTrace() {
+            return new ExecutionTrace(processId, startDate, Thread.currentThread().getName(), rootSpan);
+        }
+
+        /**
+         * @return innermost recorded span
+         */
+        private ExecutionTraceSpan getCurrentSpan() {
+            for (int i = stack.size() - 1; i >= 0; i--) {
+                if (stack.get(i) != null) {
+                    return stack.get(i);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.runa.wfe.execution.trace;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+
+/**
+ * Ring buffer of latest sampled execution traces.
+ *
+ * @since 4.3.0
+ */
+public class ExecutionTraces {
+    private static final LinkedList<ExecutionTrace> traces = new LinkedList<ExecutionTrace>();
+
+    public static synchronized void add(ExecutionTrace trace) {
+        traces.addLast(trace);
+        int bufferSize = SystemProperties.getExecutionTracingBufferSize();
+        while (traces.size() > bufferSize) {
+            traces.removeFirst();
+        }
+    }
+
+    /**
+     * @return traces from oldest to latest.
+     */
+    public static synchronized List<ExecutionTrace> getTraces() {
+        return Lists.newArrayList(traces);
+    }
+
+    public static synchronized List<ExecutionTrace> getTraces(Long processId) {
+        List<ExecutionTrace> result = Lists.newArrayList();
+        for (ExecutionTrace trace : traces) {
+            if (Objects.equal(processId, trace.getProcessId())) {
+                result.add(trace);
+            }
+        }
+        return result;
+    }
+
+    public static synchronized void clear() {
+        traces.clear();
+    }
+}
@@ -1,48 +1,248 @@
 package ru.runa.wfe.extension.handler;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
 
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.execution.ExecutionContext;
 import ru.runa.wfe.extension.ActionHandlerBase;
 import ru.runa.wfe.var.VariableDefinition;
 
 import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class JavaScriptActionHandler extends ActionHandlerBase {
+    private static final ScriptEngineManager engineManager = new ScriptEngineManager();
+    private static final Queue<PooledScriptEngine> engines = new ArrayBlockingQueue<PooledScriptEngine>(
+            Math.max(1, SystemProperties.getJavaScriptEnginePoolSize()));
 
     @Override
     public void execute(ExecutionContext executionContext) throws ScriptException {
-        List<VariableDefinition> rawDefinitions = Lists.newArrayList();
+        Map<String, VariableDefinition> definitions = Maps.newHashMap();
         for (VariableDefinition definition : executionContext.getProcessDefinition().getVariables()) {
             if (definition.isUserType()) {
-                rawDefinitions.addAll(definition.expandUserType(false));
+                for (VariableDefinition attributeDefinition : definition.expandUserType(false)) {
+                    definitions.put(attributeDefinition.getScriptingName(), attributeDefinition);
+                }
             } else {
-                rawDefinitions.add(definition);
+                definitions.put(definition.getScriptingName(), definition);
             }
         }
-        ScriptEngineManager mgr = new ScriptEngineManager();
-        ScriptEngine engine = mgr.getEngineByName("JavaScript");
-        for (VariableDefinition definition : rawDefinitions) {
-            Object value = executionContext.getVariableValue(definition.getName());
+        PooledScriptEngine engine = engines.poll();
+        if (engine == null) {
+            engine = new PooledScriptEngine();
+        }
+        Map<String, Object> changedVariables = Maps.newLinkedHashMap();
+        try {
+            VariableBindings bindings = engine.bind(executionContext, definitions);
+            engine.eval(configuration);
+            Bindings scriptGlobals = bindings.getScriptGlobals();
+            Set<String> scriptingNames = Sets.newLinkedHashSet(bindings.getResolvedScriptingNames());
+            if (scriptGlobals != null) {
+                scriptingNames.addAll(scriptGlobals.keySet());
+            }
+            for (String scriptingName : scriptingNames) {
+                if (!definitions.containsKey(scriptingName)) {
+                    continue;
+                }
+                Object value;
+                if (scriptGlobals != null && scriptGlobals.containsKey(scriptingName)) {
+                    value = scriptGlobals.get(scriptingName);
+                } else {
+                    value = bindings.getOwnValue(scriptingName);
+                }
+                if (value != null && !Objects.equal(value, bindings.getLoadedValue(scriptingName))) {
+                    changedVariables.put(definitions.get(scriptingName).getName(), value);
+                }
+            }
+        } finally {
+            // engine which state was not reset is dropped
+            if (engine.reset()) {
+                engines.offer(engine);
+            }
+        }
+        executionContext.setVariableValues(changedVariables);
+    }
+
+    /**
+     * Script engine with compiled scripts cache and own script context which engine scope bindings are reset after each execution. Engine is used
+     * by single thread at a time.
+     */
+    private static class PooledScriptEngine {
+        private final ScriptEngine engine;
+        private final Cache<String, CompiledScript> compiledScripts;
+        private final VariableBindings bindings = new VariableBindings();
+        // own context without global scope: nothing is shared between executions
+        private final SimpleScriptContext scriptContext = new SimpleScriptContext();
+
+        public PooledScriptEngine() {
+            engine = engineManager.getEngineByName("JavaScript");
+            if (engine == null) {
+                throw new InternalApplicationException("No JavaScript engine found");
+            }
+            compiledScripts = engine instanceof Compilable ? CacheBuilder.newBuilder().maximumSize(1000).<String, CompiledScript> build() : null;
+            scriptContext.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        }
+
+        public VariableBindings bind(ExecutionContext executionContext, Map<String, VariableDefinition> definitions) {
+            bindings.bind(executionContext, definitions);
+            return bindings;
+        }
+
+        public Object eval(String script) throws ScriptException {
+            if (compiledScripts == null) {
+                return engine.eval(script, scriptContext);
+            }
+            CompiledScript compiledScript = compiledScripts.getIfPresent(script);
+            if (compiledScript == null) {
+                compiledScript = ((Compilable) engine).compile(script);
+                compiledScripts.put(script, compiledScript);
+            }
+            return compiledScript.eval(scriptContext);
+        }
+
+        /**
+         * Removes values of finished execution. Script global object is kept for next execution if all script globals can be deleted;
+         * otherwise (<code>var</code> and function declarations) it is dropped and engine creates new one.
+         *
+         * @return <code>false</code> if engine state can not be reset
+         */
+        public boolean reset() {
+            try {
+                Bindings scriptGlobals = bindings.getScriptGlobals();
+                if (scriptGlobals != null) {
+                    for (String name : Lists.newArrayList(scriptGlobals.keySet())) {
+                        scriptGlobals.remove(name);
+                    }
+                    if (!scriptGlobals.isEmpty()) {
+                        scriptGlobals = null;
+                    }
+                }
+                bindings.unbind(scriptGlobals);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Engine scope bindings which load process variable on first access. Variables with null value are not defined.
+     */
+    private static class VariableBindings extends SimpleBindings {
+        /**
+         * Nashorn stores script global object in engine scope bindings of other type under this key; top level assignments of script are kept
+         * there instead of bindings.
+         */
+        private static final String NASHORN_GLOBAL = "nashorn.global";
+        private ExecutionContext executionContext;
+        private Map<String, VariableDefinition> definitions;
+        /**
+         * Variables which was loaded or assigned by script.
+         */
+        private final Set<String> resolvedScriptingNames = Sets.newLinkedHashSet();
+        private final Map<String, Object> loadedValues = Maps.newHashMap();
+
+        public void bind(ExecutionContext executionContext, Map<String, VariableDefinition> definitions) {
+            this.executionContext = executionContext;
+            this.definitions = definitions;
+        }
+
+        /**
+         * Clears values of finished execution.
+         *
+         * @param scriptGlobals
+         *            script global object to keep or <code>null</code>
+         */
+        public void unbind(Bindings scriptGlobals) {
+            executionContext = null;
+            definitions = null;
+            resolvedScriptingNames.clear();
+            loadedValues.clear();
+            super.clear();
+            if (scriptGlobals != null) {
+                super.put(NASHORN_GLOBAL, scriptGlobals);
+            }
+        }
+
+        private void resolve(Object key, boolean load) {
+            if (!(key instanceof String) || definitions == null || !definitions.containsKey(key) || !resolvedScriptingNames.add((String) key) || !load) {
+                return;
+            }
+            String scriptingName = (String) key;
+            Object value = executionContext.getVariableValue(definitions.get(scriptingName).getName());
             if (value != null) {
-                engine.put(definition.getScriptingName(), value);
+                super.put(scriptingName, value);
+                loadedValues.put(scriptingName, value);
             }
         }
-        engine.eval(configuration);
-        Bindings bindings = engine.getBindings(ScriptContext.GLOBAL_SCOPE);
-        for (VariableDefinition definition : rawDefinitions) {
-            Object value = bindings.get(definition.getScriptingName());
-            Object currentValue = executionContext.getVariableValue(definition.getName());
-            if (value != null && !Objects.equal(value, currentValue)) {
-                executionContext.setVariableValue(definition.getName(), value);
+
+        @Override
+        public boolean containsKey(Object key) {
+            resolve(key, true);
+            return super.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            resolve(key, true);
+            return super.get(key);
+        }
+
+        @Override
+        public Object put(String name, Object value) {
+            resolve(name, false);
+            return super.put(name, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ? extends Object> toMerge) {
+            for (Map.Entry<? extends String, ? extends Object> entry : toMerge.entrySet()) {
+                put(entry.getKey(), entry.getValue());
             }
         }
+
+        @Override
+        public Object remove(Object key) {
+            resolve(key, false);
+            return super.remove(key);
+        }
+
+        public Set<String> getResolvedScriptingNames() {
+            return resolvedScriptingNames;
+        }
+
+        public Object getOwnValue(String scriptingName) {
+            return super.get(scriptingName);
+        }
+
+        public Object getLoadedValue(String scriptingName) {
+            return loadedValues.get(scriptingName);
+        }
+
+        /**
+         * @return script global object if engine keeps it separately from bindings, <code>null</code> otherwise
+         */
+        public Bindings getScriptGlobals() {
+            Object globals = super.get(NASHORN_GLOBAL);
+            return globals instanceof Bindings ? (Bindings) globals : null;
+        }
     }
 }
@@ -1,11 +1,13 @@
 package ru.runa.wfe.extension.handler;
 
 import java.util.Date;
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.script.ScriptException;
 
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 
@@ -14,50 +16,148 @@ import ru.runa.wfe.extension.ActionHandlerBase;
 import ru.runa.wfe.var.VariableDefinition;
 import ru.runa.wfe.var.format.FormatCommons;
 
-import com.google.common.collect.Lists;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 public class RhinoJSActionHandler extends ActionHandlerBase {
+    private static final Cache<String, Script> scripts = CacheBuilder.newBuilder().maximumSize(1000).build();
 
     @Override
     public void execute(ExecutionContext executionContext) throws ScriptException {
-        try {
-            List<VariableDefinition> rawDefinitions = Lists.newArrayList();
-            for (VariableDefinition definition : executionContext.getProcessDefinition().getVariables()) {
-                if (definition.isUserType()) {
-                    rawDefinitions.addAll(definition.expandUserType(false));
-                } else {
-                    rawDefinitions.add(definition);
+        Map<String, VariableDefinition> definitions = Maps.newHashMap();
+        for (VariableDefinition definition : executionContext.getProcessDefinition().getVariables()) {
+            if (definition.isUserType()) {
+                for (VariableDefinition attributeDefinition : definition.expandUserType(false)) {
+                    definitions.put(attributeDefinition.getScriptingName(), attributeDefinition);
                 }
+            } else {
+                definitions.put(definition.getScriptingName(), definition);
             }
+        }
+        try {
             Context context = Context.enter();
-            Scriptable scope = context.initStandardObjects();
-            for (VariableDefinition definition : rawDefinitions) {
-                Object value = executionContext.getVariableValue(definition.getName());
-                if (value != null) {
-                    Object js = javaToJs(context, scope, value);
-                    ScriptableObject.putProperty(scope, definition.getScriptingName(), js);
-                }
-            }
-            context.evaluateString(scope, configuration, "<cmd>", 1, null);
-            for (VariableDefinition definition : rawDefinitions) {
-                Object js = scope.get(definition.getScriptingName(), scope);
-                if (js != Scriptable.NOT_FOUND) {
-                    Object newValue = Context.jsToJava(js, FormatCommons.create(definition).getJavaClass());
-                    if (newValue != null) {
-                        executionContext.setVariableValue(definition.getName(), newValue);
-                    }
+            VariableScope scope = new VariableScope(executionContext, definitions);
+            context.initStandardObjects(scope);
+            scope.enableVariablesLoading();
+            getScript(context, configuration).exec(context, scope);
+            Map<String, Object> changedVariables = Maps.newLinkedHashMap();
+            for (String scriptingName : scope.getChangedVariableScriptingNames()) {
+                VariableDefinition definition = definitions.get(scriptingName);
+                Object newValue = Context.jsToJava(scope.get(scriptingName, scope), FormatCommons.create(definition).getJavaClass());
+                if (newValue != null) {
+                    changedVariables.put(definition.getName(), newValue);
                 }
             }
+            executionContext.setVariableValues(changedVariables);
         } finally {
             Context.exit();
         }
     }
 
-    private Object javaToJs(Context context, Scriptable scope, Object value) {
+    private static Script getScript(Context context, String configuration) {
+        Script script = scripts.getIfPresent(configuration);
+        if (script == null) {
+            script = context.compileString(configuration, "<cmd>", 1, null);
+            scripts.put(configuration, script);
+        }
+        return script;
+    }
+
+    private static Object javaToJs(Context context, Scriptable scope, Object value) {
         if (value instanceof Date) {
             return context.newObject(scope, "Date", new Object[] { ((Date) value).getTime() });
         }
         return Context.javaToJS(value, scope);
     }
 
+    /**
+     * Global scope which loads process variable on first access. Variables with null value are not defined in scope.
+     */
+    private static class VariableScope extends ScriptableObject {
+        private static final long serialVersionUID = 1L;
+        private final transient ExecutionContext executionContext;
+        private final Map<String, VariableDefinition> definitions;
+        private boolean loadingEnabled;
+        /**
+         * Variables which was loaded or assigned by script.
+         */
+        private final Set<String> resolvedScriptingNames = Sets.newLinkedHashSet();
+        /**
+         * Loaded values which can not be changed by script without assignment.
+         */
+        private final Map<String, Object> immutableValues = Maps.newHashMap();
+
+        public VariableScope(ExecutionContext executionContext, Map<String, VariableDefinition> definitions) {
+            this.executionContext = executionContext;
+            this.definitions = definitions;
+        }
+
+        @Override
+        public String getClassName() {
+            return "global";
+        }
+
+        public void enableVariablesLoading() {
+            loadingEnabled = true;
+        }
+
+        private void resolve(String scriptingName, boolean load) {
+            if (!loadingEnabled || !definitions.containsKey(scriptingName) || !resolvedScriptingNames.add(scriptingName) || !load) {
+                return;
+            }
+            Object value = executionContext.getVariableValue(definitions.get(scriptingName).getName());
+            if (value != null) {
+                Object js = javaToJs(Context.getCurrentContext(), this, value);
+                super.put(scriptingName, this, js);
+                if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+                    immutableValues.put(scriptingName, js);
+                }
+            }
+        }
+
+        @Override
+        public boolean has(String name, Scriptable start) {
+            resolve(name, true);
+            return super.has(name, start);
+        }
+
+        @Override
+        public Object get(String name, Scriptable start) {
+            resolve(name, true);
+            return super.get(name, start);
+        }
+
+        @Override
+        public void put(String name, Scriptable start, Object value) {
+            resolve(name, false);
+            super.put(name, start, value);
+        }
+
+        @Override
+        public void delete(String name) {
+            resolve(name, false);
+            super.delete(name);
+        }
+
+        /**
+         * @return variables which were assigned or could be changed by script
+         */
+        public Set<String> getChangedVariableScriptingNames() {
+            Set<String> result = Sets.newLinkedHashSet();
+            for (String scriptingName : resolvedScriptingNames) {
+                Object js = super.get(scriptingName, this);
+                if (js == Scriptable.NOT_FOUND) {
+                    continue;
+                }
+                if (immutableValues.containsKey(scriptingName) && immutableValues.get(scriptingName) == js) {
+                    continue;
+                }
+                result.add(scriptingName);
+            }
+            return result;
+        }
+    }
+
 }
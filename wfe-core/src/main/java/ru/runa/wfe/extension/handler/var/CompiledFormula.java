@@ -0,0 +1,115 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.extension.handler.var;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.FallbackException;
+import ru.runa.wfe.var.IVariableProvider;
+import ru.runa.wfe.var.dto.WfVariable;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Immutable compiled {@link FormulaActionHandler} configuration; can be shared between threads.
+ */
+class CompiledFormula {
+    private static final Log log = LogFactory.getLog(FormulaActionHandler.class);
+    private final List<Statement> statements;
+
+    public CompiledFormula(List<Statement> statements) {
+        this.statements = statements;
+    }
+
+    public List<Statement> getStatements() {
+        return statements;
+    }
+
+    public void execute(ExecutionContext context) {
+        for (Statement statement : statements) {
+            statement.execute(context);
+        }
+    }
+
+    static class Statement {
+        private final String text;
+        private final String variableName;
+        private final FormulaExpression expression;
+        private final Set<String> expressionVariableNames;
+
+        public Statement(String text, String variableName, FormulaExpression expression, Set<String> expressionVariableNames) {
+            this.text = text;
+            this.variableName = variableName;
+            this.expression = expression;
+            this.expressionVariableNames = expressionVariableNames;
+        }
+
+        /**
+         * @return <code>false</code> if statement is always interpreted
+         */
+        public boolean isCompiled() {
+            return expression != null;
+        }
+
+        /**
+         * Decides before evaluation whether compiled expression can be used: interpreter handles undefined and null variables.
+         *
+         * @return values of variables used in expression or <code>null</code> if statement must be interpreted
+         */
+        Map<String, Object> resolveVariables(ExecutionContext context) {
+            if (expression == null) {
+                return null;
+            }
+            Map<String, Object> variables = Maps.newHashMapWithExpectedSize(expressionVariableNames.size());
+            if (expressionVariableNames.isEmpty()) {
+                return variables;
+            }
+            IVariableProvider variableProvider = context.getVariableProvider();
+            for (String name : expressionVariableNames) {
+                WfVariable variable = variableProvider.getVariable(name);
+                if (variable == null || variable.getValue() == null) {
+                    log.debug("Interpreting '" + text + "' due to null value of '" + name + "'");
+                    return null;
+                }
+                variables.put(name, variable.getValue());
+            }
+            return variables;
+        }
+
+        public void execute(ExecutionContext context) {
+            Map<String, Object> variables = resolveVariables(context);
+            if (variables != null) {
+                try {
+                    Object value = FormulaExpression.evaluateNotNull(expression, context, variables);
+                    FormulaInterpreter.assign(context, variableName, value);
+                    return;
+                } catch (FallbackException e) {
+                    // operation is not applicable to values, interpreter reports it; evaluated tree has no side effects
+                    log.debug("Interpreting '" + text + "' due to null result of operation");
+                }
+            }
+            new FormulaInterpreter(context).interpret(text);
+        }
+    }
+}
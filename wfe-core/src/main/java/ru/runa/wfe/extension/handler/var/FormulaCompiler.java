@@ -0,0 +1,369 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.extension.handler.var;
+
+import java.text.DateFormat;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.CalendarUtil;
+import ru.runa.wfe.extension.function.Function;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.BinaryOperation;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.BuiltInFunction;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.BuiltInFunctionCall;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.FunctionCall;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.Literal;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.Operator;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.UnaryOperation;
+import ru.runa.wfe.extension.handler.var.FormulaExpression.VariableValue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Compiles formula configuration to expression trees. Grammar and token consumption repeat {@link FormulaInterpreter} exactly; statements with
+ * syntax errors are left for interpreter to report errors in usual way.
+ */
+class FormulaCompiler extends FormulaTokenizer {
+    private static final Log log = LogFactory.getLog(FormulaActionHandler.class);
+    private final Set<String> variableNames = Sets.newLinkedHashSet();
+
+    public static CompiledFormula compile(String configuration) {
+        List<CompiledFormula.Statement> statements = Lists.newArrayList();
+        for (String statement : splitStatements(configuration)) {
+            statements.add(new FormulaCompiler().compileStatement(statement));
+        }
+        return new CompiledFormula(statements);
+    }
+
+    private CompiledFormula.Statement compileStatement(String statement) {
+        reset(statement);
+        try {
+            String variableName = nextToken();
+            if (stringVariableToken || variableName == null || variableName.length() == 1 && oneSymbolTokens.contains(variableName)) {
+                throw new CompilationException("Incorrect variable name");
+            }
+            String equal = nextToken();
+            if (equal == null || !equal.equals("=")) {
+                throw new CompilationException("'=' expected");
+            }
+            FormulaExpression expression = parsePriority0();
+            return new CompiledFormula.Statement(statement, variableName, expression, variableNames);
+        } catch (CompilationException e) {
+            log.debug("Statement '" + statement + "' will be interpreted: " + e.getMessage());
+            return new CompiledFormula.Statement(statement, null, null, null);
+        }
+    }
+
+    private FormulaExpression parsePriority0() {
+        FormulaExpression answer = parsePriority1();
+        while (true) {
+            String s = nextToken();
+            if (s == null) {
+                return answer;
+            }
+            if (s.equals(")") || s.equals(",")) {
+                nowPosition--;
+                return answer;
+            }
+            if (s.equals("&")) {
+                answer = new BinaryOperation(Operator.AND, answer, parsePriority1());
+                continue;
+            }
+            if (s.equals("|")) {
+                answer = new BinaryOperation(Operator.OR, answer, parsePriority1());
+                continue;
+            }
+            if (s.equals("^")) {
+                answer = new BinaryOperation(Operator.XOR, answer, parsePriority1());
+                continue;
+            }
+            throw new CompilationException("Operator expected, but '" + s + "' found at position " + nowPosition);
+        }
+    }
+
+    private FormulaExpression parsePriority1() {
+        FormulaExpression o1 = parsePriority2();
+        String s = nextToken();
+        if (s == null) {
+            return o1;
+        }
+        if (s.equals(")") || s.equals(",") || operations[0].contains(s)) {
+            nowPosition--;
+            return o1;
+        }
+        boolean followedByEqualSign = nowPosition < formula.length && formula[nowPosition] == '=';
+        if (s.equals("<")) {
+            if (followedByEqualSign) {
+                nowPosition++;
+                return new BinaryOperation(Operator.LESS_OR_EQUAL, o1, parsePriority2());
+            }
+            return new BinaryOperation(Operator.LESS, o1, parsePriority2());
+        }
+        if (s.equals(">")) {
+            if (followedByEqualSign) {
+                nowPosition++;
+                return new BinaryOperation(Operator.BIGGER_OR_EQUAL, o1, parsePriority2());
+            }
+            return new BinaryOperation(Operator.BIGGER, o1, parsePriority2());
+        }
+        if (s.equals("=") && followedByEqualSign) {
+            nowPosition++;
+            return new BinaryOperation(Operator.EQUAL, o1, parsePriority2());
+        }
+        if (s.equals("!") && followedByEqualSign) {
+            nowPosition++;
+            return new BinaryOperation(Operator.NOT_EQUAL, o1, parsePriority2());
+        }
+        throw new CompilationException("Operator expected, but '" + s + "' found at position " + nowPosition);
+    }
+
+    private FormulaExpression parsePriority2() {
+        FormulaExpression answer = parsePriority3();
+        while (true) {
+            String s = nextToken();
+            if (s == null) {
+                return answer;
+            }
+            if (s.equals(")") || s.equals(",") || operations[0].contains(s) || operations[1].contains(s)) {
+                nowPosition--;
+                return answer;
+            }
+            if (s.equals("+")) {
+                answer = new BinaryOperation(Operator.SUM, answer, parsePriority3());
+                continue;
+            }
+            if (s.equals("-")) {
+                answer = new BinaryOperation(Operator.SUB, answer, parsePriority3());
+                continue;
+            }
+            throw new CompilationException("Operator expected, but '" + s + "' found at position " + nowPosition);
+        }
+    }
+
+    private FormulaExpression parsePriority3() {
+        FormulaExpression answer = parseSimple();
+        while (true) {
+            String s = nextToken();
+            if (s == null) {
+                return answer;
+            }
+            if (s.equals(")") || s.equals(",") || operations[0].contains(s) || operations[1].contains(s) || operations[2].contains(s)) {
+                nowPosition--;
+                return answer;
+            }
+            if (s.equals("*")) {
+                answer = new BinaryOperation(Operator.MUL, answer, parseSimple());
+                continue;
+            }
+            if (s.equals("/")) {
+                answer = new BinaryOperation(Operator.DIV, answer, parseSimple());
+                continue;
+            }
+            throw new CompilationException("Operator expected, but '" + s + "' found at position " + nowPosition);
+        }
+    }
+
+    private FormulaExpression parseSimple() {
+        String s = nextToken();
+        if (s == null) {
+            throw new CompilationException("Incorrect token at position " + nowPosition);
+        }
+        if (s.equals("-")) {
+            return new UnaryOperation(false, parseSimple());
+        }
+        if (s.equals("!")) {
+            return new UnaryOperation(true, parseSimple());
+        }
+        if (s.equals("(")) {
+            FormulaExpression answer = parsePriority0();
+            nextToken = nextToken();
+            if (nextToken == null || !nextToken.equals(")")) {
+                throw new CompilationException("')' expected at position " + nowPosition);
+            }
+            nextToken = null;
+            return answer;
+        }
+        if (oneSymbolTokens.contains(s)) {
+            throw new CompilationException("Unexpected '" + s + "' at position " + nowPosition);
+        }
+        nextToken = nextToken();
+        if ("(".equals(nextToken)) {
+            return parseFunction(s);
+        }
+        Object value = parseNumericalValue(s);
+        if (value != null) {
+            return new Literal(value);
+        }
+        variableNames.add(s);
+        return new VariableValue(s);
+    }
+
+    private FormulaExpression parseFunction(String s) {
+        nextToken();
+        if (s.equals("get_instance_id") || s.equals("get_process_id")) {
+            expectToken(")", s);
+            return new BuiltInFunctionCall(BuiltInFunction.PROCESS_ID);
+        }
+        if (s.equals("current_date_time")) {
+            expectToken(")", s);
+            return new BuiltInFunctionCall(BuiltInFunction.CURRENT_DATE_TIME);
+        }
+        if (s.equals("current_date")) {
+            expectToken(")", s);
+            return new BuiltInFunctionCall(BuiltInFunction.CURRENT_DATE);
+        }
+        if (s.equals("current_time")) {
+            expectToken(")", s);
+            return new BuiltInFunctionCall(BuiltInFunction.CURRENT_TIME);
+        }
+        if (s.equals("random")) {
+            expectToken(")", s);
+            return new BuiltInFunctionCall(BuiltInFunction.RANDOM);
+        }
+        if (s.equals("date")) {
+            return new BuiltInFunctionCall(BuiltInFunction.DATE, parseParameters(s, 1));
+        }
+        if (s.equals("time")) {
+            return new BuiltInFunctionCall(BuiltInFunction.TIME, parseParameters(s, 1));
+        }
+        if (s.equals("hours_round_up")) {
+            return new BuiltInFunctionCall(BuiltInFunction.HOURS_ROUND_UP, parseParameters(s, 1));
+        }
+        if (s.equals("round_up")) {
+            return new BuiltInFunctionCall(BuiltInFunction.ROUND_UP, parseRoundParameters(s));
+        }
+        if (s.equals("round_down")) {
+            return new BuiltInFunctionCall(BuiltInFunction.ROUND_DOWN, parseRoundParameters(s));
+        }
+        if (s.equals("round")) {
+            return new BuiltInFunctionCall(BuiltInFunction.ROUND, parseRoundParameters(s));
+        }
+        if (s.equals("number_to_string_ru")) {
+            FormulaExpression param1 = parsePriority0();
+            String tok = nextToken();
+            if (")".equals(tok)) {
+                return new BuiltInFunctionCall(BuiltInFunction.NUMBER_TO_STRING_RU, param1);
+            }
+            if (!",".equals(tok)) {
+                throw incorrectParameters(s);
+            }
+            FormulaExpression[] parameters = parseParameters(s, 4);
+            return new BuiltInFunctionCall(BuiltInFunction.NUMBER_TO_STRING_RU, param1, parameters[0], parameters[1], parameters[2], parameters[3]);
+        }
+        if (s.equals("FIO_case_ru")) {
+            return new BuiltInFunctionCall(BuiltInFunction.FIO_CASE_RU, parseParameters(s, 3));
+        }
+        if (s.equals("number_to_short_string_ru")) {
+            return new BuiltInFunctionCall(BuiltInFunction.NUMBER_TO_SHORT_STRING_RU, parseParameters(s, 5));
+        }
+        if (s.equals("isExecutorInGroup")) {
+            return new BuiltInFunctionCall(BuiltInFunction.IS_EXECUTOR_IN_GROUP, parseParameters(s, 2));
+        }
+        Function<? extends Object> function = FormulaActionHandlerOperations.getFunction(s);
+        if (function != null) {
+            List<FormulaExpression> parameters = Lists.newArrayList();
+            String token;
+            do {
+                parameters.add(parsePriority0());
+                token = nextToken();
+                if (token == null) {
+                    throw incorrectParameters(s);
+                }
+            } while (!token.equals(")"));
+            return new FunctionCall(function, parameters.toArray(new FormulaExpression[parameters.size()]));
+        }
+        throw new CompilationException("Unknown function " + s);
+    }
+
+    /**
+     * Parses given count of comma separated parameters and closing bracket.
+     */
+    private FormulaExpression[] parseParameters(String function, int count) {
+        FormulaExpression[] parameters = new FormulaExpression[count];
+        for (int i = 0; i < count; i++) {
+            parameters[i] = parsePriority0();
+            expectToken(i == count - 1 ? ")" : ",", function);
+        }
+        return parameters;
+    }
+
+    private FormulaExpression[] parseRoundParameters(String function) {
+        FormulaExpression param1 = parsePriority0();
+        String tok = nextToken();
+        if (")".equals(tok)) {
+            return new FormulaExpression[] { param1 };
+        }
+        if (!",".equals(tok)) {
+            throw incorrectParameters(function);
+        }
+        FormulaExpression param2 = parsePriority0();
+        expectToken(")", function);
+        return new FormulaExpression[] { param1, param2 };
+    }
+
+    private void expectToken(String expected, String function) {
+        if (!expected.equals(nextToken())) {
+            throw incorrectParameters(function);
+        }
+    }
+
+    private CompilationException incorrectParameters(String function) {
+        return new CompilationException("Incorrect parameters for " + function + " function at position " + nowPosition);
+    }
+
+    private Object parseNumericalValue(String s) {
+        if (s.equals(":")) {
+            return nextToken();
+        }
+        try {
+            return new Long(Long.parseLong(s));
+        } catch (NumberFormatException e) {
+        }
+        try {
+            return new Double(Double.parseDouble(s));
+        } catch (NumberFormatException e) {
+        }
+        if (s.equalsIgnoreCase("true")) {
+            return Boolean.TRUE;
+        }
+        if (s.equalsIgnoreCase("false")) {
+            return Boolean.FALSE;
+        }
+        DateFormat[] dateFormats = { CalendarUtil.DATE_WITH_HOUR_MINUTES_SECONDS_FORMAT, CalendarUtil.DATE_WITH_HOUR_MINUTES_FORMAT,
+                CalendarUtil.DATE_WITHOUT_TIME_FORMAT, CalendarUtil.HOURS_MINUTES_SECONDS_FORMAT, CalendarUtil.HOURS_MINUTES_FORMAT };
+        for (DateFormat dateFormat : dateFormats) {
+            try {
+                return CalendarUtil.convertToDate(s, dateFormat);
+            } catch (Exception e) {
+            }
+        }
+        return null;
+    }
+
+    private static class CompilationException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public CompilationException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.extension.handler.var;
+
+import java.util.Date;
+import java.util.Map;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.TypeConversionUtil;
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.extension.function.Function;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.Group;
+
+/**
+ * Immutable node of compiled formula expression tree. Nodes evaluate operands in the same order as {@link FormulaInterpreter} does. Variable
+ * values are resolved before evaluation, statements referencing undefined or null variables are not evaluated at all. Interpreter stops
+ * evaluation on any null operand, so null result of operation is reported by {@link FallbackException} and statement is handed to
+ * interpreter.
+ */
+abstract class FormulaExpression {
+    protected static final FormulaActionHandlerOperations actions = new FormulaActionHandlerOperations();
+
+    public abstract Object evaluate(ExecutionContext context, Map<String, Object> variables);
+
+    public static Object evaluateNotNull(FormulaExpression expression, ExecutionContext context, Map<String, Object> variables) {
+        Object value = expression.evaluate(context, variables);
+        if (value == null) {
+            throw FallbackException.INSTANCE;
+        }
+        return value;
+    }
+
+    static class FallbackException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private static final FallbackException INSTANCE = new FallbackException();
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    static class Literal extends FormulaExpression {
+        private final Object value;
+
+        public Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object evaluate(ExecutionContext context, Map<String, Object> variables) {
+            if (value instanceof Date) {
+                return new Date(((Date) value).getTime());
+            }
+            return value;
+        }
+    }
+
+    static class VariableValue extends FormulaExpression {
+        private final String variableName;
+
+        public VariableValue(String variableName) {
+            this.variableName = variableName;
+        }
+
+        @Override
+        public Object evaluate(ExecutionContext context, Map<String, Object> variables) {
+            return variables.get(variableName);
+        }
+    }
+
+    static class UnaryOperation extends FormulaExpression {
+        private final boolean not;
+        private final FormulaExpression operand;
+
+        public UnaryOperation(boolean not, FormulaExpression operand) {
+            this.not = not;
+            this.operand = operand;
+        }
+
+        @Override
+        public Object evaluate(ExecutionContext context, Map<String, Object> variables) {
+            Object value = evaluateNotNull(operand, context, variables);
+            return not ? actions.not(value) : actions.changeSign(value);
+        }
+    }
+
+    static class BinaryOperation extends FormulaExpression {
+        private final Operator operator;
+        private final FormulaExpression left;
+        private final FormulaExpression right;
+
+        public BinaryOperation(Operator operator, FormulaExpression left, FormulaExpression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object evaluate(ExecutionContext context, Map<String, Object> variables) {
+            Object o1 = evaluateNotNull(left, context, variables);
+            Object o2 = evaluateNotNull(right, context, variables);
+            return operator.apply(o1, o2);
+        }
+    }
+
+    static enum Operator {
+        AND {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.and(o1, o2);
+            }
+        },
+        OR {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.or(o1, o2);
+            }
+        },
+        XOR {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.xor(o1, o2);
+            }
+        },
+        LESS {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.less(o1, o2);
+            }
+        },
+        LESS_OR_EQUAL {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.lessOrEqual(o1, o2);
+            }
+        },
+        BIGGER {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.bigger(o1, o2);
+            }
+        },
+        BIGGER_OR_EQUAL {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.biggerOrEqual(o1, o2);
+            }
+        },
+        EQUAL {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.equal(o1, o2);
+            }
+        },
+        NOT_EQUAL {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.not(actions.equal(o1, o2));
+            }
+        },
+        SUM {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.sum(o1, o2);
+            }
+        },
+        SUB {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.sub(o1, o2);
+            }
+        },
+        MUL {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.mul(o1, o2);
+            }
+        },
+        DIV {
+            @Override
+            Object apply(Object o1, Object o2) {
+                return actions.div(o1, o2);
+            }
+        };
+
+        abstract Object apply(Object o1, Object o2);
+    }
+
+    /**
+     * Built-in function call. Parameters are evaluated lazily by function because interpreter checks some parameters before parsing next ones.
+     */
+    static class BuiltInFunctionCall extends FormulaExpression {
+        private final BuiltInFunction function;
+        private final FormulaExpression[] parameters;
+
+        public BuiltInFunctionCall(BuiltInFunction function, FormulaExpression... parameters) {
+            this.function = function;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object evaluate(ExecutionContext context, Map<String, Object> variables) {
+            return function.evaluate(context, variables, parameters);
+        }
+    }
+
+    static class FunctionCall extends FormulaExpression {
+        private final Function<? extends Object> function;
+        private final FormulaExpression[] parameters;
+
+        public FunctionCall(Function<? extends Object> function, FormulaExpression[] parameters) {
+            this.function = function;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object evaluate(ExecutionContext context, Map<String, Object> variables) {
+            Object[] values = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                values[i] = evaluateNotNull(parameters[i], context, variables);
+            }
+            return function.execute(values);
+        }
+    }
+
+    static enum BuiltInFunction {
+        PROCESS_ID {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return context.getProcess().getId();
+            }
+        },
+        CURRENT_DATE_TIME {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return new Date();
+            }
+        },
+        CURRENT_DATE {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return actions.dateFunction(new Date());
+            }
+        },
+        CURRENT_TIME {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return actions.timeFunction(new Date());
+            }
+        },
+        RANDOM {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return Math.random();
+            }
+        },
+        DATE {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return actions.dateFunction(evaluateNotNull(parameters[0], context, variables));
+            }
+        },
+        TIME {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return actions.timeFunction(evaluateNotNull(parameters[0], context, variables));
+            }
+        },
+        HOURS_ROUND_UP {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                return actions.hoursRoundUpFunction(evaluateNotNull(parameters[0], context, variables));
+            }
+        },
+        ROUND_UP {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Double d = getDouble(context, variables, parameters);
+                int num = getDigits(context, variables, parameters);
+                if (num <= 0) {
+                    return actions.roundUpFunction(d);
+                }
+                return actions.roundUpFunction(d, num);
+            }
+        },
+        ROUND_DOWN {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Double d = getDouble(context, variables, parameters);
+                int num = getDigits(context, variables, parameters);
+                if (num <= 0) {
+                    return actions.roundDownFunction(d);
+                }
+                return actions.roundDownFunction(d, num);
+            }
+        },
+        ROUND {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Double d = getDouble(context, variables, parameters);
+                int num = getDigits(context, variables, parameters);
+                if (num <= 0) {
+                    return actions.roundFunction(d);
+                }
+                return actions.roundFunction(d, num);
+            }
+        },
+        NUMBER_TO_STRING_RU {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Object[] values = evaluateAll(context, variables, parameters);
+                Long number = (Long) notNull(actions.translate(values[0], Long.class));
+                if (values.length == 1) {
+                    return NumberToStringRu.numberToString(number);
+                }
+                return NumberToStringRu.numberToString(number, getWord(values));
+            }
+        },
+        NUMBER_TO_SHORT_STRING_RU {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Object[] values = evaluateAll(context, variables, parameters);
+                Long number = (Long) notNull(actions.translate(values[0], Long.class));
+                return NumberToStringRu.numberToShortString(number, getWord(values));
+            }
+        },
+        FIO_CASE_RU {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Object[] values = evaluateAll(context, variables, parameters);
+                String fio = values[0].toString();
+                Integer caseNumber = (Integer) actions.translate(values[1], Integer.class);
+                if (caseNumber == null || caseNumber < 1 || caseNumber > 6) {
+                    throw FallbackException.INSTANCE;
+                }
+                String mode = values[2].toString();
+                return actions.nameCaseRussian(fio, caseNumber, mode);
+            }
+        },
+        IS_EXECUTOR_IN_GROUP {
+            @Override
+            Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+                Group group;
+                try {
+                    group = TypeConversionUtil.convertTo(Group.class, evaluateNotNull(parameters[0], context, variables));
+                } catch (FallbackException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw FallbackException.INSTANCE;
+                }
+                Executor executor;
+                try {
+                    executor = TypeConversionUtil.convertTo(Executor.class, evaluateNotNull(parameters[1], context, variables));
+                } catch (FallbackException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw FallbackException.INSTANCE;
+                }
+                return ApplicationContextFactory.getExecutorDAO().isExecutorInGroup(executor, group);
+            }
+        };
+
+        abstract Object evaluate(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters);
+
+        private static Double getDouble(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+            return (Double) notNull(actions.translate(evaluateNotNull(parameters[0], context, variables), Double.class));
+        }
+
+        private static int getDigits(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+            if (parameters.length == 1) {
+                return 0;
+            }
+            return (Integer) notNull(actions.translate(evaluateNotNull(parameters[1], context, variables), Integer.class));
+        }
+
+        private static Object[] evaluateAll(ExecutionContext context, Map<String, Object> variables, FormulaExpression[] parameters) {
+            Object[] values = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                values[i] = evaluateNotNull(parameters[i], context, variables);
+            }
+            return values;
+        }
+
+        private static NumberToStringRu.Word getWord(Object[] values) {
+            int p = -1;
+            if (values[1].toString().equals("M")) {
+                p = 0;
+            }
+            if (values[1].toString().equals("F")) {
+                p = 1;
+            }
+            if (p == -1) {
+                throw FallbackException.INSTANCE;
+            }
+            return new NumberToStringRu.Word(p, new String[] { values[2].toString(), values[3].toString(), values[4].toString() });
+        }
+
+        private static Object notNull(Object value) {
+            if (value == null) {
+                throw FallbackException.INSTANCE;
+            }
+            return value;
+        }
+    }
+}
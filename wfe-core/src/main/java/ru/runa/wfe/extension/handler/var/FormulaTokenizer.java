@@ -0,0 +1,160 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.extension.handler.var;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tokenizer of {@link FormulaActionHandler} configuration, shared by {@link FormulaInterpreter} and {@link FormulaCompiler}.
+ */
+class FormulaTokenizer {
+    protected char[] formula = null;
+    protected int nowPosition = 0;
+    protected final String oneSymbolTokens = "=()+-*/!<>&|^'\",\n;";
+    protected final String[] operations = { "&|^", // priority 0
+            "<!=>", // priority 1
+            "+-", // priority 2
+            "*/" // priority 3
+    };
+    protected boolean stringVariableToken = false;
+    protected boolean quo = false;
+    protected String nextToken = null;
+
+    protected void reset(String statement) {
+        formula = statement.toCharArray();
+        nowPosition = 0;
+        stringVariableToken = false;
+        quo = false;
+        nextToken = null;
+    }
+
+    protected String nextStringToken(char limitingSymbol) {
+        if (formula[nowPosition] != limitingSymbol) {
+            return null;
+        }
+        nowPosition++;
+        String answer = "";
+        boolean escapeCharacter = false;
+        while (nowPosition < formula.length) {
+            if (escapeCharacter) {
+                escapeCharacter = false;
+                answer += formula[nowPosition];
+            } else {
+                if (formula[nowPosition] == '\\') {
+                    escapeCharacter = true;
+                } else {
+                    if (formula[nowPosition] == limitingSymbol) {
+                        break;
+                    } else {
+                        answer += formula[nowPosition];
+                    }
+                }
+            }
+            nowPosition++;
+        }
+        if (nowPosition == formula.length) {
+            return null;
+        }
+        nowPosition++;
+        return answer;
+    }
+
+    protected String nextToken() {
+        quo = false;
+        if (nextToken != null) {
+            String ans = nextToken;
+            nextToken = null;
+            return ans;
+        }
+        if (stringVariableToken) {
+            stringVariableToken = false;
+            return nextStringToken('"');
+        }
+        while (nowPosition < formula.length && formula[nowPosition] == ' ') {
+            nowPosition++;
+        }
+        if (nowPosition == formula.length) {
+            return null;
+        }
+        if (formula[nowPosition] == '"') {
+            stringVariableToken = true;
+            return ":";
+        }
+        if (formula[nowPosition] == '\'') {
+            quo = true;
+            return nextStringToken('\'');
+        }
+        if (oneSymbolTokens.contains("" + formula[nowPosition])) {
+            nowPosition++;
+            return "" + formula[nowPosition - 1];
+        }
+        String answer = "";
+        while (nowPosition < formula.length && formula[nowPosition] != ' ') {
+            if (oneSymbolTokens.contains("" + formula[nowPosition])) {
+                break;
+            }
+            answer += formula[nowPosition++];
+        }
+        return answer;
+    }
+
+
+    /**
+     * Splits configuration to statements, delimited by ';' or new line. Each statement is normalized: tokens with special symbols are quoted.
+     */
+    static List<String> splitStatements(String configuration) {
+        FormulaTokenizer tokenizer = new FormulaTokenizer();
+        tokenizer.reset(configuration);
+        return tokenizer.splitStatements();
+    }
+
+    private List<String> splitStatements() {
+        List<String> statements = Lists.newArrayList();
+        String nf = "";
+        String s;
+        while ((s = nextToken()) != null) {
+            if (!quo && (s.equals(";") || s.equals("\n"))) {
+                if (nf.length() > 0) {
+                    statements.add(nf);
+                    nf = "";
+                }
+            } else {
+                if (stringVariableToken) {
+                    nf += '"' + nextToken().replaceAll("\"", "\\\\\"") + '"';
+                } else {
+                    s = s.replaceAll("'", "\\\\'");
+                    boolean contains = false;
+                    for (char c : (oneSymbolTokens + " ").toCharArray()) {
+                        contains |= s.contains("" + c);
+                    }
+                    if (s.length() > 1 && contains || quo) {
+                        nf += '\'' + s + '\'';
+                    } else {
+                        nf += s;
+                    }
+                }
+            }
+        }
+        if (nf.length() > 0) {
+            statements.add(nf);
+        }
+        return statements;
+    }
+}
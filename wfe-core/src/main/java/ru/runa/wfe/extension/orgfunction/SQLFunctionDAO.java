@@ -22,26 +22,52 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
+import javax.transaction.Transaction;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SQLCommons;
+import ru.runa.wfe.commons.TypeConversionUtil;
+import ru.runa.wfe.commons.cache.CacheStatistic;
+import ru.runa.wfe.commons.cache.Change;
+import ru.runa.wfe.commons.cache.ChangedObjectParameter;
+import ru.runa.wfe.commons.cache.StatisticCounter;
+import ru.runa.wfe.commons.cache.sm.CachingLogic;
+import ru.runa.wfe.commons.cache.sm.ChangeListener;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorGroupMembership;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 
 /**
  * Created on 10.05.2005
  * 
+ * Query results are cached for short time (see sql.orgfunction.properties) and dropped on executor changes. Cache usage is reported per function
+ * in {@link CacheStatistic}.
  */
 public class SQLFunctionDAO {
-    private static List<Long> directorsCodesList;
+    private static final String RECURSIVE_KEY = "recursive";
+    private static final Cache<List<Object>, List<Long>> results = CacheBuilder.newBuilder()
+            .expireAfterWrite(SQLFunctionResources.getCacheTimeToLiveSeconds(), TimeUnit.SECONDS).maximumSize(SQLFunctionResources.getCacheMaxSize())
+            .build();
+    private static volatile Hierarchy hierarchy;
+    static {
+        CachingLogic.registerChangeListener(new ExecutorChangeInvalidator());
+    }
 
     /**
      * Returns codes of actors selected by sql query. e.g. chief query - select
@@ -55,20 +81,32 @@ public class SQLFunctionDAO {
      * @return codes of actors
      */
     public static List<Long> getActorCodes(String sql, Object[] parameters) {
+        return getActorCodes(SQLFunction.class.getSimpleName(), sql, parameters);
+    }
+
+    /**
+     * @param function
+     *            function name for usage statistic
+     * @see #getActorCodes(String, Object[])
+     */
+    public static List<Long> getActorCodes(String function, String sql, Object[] parameters) {
         Preconditions.checkNotNull(parameters);
-        Connection con = null;
-        PreparedStatement ps = null;
-        try {
-            con = getConnection();
-            ps = con.prepareStatement(sql);
-            setParameters(ps, parameters);
-            ResultSet rs = ps.executeQuery();
-            return getCodesFromResultSet(rs);
-        } catch (SQLException e) {
-            throw Throwables.propagate(e);
-        } finally {
-            SQLCommons.releaseResources(con, ps);
+        List<Object> key = createKey(sql, parameters);
+        List<Long> codes = getCounter(function).registerCacheGet(results.getIfPresent(key));
+        if (codes == null) {
+            Connection con = null;
+            PreparedStatement ps = null;
+            try {
+                con = getConnection();
+                ps = con.prepareStatement(sql);
+                codes = executeQuery(ps, key, parameters);
+            } catch (SQLException e) {
+                throw Throwables.propagate(e);
+            } finally {
+                SQLCommons.releaseResources(con, ps);
+            }
         }
+        return Lists.newArrayList(codes);
     }
 
     /**
@@ -84,27 +122,53 @@ public class SQLFunctionDAO {
      * @return codes of actors
      */
     public static List<Long> getActorCodesRecurisve(String sql, Object[] parameters) {
+        return getActorCodesRecurisve(SQLFunction.class.getSimpleName(), sql, parameters);
+    }
+
+    /**
+     * If 'hierarchy.sql' is configured and sql is chief or subordinate query from settings hierarchy snapshot is traversed in memory, otherwise
+     * each level is queried (using cached results for already known nodes).
+     * 
+     * @param function
+     *            function name for usage statistic
+     * @see #getActorCodesRecurisve(String, Object[])
+     */
+    public static List<Long> getActorCodesRecurisve(String function, String sql, Object[] parameters) {
         Preconditions.checkNotNull(parameters);
-        Connection con = null;
-        PreparedStatement ps = null;
-        try {
-            con = getConnection();
-            ps = con.prepareStatement(sql);
+        List<Object> key = createKey(sql, parameters);
+        key.add(0, RECURSIVE_KEY);
+        List<Long> codes = getCounter(function).registerCacheGet(results.getIfPresent(key));
+        if (codes == null) {
+            parameters = parameters.clone();
+            ListMultimap<Long, Long> relations = parameters.length == 1 ? getHierarchyRelations(sql) : null;
             List<Long> codeSet = Lists.newArrayList();
-            getCodesRecursive(ps, codeSet, parameters);
-            return codeSet;
-        } catch (SQLException e) {
-            throw Throwables.propagate(e);
-        } finally {
-            SQLCommons.releaseResources(con, ps);
+            if (relations != null) {
+                getCodesRecursive(relations, codeSet, TypeConversionUtil.convertTo(Long.class, parameters[0]));
+            } else {
+                Connection con = null;
+                PreparedStatement ps = null;
+                try {
+                    con = getConnection();
+                    ps = con.prepareStatement(sql);
+                    getCodesRecursive(ps, sql, codeSet, parameters);
+                } catch (SQLException e) {
+                    throw Throwables.propagate(e);
+                } finally {
+                    SQLCommons.releaseResources(con, ps);
+                }
+            }
+            codes = ImmutableList.copyOf(codeSet);
+            results.put(key, codes);
         }
+        return Lists.newArrayList(codes);
     }
 
-    private static void getCodesRecursive(PreparedStatement ps, List<Long> codeSet, Object[] parameters) throws SQLException {
-        setParameters(ps, parameters);
-        ResultSet rs = ps.executeQuery();
-        List<Long> codeList = getCodesFromResultSet(rs);
-        rs.close();
+    private static void getCodesRecursive(PreparedStatement ps, String sql, List<Long> codeSet, Object[] parameters) throws SQLException {
+        List<Object> key = createKey(sql, parameters);
+        List<Long> codeList = results.getIfPresent(key);
+        if (codeList == null) {
+            codeList = executeQuery(ps, key, parameters);
+        }
         for (int i = 0; i < codeList.size(); i++) {
             Long code = codeList.get(i);
             if (!codeSet.contains(code)) {
@@ -113,47 +177,62 @@ public class SQLFunctionDAO {
                     throw new InternalApplicationException("Code hierarchy contains cycle");
                 }
                 parameters[0] = code;
-                getCodesRecursive(ps, codeSet, parameters);
+                getCodesRecursive(ps, sql, codeSet, parameters);
             }
         }
     }
 
-    private static void initializeDirectorCodesList(String sql) {
-        Connection con = null;
-        PreparedStatement ps = null;
-        try {
-            con = getConnection();
-            ps = con.prepareStatement(sql);
-            ResultSet rs = ps.executeQuery();
-            directorsCodesList = getCodesFromResultSet(rs);
-        } catch (SQLException e) {
-            throw Throwables.propagate(e);
-        } finally {
-            SQLCommons.releaseResources(con, ps);
+    private static void getCodesRecursive(ListMultimap<Long, Long> relations, List<Long> codeSet, Long code) {
+        for (Long related : relations.get(code)) {
+            if (!codeSet.contains(related)) {
+                codeSet.add(related);
+                getCodesRecursive(relations, codeSet, related);
+            }
         }
     }
 
+    private static List<Long> getDirectorCodes(String sql) {
+        List<Object> key = createKey(sql, new Object[0]);
+        List<Long> codes = results.getIfPresent(key);
+        if (codes == null) {
+            Connection con = null;
+            PreparedStatement ps = null;
+            try {
+                con = getConnection();
+                ps = con.prepareStatement(sql);
+                codes = executeQuery(ps, key, new Object[0]);
+            } catch (SQLException e) {
+                throw Throwables.propagate(e);
+            } finally {
+                SQLCommons.releaseResources(con, ps);
+            }
+        }
+        return codes;
+    }
+
     public static List<Long> getDirectorCode(String sql, String chiefSQL, Long code) {
-        List<Long> result = Lists.newArrayList();
-        if (directorsCodesList == null) {
-            initializeDirectorCodesList(sql);
+        StatisticCounter counter = getCounter(SQLDirectorFunction.class.getSimpleName());
+        List<Object> key = Lists.<Object> newArrayList(sql, chiefSQL, code);
+        List<Long> result = counter.registerCacheGet(results.getIfPresent(key));
+        if (result != null) {
+            return Lists.newArrayList(result);
         }
+        result = Lists.newArrayList();
+        List<Long> directorsCodesList = getDirectorCodes(sql);
         if (directorsCodesList.contains(code)) {
             result.add(code);
+            results.put(key, ImmutableList.copyOf(result));
             return result;
         }
 
         ArrayList<Long> codes = new ArrayList<Long>();
         codes.add(code);
-        if (directorsCodesList.contains((codes.get(0)).longValue())) {
-            result.add(codes.get(0));
-            return result;
-        }
         while (codes.size() > 0) {
-            List<Long> chiefsCodes = getActorCodes(SQLFunctionResources.getChiefCodeBySubordinateCodeSQL(), new Long[] { codes.get(0) });
+            List<Long> chiefsCodes = getActorCodes(SQLDirectorFunction.class.getSimpleName(), chiefSQL, new Long[] { codes.get(0) });
             for (Long chiefCode : chiefsCodes) {
                 if (directorsCodesList.contains(chiefCode)) {
                     result.add(chiefCode);
+                    results.put(key, ImmutableList.copyOf(result));
                     return result;
                 }
                 codes.add(chiefCode);
@@ -163,6 +242,79 @@ public class SQLFunctionDAO {
         throw new InternalApplicationException("Code hierarchy contains no director for actor with code = " + code);
     }
 
+    /**
+     * Drops cached query results and hierarchy snapshot.
+     */
+    public static void resetCache() {
+        results.invalidateAll();
+        hierarchy = null;
+    }
+
+    private static List<Long> executeQuery(PreparedStatement ps, List<Object> key, Object[] parameters) throws SQLException {
+        setParameters(ps, parameters);
+        ResultSet rs = ps.executeQuery();
+        try {
+            List<Long> codes = ImmutableList.copyOf(getCodesFromResultSet(rs));
+            results.put(key, codes);
+            return codes;
+        } finally {
+            rs.close();
+        }
+    }
+
+    private static List<Object> createKey(String sql, Object[] parameters) {
+        List<Object> key = Lists.newArrayListWithExpectedSize(parameters.length + 2);
+        key.add(sql);
+        key.addAll(Arrays.asList(parameters));
+        return key;
+    }
+
+    private static StatisticCounter getCounter(String function) {
+        return CacheStatistic.registerCacheCounter("orgfunction." + function);
+    }
+
+    private static ListMultimap<Long, Long> getHierarchyRelations(String sql) {
+        String hierarchySQL = SQLFunctionResources.getHierarchySQL();
+        if (hierarchySQL == null) {
+            return null;
+        }
+        boolean subordinates = sql.equals(SQLFunctionResources.getSubordinateCodesByChiefCodeSQL());
+        if (!subordinates && !sql.equals(SQLFunctionResources.getChiefCodeBySubordinateCodeSQL())) {
+            return null;
+        }
+        Hierarchy current = hierarchy;
+        if (current == null || current.isExpired()) {
+            current = loadHierarchy(hierarchySQL);
+            hierarchy = current;
+        }
+        return subordinates ? current.subordinatesByChief : current.chiefsBySubordinate;
+    }
+
+    private static Hierarchy loadHierarchy(String hierarchySQL) {
+        Connection con = null;
+        PreparedStatement ps = null;
+        try {
+            con = getConnection();
+            ps = con.prepareStatement(hierarchySQL);
+            ResultSet rs = ps.executeQuery();
+            Hierarchy result = new Hierarchy();
+            while (rs.next()) {
+                long subordinateCode = rs.getLong(1);
+                long chiefCode = rs.getLong(2);
+                if (!rs.wasNull()) {
+                    result.chiefsBySubordinate.put(subordinateCode, chiefCode);
+                    result.subordinatesByChief.put(chiefCode, subordinateCode);
+                }
+            }
+            rs.close();
+            return result;
+        } catch (SQLException e) {
+            throw Throwables.propagate(e);
+        } finally {
+            SQLCommons.releaseResources(con, ps);
+        }
+    }
+
     private static List<Long> getCodesFromResultSet(ResultSet rs) throws SQLException {
         List<Long> codeList = Lists.newArrayList();
         while (rs.next()) {
@@ -202,4 +354,47 @@ public class SQLFunctionDAO {
         }
     }
 
+    /**
+     * Organization hierarchy snapshot.
+     */
+    private static class Hierarchy {
+        private final ListMultimap<Long, Long> chiefsBySubordinate = ArrayListMultimap.create();
+        private final ListMultimap<Long, Long> subordinatesByChief = ArrayListMultimap.create();
+        private final long loadTime = System.currentTimeMillis();
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() - loadTime > SQLFunctionResources.getCacheTimeToLiveSeconds() * 1000L;
+        }
+    }
+
+    /**
+     * Codes are assigned to actors, so any executor change may affect function results.
+     */
+    private static class ExecutorChangeInvalidator implements ChangeListener {
+
+        @Override
+        public void onChange(Transaction transaction, ChangedObjectParameter changedObject) {
+            resetCache();
+        }
+
+        @Override
+        public void beforeTransactionComplete(Transaction transaction) {
+        }
+
+        @Override
+        public void onTransactionCompleted(Transaction transaction) {
+            // results cached during transaction may be based on uncommitted data
+            resetCache();
+        }
+
+        @Override
+        public void uninitialize(Object object, Change change) {
+            resetCache();
+        }
+
+        @Override
+        public List<Class<?>> getListenObjectTypes() {
+            return Lists.<Class<?>> newArrayList(Executor.class, ExecutorGroupMembership.class);
+        }
+    }
 }
@@ -44,4 +44,19 @@ public class SQLFunctionResources {
         return RESOURCES.getStringPropertyNotNull("subordinate.codes.by.chief.code.sql");
     }
 
+    /**
+     * @return query returning (subordinate code, chief code) pairs for in-memory hierarchy or <code>null</code>
+     */
+    public static String getHierarchySQL() {
+        return RESOURCES.getStringProperty("hierarchy.sql");
+    }
+
+    public static int getCacheTimeToLiveSeconds() {
+        return RESOURCES.getIntegerProperty("cache.ttl.seconds", 60);
+    }
+
+    public static int getCacheMaxSize() {
+        return RESOURCES.getIntegerProperty("cache.max.size", 10000);
+    }
+
 }
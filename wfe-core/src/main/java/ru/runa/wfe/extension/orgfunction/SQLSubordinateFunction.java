@@ -29,6 +29,7 @@ public class SQLSubordinateFunction extends ActorOrgFunctionBase {
 
     @Override
     protected List<Long> getActorCodes(Long code) {
-        return SQLFunctionDAO.getActorCodes(SQLFunctionResources.getSubordinateCodesByChiefCodeSQL(), new Long[] { code });
+        return SQLFunctionDAO.getActorCodes(getClass().getSimpleName(), SQLFunctionResources.getSubordinateCodesByChiefCodeSQL(),
+                new Long[] { code });
     }
 }
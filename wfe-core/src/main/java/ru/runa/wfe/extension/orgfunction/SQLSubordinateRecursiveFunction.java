@@ -29,7 +29,8 @@ public class SQLSubordinateRecursiveFunction extends ActorOrgFunctionBase {
 
     @Override
     protected List<Long> getActorCodes(Long code) {
-        return SQLFunctionDAO.getActorCodesRecurisve(SQLFunctionResources.getSubordinateCodesByChiefCodeSQL(), new Long[] { code });
+        return SQLFunctionDAO.getActorCodesRecurisve(getClass().getSimpleName(), SQLFunctionResources.getSubordinateCodesByChiefCodeSQL(),
+                new Long[] { code });
     }
 
 }
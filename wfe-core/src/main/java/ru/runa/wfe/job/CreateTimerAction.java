@@ -46,6 +46,7 @@ public class CreateTimerAction extends Action {
         Timer timer = new Timer(executionContext.getToken());
         timer.setName(getName());
         timer.setDueDateExpression(dueDate);
+        timer.setDueDateVariableName(ExpressionEvaluator.getDueDateVariableName(dueDate));
         timer.setDueDate(ExpressionEvaluator.evaluateDueDate(executionContext.getVariableProvider(), dueDate));
         timer.setRepeatDurationString(repeatDurationString);
         timer.setOutTransitionName(transitionName);
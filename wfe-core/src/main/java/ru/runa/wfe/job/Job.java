@@ -33,6 +33,8 @@ import com.google.common.base.Objects;
 
 @Entity
 @Table(name = "BPM_JOB")
+@org.hibernate.annotations.Table(appliesTo = "BPM_JOB", indexes = @Index(name = "IX_JOB_DUE_DATE_VARIABLE",
+        columnNames = { "PROCESS_ID", "DUE_DATE_VARIABLE" }))
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "DISCRIMINATOR", discriminatorType = DiscriminatorType.CHAR)
 @DiscriminatorValue(value = "J")
@@ -42,6 +44,7 @@ public abstract class Job {
     private Long version;
     private String name;
     private String dueDateExpression;
+    private String dueDateVariableName;
     private Date dueDate;
     private Process process;
     private Token token;
@@ -96,6 +99,18 @@ public abstract class Job {
         this.dueDateExpression = dueDateExpression;
     }
 
+    /**
+     * @return name of base date variable from due date expression, used for due date recalculation on variable change
+     */
+    @Column(name = "DUE_DATE_VARIABLE", length = 1024)
+    public String getDueDateVariableName() {
+        return dueDateVariableName;
+    }
+
+    public void setDueDateVariableName(String dueDateVariableName) {
+        this.dueDateVariableName = dueDateVariableName;
+    }
+
     @Column(name = "DUE_DATE")
     public Date getDueDate() {
         return dueDate;
@@ -90,6 +90,7 @@ public class Timer extends Job {
                     // clear expression for ignorance from
                     // ExecutionContext.updateRelatedObjectsDueToDateVariableChange
                     setDueDateExpression(null);
+                    setDueDateVariableName(null);
                     setDueDate(businessCalendar.apply(getDueDate(), repeatDurationString));
                     log.info("Restarting " + this + " for repeat execution at " + CalendarUtil.formatDateTime(getDueDate()));
                 }
@@ -1,5 +1,6 @@
 package ru.runa.wfe.job.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -27,8 +28,12 @@ public class JobDAO extends GenericDAO<Job> {
         return getHibernateTemplate().find("from Job where process=? order by dueDate", process);
     }
 
-    public List<Job> findByProcessAndDeadlineExpressionContaining(Process process, String expression) {
-        return getHibernateTemplate().find("from Job where process=? and dueDateExpression like ?", process, "%" + expression + "%");
+    /**
+     * @return jobs which due date expression is based on one of given date variables
+     */
+    public List<Job> findByProcessAndDueDateVariableNames(Process process, Collection<String> variableNames) {
+        return getHibernateTemplate().findByNamedParam("from Job where process=:process and dueDateVariableName in (:variableNames)",
+                new String[] { "process", "variableNames" }, new Object[] { process, variableNames });
     }
 
     public void deleteTimersByName(String name, Token token) {
@@ -43,4 +48,9 @@ public class JobDAO extends GenericDAO<Job> {
         getHibernateTemplate().bulkUpdate("delete from Job where process=?", process);
     }
 
+    public void deleteAll(List<Long> processIds) {
+        log.debug("deleting jobs for " + processIds.size() + " processes");
+        bulkUpdateByIds("delete from Job where process.id in (:ids)", processIds);
+    }
+
 }
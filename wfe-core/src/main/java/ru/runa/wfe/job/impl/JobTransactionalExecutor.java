@@ -6,6 +6,7 @@ import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.TransactionalExecutor;
 import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
 import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.job.Job;
 import ru.runa.wfe.job.dao.JobDAO;
 import ru.runa.wfe.lang.ProcessDefinition;
@@ -25,8 +26,10 @@ public class JobTransactionalExecutor extends TransactionalExecutor {
     @Override
     protected void doExecuteInTransaction() {
         Job job = null;
+        ExecutionTracer.startTrace("job");
         try {
             job = jobDAO.getNotNull(jobId);
+            ExecutionTracer.setProcessId(job.getProcess().getId());
             log.debug("executing " + job);
             ProcessDefinition processDefinition = processDefinitionLoader.getDefinition(job.getProcess().getDeployment().getId());
             ExecutionContext executionContext = new ExecutionContext(processDefinition, job.getToken());
@@ -34,6 +37,8 @@ public class JobTransactionalExecutor extends TransactionalExecutor {
         } catch (Exception e) {
             // for rollback
             throw new InternalApplicationException("Error execute job " + job, e);
+        } finally {
+            ExecutionTracer.end();
         }
     }
 }
@@ -0,0 +1,28 @@
+package ru.runa.wfe.job.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.execution.logic.ExecutionLogic;
+import ru.runa.wfe.execution.logic.ProcessBulkOperation;
+
+/**
+ * Executes batch of process bulk operation in transaction.
+ *
+ * @since 4.3.0
+ */
+public class ProcessBulkOperationExecutor extends TransactionalExecutor {
+    @Autowired
+    private ExecutionLogic executionLogic;
+    private ProcessBulkOperation operation;
+
+    public void setOperation(ProcessBulkOperation operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    protected void doExecuteInTransaction() {
+        executionLogic.executeProcessBulkOperationBatch(operation);
+    }
+
+}
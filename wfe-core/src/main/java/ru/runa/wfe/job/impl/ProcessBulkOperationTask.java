@@ -0,0 +1,35 @@
+package ru.runa.wfe.job.impl;
+
+import java.util.Date;
+
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.execution.logic.ProcessBulkOperation;
+import ru.runa.wfe.execution.logic.ProcessBulkOperations;
+
+/**
+ * Executes single batch of running process bulk operation per timer period.
+ *
+ * @since 4.3.0
+ */
+public class ProcessBulkOperationTask extends JobTask<ProcessBulkOperationExecutor> {
+
+    @Override
+    protected void execute() throws Exception {
+        ProcessBulkOperations.removeEnded(new Date(System.currentTimeMillis() - SystemProperties.getProcessBulkOperationRetentionSeconds() * 1000L));
+        ProcessBulkOperation operation = ProcessBulkOperations.getNextRunning();
+        if (operation == null) {
+            return;
+        }
+        try {
+            getTransactionalExecutor().setOperation(operation);
+            getTransactionalExecutor().executeInTransaction(true);
+            operation.onBatchCommitted();
+        } catch (Throwable th) {
+            log.error(operation + " batch failed", th);
+            operation.onBatchFailed(th);
+        } finally {
+            getTransactionalExecutor().setOperation(null);
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package ru.runa.wfe.job.impl;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.audit.ProcessLogAttributesCodec;
+import ru.runa.wfe.audit.dao.ProcessLogDAO;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.commons.xml.XmlUtils;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+/**
+ * Converts batch of process logs with legacy XML attributes to binary format in transaction. Conversion proceeds by log id so malformed
+ * legacy records are skipped once and stay in XML.
+ *
+ * @since 4.3.0
+ */
+public class ProcessLogAttributesMigrationExecutor extends TransactionalExecutor {
+    @Autowired
+    private ProcessLogDAO processLogDAO;
+    private long nextId;
+    private boolean completed;
+    private long convertedCount;
+    private long contentBytes;
+    private long attributesDataBytes;
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    @Override
+    protected void doExecuteInTransaction() {
+        int batchSize = SystemProperties.getProcessLogAttributesMigrationBatchSize();
+        List<Object[]> contents = processLogDAO.getLegacyContents(nextId, batchSize);
+        Map<Long, byte[]> attributesData = Maps.newHashMapWithExpectedSize(contents.size());
+        long batchContentBytes = 0;
+        long batchAttributesDataBytes = 0;
+        long batchNextId = nextId;
+        for (Object[] row : contents) {
+            Long id = (Long) row[0];
+            String content = (String) row[1];
+            batchNextId = id + 1;
+            try {
+                byte[] data = ProcessLogAttributesCodec.encode(XmlUtils.deserialize(content));
+                attributesData.put(id, data);
+                batchContentBytes += content.getBytes(Charsets.UTF_8).length;
+                batchAttributesDataBytes += data.length;
+            } catch (Exception e) {
+                log.warn("Unable to convert attributes of log " + id + ": " + e);
+            }
+        }
+        if (!attributesData.isEmpty()) {
+            processLogDAO.setAttributesData(attributesData);
+        }
+        // progress is kept after successful update only
+        nextId = batchNextId;
+        convertedCount += attributesData.size();
+        contentBytes += batchContentBytes;
+        attributesDataBytes += batchAttributesDataBytes;
+        if (contents.size() < batchSize) {
+            completed = true;
+            if (convertedCount > 0) {
+                log.info("Converted attributes of " + convertedCount + " logs to binary format: " + contentBytes + " bytes of XML replaced by "
+                        + attributesDataBytes + " bytes");
+            }
+        } else {
+            log.debug("Converted logs up to " + nextId);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package ru.runa.wfe.job.impl;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+/**
+ * Converts existing process log attributes from XML to binary format by batches per timer period until no XML attributes are left.
+ *
+ * @since 4.3.0
+ */
+public class ProcessLogAttributesMigrationTask extends JobTask<ProcessLogAttributesMigrationExecutor> {
+
+    @Override
+    protected void execute() throws Exception {
+        if (!SystemProperties.isProcessLogBinaryAttributesEnabled() || getTransactionalExecutor().isCompleted()) {
+            return;
+        }
+        getTransactionalExecutor().executeInTransaction(false);
+    }
+
+}
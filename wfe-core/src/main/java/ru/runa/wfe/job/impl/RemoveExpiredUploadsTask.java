@@ -0,0 +1,21 @@
+package ru.runa.wfe.job.impl;
+
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
+
+/**
+ * Removes file variable uploads staged in local storage which were not used in one day.
+ *
+ * @since 4.3.0
+ */
+public class RemoveExpiredUploadsTask extends JobTask<TransactionalExecutor> {
+
+    @Override
+    protected void execute() throws Exception {
+        int count = LocalFileSystemStorage.removeExpiredUploads();
+        if (count > 0) {
+            log.info("Removed " + count + " expired uploads");
+        }
+    }
+
+}
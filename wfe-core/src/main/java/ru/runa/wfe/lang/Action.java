@@ -23,6 +23,7 @@ package ru.runa.wfe.lang;
 
 import ru.runa.wfe.audit.ActionLog;
 import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.extension.ActionHandler;
 
 import com.google.common.base.Objects;
@@ -53,6 +54,7 @@ public class Action extends GraphElement {
     }
 
     public void execute(ExecutionContext executionContext) {
+        ExecutionTracer.start(ExecutionTracer.ACTION, delegation.getClassName());
         try {
             ActionHandler actionHandler = delegation.getInstance();
             log.info("Executing " + this);
@@ -61,6 +63,8 @@ public class Action extends GraphElement {
         } catch (Exception e) {
             log.error("Failed " + this);
             throw Throwables.propagate(e);
+        } finally {
+            ExecutionTracer.end();
         }
     }
 
@@ -60,6 +60,10 @@ public class Delegation implements Serializable {
         return (T) configurable;
     }
 
+    public String getClassName() {
+        return className;
+    }
+
     public String getConfiguration() {
         return configuration;
     }
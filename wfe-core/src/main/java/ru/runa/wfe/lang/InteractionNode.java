@@ -3,12 +3,15 @@ package ru.runa.wfe.lang;
 import java.util.List;
 
 import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.execution.ExecutionContext;
 
 import com.google.common.collect.Lists;
 
 public abstract class InteractionNode extends Node {
     private static final long serialVersionUID = 1L;
     protected List<TaskDefinition> taskDefinitions = Lists.newArrayList();
+    private Boolean asyncContinuation;
 
     public void addTask(TaskDefinition taskDefinition) {
         taskDefinitions.add(taskDefinition);
@@ -26,6 +29,29 @@ public abstract class InteractionNode extends Node {
         throw new InternalApplicationException("There are no tasks in " + this);
     }
 
+    public Boolean getAsyncContinuation() {
+        return asyncContinuation;
+    }
+
+    public void setAsyncContinuation(Boolean asyncContinuation) {
+        this.asyncContinuation = asyncContinuation;
+    }
+
+    /**
+     * Whether process execution after task completion continues in separate transaction so user request ends right after task completion.
+     * 
+     * @since 4.3.0
+     */
+    public boolean isAsyncContinuation(ExecutionContext executionContext) {
+        if (asyncContinuation != null) {
+            return asyncContinuation;
+        }
+        if (executionContext.getProcessDefinition().getTaskAsyncContinuation() != null) {
+            return executionContext.getProcessDefinition().getTaskAsyncContinuation();
+        }
+        return SystemProperties.isTaskCompletionAsyncContinuationEnabled();
+    }
+
     @Override
     public void validate() {
         super.validate();
@@ -1,15 +1,15 @@
 package ru.runa.wfe.lang;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.audit.SubprocessEndLog;
-import ru.runa.wfe.commons.GroovyScriptExecutor;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.TypeConversionUtil;
 import ru.runa.wfe.commons.Utils;
@@ -18,11 +18,11 @@ import ru.runa.wfe.execution.NodeProcess;
 import ru.runa.wfe.execution.Process;
 import ru.runa.wfe.execution.ProcessFactory;
 import ru.runa.wfe.execution.dao.NodeProcessDAO;
+import ru.runa.wfe.lang.utils.MultiNodeDiscriminatorCondition;
 import ru.runa.wfe.lang.utils.MultiNodeParameters;
 import ru.runa.wfe.var.ISelectable;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.MapDelegableVariableProvider;
-import ru.runa.wfe.var.MapVariableProvider;
 import ru.runa.wfe.var.VariableMapping;
 import ru.runa.wfe.var.dto.Variables;
 import ru.runa.wfe.var.dto.WfVariable;
@@ -52,19 +52,9 @@ public class MultiSubprocessNode extends SubprocessNode {
         ProcessDefinition subProcessDefinition = getSubProcessDefinition();
         // TODO create discriminatorCondition attribute
         String script = (String) executionContext.getVariableValue("multisubprocess condition");
-        List<Integer> ignoredIndexes = Lists.newArrayList();
+        Set<Integer> ignoredIndexes = Collections.emptySet();
         if (!Utils.isNullOrEmpty(script)) {
-            GroovyScriptExecutor scriptExecutor = new GroovyScriptExecutor();
-            MapVariableProvider variableProvider = new MapVariableProvider(new HashMap<String, Object>());
-            for (int index = 0; index < data.size(); index++) {
-                variableProvider.add("item", data.get(index));
-                variableProvider.add("index", index);
-                boolean result = (Boolean) scriptExecutor.evaluateScript(variableProvider, script);
-                if (!result) {
-                    ignoredIndexes.add(index);
-                }
-            }
-            log.info("Ignored indexes: " + ignoredIndexes);
+            ignoredIndexes = new MultiNodeDiscriminatorCondition(script).getIgnoredIndexes(data);
         }
         Map<String, Object> map = Maps.newHashMap();
         map.put(Variables.CURRENT_PROCESS_ID_WRAPPED, executionContext.getProcess().getId());
@@ -72,6 +62,8 @@ public class MultiSubprocessNode extends SubprocessNode {
         map.put(Variables.CURRENT_NODE_NAME_WRAPPED, executionContext.getNode().getName());
         map.put(Variables.CURRENT_NODE_ID_WRAPPED, executionContext.getNode().getNodeId());
         IVariableProvider variableProvider = new MapDelegableVariableProvider(map, executionContext.getVariableProvider());
+        // super process values are the same for all subprocesses so they are read once
+        Map<VariableMapping, Object> copiedValues = getCopiedValues(subProcessDefinition, variableProvider);
         for (int index = 0; index < data.size(); index++) {
             if (ignoredIndexes.contains(index)) {
                 continue;
@@ -84,42 +76,22 @@ public class MultiSubprocessNode extends SubprocessNode {
             log.debug("setting discriminator var '" + parameters.getDiscriminatorVariableName() + "' to sub process var '"
                     + parameters.getIteratorVariableName() + "': " + discriminatorValue);
             variables.put(parameters.getIteratorVariableName(), discriminatorValue);
-            boolean baseProcessIdMode = isInBaseProcessIdMode();
-            for (VariableMapping variableMapping : variableMappings) {
-                String variableName = variableMapping.getName();
-                String mappedName = variableMapping.getMappedName();
-                boolean isSwimlane = subProcessDefinition.getSwimlane(mappedName) != null;
-                if (isSwimlane && variableMapping.isSyncable()) {
-                    throw new InternalApplicationException("Sync mode does not supported for swimlane " + mappedName);
-                }
-                boolean copyValue;
-                if (baseProcessIdMode) {
-                    copyValue = variableMapping.isReadable() && (isSwimlane || SystemProperties.getBaseProcessIdVariableName().equals(mappedName));
+            for (Map.Entry<VariableMapping, Object> entry : copiedValues.entrySet()) {
+                VariableMapping variableMapping = entry.getKey();
+                if (variableMapping.isMultiinstanceLink()) {
+                    variables.put(variableMapping.getMappedName(), TypeConversionUtil.getListValue(entry.getValue(), index));
                 } else {
-                    copyValue = variableMapping.isReadable() || variableMapping.isSyncable();
-                }
-                if (copyValue) {
-                    Object value = variableProvider.getValue(variableName);
-                    if (value != null) {
-                        log.debug("copying super process var '" + variableName + "' to sub process var '" + mappedName + "': " + value + " of "
-                                + value.getClass());
-                        if (variableMapping.isMultiinstanceLink()) {
-                            variables.put(mappedName, TypeConversionUtil.getListValue(value, index));
-                        } else {
-                            variables.put(mappedName, value);
-                        }
-                    } else {
-                        log.warn("super process var '" + variableName + "' is null (ignored mapping to '" + mappedName + "')");
-                    }
+                    variables.put(variableMapping.getMappedName(), entry.getValue());
                 }
             }
             Process subProcess = processFactory.createSubprocess(executionContext, subProcessDefinition, variables, index);
             subProcesses.add(subProcess);
         }
+        List<ExecutionContext> subExecutionContexts = Lists.newArrayListWithExpectedSize(subProcesses.size());
         for (Process subprocess : subProcesses) {
-            ExecutionContext subExecutionContext = new ExecutionContext(subProcessDefinition, subprocess);
-            processFactory.startSubprocess(executionContext, subExecutionContext);
+            subExecutionContexts.add(new ExecutionContext(subProcessDefinition, subprocess));
         }
+        processFactory.startSubprocesses(executionContext, subExecutionContexts);
         if (subProcesses.size() == 0) {
             log.debug("Leaving multisubprocess state due to 0 subprocesses");
             super.leave(executionContext, null);
@@ -130,6 +102,36 @@ public class MultiSubprocessNode extends SubprocessNode {
         }
     }
 
+    private Map<VariableMapping, Object> getCopiedValues(ProcessDefinition subProcessDefinition, IVariableProvider variableProvider) {
+        Map<VariableMapping, Object> result = Maps.newLinkedHashMap();
+        boolean baseProcessIdMode = isInBaseProcessIdMode();
+        for (VariableMapping variableMapping : variableMappings) {
+            String variableName = variableMapping.getName();
+            String mappedName = variableMapping.getMappedName();
+            boolean isSwimlane = subProcessDefinition.getSwimlane(mappedName) != null;
+            if (isSwimlane && variableMapping.isSyncable()) {
+                throw new InternalApplicationException("Sync mode does not supported for swimlane " + mappedName);
+            }
+            boolean copyValue;
+            if (baseProcessIdMode) {
+                copyValue = variableMapping.isReadable() && (isSwimlane || SystemProperties.getBaseProcessIdVariableName().equals(mappedName));
+            } else {
+                copyValue = variableMapping.isReadable() || variableMapping.isSyncable();
+            }
+            if (copyValue) {
+                Object value = variableProvider.getValue(variableName);
+                if (value != null) {
+                    log.debug("copying super process var '" + variableName + "' to sub process var '" + mappedName + "': " + value + " of "
+                            + value.getClass());
+                    result.put(variableMapping, value);
+                } else {
+                    log.warn("super process var '" + variableName + "' is null (ignored mapping to '" + mappedName + "')");
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public void leave(ExecutionContext subExecutionContext, Transition transition) {
         if (async) {
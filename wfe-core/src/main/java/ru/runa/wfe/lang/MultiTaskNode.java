@@ -21,20 +21,20 @@
  */
 package ru.runa.wfe.lang;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-import ru.runa.wfe.commons.GroovyScriptExecutor;
 import ru.runa.wfe.commons.TypeConversionUtil;
 import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.execution.ExecutionContext;
 import ru.runa.wfe.execution.Swimlane;
 import ru.runa.wfe.execution.Token;
+import ru.runa.wfe.lang.utils.MultiNodeDiscriminatorCondition;
 import ru.runa.wfe.lang.utils.MultiNodeParameters;
 import ru.runa.wfe.task.Task;
 import ru.runa.wfe.user.Executor;
-import ru.runa.wfe.var.MapVariableProvider;
 import ru.runa.wfe.var.VariableMapping;
 
 import com.google.common.base.Preconditions;
@@ -159,19 +159,9 @@ public class MultiTaskNode extends BaseTaskNode {
             // TODO temporary
             script = (String) executionContext.getVariableValue("multitask condition");
         }
-        List<Integer> ignoredIndexes = Lists.newArrayList();
+        Set<Integer> ignoredIndexes = Collections.emptySet();
         if (!Utils.isNullOrEmpty(script)) {
-            GroovyScriptExecutor scriptExecutor = new GroovyScriptExecutor();
-            MapVariableProvider variableProvider = new MapVariableProvider(new HashMap<String, Object>());
-            for (int index = 0; index < data.size(); index++) {
-                variableProvider.add("item", data.get(index));
-                variableProvider.add("index", index);
-                boolean result = (Boolean) scriptExecutor.evaluateScript(variableProvider, script);
-                if (!result) {
-                    ignoredIndexes.add(index);
-                }
-            }
-            log.info("Ignored indexes: " + ignoredIndexes);
+            ignoredIndexes = new MultiNodeDiscriminatorCondition(script).getIgnoredIndexes(data);
         }
         int tasksCounter = 0;
         for (int index = 0; index < data.size(); index++) {
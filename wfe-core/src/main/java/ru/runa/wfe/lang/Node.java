@@ -31,6 +31,7 @@ import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.execution.ExecutionContext;
 import ru.runa.wfe.execution.Token;
 import ru.runa.wfe.execution.logic.IProcessExecutionListener;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.graph.DrawProperties;
 
 import com.google.common.base.Objects;
@@ -178,17 +179,23 @@ public abstract class Node extends GraphElement {
      */
     public void enter(ExecutionContext executionContext) {
         Token token = executionContext.getToken();
-        // update the runtime context information
-        token.setNodeId(getNodeId());
-        token.setNodeType(getNodeType());
-        // fire the leave-node event for this node
-        fireEvent(executionContext, Event.NODE_ENTER);
-        executionContext.addLog(new NodeEnterLog(this));
-        boolean async = getAsyncExecution(executionContext);
-        if (async) {
-            ApplicationContextFactory.getNodeAsyncExecutor().execute(token.getProcess().getId(), token.getId(), token.getNodeId());
-        } else {
-            execute(executionContext);
+        ExecutionTracer.setProcessId(token.getProcess().getId());
+        ExecutionTracer.start(ExecutionTracer.NODE, this);
+        try {
+            // update the runtime context information
+            token.setNodeId(getNodeId());
+            token.setNodeType(getNodeType());
+            // fire the leave-node event for this node
+            fireEvent(executionContext, Event.NODE_ENTER);
+            executionContext.addLog(new NodeEnterLog(this));
+            boolean async = executionContext.pollAsyncContinuation() || getAsyncExecution(executionContext);
+            if (async) {
+                ApplicationContextFactory.getNodeAsyncExecutor().execute(token.getProcess().getId(), token.getId(), token.getNodeId());
+            } else {
+                execute(executionContext);
+            }
+        } finally {
+            ExecutionTracer.end();
         }
     }
 
@@ -218,20 +225,25 @@ public abstract class Node extends GraphElement {
      * called by the implementation of this node to continue execution over the given transition.
      */
     public void leave(ExecutionContext executionContext, Transition transition) {
-        Token token = executionContext.getToken();
-        for (IProcessExecutionListener listener : SystemProperties.getProcessExecutionListeners()) {
-            listener.onNodeLeave(executionContext, this, transition);
-        }
-        // fire the leave-node event for this node
-        fireEvent(executionContext, Event.NODE_LEAVE);
-        addLeaveLog(executionContext);
-        if (transition == null) {
-            transition = getDefaultLeavingTransitionNotNull();
+        ExecutionTracer.start(ExecutionTracer.LEAVE, this);
+        try {
+            Token token = executionContext.getToken();
+            for (IProcessExecutionListener listener : SystemProperties.getProcessExecutionListeners()) {
+                listener.onNodeLeave(executionContext, this, transition);
+            }
+            // fire the leave-node event for this node
+            fireEvent(executionContext, Event.NODE_LEAVE);
+            addLeaveLog(executionContext);
+            if (transition == null) {
+                transition = getDefaultLeavingTransitionNotNull();
+            }
+            token.setNodeId(null);
+            token.setNodeType(null);
+            // take the transition
+            transition.take(executionContext);
+        } finally {
+            ExecutionTracer.end();
         }
-        token.setNodeId(null);
-        token.setNodeType(null);
-        // take the transition
-        transition.take(executionContext);
     }
 
     protected void addLeaveLog(ExecutionContext executionContext) {
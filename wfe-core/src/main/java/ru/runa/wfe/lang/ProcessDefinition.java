@@ -60,6 +60,7 @@ public class ProcessDefinition extends GraphElement implements IFileDataProvider
     protected ProcessDefinitionAccessType accessType = ProcessDefinitionAccessType.Process;
     protected Map<String, SubprocessDefinition> embeddedSubprocesses = Maps.newHashMap();
     private Boolean nodeAsyncExecution;
+    private Boolean taskAsyncContinuation;
     private boolean graphActionsEnabled;
 
     protected ProcessDefinition() {
@@ -419,6 +420,14 @@ public class ProcessDefinition extends GraphElement implements IFileDataProvider
         this.nodeAsyncExecution = nodeAsyncExecution;
     }
 
+    public Boolean getTaskAsyncContinuation() {
+        return taskAsyncContinuation;
+    }
+
+    public void setTaskAsyncContinuation(Boolean taskAsyncContinuation) {
+        this.taskAsyncContinuation = taskAsyncContinuation;
+    }
+
     public boolean isGraphActionsEnabled() {
         return graphActionsEnabled;
     }
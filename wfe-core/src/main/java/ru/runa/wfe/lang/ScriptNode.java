@@ -2,6 +2,7 @@ package ru.runa.wfe.lang;
 
 import ru.runa.wfe.audit.ActionLog;
 import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.extension.ActionHandler;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -29,6 +30,7 @@ public class ScriptNode extends Node {
     @Override
     public void execute(ExecutionContext executionContext) {
         log.debug("Executing " + this);
+        ExecutionTracer.start(ExecutionTracer.ACTION, delegation.getClassName());
         try {
             executionContext.addLog(new ActionLog(this));
             ActionHandler actionHandler = delegation.getInstance();
@@ -36,6 +38,8 @@ public class ScriptNode extends Node {
         } catch (Exception e) {
             log.error("Failed " + this);
             throw Throwables.propagate(e);
+        } finally {
+            ExecutionTracer.end();
         }
         leave(executionContext);
     }
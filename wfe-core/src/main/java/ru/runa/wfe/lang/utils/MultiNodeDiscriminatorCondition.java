@@ -0,0 +1,82 @@
+package ru.runa.wfe.lang.utils;
+
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.groovy.GroovyExceptionInterface;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.commons.GroovyScriptExecutor.GroovyScriptBinding;
+import ru.runa.wfe.var.MapVariableProvider;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
+
+/**
+ * Discriminator condition of multiinstance node. Script is compiled once and evaluated for each element of discriminator list with 'item' and
+ * 'index' variables. Element is ignored if condition evaluates to <code>false</code> or <code>null</code>.
+ */
+public class MultiNodeDiscriminatorCondition {
+    private static final Log log = LogFactory.getLog(MultiNodeDiscriminatorCondition.class);
+    private final String script;
+    private final Script compiledScript;
+
+    public MultiNodeDiscriminatorCondition(String script) {
+        this.script = script;
+        try {
+            GroovyShell shell = new GroovyShell(ClassLoaderUtil.getExtensionClassLoader());
+            this.compiledScript = shell.parse(script);
+        } catch (Exception e) {
+            log.error("Groovy compilation failed, script=" + script, e);
+            if (e instanceof GroovyExceptionInterface) {
+                throw new InternalApplicationException(e.getMessage());
+            }
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * @return indexes of discriminator list elements for which condition evaluated to <code>false</code> or <code>null</code>
+     */
+    public Set<Integer> getIgnoredIndexes(List<?> data) {
+        Set<Integer> ignoredIndexes = Sets.newTreeSet();
+        MapVariableProvider variableProvider = new MapVariableProvider(new HashMap<String, Object>());
+        for (int index = 0; index < data.size(); index++) {
+            variableProvider.add("item", data.get(index));
+            variableProvider.add("index", index);
+            GroovyScriptBinding binding = new GroovyScriptBinding(variableProvider);
+            binding.setVariable(GroovyScriptBinding.VARIABLE_PROVIDER_VARIABLE_NAME, variableProvider);
+            compiledScript.setBinding(binding);
+            Object result = evaluate();
+            if (result != null && !(result instanceof Boolean)) {
+                throw new InternalApplicationException("Discriminator condition must return boolean but returned '" + result + "' of "
+                        + result.getClass() + ", script=" + script);
+            }
+            if (!Boolean.TRUE.equals(result)) {
+                ignoredIndexes.add(index);
+            }
+        }
+        log.info("Ignored indexes: " + ignoredIndexes);
+        return ignoredIndexes;
+    }
+
+    private Object evaluate() {
+        try {
+            return compiledScript.run();
+        } catch (Exception e) {
+            log.error("Groovy evaluation failed, script=" + script, e);
+            if (e instanceof GroovyExceptionInterface) {
+                throw new InternalApplicationException(e.getMessage());
+            }
+            throw Throwables.propagate(e);
+        }
+    }
+
+}
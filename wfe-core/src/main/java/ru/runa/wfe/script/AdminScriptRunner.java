@@ -20,12 +20,13 @@ package ru.runa.wfe.script;
 import java.io.ByteArrayInputStream;
 import java.lang.reflect.InvocationTargetException;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import ru.runa.wfe.script.common.ScriptExecutionContext;
 import ru.runa.wfe.script.common.ScriptOperation;
 import ru.runa.wfe.script.common.WorkflowScriptDto;
+import ru.runa.wfe.script.common.WorkflowScriptReader;
 
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
@@ -36,19 +37,25 @@ import com.google.common.collect.Lists;
  * @since 4.0
  */
 public class AdminScriptRunner {
+    private static final Log log = LogFactory.getLog(AdminScriptRunner.class);
 
     public void runScript(byte[] scriptXml, ScriptExecutionContext context, AdminScriptOperationErrorHandler errorHandler)
             throws AdminScriptException {
 
         try {
-            Unmarshaller unmarshaller = JAXBContext.newInstance(WorkflowScriptDto.class).createUnmarshaller();
-            WorkflowScriptDto data = (WorkflowScriptDto) unmarshaller.unmarshal(new ByteArrayInputStream(scriptXml));
+            long startTime = System.currentTimeMillis();
+            WorkflowScriptDto data = WorkflowScriptReader.read(new ByteArrayInputStream(scriptXml));
             prepareScript(data);
             wrapScriptWithErrorHandler(data, errorHandler);
             data.validateFullAndRegister(context, false);
             for (ScriptOperation operation : data.operations) {
                 operation.execute(context);
             }
+            if (log.isDebugEnabled()) {
+                long millis = Math.max(System.currentTimeMillis() - startTime, 1);
+                log.debug("Executed " + data.operations.size() + " operations in " + millis + " ms (" + data.operations.size() * 1000 / millis
+                        + " operations/s)");
+            }
         } catch (Throwable th) {
             if (th instanceof InvocationTargetException) {
                 Throwable target = ((InvocationTargetException) th).getTargetException();
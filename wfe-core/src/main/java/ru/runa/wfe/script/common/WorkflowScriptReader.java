@@ -0,0 +1,126 @@
+package ru.runa.wfe.script.common;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElements;
+import javax.xml.bind.annotation.XmlEnumValue;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.script.AdminScriptConstants;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+
+/**
+ * Reads admin script with StAX: top level elements are unmarshalled one by one, so script is not loaded in DOM-like intermediate form. JAXB
+ * context creation is expensive and performed once.
+ *
+ * @since 4.3.0
+ */
+public class WorkflowScriptReader {
+    private static final Log log = LogFactory.getLog(WorkflowScriptReader.class);
+    private static final JAXBContext jaxbContext;
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private static final Map<String, Class<?>> elementClasses = Maps.newHashMap();
+    static {
+        try {
+            jaxbContext = JAXBContext.newInstance(WorkflowScriptDto.class);
+            XmlElements operations = OperationsListContainer.class.getField("operations").getAnnotation(XmlElements.class);
+            for (XmlElement element : operations.value()) {
+                elementClasses.put(element.name(), element.type());
+            }
+            elementClasses.put(AdminScriptConstants.NAMED_IDENTITY_ELEMENT_NAME, NamedIdentitySet.class);
+            elementClasses.put("transactionScope", TransactionScopeDto.class);
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    public static JAXBContext getJaxbContext() {
+        return jaxbContext;
+    }
+
+    public static WorkflowScriptDto read(InputStream inputStream) throws JAXBException, XMLStreamException {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+        try {
+            Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+            WorkflowScriptDto script = new WorkflowScriptDto();
+            reader.nextTag();
+            script.defaultTransactionScope = parseTransactionScope(reader.getAttributeValue(null, "defaultTransactionScope"));
+            reader.nextTag();
+            while (reader.isStartElement()) {
+                Class<?> elementClass = elementClasses.get(reader.getLocalName());
+                if (elementClass == null) {
+                    log.warn("Skipping unknown element " + reader.getName() + " at line " + reader.getLocation().getLineNumber());
+                    skipElement(reader);
+                    continue;
+                }
+                Object element = unmarshaller.unmarshal(reader, elementClass).getValue();
+                if (element instanceof NamedIdentitySet) {
+                    script.identitySets.add((NamedIdentitySet) element);
+                } else if (element instanceof TransactionScopeDto) {
+                    script.transactionScopes.add((TransactionScopeDto) element);
+                } else {
+                    script.operations.add((ScriptOperation) element);
+                }
+                // unmarshaller leaves reader after element end
+                moveToTag(reader);
+            }
+            return script;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        do {
+            if (reader.isStartElement()) {
+                depth++;
+            } else if (reader.isEndElement()) {
+                depth--;
+            }
+            reader.next();
+        } while (depth > 0);
+        moveToTag(reader);
+    }
+
+    private static void moveToTag(XMLStreamReader reader) throws XMLStreamException {
+        while (!reader.isStartElement() && !reader.isEndElement()) {
+            reader.next();
+        }
+    }
+
+    public static void write(WorkflowScriptDto script, OutputStream outputStream) throws JAXBException {
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.marshal(script, outputStream);
+    }
+
+    private static TransactionScopeType parseTransactionScope(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (TransactionScopeType type : TransactionScopeType.values()) {
+            try {
+                if (value.equals(TransactionScopeType.class.getField(type.name()).getAnnotation(XmlEnumValue.class).value())) {
+                    return type;
+                }
+            } catch (NoSuchFieldException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+        throw new ScriptValidationException("Unknown defaultTransactionScope value: " + value);
+    }
+}
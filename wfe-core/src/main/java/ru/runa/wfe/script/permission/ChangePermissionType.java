@@ -1,12 +1,15 @@
 package ru.runa.wfe.script.permission;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import ru.runa.wfe.script.common.ScriptExecutionContext;
 import ru.runa.wfe.security.Identifiable;
 import ru.runa.wfe.user.Executor;
 
+import com.google.common.collect.Lists;
+
 /**
  * Change identifiable permission action type.
  */
@@ -42,4 +45,31 @@ public enum ChangePermissionType {
 
     public abstract Set<ru.runa.wfe.security.Permission> updatePermission(ScriptExecutionContext context, Executor executor,
             Identifiable identifiable, Set<ru.runa.wfe.security.Permission> changedPermission);
+
+    /**
+     * Computes new permissions for identifiables of the same type; issued permissions are loaded with one bulk call.
+     *
+     * @return New permissions in the same order as identifiables.
+     */
+    public List<Set<ru.runa.wfe.security.Permission>> updatePermissions(ScriptExecutionContext context, Executor executor,
+            List<? extends Identifiable> identifiables, Set<ru.runa.wfe.security.Permission> changedPermission) {
+        List<Set<ru.runa.wfe.security.Permission>> result = Lists.newArrayListWithExpectedSize(identifiables.size());
+        if (this == SET) {
+            for (int i = 0; i < identifiables.size(); i++) {
+                result.add(changedPermission);
+            }
+            return result;
+        }
+        Map<Long, List<ru.runa.wfe.security.Permission>> issuedPermissions = context.getAuthorizationLogic().getIssuedPermissions(
+                context.getUser(), executor, identifiables);
+        for (Identifiable identifiable : identifiables) {
+            List<ru.runa.wfe.security.Permission> ownPermissions = issuedPermissions.get(identifiable.getIdentifiableId());
+            if (this == ADD) {
+                result.add(ru.runa.wfe.security.Permission.mergePermissions(changedPermission, ownPermissions));
+            } else {
+                result.add(ru.runa.wfe.security.Permission.subtractPermissions(ownPermissions, changedPermission));
+            }
+        }
+        return result;
+    }
 }
\ No newline at end of file
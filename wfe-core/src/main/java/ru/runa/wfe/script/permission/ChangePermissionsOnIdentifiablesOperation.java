@@ -1,6 +1,7 @@
 package ru.runa.wfe.script.permission;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.bind.annotation.XmlAttribute;
@@ -18,6 +19,7 @@ import ru.runa.wfe.user.Executor;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 @XmlTransient()
@@ -80,10 +82,19 @@ public abstract class ChangePermissionsOnIdentifiablesOperation extends Identiti
             ru.runa.wfe.security.Permission permission = securedObjectType.getNoPermission().getPermission(permissionElement.name);
             changePermissions.add(permission);
         }
+        Map<SecuredObjectType, List<Identifiable>> identifiablesByType = Maps.newHashMap();
         for (Identifiable identifiable : identifiables) {
-            Set<ru.runa.wfe.security.Permission> newPermissions = changeType.updatePermission(context, grantedExecutor, identifiable,
+            List<Identifiable> list = identifiablesByType.get(identifiable.getSecuredObjectType());
+            if (list == null) {
+                list = Lists.newArrayList();
+                identifiablesByType.put(identifiable.getSecuredObjectType(), list);
+            }
+            list.add(identifiable);
+        }
+        for (List<Identifiable> list : identifiablesByType.values()) {
+            List<Set<ru.runa.wfe.security.Permission>> newPermissions = changeType.updatePermissions(context, grantedExecutor, list,
                 changePermissions);
-            context.getAuthorizationLogic().setPermissions(context.getUser(), grantedExecutor, newPermissions, identifiable);
+            context.getAuthorizationLogic().setPermissions(context.getUser(), grantedExecutor, list, newPermissions);
         }
     }
 
@@ -120,6 +120,78 @@ public class PermissionDAO extends CommonDAO {
         getHibernateTemplate().deleteAll(permissionMappingToRemove);
     }
 
+    /**
+     * Loads issued permissions for executor on identifiables of the same secured object type in windowed queries.
+     *
+     * @param executor
+     *            Executor, which permissions is loading.
+     * @param identifiables
+     *            Secured objects of the same type.
+     * @return Permissions for each identifiable (identifiable id is key).
+     */
+    public Map<Long, List<Permission>> getIssuedPermissions(Executor executor, List<? extends Identifiable> identifiables) {
+        Map<Long, List<Permission>> result = Maps.newHashMap();
+        for (Identifiable identifiable : identifiables) {
+            result.put(identifiable.getIdentifiableId(), new ArrayList<Permission>());
+        }
+        if (identifiables.isEmpty() || isPrivilegedExecutor(identifiables.get(0), executor)) {
+            return result;
+        }
+        Permission noPermission = identifiables.get(0).getSecuredObjectType().getNoPermission();
+        for (PermissionMapping pm : getOwnPermissionMappings(executor, identifiables)) {
+            result.get(pm.getIdentifiableId()).add(noPermission.getPermission(pm.getMask()));
+        }
+        return result;
+    }
+
+    /**
+     * Sets permissions for executor on identifiables of the same secured object type. Existing permission mappings are loaded in windowed queries
+     * instead of query per identifiable.
+     *
+     * @param executor
+     *            Executor, which got permissions.
+     * @param identifiables
+     *            Secured objects of the same type.
+     * @param permissions
+     *            Permissions for executor, in the same order as identifiables.
+     */
+    public void setPermissions(Executor executor, List<? extends Identifiable> identifiables, List<? extends Collection<Permission>> permissions) {
+        Preconditions.checkArgument(identifiables.size() == permissions.size(), "arrays length differs");
+        if (identifiables.isEmpty()) {
+            return;
+        }
+        if (isPrivilegedExecutor(identifiables.get(0), executor)) {
+            log.debug(permissions + " not granted for privileged " + executor);
+            return;
+        }
+        Map<Long, List<PermissionMapping>> existingMappings = Maps.newHashMap();
+        for (PermissionMapping pm : getOwnPermissionMappings(executor, identifiables)) {
+            List<PermissionMapping> mappings = existingMappings.get(pm.getIdentifiableId());
+            if (mappings == null) {
+                mappings = Lists.newArrayList();
+                existingMappings.put(pm.getIdentifiableId(), mappings);
+            }
+            mappings.add(pm);
+        }
+        List<PermissionMapping> permissionMappingToRemove = Lists.newArrayList();
+        for (int i = 0; i < identifiables.size(); i++) {
+            Identifiable identifiable = identifiables.get(i);
+            checkArePermissionAllowed(identifiable, permissions.get(i));
+            List<PermissionMapping> mappings = existingMappings.remove(identifiable.getIdentifiableId());
+            if (mappings == null) {
+                mappings = Lists.newArrayList();
+            }
+            for (Permission permission : permissions.get(i)) {
+                PermissionMapping pm = new PermissionMapping(executor, identifiable, permission.getMask());
+                if (!mappings.remove(pm)) {
+                    getHibernateTemplate().save(pm);
+                }
+            }
+            permissionMappingToRemove.addAll(mappings);
+        }
+        getHibernateTemplate().deleteAll(permissionMappingToRemove);
+    }
+
     /**
      * Checks whether executor has permission on identifiable.
      * 
@@ -251,6 +323,35 @@ public class PermissionDAO extends CommonDAO {
                 identifiable.getIdentifiableId(), identifiable.getSecuredObjectType(), executor);
     }
 
+    private List<PermissionMapping> getOwnPermissionMappings(final Executor executor, List<? extends Identifiable> identifiables) {
+        final SecuredObjectType securedObjectType = identifiables.get(0).getSecuredObjectType();
+        List<Long> identifiableIds = Lists.newArrayListWithExpectedSize(identifiables.size());
+        for (Identifiable identifiable : identifiables) {
+            if (securedObjectType != identifiable.getSecuredObjectType()) {
+                throw new InternalApplicationException("Identifiables should be of the same secured object type (" + securedObjectType + ")");
+            }
+            identifiableIds.add(identifiable.getIdentifiableId());
+        }
+        List<PermissionMapping> result = Lists.newArrayList();
+        int window = SystemProperties.getDatabaseParametersCount() - 2;
+        for (final List<Long> identifiableIdsPart : Lists.partition(identifiableIds, window)) {
+            List<PermissionMapping> mappings = getHibernateTemplate().executeFind(new HibernateCallback<List<PermissionMapping>>() {
+
+                @Override
+                public List<PermissionMapping> doInHibernate(Session session) {
+                    Query query = session
+                            .createQuery("from PermissionMapping where identifiableId in (:identifiableIds) and type=:type and executor=:executor");
+                    query.setParameterList("identifiableIds", identifiableIdsPart);
+                    query.setParameter("type", securedObjectType);
+                    query.setParameter("executor", executor);
+                    return query.list();
+                }
+            });
+            result.addAll(mappings);
+        }
+        return result;
+    }
+
     private Set<Executor> getExecutorWithAllHisGroups(Executor executor) {
         Set<Executor> set = new HashSet<Executor>(executorDAO.getExecutorParentsAll(executor, false));
         set.add(executor);
@@ -278,6 +379,22 @@ public class PermissionDAO extends CommonDAO {
                 identifiable.getIdentifiableId());
     }
 
+    public void deleteAllPermissions(final SecuredObjectType type, List<Long> identifiableIds) {
+        int window = SystemProperties.getDatabaseParametersCount() - 1;
+        for (final List<Long> identifiableIdsPart : Lists.partition(identifiableIds, window)) {
+            getHibernateTemplate().execute(new HibernateCallback<Integer>() {
+
+                @Override
+                public Integer doInHibernate(Session session) {
+                    Query query = session.createQuery("delete from PermissionMapping where type=:type and identifiableId in (:ids)");
+                    query.setParameter("type", type);
+                    query.setParameterList("ids", identifiableIdsPart);
+                    return query.executeUpdate();
+                }
+            });
+        }
+    }
+
     /**
      * Load {@linkplain Executor}'s, which have permission on {@linkplain Identifiable}. <br/>
      * <b>Paging is not enabled.</b>
@@ -19,11 +19,13 @@ package ru.runa.wfe.security.logic;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import ru.runa.wfe.commons.logic.CommonLogic;
 import ru.runa.wfe.commons.logic.PresentationCompilerHelper;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.presentation.hibernate.PresentationConfiguredCompiler;
+import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.security.Identifiable;
 import ru.runa.wfe.security.Permission;
 import ru.runa.wfe.security.SecuredObjectType;
@@ -79,6 +81,39 @@ public class AuthorizationLogic extends CommonLogic {
         permissionDAO.setPermissions(executor, permissions, identifiable);
     }
 
+    /**
+     * Loads issued permissions on identifiables of the same type in bulk.
+     *
+     * @return Permissions for each identifiable (identifiable id is key).
+     */
+    public Map<Long, List<Permission>> getIssuedPermissions(User user, Executor performer, List<? extends Identifiable> identifiables) {
+        checkPermissionsOnExecutor(user, performer, Permission.READ);
+        checkPermissionsAllowed(user, identifiables, Permission.READ);
+        return permissionDAO.getIssuedPermissions(performer, identifiables);
+    }
+
+    /**
+     * Sets permissions on identifiables of the same type in bulk.
+     *
+     * @param permissions
+     *            Permissions for executor, in the same order as identifiables.
+     */
+    public void setPermissions(User user, Executor executor, List<? extends Identifiable> identifiables,
+            List<? extends Collection<Permission>> permissions) {
+        checkPermissionsOnExecutor(user, executor, Permission.READ);
+        checkPermissionsAllowed(user, identifiables, Permission.UPDATE_PERMISSIONS);
+        permissionDAO.setPermissions(executor, identifiables, permissions);
+    }
+
+    private void checkPermissionsAllowed(User user, List<? extends Identifiable> identifiables, Permission permission) {
+        boolean[] allowed = permissionDAO.isAllowed(user, permission, identifiables);
+        for (int i = 0; i < allowed.length; i++) {
+            if (!allowed[i]) {
+                throw new AuthorizationException(user + " does not have " + permission + " to " + identifiables.get(i));
+            }
+        }
+    }
+
     /**
      * Load executor's which already has (or not has) some permission on specified identifiable. This query using paging.
      * 
@@ -81,6 +81,8 @@ import com.google.common.collect.Sets;
  */
 @Entity
 @Table(name = "BPM_TASK")
+@org.hibernate.annotations.Table(appliesTo = "BPM_TASK", indexes = @Index(name = "IX_TASK_DEADLINE_VARIABLE",
+        columnNames = { "PROCESS_ID", "DEADLINE_DATE_VARIABLE" }))
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Task implements Assignable {
     private static final long serialVersionUID = 1L;
@@ -95,6 +97,7 @@ public class Task implements Assignable {
     private Date createDate;
     private Date deadlineDate;
     private String deadlineDateExpression;
+    private String deadlineDateVariableName;
     private Token token;
     private Swimlane swimlane;
     private Process process;
@@ -189,6 +192,18 @@ public class Task implements Assignable {
         this.deadlineDateExpression = deadlineDateExpression;
     }
 
+    /**
+     * @return name of base date variable from deadline expression, used for deadline recalculation on variable change
+     */
+    @Column(name = "DEADLINE_DATE_VARIABLE", length = 1024)
+    public String getDeadlineDateVariableName() {
+        return deadlineDateVariableName;
+    }
+
+    public void setDeadlineDateVariableName(String deadlineDateVariableName) {
+        this.deadlineDateVariableName = deadlineDateVariableName;
+    }
+
     @CollectionOfElements
     @JoinTable(name = "BPM_TASK_OPENED", joinColumns = { @JoinColumn(name = "TASK_ID", nullable = false, updatable = false) })
     @Cascade({ CascadeType.ALL, CascadeType.DELETE_ORPHAN })
@@ -41,6 +41,7 @@ public class TaskFactory {
         task.setProcess(executionContext.getProcess());
         task.setDeadlineDate(ExpressionEvaluator.evaluateDueDate(executionContext.getVariableProvider(), getDeadlineDuration(taskDefinition)));
         task.setDeadlineDateExpression(taskDefinition.getDeadlineDuration());
+        task.setDeadlineDateVariableName(ExpressionEvaluator.getDueDateVariableName(taskDefinition.getDeadlineDuration()));
         task.setIndex(index);
         taskDAO.create(task);
         taskDAO.flushPendingChanges();
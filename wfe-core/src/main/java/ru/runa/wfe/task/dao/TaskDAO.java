@@ -22,6 +22,7 @@
 package ru.runa.wfe.task.dao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import ru.runa.wfe.commons.dao.GenericDAO;
@@ -59,8 +60,12 @@ public class TaskDAO extends GenericDAO<Task> {
         return getHibernateTemplate().find("from Task where process=? and nodeId=?", process, nodeId);
     }
 
-    public List<Task> findByProcessAndDeadlineExpressionContaining(Process process, String expression) {
-        return getHibernateTemplate().find("from Task where process=? and deadlineDateExpression like ?", process, "%" + expression + "%");
+    /**
+     * @return tasks which deadline expression is based on one of given date variables
+     */
+    public List<Task> findByProcessAndDeadlineDateVariableNames(Process process, Collection<String> variableNames) {
+        return getHibernateTemplate().findByNamedParam("from Task where process=:process and deadlineDateVariableName in (:variableNames)",
+                new String[] { "process", "variableNames" }, new Object[] { process, variableNames });
     }
 
     public List<Task> findByToken(Token token) {
@@ -89,4 +94,9 @@ public class TaskDAO extends GenericDAO<Task> {
         log.debug("deleting tasks for process " + process.getId());
         getHibernateTemplate().bulkUpdate("delete from Task where process=?", process);
     }
+
+    public void deleteAll(List<Long> processIds) {
+        log.debug("deleting tasks for " + processIds.size() + " processes");
+        bulkUpdateByIds("delete from Task where process.id in (:ids)", processIds);
+    }
 }
@@ -0,0 +1,56 @@
+package ru.runa.wfe.task.dto;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import com.google.common.base.Objects;
+
+/**
+ * Request to complete task in bulk operation.
+ *
+ * @since 4.3.0
+ */
+public class TaskCompletion implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private Long taskId;
+    private Map<String, Object> variables;
+    private Long swimlaneActorId;
+
+    public TaskCompletion() {
+    }
+
+    public TaskCompletion(Long taskId, Map<String, Object> variables, Long swimlaneActorId) {
+        this.taskId = taskId;
+        this.variables = variables;
+        this.swimlaneActorId = swimlaneActorId;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, Object> variables) {
+        this.variables = variables;
+    }
+
+    public Long getSwimlaneActorId() {
+        return swimlaneActorId;
+    }
+
+    public void setSwimlaneActorId(Long swimlaneActorId) {
+        this.swimlaneActorId = swimlaneActorId;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("taskId", taskId).toString();
+    }
+}
@@ -15,7 +15,6 @@ import org.springframework.dao.DataAccessException;
 import ru.runa.wfe.audit.ProcessLog;
 import ru.runa.wfe.audit.TaskEscalationLog;
 import ru.runa.wfe.audit.dao.IProcessLogDAO;
-import ru.runa.wfe.audit.presentation.ExecutorIdsValue;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.cache.VersionedCacheData;
@@ -381,7 +380,7 @@ public class TaskListBuilder implements ITaskListBuilder {
             log.debug(String.format("isActorInInactiveEscalationGroup: escalation log was found pid: %s nid: %s", pid, nid));
             List<Long> ids = null;
             try {
-                ids = ((ExecutorIdsValue) pLog.getPatternArguments()[1]).getIds();
+                ids = ((TaskEscalationLog) pLog).getExecutorIds();
             } catch (NullPointerException e) {
                 log.warn(String.format("isActorInInactiveEscalationGroup: occured: %s when handle log: %s", e, pLog));
                 continue;
@@ -22,6 +22,7 @@ import ru.runa.wfe.execution.ProcessSuspendedException;
 import ru.runa.wfe.execution.Token;
 import ru.runa.wfe.execution.dto.WfProcess;
 import ru.runa.wfe.execution.logic.ProcessExecutionErrors;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.extension.assign.AssignmentHelper;
 import ru.runa.wfe.lang.InteractionNode;
 import ru.runa.wfe.lang.MultiTaskNode;
@@ -78,7 +79,17 @@ public class TaskLogic extends WFCommonLogic {
     private ExecutorLogic executorLogic;
 
     public void completeTask(User user, Long taskId, Map<String, Object> variables, Long swimlaneActorId) throws TaskDoesNotExistException {
+        ExecutionTracer.startTrace("completeTask");
+        try {
+            completeTaskInternal(user, taskId, variables, swimlaneActorId);
+        } finally {
+            ExecutionTracer.end();
+        }
+    }
+
+    private void completeTaskInternal(User user, Long taskId, Map<String, Object> variables, Long swimlaneActorId) {
         Task task = taskDAO.getNotNull(taskId);
+        ExecutionTracer.setProcessId(task.getProcess().getId());
         if (task.getProcess().getExecutionStatus() == ExecutionStatus.SUSPENDED) {
             throw new ProcessSuspendedException(task.getProcess().getId());
         }
@@ -180,6 +191,10 @@ public class TaskLogic extends WFCommonLogic {
             }
         }
         log.debug("completion of " + task + " by " + transition);
+        if (node.isAsyncContinuation(executionContext)) {
+            // following nodes are executed by node async executor after this transaction commit
+            executionContext.setAsyncContinuation(true);
+        }
         token.signal(executionContext, transition);
     }
 
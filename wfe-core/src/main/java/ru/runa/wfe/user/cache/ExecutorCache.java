@@ -97,6 +97,17 @@ public interface ExecutorCache {
      */
     public Set<Group> getExecutorParentsAll(Executor executor);
 
+    /**
+     * Checks if {@link Executor} is member of {@link Group} (direct or recursive by subgroups). May return null, if cache is not valid.
+     * 
+     * @param executor
+     *            {@link Executor} to check.
+     * @param group
+     *            {@link Group} to check.
+     * @return true if executor is member of group.
+     */
+    public Boolean isExecutorInGroup(Executor executor, Group group);
+
     /**
      * Return all {@link Executor} of specified class according to {@link BatchPresentation}. May return null, if executor list for specified class
      * and presentation wasn't set yet (With {@link #addAllExecutor(Class, BatchPresentation, List)}). May return null, if cache is not valid.
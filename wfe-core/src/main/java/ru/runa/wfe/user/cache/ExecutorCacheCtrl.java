@@ -123,6 +123,15 @@ class ExecutorCacheCtrl extends BaseCacheCtrl<ExecutorCacheImpl> implements Exec
         return cache.getExecutorParentsAll(executor);
     }
 
+    @Override
+    public Boolean isExecutorInGroup(Executor executor, Group group) {
+        ExecutorCacheImpl cache = CachingLogic.getCacheImplIfNotLocked(this);
+        if (cache == null) {
+            return null;
+        }
+        return cache.isExecutorInGroup(executor, group);
+    }
+
     @Override
     public <T extends Executor> VersionedCacheData<List<T>> getAllExecutor(Class<T> clazz, BatchPresentation batch) {
         ExecutorCacheImpl cache = CachingLogic.getCacheImplIfNotLocked(this);
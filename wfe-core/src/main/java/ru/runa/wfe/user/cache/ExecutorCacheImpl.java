@@ -20,19 +20,23 @@ package ru.runa.wfe.user.cache;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.SerializationUtils;
-import org.hibernate.Criteria;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 
 import ru.runa.wfe.commons.ApplicationContextFactory;
 import ru.runa.wfe.commons.cache.BaseCacheImpl;
 import ru.runa.wfe.commons.cache.Cache;
 import ru.runa.wfe.commons.cache.CacheImplementation;
+import ru.runa.wfe.commons.cache.CacheWeigher;
 import ru.runa.wfe.commons.cache.Change;
 import ru.runa.wfe.commons.cache.ChangedObjectParameter;
 import ru.runa.wfe.commons.cache.VersionedCacheData;
@@ -59,6 +63,15 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
     public static final String allGroupActorsName = "ru.runa.wfe.user.cache.allGroupActors";
     public static final String allExecutorGroupsName = "ru.runa.wfe.user.cache.allExecutorGroups";
     public static final String allExecutorsListsName = "ru.runa.wfe.user.cache.allExecutorsLists";
+    private static final int FETCH_SIZE = 1000;
+    /* Closures are weighted by identities count in tiered storage, see cache.properties. */
+    private static final CacheWeigher<Long, long[]> CLOSURE_WEIGHER = new CacheWeigher<Long, long[]>() {
+
+        @Override
+        public int weigh(Long key, long[] value) {
+            return Math.max(1, value.length);
+        }
+    };
 
     /* Caches implementation. */
     private final Cache<Long, Actor> codeToActorCache;
@@ -66,8 +79,9 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
     private final Cache<String, Executor> nameToExecutorCache;
     private final Cache<Long, HashSet<Executor>> groupToMembersCache;
     private final Cache<Long, HashSet<Group>> executorToParentGroupsCache;
-    private final Cache<Long, HashSet<Actor>> groupToAllActorMembersCache;
-    private final Cache<Long, HashSet<Group>> executorToAllParentGroupsCache;
+    /* Membership closures as sorted executor identities, see MembershipClosure. */
+    private final Cache<Long, long[]> groupToAllActorMembersCache;
+    private final Cache<Long, long[]> executorToAllParentGroupsCache;
     private final Cache<Class<?>, ConcurrentHashMap<BatchPresentationFieldEquals, List<Executor>>> batchAllExecutors;
 
     public ExecutorCacheImpl() {
@@ -80,14 +94,14 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
         nameToExecutorCache = createCache(executorsByNameName);
         groupToMembersCache = createCache(groupMembersName);
         executorToParentGroupsCache = createCache(executorParentsName);
-        groupToAllActorMembersCache = createCache(allGroupActorsName);
-        executorToAllParentGroupsCache = createCache(allExecutorGroupsName);
+        groupToAllActorMembersCache = createCache(allGroupActorsName, CLOSURE_WEIGHER);
+        executorToAllParentGroupsCache = createCache(allExecutorGroupsName, CLOSURE_WEIGHER);
         batchAllExecutors = createCache(allExecutorsListsName);
         List<Executor> allExecutors = getAllExecutors();
         if (!context.isInitializationStillRequired()) {
             return;
         }
-        List<ExecutorGroupMembership> memberships = getAllMemberships();
+        List<long[]> memberships = getAllMembershipIds();
         if (!context.isInitializationStillRequired()) {
             return;
         }
@@ -122,7 +136,7 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
 
     @Override
     public Set<Actor> getGroupActorsAll(Group group) {
-        return (Set<Actor>) SerializationUtils.clone(groupToAllActorMembersCache.get(group.getId()));
+        return (Set<Actor>) SerializationUtils.clone(this.<Actor> getExecutors(groupToAllActorMembersCache.get(group.getId())));
     }
 
     @Override
@@ -132,7 +146,34 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
 
     @Override
     public Set<Group> getExecutorParentsAll(Executor executor) {
-        return (Set<Group>) SerializationUtils.clone(executorToAllParentGroupsCache.get(executor.getId()));
+        return (Set<Group>) SerializationUtils.clone(this.<Group> getExecutors(executorToAllParentGroupsCache.get(executor.getId())));
+    }
+
+    @Override
+    public Boolean isExecutorInGroup(Executor executor, Group group) {
+        long[] parentIds = executorToAllParentGroupsCache.get(executor.getId());
+        if (parentIds == null) {
+            return null;
+        }
+        return MembershipClosure.contains(parentIds, group.getId());
+    }
+
+    /**
+     * @return executors with specified identities or null if some of them is not cached.
+     */
+    private <T extends Executor> HashSet<T> getExecutors(long[] ids) {
+        if (ids == null) {
+            return null;
+        }
+        HashSet<T> result = new HashSet<T>(ids.length * 2);
+        for (long id : ids) {
+            T executor = (T) idToExecutorCache.get(id);
+            if (executor == null) {
+                return null;
+            }
+            result.add(executor);
+        }
+        return result;
     }
 
     @Override
@@ -181,13 +222,7 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
             codeToActorCache.remove(((Actor) executor).getCode());
         }
         batchAllExecutors.clear();
-        Set<Group> upperGroups = executorToAllParentGroupsCache.get(executor.getId());
-        if (upperGroups != null) {
-            for (Group upperGroup : upperGroups) {
-                groupToMembersCache.remove(upperGroup.getId());
-                groupToAllActorMembersCache.remove(upperGroup.getId());
-            }
-        }
+        clearUpperGroupsCaches(executor);
         return clearGroupMembersCaches(executor);
     }
 
@@ -211,14 +246,18 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
         groupToMembersCache.remove(group.getId());
         groupToAllActorMembersCache.remove(group.getId());
         batchAllExecutors.clear();
-        Set<Group> upperGroups = executorToAllParentGroupsCache.get(group.getId());
-        if (upperGroups != null) {
-            for (Group upperGroup : upperGroups) {
-                groupToMembersCache.remove(upperGroup.getId());
-                groupToAllActorMembersCache.remove(upperGroup.getId());
+        clearUpperGroupsCaches(group);
+        return result;
+    }
+
+    private void clearUpperGroupsCaches(Executor executor) {
+        long[] upperGroupIds = executorToAllParentGroupsCache.get(executor.getId());
+        if (upperGroupIds != null) {
+            for (long upperGroupId : upperGroupIds) {
+                groupToMembersCache.remove(upperGroupId);
+                groupToAllActorMembersCache.remove(upperGroupId);
             }
         }
-        return result;
     }
 
     public boolean onExecutorInGroupChange(Executor executor) {
@@ -243,11 +282,26 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
         return retVal;
     }
 
-    private void fillGroupMembersCaches(CacheInitializationContext<ManageableExecutorCache> context, List<ExecutorGroupMembership> memberships,
+    private void fillGroupMembersCaches(CacheInitializationContext<ManageableExecutorCache> context, List<long[]> memberships,
             List<Executor> executors) {
-        for (ExecutorGroupMembership membership : memberships) {
-            getCollectionFromMap(groupToMembersCache, membership.getGroup().getId()).add(membership.getExecutor());
-            getCollectionFromMap(executorToParentGroupsCache, membership.getExecutor().getId()).add(membership.getGroup());
+        Map<Long, Executor> idToExecutor = new HashMap<Long, Executor>(executors.size() * 2);
+        Set<Long> groupIds = new HashSet<Long>();
+        for (Executor executor : executors) {
+            idToExecutor.put(executor.getId(), executor);
+            if (executor instanceof Group) {
+                groupIds.add(executor.getId());
+            }
+        }
+        List<long[]> existingMemberships = new ArrayList<long[]>(memberships.size());
+        for (long[] membership : memberships) {
+            Group group = (Group) idToExecutor.get(membership[0]);
+            Executor executor = idToExecutor.get(membership[1]);
+            if (group == null || executor == null) {
+                continue;
+            }
+            existingMemberships.add(membership);
+            getCollectionFromMap(groupToMembersCache, group.getId()).add(executor);
+            getCollectionFromMap(executorToParentGroupsCache, executor.getId()).add(group);
             if (!context.isInitializationStillRequired()) {
                 return;
             }
@@ -263,11 +317,11 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
                 return;
             }
         }
-
+        MembershipClosure closure = new MembershipClosure(existingMemberships, groupIds);
         for (Executor executor : executors) {
-            fillAllParentsCache(executorToAllParentGroupsCache, nameToExecutorCache.get(executor.getName()), executorToParentGroupsCache);
+            executorToAllParentGroupsCache.put(executor.getId(), closure.getAllParents(executor.getId()));
             if (executor instanceof Group) {
-                fillActorMembersCache(groupToAllActorMembersCache, (Group) (nameToExecutorCache.get(executor.getName())), groupToMembersCache);
+                groupToAllActorMembersCache.put(executor.getId(), closure.getAllActorMembers(executor.getId()));
             }
             if (!context.isInitializationStillRequired()) {
                 return;
@@ -275,53 +329,41 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
         }
     }
 
-    private Set<Group> fillAllParentsCache(Cache<Long, HashSet<Group>> cache, Executor executor, Cache<Long, HashSet<Group>> mapExecutorToParents) {
-        HashSet<Group> executorGroups = cache.get(executor.getId());
-        if (executorGroups != null) {
-            return executorGroups;
-        }
-        executorGroups = new HashSet<Group>();
-        cache.put(executor.getId(), executorGroups);
-        if (mapExecutorToParents.get(executor.getId()) != null) {
-            for (Group group : mapExecutorToParents.get(executor.getId())) {
-                executorGroups.add(group);
-                executorGroups.addAll(fillAllParentsCache(cache, group, mapExecutorToParents));
+    /**
+     * Loads memberships as (group id, executor id) pairs; executors are resolved from already loaded ones.
+     */
+    private List<long[]> getAllMembershipIds() {
+        Session session = ApplicationContextFactory.getCurrentSession();
+        ScrollableResults results = session.createQuery("select m.group.id, m.executor.id from ExecutorGroupMembership m").setFetchSize(FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            List<long[]> memberships = new ArrayList<long[]>();
+            while (results.next()) {
+                memberships.add(new long[] { (Long) results.get(0), (Long) results.get(1) });
             }
+            return memberships;
+        } finally {
+            results.close();
         }
-        return executorGroups;
     }
 
-    private Set<Actor> fillActorMembersCache(Cache<Long, HashSet<Actor>> cache, Group group, Cache<Long, HashSet<Executor>> mapGroupToMembers) {
-        HashSet<Actor> actorMembers = cache.get(group.getId());
-        if (actorMembers != null) {
-            return actorMembers;
-        }
-        actorMembers = new HashSet<Actor>();
-        cache.put(group.getId(), actorMembers);
-        if (mapGroupToMembers.get(group.getId()) != null) {
-            for (Executor ex : mapGroupToMembers.get(group.getId())) {
-                if (ex instanceof Actor) {
-                    actorMembers.add((Actor) ex);
-                } else {
-                    actorMembers.addAll(fillActorMembersCache(cache, (Group) ex, mapGroupToMembers));
-                }
+    /**
+     * Streams executors evicting them from session so it does not grow with whole table.
+     */
+    private List<Executor> getAllExecutors() {
+        Session session = ApplicationContextFactory.getCurrentSession();
+        ScrollableResults results = session.createQuery("from Executor").setFetchSize(FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            List<Executor> executors = new ArrayList<Executor>();
+            while (results.next()) {
+                Executor executor = (Executor) results.get(0);
+                session.evict(executor);
+                executors.add(executor);
             }
+            return executors;
+        } finally {
+            results.close();
         }
-        return actorMembers;
-    }
-
-    private <T> List<T> getAll(Class<?> clazz) {
-        Session session = ApplicationContextFactory.getCurrentSession();
-        Criteria criteria = session.createCriteria(clazz);
-        return criteria.list();
-    }
-
-    private List<ExecutorGroupMembership> getAllMemberships() {
-        return getAll(ExecutorGroupMembership.class);
-    }
-
-    private List<Executor> getAllExecutors() {
-        return getAll(Executor.class);
     }
 
     private class BatchPresentationFieldEquals {
@@ -48,6 +48,11 @@ class ExecutorCacheProxy implements ManageableExecutorCache {
         return null;
     }
 
+    @Override
+    public Boolean isExecutorInGroup(Executor executor, Group group) {
+        return null;
+    }
+
     @Override
     public <T extends Executor> VersionedCacheData<List<T>> getAllExecutor(Class<T> clazz, BatchPresentation batch) {
         return null;
@@ -85,6 +85,15 @@ class ExecutorCacheStateCtrl extends BaseCacheCtrl<ManageableExecutorCache> impl
         return cache.getExecutorParentsAll(executor);
     }
 
+    @Override
+    public Boolean isExecutorInGroup(Executor executor, Group group) {
+        ManageableExecutorCache cache = CachingLogic.getCacheImplIfNotLocked(stateMachine);
+        if (cache == null) {
+            return null;
+        }
+        return cache.isExecutorInGroup(executor, group);
+    }
+
     @Override
     public <T extends Executor> VersionedCacheData<List<T>> getAllExecutor(Class<T> clazz, BatchPresentation batch) {
         ManageableExecutorCache cache = CachingLogic.getCacheImplIfNotLocked(stateMachine);
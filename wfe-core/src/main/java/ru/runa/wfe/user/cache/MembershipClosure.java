@@ -0,0 +1,144 @@
+package ru.runa.wfe.user.cache;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transitive closures of group membership over executor identities. Relations are stored as sorted primitive arrays which are much more compact
+ * than sets of executors and allow membership check with binary search.
+ *
+ * @since 4.3.0
+ */
+class MembershipClosure {
+    private static final long[] EMPTY = new long[0];
+    private final Set<Long> groupIds;
+    private final Map<Long, long[]> groupToMembers = new HashMap<Long, long[]>();
+    private final Map<Long, long[]> executorToParents = new HashMap<Long, long[]>();
+    private final Map<Long, long[]> groupToAllActorMembers = new HashMap<Long, long[]>();
+    private final Map<Long, long[]> executorToAllParents = new HashMap<Long, long[]>();
+
+    /**
+     * @param memberships
+     *            direct memberships as (group id, executor id) pairs.
+     * @param groupIds
+     *            identities of all groups; other executors are considered actors.
+     */
+    MembershipClosure(List<long[]> memberships, Set<Long> groupIds) {
+        this.groupIds = groupIds;
+        Map<Long, LongArrayBuilder> members = new HashMap<Long, LongArrayBuilder>();
+        Map<Long, LongArrayBuilder> parents = new HashMap<Long, LongArrayBuilder>();
+        for (long[] membership : memberships) {
+            getBuilder(members, membership[0]).add(membership[1]);
+            getBuilder(parents, membership[1]).add(membership[0]);
+        }
+        for (Map.Entry<Long, LongArrayBuilder> entry : members.entrySet()) {
+            groupToMembers.put(entry.getKey(), entry.getValue().toSortedArray());
+        }
+        for (Map.Entry<Long, LongArrayBuilder> entry : parents.entrySet()) {
+            executorToParents.put(entry.getKey(), entry.getValue().toSortedArray());
+        }
+    }
+
+    /**
+     * @return sorted identities of groups which contain executor directly or through subgroups.
+     */
+    long[] getAllParents(long executorId) {
+        long[] result = executorToAllParents.get(executorId);
+        if (result != null) {
+            return result;
+        }
+        // protects from membership cycles
+        executorToAllParents.put(executorId, EMPTY);
+        long[] parents = executorToParents.get(executorId);
+        if (parents == null) {
+            return EMPTY;
+        }
+        LongArrayBuilder builder = new LongArrayBuilder();
+        for (long parent : parents) {
+            builder.add(parent);
+            builder.addAll(getAllParents(parent));
+        }
+        result = builder.toSortedArray();
+        executorToAllParents.put(executorId, result);
+        return result;
+    }
+
+    /**
+     * @return sorted identities of actors which are members of group directly or through subgroups.
+     */
+    long[] getAllActorMembers(long groupId) {
+        long[] result = groupToAllActorMembers.get(groupId);
+        if (result != null) {
+            return result;
+        }
+        groupToAllActorMembers.put(groupId, EMPTY);
+        long[] members = groupToMembers.get(groupId);
+        if (members == null) {
+            return EMPTY;
+        }
+        LongArrayBuilder builder = new LongArrayBuilder();
+        for (long member : members) {
+            if (groupIds.contains(member)) {
+                builder.addAll(getAllActorMembers(member));
+            } else {
+                builder.add(member);
+            }
+        }
+        result = builder.toSortedArray();
+        groupToAllActorMembers.put(groupId, result);
+        return result;
+    }
+
+    static boolean contains(long[] sortedIds, long id) {
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    private static LongArrayBuilder getBuilder(Map<Long, LongArrayBuilder> map, long key) {
+        LongArrayBuilder builder = map.get(key);
+        if (builder == null) {
+            builder = new LongArrayBuilder();
+            map.put(key, builder);
+        }
+        return builder;
+    }
+
+    private static class LongArrayBuilder {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(long[] array) {
+            if (size + array.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(size * 2, size + array.length));
+            }
+            System.arraycopy(array, 0, values, size, array.length);
+            size += array.length;
+        }
+
+        /**
+         * @return sorted values without duplicates.
+         */
+        long[] toSortedArray() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            Arrays.sort(values, 0, size);
+            int unique = 1;
+            for (int i = 1; i < size; i++) {
+                if (values[i] != values[unique - 1]) {
+                    values[unique++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, unique);
+        }
+    }
+}
@@ -541,6 +541,10 @@ public class ExecutorDAO extends CommonDAO implements IExecutorDAO {
      * @return true if executor belongs to group recursively; false in any other case.
      */
     public boolean isExecutorInGroup(Executor executor, Group group) {
+        Boolean cached = executorCacheCtrl.isExecutorInGroup(executor, group);
+        if (cached != null) {
+            return cached;
+        }
         return getExecutorParentsAll(executor, true).contains(group);
     }
 
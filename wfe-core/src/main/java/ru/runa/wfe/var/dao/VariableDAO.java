@@ -46,6 +46,20 @@ public class VariableDAO extends GenericDAO<Variable> {
         return variables;
     }
 
+    /**
+     * Load all variables of process.
+     *
+     * @return map from variable name to variable.
+     */
+    public Map<String, Variable<?>> getVariables(Process process) {
+        Map<String, Variable<?>> result = Maps.newHashMap();
+        List<Variable<?>> list = getHibernateTemplate().find("from Variable where process=?", process);
+        for (Variable<?> variable : list) {
+            result.put(variable.getName(), variable);
+        }
+        return result;
+    }
+
     /**
      * Load variables with given names for given processes.
      *
@@ -81,6 +95,11 @@ public class VariableDAO extends GenericDAO<Variable> {
         getHibernateTemplate().bulkUpdate("delete from Variable where process=?", process);
     }
 
+    public void deleteAll(List<Long> processIds) {
+        log.debug("deleting variables for " + processIds.size() + " processes");
+        bulkUpdateByIds("delete from Variable where process.id in (:ids)", processIds);
+    }
+
     /**
      * @deprecated Use {@link VariableLoader} in case of mass variable loading.
      */
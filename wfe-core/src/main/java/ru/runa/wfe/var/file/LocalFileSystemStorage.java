@@ -1,17 +1,48 @@
 package ru.runa.wfe.var.file;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.var.Variable;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 
+/**
+ * Stores large file variables on local drive. Since 4.3.0 content is stored by SHA-1 hash under {@value #CONTENT_DIR} directory so equal files
+ * share single copy on disk. Uploaded files are staged under {@value #UPLOAD_DIR} directory, each upload is owned by actor and optionally
+ * bound to process; owner is kept in file with {@value #UPLOAD_OWNER_SUFFIX} suffix.
+ */
 public class LocalFileSystemStorage implements IFileVariableStorage {
+    private static final Log log = LogFactory.getLog(LocalFileSystemStorage.class);
+    public static final String CONTENT_DIR = "content";
+    public static final String UPLOAD_DIR = "upload";
+    public static final String UPLOAD_OWNER_SUFFIX = ".owner";
+    private static final long UPLOAD_TIME_TO_LIVE = 24 * 60 * 60 * 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
     private static File storageDir = new File(SystemProperties.getLocalFileStoragePath());
 
     static {
@@ -36,6 +67,215 @@ public class LocalFileSystemStorage implements IFileVariableStorage {
         return file;
     }
 
+    /**
+     * @return content file for {@link IFileVariable#getStringValue()} referencing deduplicated content or <code>null</code>
+     */
+    public static File findContentFile(String stringValue) {
+        if (stringValue == null || !stringValue.startsWith(CONTENT_DIR + "/") || stringValue.contains("..")) {
+            return null;
+        }
+        File file = new File(storageDir, stringValue);
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * @return file containing variable data or <code>null</code> in case of data held in memory
+     */
+    public static File getFile(IFileVariable fileVariable) {
+        if (fileVariable instanceof LocalFileSystemVariable) {
+            return getContentFile(((LocalFileSystemVariable) fileVariable).getVariablePath(), false);
+        }
+        if (fileVariable instanceof FileVariableDescriptor) {
+            return getContentFile(((FileVariableDescriptor) fileVariable).getVariablePath(), false);
+        }
+        if (fileVariable instanceof UploadedFileVariable) {
+            return getUploadFile(((UploadedFileVariable) fileVariable).getUploadId());
+        }
+        return null;
+    }
+
+    /**
+     * Opens variable data without reading it into memory if possible.
+     */
+    public static InputStream openStream(IFileVariable fileVariable) throws IOException {
+        File file = getFile(fileVariable);
+        if (file != null) {
+            return new FileInputStream(file);
+        }
+        return new ByteArrayInputStream(fileVariable.getData());
+    }
+
+    public static long getLength(IFileVariable fileVariable) {
+        File file = getFile(fileVariable);
+        if (file != null) {
+            return file.length();
+        }
+        return fileVariable.getData().length;
+    }
+
+    /**
+     * Reads part of variable data.
+     *
+     * @return up to <code>length</code> bytes starting from <code>offset</code>, empty array at the end of data
+     */
+    public static byte[] readChunk(IFileVariable fileVariable, long offset, int length) {
+        File file = getFile(fileVariable);
+        if (file == null) {
+            byte[] data = fileVariable.getData();
+            int from = (int) Math.min(offset, data.length);
+            return Arrays.copyOfRange(data, from, (int) Math.min((long) from + length, data.length));
+        }
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                long available = Math.max(0, channel.size() - offset);
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, available));
+                while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                }
+                return buffer.array();
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new InternalApplicationException("Unable to read file variable from '" + file + "'", e);
+        }
+    }
+
+    /**
+     * Starts new staged upload.
+     *
+     * @param actorId
+     *            upload owner
+     * @param processId
+     *            process which variables can be set from upload, <code>null</code> for upload used by owner in any process
+     * @return upload id
+     */
+    public static String createUpload(Long actorId, Long processId) {
+        String uploadId = UUID.randomUUID().toString();
+        File file = getContentFile(UPLOAD_DIR + "/" + uploadId, true);
+        String owner = actorId + ";" + (processId != null ? processId : "");
+        try {
+            Files.write(owner, new File(file.getParentFile(), uploadId + UPLOAD_OWNER_SUFFIX), Charsets.UTF_8);
+        } catch (IOException e) {
+            file.delete();
+            throw new InternalApplicationException("Unable to create upload '" + file + "'", e);
+        }
+        return uploadId;
+    }
+
+    /**
+     * Appends data to staged upload. Upload exceeding {@link SystemProperties#getLocalFileStorageUploadMaxSize()} is removed.
+     */
+    public static void appendUpload(String uploadId, Long actorId, InputStream inputStream) {
+        checkUpload(uploadId, actorId, null, false);
+        File file = getUploadFile(uploadId);
+        long maxSize = SystemProperties.getLocalFileStorageUploadMaxSize();
+        long copied;
+        try {
+            OutputStream outputStream = new FileOutputStream(file, true);
+            try {
+                copied = ByteStreams.copy(ByteStreams.limit(inputStream, maxSize - file.length() + 1), outputStream);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new InternalApplicationException("Unable to write upload to '" + file + "'", e);
+        }
+        if (file.length() > maxSize) {
+            removeUpload(file);
+            throw new InternalApplicationException("Upload " + uploadId + " exceeds max size " + maxSize + " bytes, removed");
+        }
+        log.debug("Appended " + copied + " bytes to upload " + uploadId);
+    }
+
+    /**
+     * Reads part of staged upload owned by actor.
+     *
+     * @return up to <code>length</code> bytes starting from <code>offset</code>, empty array at the end of data
+     */
+    public static byte[] readUploadChunk(String uploadId, Long actorId, long offset, int length) {
+        checkUpload(uploadId, actorId, null, false);
+        return readChunk(new UploadedFileVariable(null, null, uploadId), offset, length);
+    }
+
+    /**
+     * Checks that staged upload is owned by actor and can be used in process.
+     *
+     * @param processId
+     *            process which variables are set, <code>null</code> on process start
+     */
+    public static void checkUpload(String uploadId, Long actorId, Long processId) {
+        checkUpload(uploadId, actorId, processId, true);
+    }
+
+    private static void checkUpload(String uploadId, Long actorId, Long processId, boolean checkProcess) {
+        File ownerFile = new File(getUploadFile(uploadId).getParentFile(), uploadId + UPLOAD_OWNER_SUFFIX);
+        String owner;
+        try {
+            owner = ownerFile.isFile() ? Files.toString(ownerFile, Charsets.UTF_8) : ";";
+        } catch (IOException e) {
+            throw new InternalApplicationException("Unable to read upload owner from '" + ownerFile + "'", e);
+        }
+        int index = owner.indexOf(';');
+        String ownerActorId = owner.substring(0, index);
+        String ownerProcessId = owner.substring(index + 1);
+        if (!ownerActorId.equals(String.valueOf(actorId))) {
+            throw new AuthorizationException("Upload " + uploadId + " is not owned by actor " + actorId);
+        }
+        if (checkProcess && ownerProcessId.length() > 0 && !Objects.equal(ownerProcessId, String.valueOf(processId))) {
+            throw new AuthorizationException("Upload " + uploadId + " is bound to process " + ownerProcessId);
+        }
+    }
+
+    /**
+     * Removes staged uploads not modified during one day.
+     *
+     * @return removed uploads count
+     */
+    public static int removeExpiredUploads() {
+        File[] files = new File(storageDir, UPLOAD_DIR).listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long expirationTime = System.currentTimeMillis() - UPLOAD_TIME_TO_LIVE;
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(UPLOAD_OWNER_SUFFIX)) {
+                // removed with upload or when left without upload
+                String uploadId = file.getName().substring(0, file.getName().length() - UPLOAD_OWNER_SUFFIX.length());
+                if (file.exists() && file.lastModified() < expirationTime && !new File(file.getParentFile(), uploadId).exists() && !file.delete()) {
+                    log.warn("Unable to delete expired upload owner " + file);
+                }
+                continue;
+            }
+            if (file.lastModified() < expirationTime) {
+                removeUpload(file);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void removeUpload(File file) {
+        if (!file.delete()) {
+            log.warn("Unable to delete upload " + file);
+        }
+        File ownerFile = new File(file.getParentFile(), file.getName() + UPLOAD_OWNER_SUFFIX);
+        if (ownerFile.exists() && !ownerFile.delete()) {
+            log.warn("Unable to delete upload owner " + ownerFile);
+        }
+    }
+
+    public static File getUploadFile(String uploadId) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new InternalApplicationException("Invalid upload id '" + uploadId + "'");
+        }
+        return getContentFile(UPLOAD_DIR + "/" + uploadId, false);
+    }
+
     @Override
     public Object save(ExecutionContext executionContext, Variable<?> variable, Object object) {
         if (object instanceof IFileVariable) {
@@ -53,17 +293,70 @@ public class LocalFileSystemStorage implements IFileVariableStorage {
     }
 
     private IFileVariable save(Variable<?> variable, IFileVariable fileVariable, Integer index) {
-        if (SystemProperties.isLocalFileStorageEnabled() && fileVariable != null
-                && fileVariable.getData().length > SystemProperties.getLocalFileStorageFileLimit()) {
+        if (fileVariable == null) {
+            return null;
+        }
+        if (SystemProperties.isLocalFileStorageEnabled() && getLength(fileVariable) > SystemProperties.getLocalFileStorageFileLimit()) {
+            if (fileVariable instanceof LocalFileSystemVariable
+                    && findContentFile(((LocalFileSystemVariable) fileVariable).getVariablePath()) != null) {
+                // content is already deduplicated
+                return fileVariable;
+            }
             try {
-                String variableName = index != null ? variable.getName() + index : variable.getName();
-                LocalFileSystemVariable fileSystemVariable = new LocalFileSystemVariable(variable, variableName, fileVariable);
-                Files.write(fileVariable.getData(), getContentFile(fileSystemVariable.getVariablePath(), true));
-                return fileSystemVariable;
+                String contentPath = saveContent(fileVariable);
+                return new LocalFileSystemVariable(contentPath, fileVariable);
             } catch (IOException e) {
                 throw new InternalApplicationException("Unable to save file variable to local drive", e);
             }
         }
+        if (fileVariable instanceof UploadedFileVariable) {
+            // staged uploads are removed after expiration
+            return new FileVariable(fileVariable);
+        }
         return fileVariable;
     }
+
+    /**
+     * Copies data to content storage calculating hash on the fly.
+     *
+     * @return content path relative to storage directory
+     */
+    private static String saveContent(IFileVariable fileVariable) throws IOException {
+        File contentDir = new File(storageDir, CONTENT_DIR);
+        contentDir.mkdirs();
+        File temporaryFile = File.createTempFile("content", ".tmp", contentDir);
+        Hasher hasher = Hashing.sha1().newHasher();
+        InputStream inputStream = openStream(fileVariable);
+        try {
+            OutputStream outputStream = new FileOutputStream(temporaryFile);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    hasher.putBytes(buffer, 0, count);
+                    outputStream.write(buffer, 0, count);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            temporaryFile.delete();
+            throw e;
+        } finally {
+            Closeables.closeQuietly(inputStream);
+        }
+        String hash = hasher.hash().toString();
+        String contentPath = CONTENT_DIR + "/" + hash.substring(0, 2) + "/" + hash;
+        File contentFile = new File(storageDir, contentPath);
+        contentFile.getParentFile().mkdirs();
+        if (contentFile.exists() || !temporaryFile.renameTo(contentFile)) {
+            if (!contentFile.exists()) {
+                temporaryFile.delete();
+                throw new IOException("Unable to move content to '" + contentFile + "'");
+            }
+            temporaryFile.delete();
+            log.debug("Reused content " + contentPath + " for " + fileVariable.getName());
+        }
+        return contentPath;
+    }
 }
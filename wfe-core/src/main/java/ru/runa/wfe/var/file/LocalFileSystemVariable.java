@@ -39,6 +39,17 @@ public class LocalFileSystemVariable implements IFileVariable {
         variablePath = variable.getProcess().getId() + "/" + b + "/" + version;
     }
 
+    /**
+     * @param contentPath
+     *            path of deduplicated content in {@link LocalFileSystemStorage}
+     * @since 4.3.0
+     */
+    public LocalFileSystemVariable(String contentPath, IFileVariable fileVariable) {
+        name = fileVariable.getName();
+        contentType = fileVariable.getContentType();
+        variablePath = contentPath;
+    }
+
     public String getVariablePath() {
         return variablePath;
     }
@@ -77,7 +88,7 @@ public class LocalFileSystemVariable implements IFileVariable {
     public boolean equals(Object obj) {
         if (obj instanceof LocalFileSystemVariable) {
             LocalFileSystemVariable f = (LocalFileSystemVariable) obj;
-            return Objects.equal(variablePath, f.variablePath);
+            return Objects.equal(variablePath, f.variablePath) && Objects.equal(name, f.name) && Objects.equal(contentType, f.contentType);
         }
         return false;
     }
@@ -0,0 +1,64 @@
+package ru.runa.wfe.var.file;
+
+import java.io.File;
+import java.io.IOException;
+
+import ru.runa.wfe.InternalApplicationException;
+
+import com.google.common.base.Objects;
+import com.google.common.io.Files;
+
+/**
+ * File variable which data is staged in {@link LocalFileSystemStorage} by chunks. Replaced by stored variable on save.
+ *
+ * @since 4.3.0
+ */
+public class UploadedFileVariable implements IFileVariable {
+    private static final long serialVersionUID = 1L;
+    private String name;
+    private String contentType;
+    private String uploadId;
+
+    public UploadedFileVariable() {
+    }
+
+    public UploadedFileVariable(String name, String contentType, String uploadId) {
+        this.name = name;
+        this.contentType = contentType;
+        this.uploadId = uploadId;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] getData() {
+        File file = LocalFileSystemStorage.getUploadFile(uploadId);
+        try {
+            return Files.toByteArray(file);
+        } catch (IOException e) {
+            throw new InternalApplicationException("Unable to read file variable from '" + file + "'", e);
+        }
+    }
+
+    @Override
+    public String getStringValue() {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("name", name).add("uploadId", uploadId).toString();
+    }
+}
@@ -97,6 +97,14 @@ public class VariableLogic extends WFCommonLogic {
         return getVariable(user, processId, variableName);
     }
 
+    /**
+     * Checks permission to change process state, i.e. to stage file upload bound to process.
+     */
+    public void checkProcessUpdateAllowed(User user, Long processId) throws ProcessDoesNotExistException {
+        Process process = processDAO.getNotNull(processId);
+        checkPermissionAllowed(user, process, ProcessPermission.UPDATE_PERMISSIONS);
+    }
+
     public void updateVariables(User user, Long processId, Map<String, Object> variables) {
         Process process = processDAO.getNotNull(processId);
         // TODO check ProcessPermission.UPDATE
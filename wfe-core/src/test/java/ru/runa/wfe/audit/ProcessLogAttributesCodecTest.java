@@ -0,0 +1,78 @@
+package ru.runa.wfe.audit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Maps;
+
+public class ProcessLogAttributesCodecTest extends Assert {
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put(IAttributes.ATTR_TRANSITION_ID, "tr1");
+        attributes.put(IAttributes.ATTR_NODE_ID_FROM, "ID12");
+        attributes.put(IAttributes.ATTR_NODE_ID_TO, "ID0");
+        attributes.put(IAttributes.ATTR_NODE_TYPE, "TASK_STATE");
+        attributes.put(IAttributes.ATTR_IS_FILE_VALUE, "false");
+        attributes.put(IAttributes.ATTR_TASK_ID, "1234567890123");
+        attributes.put(IAttributes.ATTR_INDEX, "-5");
+        attributes.put(IAttributes.ATTR_VARIABLE_NAME, "Сумма заявки");
+        attributes.put(IAttributes.ATTR_MESSAGE, "1;2;3");
+        attributes.put(IAttributes.ATTR_PARAM + 7, "custom");
+        HashMap<String, String> decoded = ProcessLogAttributesCodec.decode(ProcessLogAttributesCodec.encode(attributes));
+        assertEquals(decoded, attributes);
+    }
+
+    @Test
+    public void testNonCanonicalNumbersKeptAsText() {
+        String[] values = { "007", "-0", "0", "-", "", "ID", "ID01", "ID-1", "tr", "tr1.5", "1234567890123456789012", "null" };
+        for (String value : values) {
+            Map<String, String> attributes = Maps.newHashMap();
+            attributes.put(IAttributes.ATTR_NEW_VALUE, value);
+            assertEquals(ProcessLogAttributesCodec.decode(ProcessLogAttributesCodec.encode(attributes), IAttributes.ATTR_NEW_VALUE), value);
+        }
+    }
+
+    @Test
+    public void testSingleAttribute() {
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put(IAttributes.ATTR_ACTOR_NAME, "approver");
+        attributes.put(IAttributes.ATTR_TASK_ID, "42");
+        attributes.put(IAttributes.ATTR_NODE_ID_TO, "ID3");
+        attributes.put("legacyName", "legacyValue");
+        byte[] data = ProcessLogAttributesCodec.encode(attributes);
+        assertEquals(ProcessLogAttributesCodec.decode(data, IAttributes.ATTR_TASK_ID), "42");
+        assertEquals(ProcessLogAttributesCodec.decode(data, IAttributes.ATTR_NODE_ID_TO), "ID3");
+        assertEquals(ProcessLogAttributesCodec.decode(data, "legacyName"), "legacyValue");
+        assertNull(ProcessLogAttributesCodec.decode(data, IAttributes.ATTR_TASK_NAME));
+        assertNull(ProcessLogAttributesCodec.decode(data, "unknown"));
+    }
+
+    @Test
+    public void testEncodingIsStable() {
+        Map<String, String> attributes = Maps.newHashMap();
+        Map<String, String> reversed = Maps.newLinkedHashMap();
+        for (int i = 0; i < 20; i++) {
+            attributes.put("name" + i, "value" + i);
+        }
+        for (int i = 19; i >= 0; i--) {
+            reversed.put("name" + i, "value" + i);
+        }
+        assertEquals(ProcessLogAttributesCodec.encode(reversed), ProcessLogAttributesCodec.encode(attributes));
+        assertEquals(ProcessLogAttributesCodec.encode(new HashMap<String, String>()), new byte[] { ProcessLogAttributesCodec.VERSION_1 });
+    }
+
+    @Test
+    public void testNodeIdsAreCompact() {
+        Map<String, String> attributes = Maps.newHashMap();
+        attributes.put(IAttributes.ATTR_TRANSITION_ID, "tr1");
+        attributes.put(IAttributes.ATTR_NODE_ID_FROM, "ID1");
+        attributes.put(IAttributes.ATTR_NODE_ID_TO, "ID2");
+        // version byte and 3 bytes per attribute: header, prefix code and number
+        assertEquals(ProcessLogAttributesCodec.encode(attributes).length, 10);
+    }
+}
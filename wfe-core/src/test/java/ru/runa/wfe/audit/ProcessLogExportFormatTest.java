@@ -0,0 +1,54 @@
+package ru.runa.wfe.audit;
+
+import java.io.StringWriter;
+import java.util.Date;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ProcessLogExportFormatTest extends Assert {
+
+    @Test
+    public void testNdjson() throws Exception {
+        StringWriter writer = new StringWriter();
+        ProcessLogExportFormat.NDJSON.writeHeader(writer);
+        ProcessLogExportFormat.NDJSON.write(writer, createLog(1L), "started \"process\"");
+        ProcessLogExportFormat.NDJSON.write(writer, createLog(2L), null);
+        String[] lines = writer.toString().split("\n");
+        assertEquals(lines.length, 2);
+        JSONObject object = (JSONObject) new JSONParser().parse(lines[0]);
+        assertEquals(object.get("id"), 1L);
+        assertEquals(object.get("processId"), 10L);
+        assertEquals(object.get("nodeId"), "ID1");
+        assertEquals(object.get("severity"), "INFO");
+        assertEquals(object.get("type"), "ProcessStartLog");
+        assertEquals(object.get("description"), "started \"process\"");
+        assertNull(((JSONObject) new JSONParser().parse(lines[1])).get("description"));
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        StringWriter writer = new StringWriter();
+        ProcessLogExportFormat.CSV.writeHeader(writer);
+        ProcessLogExportFormat.CSV.write(writer, createLog(1L), "a, \"b\"");
+        ProcessLogExportFormat.CSV.write(writer, createLog(2L), null);
+        String[] lines = writer.toString().split("\r\n");
+        assertEquals(lines.length, 3);
+        assertEquals(lines[0], "id,processId,tokenId,nodeId,createDate,severity,type,description");
+        assertTrue(lines[1].startsWith("1,10,,ID1,"));
+        assertTrue(lines[1].endsWith(",INFO,ProcessStartLog,\"a, \"\"b\"\"\""));
+        assertTrue(lines[2].endsWith(",INFO,ProcessStartLog,"));
+    }
+
+    private ProcessLog createLog(Long id) {
+        ProcessLog log = new ProcessStartLog();
+        log.setId(id);
+        log.setProcessId(10L);
+        log.setNodeId("ID1");
+        log.setCreateDate(new Date());
+        log.setSeverity(Severity.INFO);
+        return log;
+    }
+}
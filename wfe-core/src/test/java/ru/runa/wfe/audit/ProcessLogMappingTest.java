@@ -0,0 +1,110 @@
+package ru.runa.wfe.audit;
+
+import java.util.Date;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AnnotationConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Boots {@link ProcessLog} hierarchy mapping on in-memory H2 database.
+ */
+public class ProcessLogMappingTest extends Assert {
+    private static final Class<?>[] LOG_CLASSES = { ProcessLog.class, ActionLog.class, AdminActionLog.class, CreateTimerActionLog.class,
+            NodeLog.class, NodeEnterLog.class, NodeLeaveLog.class, ProcessActivateLog.class, ProcessCancelLog.class, ProcessEndLog.class,
+            ProcessStartLog.class, ProcessSuspendLog.class, ReceiveMessageLog.class, SendMessageLog.class, SubprocessEndLog.class,
+            SubprocessStartLog.class, SwimlaneAssignLog.class, TaskLog.class, TaskAssignLog.class, TaskCancelledLog.class, TaskCreateLog.class,
+            TaskDelegationLog.class, TaskEndLog.class, TaskEndByAdminLog.class, TaskEndBySubstitutorLog.class, TaskEscalationLog.class,
+            TaskExpiredLog.class, TaskRemovedOnProcessEndLog.class, TransitionLog.class, VariableLog.class, VariableCreateLog.class,
+            VariableDeleteLog.class, VariableUpdateLog.class };
+    private SessionFactory sessionFactory;
+
+    @BeforeClass
+    public void buildSessionFactory() {
+        AnnotationConfiguration configuration = new AnnotationConfiguration();
+        for (Class<?> logClass : LOG_CLASSES) {
+            configuration.addAnnotatedClass(logClass);
+        }
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:processLogMapping;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.connection.username", "sa");
+        configuration.setProperty("hibernate.connection.password", "");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.cache.use_second_level_cache", "false");
+        configuration.setProperty("hibernate.generate_statistics", "true");
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    @AfterClass
+    public void closeSessionFactory() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    public void testBinaryAttributes() {
+        TransitionLog transitionLog = createTransitionLog();
+        transitionLog.addAttribute(IAttributes.ATTR_TRANSITION_ID, "tr1");
+        transitionLog.addAttribute(IAttributes.ATTR_NODE_ID_FROM, "ID1");
+        transitionLog.addAttribute(IAttributes.ATTR_NODE_ID_TO, "ID2");
+        Long id = save(transitionLog);
+        sessionFactory.getStatistics().clear();
+        Session session = sessionFactory.openSession();
+        try {
+            Transaction transaction = session.beginTransaction();
+            TransitionLog loaded = (TransitionLog) session.get(ProcessLog.class, id);
+            assertNull(loaded.getContent());
+            assertNotNull(loaded.getAttributesData());
+            assertEquals(loaded.getTransitionId(), "tr1");
+            assertEquals(loaded.getFromNodeId(), "ID1");
+            assertEquals(loaded.getToNodeId(), "ID2");
+            transaction.commit();
+        } finally {
+            session.close();
+        }
+        // loaded logs must not be updated by dirty checking
+        assertEquals(sessionFactory.getStatistics().getEntityUpdateCount(), 0);
+    }
+
+    @Test
+    public void testLegacyContent() {
+        TransitionLog transitionLog = createTransitionLog();
+        transitionLog.setContent("<r><transitionId>tr2</transitionId><nodeIdFrom>ID3</nodeIdFrom><nodeIdTo>ID4</nodeIdTo></r>");
+        Long id = save(transitionLog);
+        Session session = sessionFactory.openSession();
+        try {
+            TransitionLog loaded = (TransitionLog) session.get(ProcessLog.class, id);
+            assertNull(loaded.getAttributesData());
+            assertEquals(loaded.getTransitionId(), "tr2");
+            assertEquals(loaded.getToNodeId(), "ID4");
+        } finally {
+            session.close();
+        }
+    }
+
+    private TransitionLog createTransitionLog() {
+        TransitionLog transitionLog = new TransitionLog();
+        transitionLog.setProcessId(1L);
+        transitionLog.setCreateDate(new Date());
+        return transitionLog;
+    }
+
+    private Long save(ProcessLog processLog) {
+        Session session = sessionFactory.openSession();
+        try {
+            Transaction transaction = session.beginTransaction();
+            session.save(processLog);
+            transaction.commit();
+            return processLog.getId();
+        } finally {
+            session.close();
+        }
+    }
+}
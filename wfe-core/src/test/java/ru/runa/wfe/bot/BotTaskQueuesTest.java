@@ -0,0 +1,60 @@
+package ru.runa.wfe.bot;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class BotTaskQueuesTest {
+    private static final Long BOT_STATION_ID = 1L;
+    private final List<Long> notifications = Lists.newArrayList();
+    private final BotTaskQueues.Consumer consumer = new BotTaskQueues.Consumer() {
+
+        @Override
+        public void onBotTasksQueued(Long botStationId) {
+            notifications.add(botStationId);
+        }
+    };
+
+    @AfterMethod
+    public void unregister() {
+        BotTaskQueues.unregisterConsumer(BOT_STATION_ID);
+        notifications.clear();
+    }
+
+    @Test()
+    public void descriptorsWithoutConsumerAreIgnoredTest() {
+        BotTaskQueues.offer(Arrays.asList(new BotTaskDescriptor(BOT_STATION_ID, 10L, 100L)));
+        BotTaskQueues.registerConsumer(BOT_STATION_ID, consumer);
+        Assert.assertTrue(BotTaskQueues.drain(BOT_STATION_ID).isEmpty());
+        Assert.assertTrue(notifications.isEmpty());
+    }
+
+    @Test()
+    public void duplicatesAreQueuedOnceTest() {
+        BotTaskQueues.registerConsumer(BOT_STATION_ID, consumer);
+        BotTaskDescriptor descriptor = new BotTaskDescriptor(BOT_STATION_ID, 10L, 100L);
+        BotTaskQueues.offer(Arrays.asList(descriptor, new BotTaskDescriptor(BOT_STATION_ID, 11L, 100L)));
+        BotTaskQueues.offer(Arrays.asList(descriptor));
+        List<BotTaskDescriptor> drained = BotTaskQueues.drain(BOT_STATION_ID);
+        Assert.assertEquals(drained.size(), 2);
+        Assert.assertEquals(notifications, Arrays.asList(BOT_STATION_ID, BOT_STATION_ID));
+        Assert.assertTrue(BotTaskQueues.drain(BOT_STATION_ID).isEmpty());
+        Assert.assertFalse(BotTaskQueues.resetOverflow(BOT_STATION_ID));
+    }
+
+    @Test()
+    public void fullPollRequestsAreQueuedOnceTest() {
+        BotTaskQueues.registerConsumer(BOT_STATION_ID, consumer);
+        BotTaskQueues.offer(Arrays.asList(new BotTaskDescriptor(BOT_STATION_ID, 10L, null), new BotTaskDescriptor(BOT_STATION_ID, 10L, 100L)));
+        BotTaskQueues.offer(Arrays.asList(new BotTaskDescriptor(BOT_STATION_ID, 10L, null)));
+        List<BotTaskDescriptor> drained = BotTaskQueues.drain(BOT_STATION_ID);
+        Assert.assertEquals(drained.size(), 2);
+        Assert.assertNull(drained.get(0).getTaskId());
+        Assert.assertEquals(drained.get(1).getTaskId(), Long.valueOf(100L));
+    }
+}
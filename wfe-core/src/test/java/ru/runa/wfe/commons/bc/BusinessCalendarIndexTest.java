@@ -0,0 +1,100 @@
+package ru.runa.wfe.commons.bc;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.CalendarInterval;
+import ru.runa.wfe.commons.CalendarUtil;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Checks that indexed calculation gives the same results as day by day stepping.
+ */
+public class BusinessCalendarIndexTest extends Assert {
+
+    @Test
+    public void testDefaultCalendar() {
+        assertEquivalent(new DefaultBusinessCalendar(), new DefaultBusinessCalendar());
+    }
+
+    @Test
+    public void testIrregularCalendar() {
+        assertEquivalent(new IrregularBusinessCalendar(), new IrregularBusinessCalendar());
+    }
+
+    private void assertEquivalent(AbstractBusinessCalendar indexedCalendar, AbstractBusinessCalendar steppingCalendar) {
+        steppingCalendar.setIndexEnabled(false);
+        Random random = new Random(1);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++) {
+            // from 2.4 years ago to 1.6 years ahead, with seconds
+            Date baseDate = new Date(now + (long) ((random.nextDouble() - 0.6) * 4 * 365 * 24 * 60 * 60 * 1000) / 1000 * 1000);
+            int sign = random.nextBoolean() ? 1 : -1;
+            String durationString;
+            switch (random.nextInt(3)) {
+            case 0:
+                durationString = sign * (1 + random.nextInt(100000)) + " business minutes";
+                break;
+            case 1:
+                durationString = sign * (1 + random.nextInt(400)) + " business days";
+                break;
+            default:
+                durationString = sign * (1 + random.nextInt(3)) + " business years";
+            }
+            Date expected = steppingCalendar.apply(baseDate, durationString);
+            Date actual = indexedCalendar.apply(baseDate, durationString);
+            assertEquals(actual, expected, CalendarUtil.formatDateTime(baseDate) + " " + durationString);
+        }
+    }
+
+    /**
+     * Working saturdays, interval starting at midnight and random holidays.
+     */
+    private static class IrregularBusinessCalendar extends AbstractBusinessCalendar {
+        private final BusinessDay weekDay = createBusinessDay("08:30", "12:15", "13:00", "17:45");
+        private final BusinessDay wednesday = createBusinessDay("00:00", "06:00", "20:00", "23:30");
+        private final BusinessDay saturday = createBusinessDay("10:00", "14:00");
+        private final Set<Integer> holidays = Sets.newHashSet();
+
+        public IrregularBusinessCalendar() {
+            Random random = new Random(7);
+            for (int i = 0; i < 400; i++) {
+                holidays.add(random.nextInt(20000));
+            }
+        }
+
+        private static BusinessDay createBusinessDay(String... times) {
+            List<CalendarInterval> intervals = Lists.newArrayList();
+            for (int i = 0; i < times.length; i += 2) {
+                intervals.add(new CalendarInterval(CalendarUtil.convertToDate(times[i], CalendarUtil.HOURS_MINUTES_FORMAT), CalendarUtil
+                        .convertToDate(times[i + 1], CalendarUtil.HOURS_MINUTES_FORMAT)));
+            }
+            return new BusinessDay(intervals);
+        }
+
+        @Override
+        protected BusinessDay getBusinessDay(Calendar calendar) {
+            if (holidays.contains((calendar.get(Calendar.YEAR) * 400 + calendar.get(Calendar.DAY_OF_YEAR)) % 20000)) {
+                return BusinessDay.HOLIDAY;
+            }
+            switch (calendar.get(Calendar.DAY_OF_WEEK)) {
+            case Calendar.SUNDAY:
+                return BusinessDay.HOLIDAY;
+            case Calendar.SATURDAY:
+                return saturday;
+            case Calendar.WEDNESDAY:
+                return wednesday;
+            default:
+                return weekDay;
+            }
+        }
+    }
+}
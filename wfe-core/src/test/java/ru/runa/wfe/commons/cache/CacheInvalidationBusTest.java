@@ -0,0 +1,150 @@
+package ru.runa.wfe.commons.cache;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.transaction.Transaction;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.ManualResetEvent;
+import ru.runa.wfe.commons.cache.common.TestCacheIface;
+import ru.runa.wfe.commons.cache.common.TestCacheStateMachineAudit;
+import ru.runa.wfe.commons.cache.common.TestLazyCacheCtrl;
+import ru.runa.wfe.commons.cache.common.TestLazyCacheFactory;
+import ru.runa.wfe.commons.cache.common.TestLazyCacheFactoryCallback;
+import ru.runa.wfe.commons.cache.sm.ChangeListener;
+import ru.runa.wfe.commons.cache.sm.cluster.CacheInvalidationBus;
+import ru.runa.wfe.commons.cache.sm.cluster.CacheInvalidationEvent;
+import ru.runa.wfe.commons.cache.sm.cluster.InJvmCacheInvalidationTransport;
+import ru.runa.wfe.commons.cache.states.CacheState;
+
+/**
+ * Two cluster nodes, each with own cache state machine, connected by in-JVM transport.
+ */
+public class CacheInvalidationBusTest {
+    private ClusterNode node1;
+    private ClusterNode node2;
+
+    @BeforeMethod
+    public void startNodes() {
+        node1 = new ClusterNode("node1");
+        node2 = new ClusterNode("node2");
+    }
+
+    @AfterMethod
+    public void stopNodes() {
+        node1.bus.stop();
+        node2.bus.stop();
+    }
+
+    @Test()
+    public void committedChangeDropsRemoteCacheTest() {
+        node1.initializeCache();
+        node2.initializeCache();
+        node1.bus.publish(Collections.<ChangeListener> singleton(node1.listener));
+        Assert.assertNotNull(node1.ctrl.getCurrentCacheInstance());
+        Assert.assertNull(node2.ctrl.getCurrentCacheInstance());
+    }
+
+    @Test()
+    public void unaffectedCacheIsKeptTest() {
+        node2.initializeCache();
+        node1.bus.publish(Collections.<ChangeListener> emptySet());
+        node1.bus.publish(Collections.<ChangeListener> singleton(new TestListener(null)));
+        Assert.assertNotNull(node2.ctrl.getCurrentCacheInstance());
+    }
+
+    @Test()
+    public void duplicateEventIsIgnoredTest() {
+        node2.bus.onEvent(createEvent(CacheInvalidationEvent.FORMAT_VERSION, 1));
+        node2.initializeCache();
+        node2.bus.onEvent(createEvent(CacheInvalidationEvent.FORMAT_VERSION, 1));
+        Assert.assertNotNull(node2.ctrl.getCurrentCacheInstance());
+    }
+
+    @Test()
+    public void sequenceGapDropsAllCachesTest() {
+        node2.bus.onEvent(createEvent(CacheInvalidationEvent.FORMAT_VERSION, 1));
+        node2.initializeCache();
+        CacheInvalidationEvent event = new CacheInvalidationEvent("node1", 3, Collections.singleton(String.class.getName()));
+        node2.bus.onEvent(event);
+        Assert.assertNull(node2.ctrl.getCurrentCacheInstance());
+    }
+
+    @Test()
+    public void unknownFormatVersionDropsAllCachesTest() {
+        node2.initializeCache();
+        node2.bus.onEvent(createEvent(CacheInvalidationEvent.FORMAT_VERSION + 1, 1));
+        Assert.assertNull(node2.ctrl.getCurrentCacheInstance());
+    }
+
+    private CacheInvalidationEvent createEvent(final int formatVersion, long sequence) {
+        return new CacheInvalidationEvent("node1", sequence, Collections.singleton(TestListener.class.getName())) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public int getFormatVersion() {
+                return formatVersion;
+            }
+        };
+    }
+
+    private static class ClusterNode {
+        private final TestLazyCacheCtrl ctrl = new TestLazyCacheCtrl(new TestLazyCacheFactory(new TestLazyCacheFactoryCallback()), false);
+        private final TestListener listener = new TestListener(ctrl);
+        private final CacheInvalidationBus bus;
+
+        public ClusterNode(String nodeId) {
+            bus = new CacheInvalidationBus(nodeId, new InJvmCacheInvalidationTransport());
+            bus.registerListener(listener, TestListener.class);
+            bus.start();
+        }
+
+        public void initializeCache() {
+            final ManualResetEvent initializationCompleteEvent = new ManualResetEvent();
+            ctrl.getAudit().set_commitCacheAudit(new TestCacheStateMachineAudit.TestCommitCacheAudit<TestCacheIface>() {
+                @Override
+                protected void _stageSwitched(CacheState<TestCacheIface> from, CacheState<TestCacheIface> to) {
+                    initializationCompleteEvent.setEvent();
+                }
+            });
+            ctrl.getCache(false);
+            initializationCompleteEvent.tryWaitEvent();
+            Assert.assertNotNull(ctrl.getCurrentCacheInstance());
+        }
+    }
+
+    private static class TestListener implements ChangeListener {
+        private final TestLazyCacheCtrl ctrl;
+
+        public TestListener(TestLazyCacheCtrl ctrl) {
+            this.ctrl = ctrl;
+        }
+
+        @Override
+        public void onChange(Transaction transaction, ChangedObjectParameter changedObject) {
+        }
+
+        @Override
+        public void beforeTransactionComplete(Transaction transaction) {
+        }
+
+        @Override
+        public void onTransactionCompleted(Transaction transaction) {
+        }
+
+        @Override
+        public void uninitialize(Object object, Change change) {
+            ctrl.dropCache();
+        }
+
+        @Override
+        public List<Class<?>> getListenObjectTypes() {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.runa.wfe.commons.cache;
+
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+
+public class TieredCacheTest extends Assert {
+
+    @Test
+    public void testDemotionAndPromotion() {
+        TieredCache<Long, String> cache = new TieredCache<Long, String>("test.tiered.lru", new TieredCacheSettings(2, 1024,
+                CacheEvictionPolicy.LRU), null);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        assertEquals(cache.get(1L), "one");
+        // 2 is least recently used and is demoted to off-heap tier
+        cache.put(3L, "three");
+        StatisticCounter stats = CacheStatistic.registerCacheCounter("test.tiered.lru");
+        assertEquals(stats.getDemotionValue(), 1);
+        assertTrue(stats.getOffHeapBytes() > 0);
+        assertTrue(cache.contains(2L));
+        assertEquals(cache.get(2L), "two");
+        assertEquals(stats.getOffHeapHitValue(), 1);
+        assertEquals(stats.getHeapWeight(), 2);
+        Set<Long> keys = Sets.newHashSet(cache.keySet());
+        assertEquals(keys, Sets.newHashSet(1L, 2L, 3L));
+        assertTrue(cache.remove(1L));
+        assertFalse(cache.remove(1L));
+        assertNull(cache.get(1L));
+        cache.clear();
+        assertFalse(cache.keySet().iterator().hasNext());
+        assertEquals(stats.getOffHeapBytes(), 0);
+    }
+
+    @Test
+    public void testFifoEvictionWithWeigher() {
+        CacheWeigher<Long, long[]> weigher = new CacheWeigher<Long, long[]>() {
+
+            @Override
+            public int weigh(Long key, long[] value) {
+                return value.length;
+            }
+        };
+        TieredCache<Long, long[]> cache = new TieredCache<Long, long[]>("test.tiered.fifo", new TieredCacheSettings(10, 0,
+                CacheEvictionPolicy.FIFO), weigher);
+        cache.put(1L, new long[6]);
+        cache.put(2L, new long[3]);
+        cache.get(1L);
+        // FIFO ignores access, entry 1 is the eldest; off-heap tier is disabled so it is evicted
+        cache.put(3L, new long[4]);
+        assertNull(cache.get(1L));
+        assertNotNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+        StatisticCounter stats = CacheStatistic.registerCacheCounter("test.tiered.fifo");
+        assertEquals(stats.getEvictionValue(), 1);
+        assertEquals(stats.getHeapWeight(), 7);
+    }
+
+    @Test
+    public void testOffHeapOverflow() {
+        OffHeapStore<Integer> store = new OffHeapStore<Integer>(10, CacheEvictionPolicy.LRU);
+        assertEquals(store.put(1, new byte[] { 1, 2, 3, 4 }), 0);
+        assertEquals(store.put(2, new byte[] { 5, 6, 7, 8 }), 0);
+        assertEquals(store.get(1), new byte[] { 1, 2, 3, 4 });
+        assertEquals(store.put(3, new byte[] { 9, 10, 11 }), 1);
+        assertFalse(store.contains(2));
+        assertEquals(store.getUsedBytes(), 7);
+        assertEquals(store.put(4, new byte[11]), 1);
+        assertFalse(store.contains(4));
+    }
+
+    @Test
+    public void testOffHeapFreeRangesAreMerged() {
+        OffHeapStore<Integer> store = new OffHeapStore<Integer>(12, CacheEvictionPolicy.FIFO);
+        store.put(1, new byte[] { 1, 1, 1, 1 });
+        store.put(2, new byte[] { 2, 2, 2, 2 });
+        store.put(3, new byte[] { 3, 3, 3, 3 });
+        assertTrue(store.remove(2));
+        assertTrue(store.remove(1));
+        // released neighbour ranges form one range for value larger than each of them
+        assertEquals(store.put(4, new byte[] { 4, 4, 4, 4, 4, 4, 4, 4 }), 0);
+        assertEquals(store.get(3), new byte[] { 3, 3, 3, 3 });
+        assertEquals(store.get(4), new byte[] { 4, 4, 4, 4, 4, 4, 4, 4 });
+        assertEquals(store.getUsedBytes(), 12);
+        store.clear();
+        assertEquals(store.getUsedBytes(), 0);
+        assertEquals(store.put(5, new byte[12]), 0);
+        assertEquals(store.size(), 1);
+    }
+}
@@ -75,6 +75,10 @@ public final class TestLazyCacheCtrl {
         stateMachine.onChange(transaction, changedObject);
     }
 
+    public void dropCache() {
+        stateMachine.dropCache();
+    }
+
     public boolean isCacheInstanceExists() {
         return getStateMachineState().getCacheQuickNoBuild(transactions.get()) != null;
     }
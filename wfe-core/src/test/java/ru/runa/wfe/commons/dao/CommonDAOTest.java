@@ -0,0 +1,128 @@
+package ru.runa.wfe.commons.dao;
+
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AnnotationConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Checks bulk delete statements on in-memory H2 database.
+ */
+public class CommonDAOTest extends Assert {
+    private static final int ROW_COUNT = 2 * SystemProperties.getDatabaseParametersCount() + 100;
+    private final StatementCounter statementCounter = new StatementCounter();
+    private SessionFactory sessionFactory;
+
+    @BeforeClass
+    public void buildSessionFactory() {
+        AnnotationConfiguration configuration = new AnnotationConfiguration();
+        configuration.addAnnotatedClass(TestEntity.class);
+        configuration.setInterceptor(statementCounter);
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:commonDAO;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.connection.username", "sa");
+        configuration.setProperty("hibernate.connection.password", "");
+        configuration.setProperty("hibernate.connection.autocommit", "true");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.cache.use_second_level_cache", "false");
+        sessionFactory = configuration.buildSessionFactory();
+        Session session = sessionFactory.openSession();
+        try {
+            Transaction transaction = session.beginTransaction();
+            for (long id = 1; id <= ROW_COUNT; id++) {
+                session.save(new TestEntity(id));
+            }
+            transaction.commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    @AfterClass
+    public void closeSessionFactory() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    public void testBulkUpdateByIdsIsPartitioned() {
+        TestDAO dao = new TestDAO();
+        dao.setSessionFactory(sessionFactory);
+        List<Long> ids = Lists.newArrayList();
+        // last rows are kept
+        for (long id = 1; id <= ROW_COUNT - 10; id++) {
+            ids.add(id);
+        }
+        statementCounter.deleteCount = 0;
+        assertEquals(dao.deleteAll(ids), ROW_COUNT - 10);
+        assertEquals(statementCounter.deleteCount, 3);
+        assertEquals(dao.deleteAll(Lists.<Long> newArrayList()), 0);
+        assertEquals(statementCounter.deleteCount, 3);
+        Session session = sessionFactory.openSession();
+        try {
+            Number count = (Number) session.createQuery("select count(*) from TestEntity").uniqueResult();
+            assertEquals(count.intValue(), 10);
+        } finally {
+            session.close();
+        }
+    }
+
+    @Entity
+    @Table(name = "TEST_ENTITY")
+    public static class TestEntity {
+        private Long id;
+
+        public TestEntity() {
+        }
+
+        public TestEntity(Long id) {
+            this.id = id;
+        }
+
+        @Id
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+    }
+
+    private static class TestDAO extends CommonDAO {
+
+        public int deleteAll(List<Long> ids) {
+            return bulkUpdateByIds("delete from TestEntity where id in (:ids)", ids);
+        }
+    }
+
+    private static class StatementCounter extends EmptyInterceptor {
+        private static final long serialVersionUID = 1L;
+        private int deleteCount;
+
+        @Override
+        public String onPrepareStatement(String sql) {
+            if (sql.toLowerCase().startsWith("delete")) {
+                deleteCount++;
+            }
+            return sql;
+        }
+    }
+}
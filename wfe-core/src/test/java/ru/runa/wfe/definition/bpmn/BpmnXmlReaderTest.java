@@ -0,0 +1,51 @@
+package ru.runa.wfe.definition.bpmn;
+
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.lang.StartNode;
+
+/**
+ * Nodes are read without process definition reading as node instances are created by application context.
+ */
+public class BpmnXmlReaderTest extends Assert {
+    private static final String DEFINITIONS_START = "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" "
+            + "xmlns:runa=\"http://runa.ru/wfe/xml\">";
+    private static final String DEFINITIONS_END = "</definitions>";
+
+    @Test
+    public void testProcessAsyncContinuation() throws Exception {
+        assertEquals(readProcessDefinition(asyncContinuationProperty("true")).getTaskAsyncContinuation(), Boolean.TRUE);
+        assertEquals(readProcessDefinition(asyncContinuationProperty("false")).getTaskAsyncContinuation(), Boolean.FALSE);
+        assertNull(readProcessDefinition("").getTaskAsyncContinuation());
+    }
+
+    @Test
+    public void testNodeAsyncContinuation() throws Exception {
+        assertEquals(readStartNode(asyncContinuationProperty("true")).getAsyncContinuation(), Boolean.TRUE);
+        assertEquals(readStartNode(asyncContinuationProperty("false")).getAsyncContinuation(), Boolean.FALSE);
+        assertNull(readStartNode("").getAsyncContinuation());
+    }
+
+    private String asyncContinuationProperty(String value) {
+        return "<extensionElements><runa:property name=\"asyncContinuation\" value=\"" + value + "\"/></extensionElements>";
+    }
+
+    private ProcessDefinition readProcessDefinition(String processContent) throws Exception {
+        String xml = DEFINITIONS_START + "<process id=\"test\" name=\"test\">" + processContent + "</process>" + DEFINITIONS_END;
+        return new BpmnXmlReader(DocumentHelper.parseText(xml)).readProcessDefinition(new ProcessDefinition(new Deployment()));
+    }
+
+    private StartNode readStartNode(String nodeContent) throws Exception {
+        String xml = DEFINITIONS_START + "<startEvent id=\"ID1\" name=\"start\">" + nodeContent + "</startEvent>" + DEFINITIONS_END;
+        Element element = DocumentHelper.parseText(xml).getRootElement().element("startEvent");
+        BpmnXmlReader reader = new BpmnXmlReader(element.getDocument());
+        StartNode node = new StartNode();
+        reader.readNode(new ProcessDefinition(new Deployment()), element, reader.parseExtensionProperties(element), node);
+        return node;
+    }
+}
@@ -0,0 +1,44 @@
+package ru.runa.wfe.definition.jpdl;
+
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.lang.TaskNode;
+
+/**
+ * Nodes are read without process definition reading as node instances are created by application context.
+ */
+public class JpdlXmlReaderTest extends Assert {
+
+    @Test
+    public void testProcessAsyncContinuation() throws Exception {
+        assertEquals(readProcessDefinition("<process-definition name=\"test\" asyncContinuation=\"true\"/>").getTaskAsyncContinuation(),
+                Boolean.TRUE);
+        assertEquals(readProcessDefinition("<process-definition name=\"test\" asyncContinuation=\"false\"/>").getTaskAsyncContinuation(),
+                Boolean.FALSE);
+        assertNull(readProcessDefinition("<process-definition name=\"test\"/>").getTaskAsyncContinuation());
+    }
+
+    @Test
+    public void testNodeAsyncContinuation() throws Exception {
+        assertEquals(readTaskNode("<task-node id=\"ID1\" name=\"task\" asyncContinuation=\"true\"/>").getAsyncContinuation(), Boolean.TRUE);
+        assertEquals(readTaskNode("<task-node id=\"ID1\" name=\"task\" asyncContinuation=\"false\"/>").getAsyncContinuation(), Boolean.FALSE);
+        assertNull(readTaskNode("<task-node id=\"ID1\" name=\"task\"/>").getAsyncContinuation());
+    }
+
+    private ProcessDefinition readProcessDefinition(String xml) throws Exception {
+        return new JpdlXmlReader(DocumentHelper.parseText(xml)).readProcessDefinition(new ProcessDefinition(new Deployment()));
+    }
+
+    private TaskNode readTaskNode(String xml) throws Exception {
+        Element element = DocumentHelper.parseText(xml).getRootElement();
+        JpdlXmlReader reader = new JpdlXmlReader(element.getDocument());
+        TaskNode node = new TaskNode();
+        reader.readNode(new ProcessDefinition(new Deployment()), element, node);
+        return node;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.runa.wfe.execution.logic;
+
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.execution.ProcessFilter;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation.Status;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation.Type;
+
+public class ProcessBulkOperationsTest extends Assert {
+
+    @Test
+    public void testRemoveEnded() {
+        ProcessBulkOperation completed = add();
+        completed.setBatchResult(null, 0, 0);
+        completed.onBatchCommitted();
+        ProcessBulkOperation failed = add();
+        failed.onBatchFailed(new RuntimeException("failure"));
+        ProcessBulkOperation paused = add();
+        paused.pause();
+        ProcessBulkOperation running = add();
+        ProcessBulkOperation resumed = add();
+        resumed.onBatchFailed(new RuntimeException("failure"));
+        resumed.resume();
+        assertEquals(completed.getStatus(), Status.COMPLETED);
+        assertNotNull(failed.getEndDate());
+        assertNull(resumed.getEndDate());
+
+        ProcessBulkOperations.removeEnded(new Date(0));
+        assertNotNull(ProcessBulkOperations.get(completed.getId()));
+        assertNotNull(ProcessBulkOperations.get(failed.getId()));
+
+        ProcessBulkOperations.removeEnded(new Date(System.currentTimeMillis() + 1000));
+        assertNull(ProcessBulkOperations.get(completed.getId()));
+        assertNull(ProcessBulkOperations.get(failed.getId()));
+        assertNotNull(ProcessBulkOperations.get(paused.getId()));
+        assertNotNull(ProcessBulkOperations.get(running.getId()));
+        assertNotNull(ProcessBulkOperations.get(resumed.getId()));
+    }
+
+    private static ProcessBulkOperation add() {
+        ProcessBulkOperation operation = new ProcessBulkOperation(ProcessBulkOperations.nextId(), Type.DELETE, new ProcessFilter(), null);
+        ProcessBulkOperations.add(operation);
+        return operation;
+    }
+}
@@ -0,0 +1,44 @@
+package ru.runa.wfe.execution.trace;
+
+import java.util.Date;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ChromeTraceExporterTest extends Assert {
+
+    @Test
+    public void testExport() throws Exception {
+        ExecutionTraceSpan root = new ExecutionTraceSpan(ExecutionTracer.EXECUTION, "completeTask", 0);
+        root.setDurationMicros(5000);
+        root.addQueriesCount(7);
+        ExecutionTraceSpan node = new ExecutionTraceSpan(ExecutionTracer.NODE, "ScriptTask \"calc\"", 1200);
+        node.setDurationMicros(3000);
+        node.addQueriesCount(4);
+        root.getChildren().add(node);
+        ExecutionTrace trace = new ExecutionTrace(15L, new Date(1000), "main", root);
+
+        JSONObject json = (JSONObject) new JSONParser().parse(ChromeTraceExporter.export(Lists.newArrayList(trace)));
+        JSONArray events = (JSONArray) json.get("traceEvents");
+        assertEquals(events.size(), 3);
+        JSONObject threadName = (JSONObject) events.get(0);
+        assertEquals(threadName.get("ph"), "M");
+        assertEquals(((JSONObject) threadName.get("args")).get("name"), "main");
+        JSONObject rootEvent = (JSONObject) events.get(1);
+        assertEquals(rootEvent.get("ph"), "X");
+        assertEquals(rootEvent.get("ts"), 1000000L);
+        assertEquals(rootEvent.get("dur"), 5000L);
+        assertEquals(rootEvent.get("pid"), 15L);
+        assertEquals(((JSONObject) rootEvent.get("args")).get("queries"), 7L);
+        JSONObject nodeEvent = (JSONObject) events.get(2);
+        assertEquals(nodeEvent.get("name"), "ScriptTask \"calc\"");
+        assertEquals(nodeEvent.get("cat"), ExecutionTracer.NODE);
+        assertEquals(nodeEvent.get("ts"), 1001200L);
+        assertEquals(nodeEvent.get("tid"), rootEvent.get("tid"));
+    }
+}
@@ -0,0 +1,105 @@
+package ru.runa.wfe.extension.handler;
+
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.script.ScriptEngineManager;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.var.VariableDefinition;
+import ru.runa.wfe.var.format.LongFormat;
+import ru.runa.wfe.var.format.StringFormat;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Runs on JavaScript engine of current JVM (Nashorn on Java 8).
+ */
+public class JavaScriptActionHandlerTest extends Assert {
+
+    @BeforeClass
+    public void checkEngine() {
+        if (new ScriptEngineManager().getEngineByName("JavaScript") == null) {
+            throw new SkipException("No JavaScript engine in JVM");
+        }
+    }
+
+    @Test
+    public void testWriteBack() throws Exception {
+        Map<String, Object> changed = execute("total = amount * 2; comment = 'approved'");
+        assertEquals(changed.size(), 2);
+        assertEquals(((Number) changed.get("total")).longValue(), 20L);
+        assertEquals(changed.get("comment"), "approved");
+    }
+
+    @Test
+    public void testUnchangedVariablesNotWritten() throws Exception {
+        Map<String, Object> changed = execute("var x = amount + 1; comment = comment + ''");
+        assertTrue(changed.isEmpty(), changed.toString());
+    }
+
+    @Test
+    public void testExecutionsDoNotShareGlobals() throws Exception {
+        execute("helper = amount");
+        Map<String, Object> changed = execute("total = typeof helper == 'undefined' ? 1 : 2");
+        assertEquals(((Number) changed.get("total")).longValue(), 1L);
+    }
+
+    @Test
+    public void testDeclaredGlobalsNotShared() throws Exception {
+        execute("var helper = amount; function f() {}; amount = 5");
+        Map<String, Object> changed = execute("total = typeof helper == 'undefined' && typeof f == 'undefined' ? amount : 0");
+        assertEquals(((Number) changed.get("total")).longValue(), 10L);
+    }
+
+    /**
+     * @return variables written back by handler
+     */
+    private Map<String, Object> execute(String script) throws Exception {
+        final Map<String, Object> values = Maps.newHashMap();
+        values.put("amount", 10L);
+        values.put("comment", "new");
+        List<VariableDefinition> variables = Lists.newArrayList(new VariableDefinition("amount", "amount", new LongFormat()),
+                new VariableDefinition("total", "total", new LongFormat()), new VariableDefinition("comment", "comment", new StringFormat()));
+        ProcessDefinition processDefinition = mock(ProcessDefinition.class);
+        when(processDefinition.getVariables()).thenReturn(variables);
+        ExecutionContext context = mock(ExecutionContext.class);
+        when(context.getProcessDefinition()).thenReturn(processDefinition);
+        when(context.getVariableValue(anyString())).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return values.get(invocation.getArguments()[0]);
+            }
+        });
+        final Map<String, Object> changed = Maps.newHashMap();
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) {
+                changed.putAll((Map<String, Object>) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(context).setVariableValues(anyMapOf(String.class, Object.class));
+        JavaScriptActionHandler handler = new JavaScriptActionHandler();
+        handler.setConfiguration(script);
+        handler.execute(context);
+        return changed;
+    }
+}
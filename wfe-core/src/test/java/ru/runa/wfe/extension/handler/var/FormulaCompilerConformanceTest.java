@@ -0,0 +1,141 @@
+package ru.runa.wfe.extension.handler.var;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.execution.Process;
+import ru.runa.wfe.var.MapVariableProvider;
+import ru.runa.wfe.var.VariableDefinition;
+import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.format.BooleanFormat;
+import ru.runa.wfe.var.format.DateTimeFormat;
+import ru.runa.wfe.var.format.DoubleFormat;
+import ru.runa.wfe.var.format.LongFormat;
+import ru.runa.wfe.var.format.StringFormat;
+import ru.runa.wfe.var.format.VariableFormat;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Compiled formulas must give the same results as {@link FormulaInterpreter}.
+ */
+public class FormulaCompilerConformanceTest {
+    private static final String[] COMPILED_FORMULAS = { "rl = a + b * 2", "rl = (a + b) * 2 - -b", "rd = d * a / 4", "rd = a / b + d",
+            "rb = a > b & !(d >= 3) | flag ^ false", "rb = a == 10", "rb = a <= b", "rb = s != \"text\"", "rs = s + \" and \" + a",
+            "rs = \"quoted \\\" string\"", "rl = round(d)", "rd = round_up(d * 3.3, 2)", "rl = round_down(7.9)", "rd = round(d / 3, 1)",
+            "rs = number_to_string_ru(a)", "rs = number_to_string_ru(b, \"M\", \"apple\", \"apples\", \"apples\")", "rl = get_process_id()",
+            "rdate = date(date)", "rdate = date + 90", "rl = GetSize(s)", "rl = a; rd = rl * d\nrs = 'a' + \"\"",
+            "'long name' = a * 3; rl = 'long name' + 1" };
+    /**
+     * Formulas with syntax errors, null values or failed operations are handled by interpreter.
+     */
+    private static final String[] FALLBACK_FORMULAS = { "rl = empty + 1", "rl = unknown + 1", "rl = a +", "rl = (a + b", "= a",
+            "rl = round(s)", "rb = s > a", "rl = unknown_function(a)", "rs = number_to_string_ru(a, \"X\", \"a\", \"b\", \"c\")",
+            "rl = get_process_id() + empty" };
+    private static final String PROCESS_ACCESS = "getProcess()";
+
+    @Test
+    public void compiledFormulasTest() {
+        for (String formula : COMPILED_FORMULAS) {
+            for (CompiledFormula.Statement statement : FormulaCompiler.compile(formula).getStatements()) {
+                Assert.assertTrue(statement.isCompiled(), formula);
+            }
+            Assert.assertEquals(execute(formula, true), execute(formula, false), formula);
+        }
+    }
+
+    @Test
+    public void fallbackFormulasTest() {
+        for (String formula : FALLBACK_FORMULAS) {
+            Assert.assertEquals(execute(formula, true), execute(formula, false), formula);
+        }
+    }
+
+    @Test
+    public void nullVariableStatementIsExecutedOnceTest() {
+        String formula = "rl = get_process_id() + empty";
+        Assert.assertTrue(FormulaCompiler.compile(formula).getStatements().get(0).isCompiled());
+        Assert.assertEquals(Collections.frequency(execute(formula, true), PROCESS_ACCESS), 1);
+    }
+
+    @Test
+    public void compiledFormulaIsCachedTest() {
+        CompiledFormula compiledFormula = FormulaActionHandler.getCompiledFormula(COMPILED_FORMULAS[0]);
+        Assert.assertSame(FormulaActionHandler.getCompiledFormula(COMPILED_FORMULAS[0]), compiledFormula);
+    }
+
+    /**
+     * @return process accesses, assigned variables and thrown exception in execution order
+     */
+    private List<Object> execute(String configuration, boolean compiled) {
+        final List<Object> result = Lists.newArrayList();
+        final MapVariableProvider variableProvider = new MapVariableProvider(Maps.<String, Object> newHashMap());
+        addVariable(variableProvider, "a", new LongFormat(), 10L);
+        addVariable(variableProvider, "b", new LongFormat(), 3L);
+        addVariable(variableProvider, "d", new DoubleFormat(), 2.5);
+        addVariable(variableProvider, "s", new StringFormat(), "text");
+        addVariable(variableProvider, "flag", new BooleanFormat(), true);
+        addVariable(variableProvider, "date", new DateTimeFormat(), new GregorianCalendar(2015, Calendar.MARCH, 8, 13, 45).getTime());
+        addVariable(variableProvider, "empty", new LongFormat(), null);
+        addVariable(variableProvider, "long name", new LongFormat(), null);
+        addVariable(variableProvider, "rl", new LongFormat(), null);
+        addVariable(variableProvider, "rd", new DoubleFormat(), null);
+        addVariable(variableProvider, "rs", new StringFormat(), null);
+        addVariable(variableProvider, "rb", new BooleanFormat(), null);
+        addVariable(variableProvider, "rdate", new DateTimeFormat(), null);
+        final Process process = mock(Process.class);
+        when(process.getId()).thenReturn(1L);
+        ExecutionContext context = mock(ExecutionContext.class);
+        when(context.getProcess()).thenAnswer(new Answer<Process>() {
+
+            @Override
+            public Process answer(InvocationOnMock invocation) {
+                result.add(PROCESS_ACCESS);
+                return process;
+            }
+        });
+        when(context.getVariableProvider()).thenReturn(variableProvider);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                String variableName = (String) invocation.getArguments()[0];
+                Object value = invocation.getArguments()[1];
+                result.add(variableName + "=" + value);
+                variableProvider.add(new WfVariable(variableProvider.getVariable(variableName).getDefinition(), value));
+                return null;
+            }
+        }).when(context).setVariableValue(anyString(), any());
+        try {
+            if (compiled) {
+                FormulaCompiler.compile(configuration).execute(context);
+            } else {
+                for (String statement : FormulaTokenizer.splitStatements(configuration)) {
+                    new FormulaInterpreter(context).interpret(statement);
+                }
+            }
+        } catch (RuntimeException e) {
+            result.add(e.getClass());
+        }
+        return result;
+    }
+
+    private void addVariable(MapVariableProvider variableProvider, String name, VariableFormat format, Object value) {
+        variableProvider.add(new WfVariable(new VariableDefinition(name, null, format), value));
+    }
+}
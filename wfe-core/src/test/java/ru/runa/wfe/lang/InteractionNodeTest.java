@@ -0,0 +1,41 @@
+package ru.runa.wfe.lang;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.execution.ExecutionContext;
+
+public class InteractionNodeTest extends Assert {
+
+    @Test
+    public void testNodeOverridesDefinition() {
+        TaskNode node = new TaskNode();
+        node.setAsyncContinuation(true);
+        assertTrue(node.isAsyncContinuation(createExecutionContext(false)));
+        node.setAsyncContinuation(false);
+        assertFalse(node.isAsyncContinuation(createExecutionContext(true)));
+    }
+
+    @Test
+    public void testDefinitionOverridesSystemProperty() {
+        boolean systemDefault = SystemProperties.isTaskCompletionAsyncContinuationEnabled();
+        assertEquals(new TaskNode().isAsyncContinuation(createExecutionContext(!systemDefault)), !systemDefault);
+    }
+
+    @Test
+    public void testSystemPropertyByDefault() {
+        assertEquals(new TaskNode().isAsyncContinuation(createExecutionContext(null)), SystemProperties.isTaskCompletionAsyncContinuationEnabled());
+    }
+
+    private ExecutionContext createExecutionContext(Boolean definitionAsyncContinuation) {
+        ProcessDefinition processDefinition = mock(ProcessDefinition.class);
+        when(processDefinition.getTaskAsyncContinuation()).thenReturn(definitionAsyncContinuation);
+        ExecutionContext executionContext = mock(ExecutionContext.class);
+        when(executionContext.getProcessDefinition()).thenReturn(processDefinition);
+        return executionContext;
+    }
+}
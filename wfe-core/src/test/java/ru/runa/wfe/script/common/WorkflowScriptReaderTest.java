@@ -0,0 +1,54 @@
+package ru.runa.wfe.script.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.script.executor.CreateActorOperation;
+
+public class WorkflowScriptReaderTest {
+
+    @Test()
+    public void readAsJaxbTest() throws Exception {
+        File file = new File("src/main/adminkit/scripts/deploy-samples-script.xml");
+        WorkflowScriptDto expected;
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            expected = (WorkflowScriptDto) WorkflowScriptReader.getJaxbContext().createUnmarshaller().unmarshal(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        WorkflowScriptDto actual;
+        inputStream = new FileInputStream(file);
+        try {
+            actual = WorkflowScriptReader.read(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        Assert.assertEquals(actual.identitySets.size(), expected.identitySets.size());
+        Assert.assertEquals(actual.operations.size(), expected.operations.size());
+        for (int i = 0; i < expected.operations.size(); i++) {
+            Assert.assertEquals(actual.operations.get(i).getClass(), expected.operations.get(i).getClass());
+        }
+    }
+
+    @Test()
+    public void readTransactionScopesTest() throws Exception {
+        String xml = "<workflowScript xmlns=\"http://runa.ru/xml\" defaultTransactionScope=\"all\"><unknown><a/></unknown>"
+                + "<transactionScope transactionScope=\"operation\"><createActor name=\"a1\"/><createActor name=\"a2\"/></transactionScope>"
+                + "<transactionScope/></workflowScript>";
+        WorkflowScriptDto script = WorkflowScriptReader.read(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        Assert.assertEquals(script.defaultTransactionScope, TransactionScopeType.TRANSACTION_PER_SCOPE);
+        Assert.assertTrue(script.operations.isEmpty());
+        Assert.assertEquals(script.transactionScopes.size(), 2);
+        TransactionScopeDto scope = script.transactionScopes.get(0);
+        Assert.assertEquals(scope.transactionScope, TransactionScopeType.TRANSACTION_PER_OPERATION);
+        Assert.assertEquals(scope.operations.size(), 2);
+        Assert.assertEquals(((CreateActorOperation) scope.operations.get(1)).name, "a2");
+        Assert.assertNull(script.transactionScopes.get(1).transactionScope);
+    }
+}
@@ -22,7 +22,6 @@ import org.testng.collections.Sets;
 import ru.runa.wfe.audit.ProcessLog;
 import ru.runa.wfe.audit.TaskEscalationLog;
 import ru.runa.wfe.audit.dao.IProcessLogDAO;
-import ru.runa.wfe.audit.presentation.ExecutorIdsValue;
 import ru.runa.wfe.user.Actor;
 import ru.runa.wfe.user.EscalationGroup;
 import ru.runa.wfe.user.Executor;
@@ -173,12 +172,11 @@ public class ActorInInactiveEscalationGroupBoundConditionsTests extends Abstract
         public void addTaskEscalationLog(String taskName, String nid, Throwable exc, Long... ids) {
             TaskEscalationLog mockLog = mock(TaskEscalationLog.class);
             when(mockLog.getNodeId()).thenReturn(nid);
+            when(mockLog.getTaskName()).thenReturn(taskName);
             if (exc != null) {
-                when(mockLog.getPatternArguments()).thenThrow(exc);
+                when(mockLog.getExecutorIds()).thenThrow(exc);
             } else {
-                ExecutorIdsValue idsval = mock(ExecutorIdsValue.class);
-                when(idsval.getIds()).thenReturn(Lists.newArrayList(ids));
-                when(mockLog.getPatternArguments()).thenReturn(new Object[] { taskName, idsval });
+                when(mockLog.getExecutorIds()).thenReturn(Lists.newArrayList(ids));
             }
             pLogs.add(mockLog);
         }
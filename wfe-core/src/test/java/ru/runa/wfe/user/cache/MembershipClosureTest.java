@@ -0,0 +1,87 @@
+package ru.runa.wfe.user.cache;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class MembershipClosureTest extends Assert {
+
+    @Test
+    public void testNestedGroups() {
+        // G1(1) contains G2(2) and A10, G2 contains A11 and A12, G3(3) contains A11
+        List<long[]> memberships = Lists.newArrayList(new long[] { 1, 2 }, new long[] { 1, 10 }, new long[] { 2, 11 }, new long[] { 2, 12 },
+                new long[] { 3, 11 });
+        MembershipClosure closure = new MembershipClosure(memberships, Sets.newHashSet(1L, 2L, 3L));
+        assertEquals(closure.getAllActorMembers(1), new long[] { 10, 11, 12 });
+        assertEquals(closure.getAllActorMembers(2), new long[] { 11, 12 });
+        assertEquals(closure.getAllParents(11), new long[] { 1, 2, 3 });
+        assertEquals(closure.getAllParents(10), new long[] { 1 });
+        assertEquals(closure.getAllParents(1), new long[0]);
+        assertTrue(MembershipClosure.contains(closure.getAllParents(12), 1));
+        assertFalse(MembershipClosure.contains(closure.getAllParents(12), 3));
+    }
+
+    @Test
+    public void testRandomHierarchy() {
+        Random random = new Random(1);
+        int groupsCount = 50;
+        int actorsCount = 200;
+        Set<Long> groupIds = Sets.newHashSet();
+        for (long i = 0; i < groupsCount; i++) {
+            groupIds.add(i);
+        }
+        List<long[]> memberships = Lists.newArrayList();
+        for (int i = 0; i < 400; i++) {
+            int group = random.nextInt(groupsCount - 1);
+            // subgroups have greater ids so hierarchy has no cycles
+            long member = random.nextBoolean() ? groupsCount + random.nextInt(actorsCount) : group + 1 + random.nextInt(groupsCount - group - 1);
+            memberships.add(new long[] { group, member });
+        }
+        MembershipClosure closure = new MembershipClosure(memberships, groupIds);
+        for (long group = 0; group < groupsCount; group++) {
+            Set<Long> expected = Sets.newTreeSet();
+            collectActors(memberships, groupIds, group, expected);
+            assertEquals(closure.getAllActorMembers(group), toArray(expected));
+        }
+        for (long executor = 0; executor < groupsCount + actorsCount; executor++) {
+            Set<Long> expected = Sets.newTreeSet();
+            collectParents(memberships, executor, expected);
+            assertEquals(closure.getAllParents(executor), toArray(expected));
+        }
+    }
+
+    private static void collectActors(List<long[]> memberships, Set<Long> groupIds, long group, Set<Long> result) {
+        for (long[] membership : memberships) {
+            if (membership[0] == group) {
+                if (groupIds.contains(membership[1])) {
+                    collectActors(memberships, groupIds, membership[1], result);
+                } else {
+                    result.add(membership[1]);
+                }
+            }
+        }
+    }
+
+    private static void collectParents(List<long[]> memberships, long executor, Set<Long> result) {
+        for (long[] membership : memberships) {
+            if (membership[1] == executor && result.add(membership[0])) {
+                collectParents(memberships, membership[0], result);
+            }
+        }
+    }
+
+    private static long[] toArray(Set<Long> set) {
+        long[] result = new long[set.size()];
+        int i = 0;
+        for (Long value : set) {
+            result[i++] = value;
+        }
+        return result;
+    }
+}
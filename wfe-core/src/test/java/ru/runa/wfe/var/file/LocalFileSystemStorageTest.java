@@ -0,0 +1,114 @@
+package ru.runa.wfe.var.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.security.AuthorizationException;
+
+/**
+ * Uses storage in target directory with upload max size 1000 bytes from wfe.custom.system.properties.
+ */
+public class LocalFileSystemStorageTest extends Assert {
+    private static final Long OWNER_ID = 1L;
+    private static final Long OTHER_ACTOR_ID = 2L;
+    private static final Long PROCESS_ID = 10L;
+
+    @Test
+    public void testUploadByChunks() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        LocalFileSystemStorage.appendUpload(uploadId, OWNER_ID, new ByteArrayInputStream(new byte[] { 1, 2 }));
+        LocalFileSystemStorage.appendUpload(uploadId, OWNER_ID, new ByteArrayInputStream(new byte[] { 3 }));
+        assertEquals(new UploadedFileVariable("file", "application/octet-stream", uploadId).getData(), new byte[] { 1, 2, 3 });
+    }
+
+    @Test
+    public void testReadUploadByChunks() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, PROCESS_ID);
+        LocalFileSystemStorage.appendUpload(uploadId, OWNER_ID, new ByteArrayInputStream(new byte[] { 1, 2, 3 }));
+        assertEquals(LocalFileSystemStorage.readUploadChunk(uploadId, OWNER_ID, 0, 2), new byte[] { 1, 2 });
+        assertEquals(LocalFileSystemStorage.readUploadChunk(uploadId, OWNER_ID, 2, 2), new byte[] { 3 });
+        assertEquals(LocalFileSystemStorage.readUploadChunk(uploadId, OWNER_ID, 3, 2), new byte[0]);
+    }
+
+    @Test(expectedExceptions = AuthorizationException.class)
+    public void testReadByOtherActor() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        LocalFileSystemStorage.readUploadChunk(uploadId, OTHER_ACTOR_ID, 0, 1);
+    }
+
+    @Test(expectedExceptions = AuthorizationException.class)
+    public void testAppendByOtherActor() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        LocalFileSystemStorage.appendUpload(uploadId, OTHER_ACTOR_ID, new ByteArrayInputStream(new byte[] { 1 }));
+    }
+
+    @Test
+    public void testUploadNotBoundToProcess() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        LocalFileSystemStorage.checkUpload(uploadId, OWNER_ID, null);
+        LocalFileSystemStorage.checkUpload(uploadId, OWNER_ID, PROCESS_ID);
+        assertNotAllowed(uploadId, OTHER_ACTOR_ID, null);
+    }
+
+    @Test
+    public void testUploadBoundToProcess() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, PROCESS_ID);
+        LocalFileSystemStorage.checkUpload(uploadId, OWNER_ID, PROCESS_ID);
+        assertNotAllowed(uploadId, OWNER_ID, null);
+        assertNotAllowed(uploadId, OWNER_ID, PROCESS_ID + 1);
+        assertNotAllowed(uploadId, OTHER_ACTOR_ID, PROCESS_ID);
+    }
+
+    @Test
+    public void testMaxSize() {
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        LocalFileSystemStorage.appendUpload(uploadId, OWNER_ID, new ByteArrayInputStream(new byte[600]));
+        LocalFileSystemStorage.appendUpload(uploadId, OWNER_ID, new ByteArrayInputStream(new byte[400]));
+        try {
+            LocalFileSystemStorage.appendUpload(uploadId, OWNER_ID, new ByteArrayInputStream(new byte[1]));
+            fail("max size is exceeded");
+        } catch (AuthorizationException e) {
+            throw e;
+        } catch (InternalApplicationException e) {
+            // expected
+        }
+        assertFalse(getUploadFile(uploadId).exists());
+        assertFalse(getOwnerFile(uploadId).exists());
+    }
+
+    @Test
+    public void testRemoveExpiredUploads() {
+        String expiredUploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        String uploadId = LocalFileSystemStorage.createUpload(OWNER_ID, null);
+        long expiredTime = System.currentTimeMillis() - 25 * 60 * 60 * 1000;
+        assertTrue(getUploadFile(expiredUploadId).setLastModified(expiredTime));
+        assertTrue(getOwnerFile(expiredUploadId).setLastModified(expiredTime));
+        // owner file of active upload is not modified on append
+        assertTrue(getOwnerFile(uploadId).setLastModified(expiredTime));
+        assertTrue(LocalFileSystemStorage.removeExpiredUploads() >= 1);
+        assertFalse(getUploadFile(expiredUploadId).exists());
+        assertFalse(getOwnerFile(expiredUploadId).exists());
+        LocalFileSystemStorage.checkUpload(uploadId, OWNER_ID, null);
+    }
+
+    private static void assertNotAllowed(String uploadId, Long actorId, Long processId) {
+        try {
+            LocalFileSystemStorage.checkUpload(uploadId, actorId, processId);
+            fail("upload " + uploadId + " is allowed for " + actorId + " in " + processId);
+        } catch (AuthorizationException e) {
+            // expected
+        }
+    }
+
+    private static File getUploadFile(String uploadId) {
+        return new File(LocalFileSystemStorage.getContentFile(LocalFileSystemStorage.UPLOAD_DIR, false), uploadId);
+    }
+
+    private static File getOwnerFile(String uploadId) {
+        return new File(getUploadFile(uploadId).getParentFile(), uploadId + LocalFileSystemStorage.UPLOAD_OWNER_SUFFIX);
+    }
+}
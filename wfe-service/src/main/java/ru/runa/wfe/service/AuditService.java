@@ -67,7 +67,8 @@ public interface AuditService {
     public byte[] getProcessHistoryDiagram(User user, Long processId, Long taskId, String subprocessId) throws ProcessDoesNotExistException;
 
     /**
-     * Gets process logs by filter.
+     * Gets process logs by filter. If {@link ProcessLogFilter#getPageSize()} is set logs are returned by pages, next page is requested with
+     * {@link ProcessLogs#getNextPageIdFrom()}.
      * 
      * @param user
      *            authorized user
@@ -24,6 +24,7 @@ import ru.runa.wfe.definition.DefinitionDoesNotExistException;
 import ru.runa.wfe.execution.ParentProcessExistsException;
 import ru.runa.wfe.execution.ProcessDoesNotExistException;
 import ru.runa.wfe.execution.ProcessFilter;
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.execution.dto.ProcessError;
 import ru.runa.wfe.execution.dto.WfProcess;
 import ru.runa.wfe.execution.dto.WfSwimlane;
@@ -61,6 +62,22 @@ public interface ExecutionService {
     public Long startProcess(User user, String definitionName, Map<String, Object> variables) throws DefinitionDoesNotExistException,
     ValidationException;
 
+    /**
+     * Starts new processes by definition. Definition and start permission are resolved once, transaction is committed after each chunk of
+     * processes (api.properties: service.bulk.operation.chunk.size).
+     *
+     * @param user
+     *            authorized user
+     * @param definitionName
+     *            process definition name
+     * @param variablesList
+     *            initial variable values for each process
+     * @return result for each process in request order, contains process id or error
+     * @throws DefinitionDoesNotExistException
+     */
+    public List<BulkOperationResult> startProcesses(User user, String definitionName, List<Map<String, Object>> variablesList)
+            throws DefinitionDoesNotExistException;
+
     /**
      * Starts new process by definition.
      *
@@ -157,6 +174,30 @@ public interface ExecutionService {
      */
     public void cancelProcess(User user, Long processId) throws ProcessDoesNotExistException;
 
+    /**
+     * Starts background deletion of processes. Processes are deleted by batches in separate transactions, progress is available through
+     * {@link SystemService#getProcessBulkOperations(User)}.
+     *
+     * @param user
+     *            authorized user
+     * @param filter
+     *            processes filter
+     * @return operation id
+     */
+    public Long deleteProcessesAsync(User user, ProcessFilter filter);
+
+    /**
+     * Starts background cancellation of processes. Processes are cancelled by batches in separate transactions, progress is available through
+     * {@link SystemService#getProcessBulkOperations(User)}.
+     *
+     * @param user
+     *            authorized user
+     * @param filter
+     *            processes filter
+     * @return operation id
+     */
+    public Long cancelProcessesAsync(User user, ProcessFilter filter);
+
     /**
      * Gets all initialized process roles.
      *
@@ -240,6 +281,58 @@ public interface ExecutionService {
      */
     public FileVariable getFileVariableValue(User user, Long processId, String variableName) throws ProcessDoesNotExistException;
 
+    /**
+     * Gets part of file variable data. Allows to transfer large files without loading them into memory.
+     *
+     * @param user
+     *            authorized user
+     * @param processId
+     *            process id
+     * @param variableName
+     *            variable name
+     * @param offset
+     *            data offset
+     * @param length
+     *            max chunk length
+     * @return up to length bytes, empty array at the end of data or <code>null</code> for null variable
+     * @throws ProcessDoesNotExistException
+     */
+    public byte[] getFileVariableValueChunk(User user, Long processId, String variableName, long offset, int length)
+            throws ProcessDoesNotExistException;
+
+    /**
+     * Appends chunk of data to staged file upload. Staged upload can be passed as {@link ru.runa.wfe.var.file.UploadedFileVariable} variable
+     * value in start process, complete task and update variables calls by the same user. Upload bound to process can be used only in this
+     * process.
+     *
+     * @param user
+     *            authorized user
+     * @param processId
+     *            process id for new upload bound to process (requires update permission on process), <code>null</code> otherwise
+     * @param uploadId
+     *            upload id, <code>null</code> for new upload
+     * @param chunk
+     *            data
+     * @return upload id
+     * @throws ProcessDoesNotExistException
+     */
+    public String uploadFileVariableChunk(User user, Long processId, String uploadId, byte[] chunk) throws ProcessDoesNotExistException;
+
+    /**
+     * Gets part of staged file upload data. Only upload owner can read it.
+     *
+     * @param user
+     *            authorized user
+     * @param uploadId
+     *            upload id
+     * @param offset
+     *            data offset
+     * @param length
+     *            max chunk length
+     * @return up to length bytes, empty array at the end of data
+     */
+    public byte[] getUploadedFileChunk(User user, String uploadId, long offset, int length);
+
     /**
      * Updates process variables without any signalling.
      *
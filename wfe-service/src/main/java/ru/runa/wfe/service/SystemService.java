@@ -20,6 +20,7 @@ package ru.runa.wfe.service;
 import java.util.List;
 
 import ru.runa.wfe.commons.dao.Localization;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation;
 import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.security.SystemPermission;
 import ru.runa.wfe.user.User;
@@ -87,4 +88,30 @@ public interface SystemService {
      * Remove all properties from database
      */
     public void clearSettings();
+
+    /**
+     * Get background process deletions and cancellations of this server node. Administrators get all operations, other users get their own.
+     * 
+     * @param user
+     * @return operations
+     */
+    public List<WfProcessBulkOperation> getProcessBulkOperations(User user);
+
+    /**
+     * Pause running background process operation after current batch.
+     * 
+     * @param user
+     * @param operationId
+     * @return <code>false</code> if operation is not running
+     */
+    public boolean pauseProcessBulkOperation(User user, Long operationId);
+
+    /**
+     * Resume paused or failed background process operation.
+     * 
+     * @param user
+     * @param operationId
+     * @return <code>false</code> if operation is neither paused nor failed
+     */
+    public boolean resumeProcessBulkOperation(User user, Long operationId);
 }
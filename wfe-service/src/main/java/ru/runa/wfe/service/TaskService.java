@@ -4,9 +4,11 @@ import java.util.List;
 import java.util.Map;
 
 import ru.runa.wfe.execution.ProcessDoesNotExistException;
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.task.TaskAlreadyAcceptedException;
 import ru.runa.wfe.task.TaskDoesNotExistException;
+import ru.runa.wfe.task.dto.TaskCompletion;
 import ru.runa.wfe.task.dto.WfTask;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
@@ -115,6 +117,17 @@ public interface TaskService {
     public void completeTask(User user, Long taskId, Map<String, Object> variables, Long swimlaneActorId) throws TaskDoesNotExistException,
             ValidationException;
 
+    /**
+     * Completes tasks. Transaction is committed after each chunk of tasks (api.properties: service.bulk.operation.chunk.size).
+     *
+     * @param user
+     *            authorized user
+     * @param completions
+     *            task completion requests
+     * @return result for each task in request order, contains task id or error
+     */
+    public List<BulkOperationResult> completeTasks(User user, List<TaskCompletion> completions);
+
     /**
      * Marks task as read.
      *
@@ -17,31 +17,43 @@
  */
 package ru.runa.wfe.service.client;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
 
 import ru.runa.wfe.bot.Bot;
 import ru.runa.wfe.commons.ClassLoaderUtil;
 import ru.runa.wfe.commons.IOCommons;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.script.common.CustomOperation;
+import ru.runa.wfe.script.common.NamedIdentitySet;
 import ru.runa.wfe.script.common.ScriptOperation;
 import ru.runa.wfe.script.common.TransactionScopeDto;
 import ru.runa.wfe.script.common.TransactionScopeType;
 import ru.runa.wfe.script.common.WorkflowScriptDto;
+import ru.runa.wfe.script.common.WorkflowScriptReader;
 import ru.runa.wfe.service.delegate.Delegates;
 import ru.runa.wfe.user.User;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.Futures;
 
 /**
  * Created on 12.12.2005
@@ -63,58 +75,85 @@ public class AdminScriptClient {
             System.exit(-1);
         }
         try {
-            byte[] scriptBytes = Files.toByteArray(file);
             User user = Delegates.getAuthenticationService().authenticateByLoginPassword(args[1], args[2]);
-            run(user, scriptBytes, new Handler() {
+            InputStream scriptStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                run(user, scriptStream, new Handler() {
 
-                @Override
-                public void onTransactionException(Exception e) {
-                    System.out.println(e.getMessage());
-                }
+                    @Override
+                    public void onTransactionException(Exception e) {
+                        System.out.println(e.getMessage());
+                    }
+
+                    @Override
+                    public void onProgress(int completedOperations, int totalOperations, double operationsPerSecond) {
+                        System.out.println(String.format("%d/%d operations (%.1f/s)", completedOperations, totalOperations, operationsPerSecond));
+                    }
 
-            });
+                });
+            } finally {
+                Closeables.closeQuietly(scriptStream);
+            }
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(-1);
         }
     }
 
-    public static void run(User user, byte[] scriptBytes, Handler handler) throws IOException, JAXBException {
+    public static void run(User user, byte[] scriptBytes, Handler handler) throws IOException, JAXBException, XMLStreamException {
+        run(user, new ByteArrayInputStream(scriptBytes), handler);
+    }
 
-        Unmarshaller unmarshaller = JAXBContext.newInstance(WorkflowScriptDto.class).createUnmarshaller();
-        WorkflowScriptDto data = (WorkflowScriptDto) unmarshaller.unmarshal(new ByteArrayInputStream(scriptBytes));
+    /**
+     * Executes script. Operations in per operation transaction scope are sent in batches (failed batch is re-executed per operation),
+     * consecutive operations of the same type are executed in parallel if enabled by 'adminscript.parallelism'.
+     */
+    public static void run(User user, InputStream scriptStream, Handler handler) throws IOException, JAXBException, XMLStreamException {
+        WorkflowScriptDto data = WorkflowScriptReader.read(scriptStream);
         data.validate(true);
-        List<List<ScriptOperation>> splitScriptToTransactions = splitScriptToTransactions(data);
+        List<List<ScriptTransaction>> stages = splitScriptToStages(data);
         if (!data.transactionScopes.isEmpty()) {
-            System.out.println("multiple docs [by <transactionScope>]: " + splitScriptToTransactions.size());
+            System.out.println("multiple docs [by <transactionScope>]: " + stages.size());
         } else {
-            System.out.println("multiple docs [by defaultTransactionScope]: " + splitScriptToTransactions.size());
+            System.out.println("multiple docs [by defaultTransactionScope]: " + stages.size());
         }
         Map<String, byte[]> externalResources = readExternalResources(data);
-        for (List<ScriptOperation> operations : splitScriptToTransactions) {
-            WorkflowScriptDto scriptPart = new WorkflowScriptDto();
-            scriptPart.identitySets = data.identitySets;
-            scriptPart.operations = operations;
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            JAXBContext.newInstance(WorkflowScriptDto.class).createMarshaller().marshal(scriptPart, outputStream);
-            byte[] scriptPartData = outputStream.toByteArray();
-            try {
-                handler.onStartTransaction(scriptPartData);
-                Delegates.getScriptingService().executeAdminScript(user, scriptPartData, externalResources);
-                handler.onEndTransaction();
-            } catch (Exception e) {
-                handler.onTransactionException(e);
+        ScriptExecution execution = new ScriptExecution(user, data.identitySets, externalResources, handler, countOperations(stages));
+        int parallelism = SystemProperties.getAdminScriptParallelism();
+        ExecutorService executorService = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        try {
+            for (List<ScriptTransaction> stage : stages) {
+                if (executorService == null || stage.size() == 1) {
+                    for (ScriptTransaction transaction : stage) {
+                        execution.execute(transaction);
+                    }
+                } else {
+                    List<Future<?>> futures = Lists.newArrayList();
+                    for (ScriptTransaction transaction : stage) {
+                        futures.add(executorService.submit(execution.asRunnable(transaction)));
+                    }
+                    for (Future<?> future : futures) {
+                        Futures.getUnchecked(future);
+                    }
+                }
+            }
+        } finally {
+            if (executorService != null) {
+                executorService.shutdown();
             }
         }
     }
 
-    private static List<List<ScriptOperation>> splitScriptToTransactions(WorkflowScriptDto script) {
+    /**
+     * Splits script to stages; stages are executed sequentially and transactions in stage are independent.
+     */
+    private static List<List<ScriptTransaction>> splitScriptToStages(WorkflowScriptDto script) {
         if (!script.operations.isEmpty()) {
             TransactionScopeType transactionType = script.defaultTransactionScope == null ? TransactionScopeType.TRANSACTION_PER_OPERATION
                     : script.defaultTransactionScope;
-            return splitScopeToTransactions(script.operations, transactionType);
+            return splitScopeToStages(script.operations, transactionType);
         }
-        List<List<ScriptOperation>> result = Lists.newArrayList();
+        List<List<ScriptTransaction>> result = Lists.newArrayList();
         for (TransactionScopeDto transactionScope : script.transactionScopes) {
             TransactionScopeType transactionType = transactionScope.transactionScope;
             if (transactionType == null) {
@@ -123,18 +162,46 @@ public class AdminScriptClient {
             if (transactionType == null) {
                 transactionType = TransactionScopeType.TRANSACTION_PER_SCOPE;
             }
-            result.addAll(splitScopeToTransactions(transactionScope.operations, transactionType));
+            result.addAll(splitScopeToStages(transactionScope.operations, transactionType));
         }
         return result;
     }
 
-    private static List<List<ScriptOperation>> splitScopeToTransactions(List<ScriptOperation> scopeOperations, TransactionScopeType transactionType) {
-        List<List<ScriptOperation>> result = Lists.newArrayList();
-        if (transactionType == TransactionScopeType.TRANSACTION_PER_SCOPE) {
-            result.add(scopeOperations);
-        } else {
-            for (ScriptOperation op : scopeOperations) {
-                result.add(Lists.newArrayList(op));
+    private static List<List<ScriptTransaction>> splitScopeToStages(List<ScriptOperation> scopeOperations, TransactionScopeType transactionType) {
+        List<List<ScriptTransaction>> result = Lists.newArrayList();
+        if (scopeOperations.isEmpty()) {
+            return result;
+        }
+        if (!transactionType.isPerOperation()) {
+            result.add(Lists.newArrayList(new ScriptTransaction(scopeOperations, false)));
+            return result;
+        }
+        int batchSize = Math.max(SystemProperties.getAdminScriptTransactionBatchSize(), 1);
+        List<ScriptOperation> group = Lists.newArrayList();
+        for (ScriptOperation operation : scopeOperations) {
+            if (!group.isEmpty() && (operation.getClass() != group.get(0).getClass() || operation instanceof CustomOperation)) {
+                result.add(splitGroupToTransactions(group, batchSize));
+                group = Lists.newArrayList();
+            }
+            group.add(operation);
+        }
+        result.add(splitGroupToTransactions(group, batchSize));
+        return result;
+    }
+
+    private static List<ScriptTransaction> splitGroupToTransactions(List<ScriptOperation> group, int batchSize) {
+        List<ScriptTransaction> result = Lists.newArrayList();
+        for (List<ScriptOperation> batch : Lists.partition(group, batchSize)) {
+            result.add(new ScriptTransaction(batch, batch.size() > 1));
+        }
+        return result;
+    }
+
+    private static int countOperations(List<List<ScriptTransaction>> stages) {
+        int result = 0;
+        for (List<ScriptTransaction> stage : stages) {
+            for (ScriptTransaction transaction : stage) {
+                result += transaction.operations.size();
             }
         }
         return result;
@@ -156,6 +223,89 @@ public class AdminScriptClient {
         return result;
     }
 
+    private static class ScriptTransaction {
+        private final List<ScriptOperation> operations;
+        private final boolean batch;
+
+        public ScriptTransaction(List<ScriptOperation> operations, boolean batch) {
+            this.operations = operations;
+            this.batch = batch;
+        }
+    }
+
+    private static class ScriptExecution {
+        private final User user;
+        private final List<NamedIdentitySet> identitySets;
+        private final Map<String, byte[]> externalResources;
+        private final Handler handler;
+        private final int totalOperations;
+        private final AtomicInteger completedOperations = new AtomicInteger();
+        private final long startTime = System.currentTimeMillis();
+
+        public ScriptExecution(User user, List<NamedIdentitySet> identitySets, Map<String, byte[]> externalResources, Handler handler,
+                int totalOperations) {
+            this.user = user;
+            this.identitySets = identitySets;
+            this.externalResources = externalResources;
+            this.handler = handler;
+            this.totalOperations = totalOperations;
+        }
+
+        public Runnable asRunnable(final ScriptTransaction transaction) {
+            return new Runnable() {
+
+                @Override
+                public void run() {
+                    execute(transaction);
+                }
+            };
+        }
+
+        public void execute(ScriptTransaction transaction) {
+            if (!execute(transaction.operations, transaction.batch)) {
+                // batch is rolled back, execute each operation in it's own transaction
+                for (ScriptOperation operation : transaction.operations) {
+                    execute(Lists.newArrayList(operation), false);
+                }
+            }
+            int completed = completedOperations.addAndGet(transaction.operations.size());
+            double seconds = Math.max(System.currentTimeMillis() - startTime, 1) / 1000.0;
+            synchronized (handler) {
+                handler.onProgress(completed, totalOperations, completed / seconds);
+            }
+        }
+
+        private boolean execute(List<ScriptOperation> operations, boolean batch) {
+            WorkflowScriptDto scriptPart = new WorkflowScriptDto();
+            scriptPart.identitySets = identitySets;
+            scriptPart.operations = operations;
+            try {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                WorkflowScriptReader.write(scriptPart, outputStream);
+                byte[] scriptPartData = outputStream.toByteArray();
+                synchronized (handler) {
+                    handler.onStartTransaction(scriptPartData);
+                }
+                Delegates.getScriptingService().executeAdminScript(user, scriptPartData, externalResources);
+                synchronized (handler) {
+                    handler.onEndTransaction();
+                }
+                return true;
+            } catch (Exception e) {
+                if (batch) {
+                    return false;
+                }
+                synchronized (handler) {
+                    handler.onTransactionException(e);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Script execution callbacks. Calls are serialized even if transactions are executed in parallel.
+     */
     public static class Handler {
 
         public void onStartTransaction(byte[] script) {
@@ -166,5 +316,14 @@ public class AdminScriptClient {
 
         public void onTransactionException(Exception e) {
         }
+
+        /**
+         * Called after each transaction.
+         *
+         * @param operationsPerSecond
+         *            throughput since script start
+         */
+        public void onProgress(int completedOperations, int totalOperations, double operationsPerSecond) {
+        }
     }
 }
@@ -1,5 +1,8 @@
 package ru.runa.wfe.service.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 import ru.runa.wfe.service.delegate.Delegates;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.file.IFileVariable;
@@ -13,6 +16,7 @@ import ru.runa.wfe.var.file.IFileVariable;
  */
 public class FileVariableProxy implements IFileVariable {
     private static final long serialVersionUID = 1L;
+    private static final int CHUNK_SIZE = 1024 * 1024;
     private User user;
     private Long processId;
     private String variableName;
@@ -62,6 +66,45 @@ public class FileVariableProxy implements IFileVariable {
         return data;
     }
 
+    /**
+     * @return stream reading file data by chunks without loading it fully into memory
+     */
+    public InputStream getInputStream() {
+        return new InputStream() {
+            private byte[] chunk = new byte[0];
+            private int position;
+            private long offset;
+
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position == chunk.length) {
+                    if (data != null) {
+                        chunk = offset == 0 ? data : new byte[0];
+                    } else {
+                        chunk = Delegates.getExecutionService().getFileVariableValueChunk(user, processId, variableName, offset, CHUNK_SIZE);
+                    }
+                    if (chunk == null || chunk.length == 0) {
+                        chunk = new byte[0];
+                        position = 0;
+                        return -1;
+                    }
+                    offset += chunk.length;
+                    position = 0;
+                }
+                int count = Math.min(len, chunk.length - position);
+                System.arraycopy(chunk, position, b, off, count);
+                position += count;
+                return count;
+            }
+        };
+    }
+
     public String getUnproxiedClassName() {
         return unproxiedClassName;
     }
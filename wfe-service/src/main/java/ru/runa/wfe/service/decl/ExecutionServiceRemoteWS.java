@@ -4,7 +4,9 @@ import java.util.List;
 
 import javax.ejb.Remote;
 
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.service.jaxb.Variable;
+import ru.runa.wfe.service.jaxb.VariableList;
 import ru.runa.wfe.user.User;
 
 @Remote
@@ -16,6 +18,8 @@ public interface ExecutionServiceRemoteWS {
 
     public Long startProcessWS(User user, String definitionName, List<Variable> variables);
 
+    public List<BulkOperationResult> startProcessesWS(User user, String definitionName, List<VariableList> variablesList);
+
     public void updateVariablesWS(User user, Long processId, List<Variable> variables);
 
 }
@@ -4,6 +4,8 @@ import java.util.List;
 
 import javax.ejb.Remote;
 
+import ru.runa.wfe.execution.dto.BulkOperationResult;
+import ru.runa.wfe.service.jaxb.TaskCompletion;
 import ru.runa.wfe.service.jaxb.Variable;
 import ru.runa.wfe.user.User;
 
@@ -12,4 +14,6 @@ public interface TaskServiceRemoteWS {
 
     public void completeTaskWS(User user, Long taskId, List<Variable> variables, Long swimlaneActorId);
 
+    public List<BulkOperationResult> completeTasksWS(User user, List<TaskCompletion> completions);
+
 }
@@ -22,6 +22,7 @@ import java.util.Map;
 
 import ru.runa.wfe.execution.ProcessDoesNotExistException;
 import ru.runa.wfe.execution.ProcessFilter;
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.execution.dto.ProcessError;
 import ru.runa.wfe.execution.dto.WfProcess;
 import ru.runa.wfe.execution.dto.WfSwimlane;
@@ -57,6 +58,15 @@ public class ExecutionServiceDelegate extends EJB3Delegate implements ExecutionS
         }
     }
 
+    @Override
+    public List<BulkOperationResult> startProcesses(User user, String definitionName, List<Map<String, Object>> variablesList) {
+        try {
+            return getExecutionService().startProcesses(user, definitionName, variablesList);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
     @Override
     public Long startProcessById(User user, Long definitionId, Map<String, Object> variablesMap) {
         try {
@@ -75,6 +85,24 @@ public class ExecutionServiceDelegate extends EJB3Delegate implements ExecutionS
         }
     }
 
+    @Override
+    public Long deleteProcessesAsync(User user, ProcessFilter filter) {
+        try {
+            return getExecutionService().deleteProcessesAsync(user, filter);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public Long cancelProcessesAsync(User user, ProcessFilter filter) {
+        try {
+            return getExecutionService().cancelProcessesAsync(user, filter);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
     @Override
     public int getProcessesCount(User user, BatchPresentation batchPresentation) {
         try {
@@ -165,6 +193,34 @@ public class ExecutionServiceDelegate extends EJB3Delegate implements ExecutionS
         }
     }
 
+    @Override
+    public byte[] getFileVariableValueChunk(User user, Long processId, String variableName, long offset, int length)
+            throws ProcessDoesNotExistException {
+        try {
+            return getExecutionService().getFileVariableValueChunk(user, processId, variableName, offset, length);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public String uploadFileVariableChunk(User user, Long processId, String uploadId, byte[] chunk) throws ProcessDoesNotExistException {
+        try {
+            return getExecutionService().uploadFileVariableChunk(user, processId, uploadId, chunk);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public byte[] getUploadedFileChunk(User user, String uploadId, long offset, int length) {
+        try {
+            return getExecutionService().getUploadedFileChunk(user, uploadId, offset, length);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
     @Override
     public void updateVariables(User user, Long processId, Map<String, Object> variables) {
         try {
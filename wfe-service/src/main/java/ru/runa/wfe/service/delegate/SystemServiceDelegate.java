@@ -20,6 +20,7 @@ package ru.runa.wfe.service.delegate;
 import java.util.List;
 
 import ru.runa.wfe.commons.dao.Localization;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation;
 import ru.runa.wfe.service.SystemService;
 import ru.runa.wfe.user.User;
 
@@ -103,4 +104,31 @@ public class SystemServiceDelegate extends EJB3Delegate implements SystemService
         }
 	}
 
+    @Override
+    public List<WfProcessBulkOperation> getProcessBulkOperations(User user) {
+        try {
+            return getSystemService().getProcessBulkOperations(user);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public boolean pauseProcessBulkOperation(User user, Long operationId) {
+        try {
+            return getSystemService().pauseProcessBulkOperation(user, operationId);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public boolean resumeProcessBulkOperation(User user, Long operationId) {
+        try {
+            return getSystemService().resumeProcessBulkOperation(user, operationId);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
 }
@@ -3,8 +3,10 @@ package ru.runa.wfe.service.delegate;
 import java.util.List;
 import java.util.Map;
 
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.service.TaskService;
+import ru.runa.wfe.task.dto.TaskCompletion;
 import ru.runa.wfe.task.dto.WfTask;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
@@ -28,6 +30,15 @@ public class TaskServiceDelegate extends EJB3Delegate implements TaskService {
         }
     }
 
+    @Override
+    public List<BulkOperationResult> completeTasks(User user, List<TaskCompletion> completions) {
+        try {
+            return getTaskService().completeTasks(user, completions);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
     @Override
     public List<WfTask> getProcessTasks(User user, Long processId, boolean includeSubprocesses) {
         try {
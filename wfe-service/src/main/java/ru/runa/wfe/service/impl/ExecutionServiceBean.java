@@ -17,9 +17,12 @@
  */
 package ru.runa.wfe.service.impl;
 
+import java.io.ByteArrayInputStream;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.ejb.TransactionManagement;
 import javax.ejb.TransactionManagementType;
@@ -34,11 +37,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
 
 import ru.runa.wfe.ConfigurationException;
+import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SystemProperties;
-import ru.runa.wfe.definition.dto.WfDefinition;
-import ru.runa.wfe.definition.logic.DefinitionLogic;
 import ru.runa.wfe.execution.ProcessDoesNotExistException;
 import ru.runa.wfe.execution.ProcessFilter;
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.execution.dto.ProcessError;
 import ru.runa.wfe.execution.dto.WfProcess;
 import ru.runa.wfe.execution.dto.WfSwimlane;
@@ -58,12 +61,16 @@ import ru.runa.wfe.service.interceptors.EjbTransactionSupport;
 import ru.runa.wfe.service.interceptors.PerformanceObserver;
 import ru.runa.wfe.service.jaxb.Variable;
 import ru.runa.wfe.service.jaxb.VariableConverter;
+import ru.runa.wfe.service.jaxb.VariableList;
+import ru.runa.wfe.service.utils.ApiProperties;
+import ru.runa.wfe.service.utils.BulkOperationExecutor;
 import ru.runa.wfe.service.utils.FileVariablesUtil;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.dto.WfVariable;
 import ru.runa.wfe.var.file.FileVariable;
 import ru.runa.wfe.var.file.IFileVariable;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
 import ru.runa.wfe.var.logic.VariableLogic;
 
 import com.google.common.base.Preconditions;
@@ -74,8 +81,8 @@ import com.google.common.base.Preconditions;
 @WebService(name = "ExecutionAPI", serviceName = "ExecutionWebService")
 @SOAPBinding
 public class ExecutionServiceBean implements ExecutionServiceLocal, ExecutionServiceRemote, ExecutionServiceRemoteWS {
-    @Autowired
-    private DefinitionLogic definitionLogic;
+    @Resource
+    private SessionContext context;
     @Autowired
     private ExecutionLogic executionLogic;
     @Autowired
@@ -99,13 +106,58 @@ public class ExecutionServiceBean implements ExecutionServiceLocal, ExecutionSer
         return executionLogic.startProcess(user, definitionId, variables);
     }
 
+    @WebMethod(exclude = true)
+    @Override
+    public List<BulkOperationResult> startProcesses(final User user, String definitionName, List<Map<String, Object>> variablesList) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(definitionName != null, "definitionName");
+        Preconditions.checkArgument(variablesList != null, "variablesList");
+        ProcessDefinition processDefinition = executionLogic.getLatestDefinitionForStart(user, definitionName);
+        return startProcesses(user, processDefinition, variablesList);
+    }
+
+    private List<BulkOperationResult> startProcesses(final User user, final ProcessDefinition processDefinition,
+            List<Map<String, Object>> variablesList) {
+        return new BulkOperationExecutor<Map<String, Object>>(context.getUserTransaction(), ApiProperties.getBulkOperationChunkSize()) {
+
+            @Override
+            protected Long execute(Map<String, Object> variables) {
+                FileVariablesUtil.unproxyFileVariables(user, null, null, variables);
+                return executionLogic.startProcess(user, processDefinition, variables);
+            }
+        }.execute(variablesList);
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public List<BulkOperationResult> startProcessesWS(@WebParam(name = "user") final User user,
+            @WebParam(name = "definitionName") String definitionName, @WebParam(name = "variablesList") List<VariableList> variablesList) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(definitionName != null, "definitionName");
+        Preconditions.checkArgument(variablesList != null, "variablesList");
+        final ProcessDefinition processDefinition = executionLogic.getLatestDefinitionForStart(user, definitionName);
+        return new BulkOperationExecutor<VariableList>(context.getUserTransaction(), ApiProperties.getBulkOperationChunkSize()) {
+
+            @Override
+            protected Long execute(VariableList variableList) {
+                // unmarshalling failure is reported for the item only
+                Map<String, Object> variables = VariableConverter.unmarshal(processDefinition, variableList.variables);
+                FileVariablesUtil.unproxyFileVariables(user, null, null, variables);
+                return executionLogic.startProcess(user, processDefinition, variables);
+            }
+        }.execute(variablesList);
+    }
+
     @Override
     @WebResult(name = "result")
     public Long startProcessWS(@WebParam(name = "user") User user, @WebParam(name = "definitionName") String definitionName,
             @WebParam(name = "variables") List<Variable> variables) {
-        WfDefinition definition = definitionLogic.getLatestProcessDefinition(user, definitionName);
-        ProcessDefinition processDefinition = executionLogic.getDefinition(definition.getId());
-        return startProcess(user, definitionName, VariableConverter.unmarshal(processDefinition, variables));
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(definitionName != null, "definitionName");
+        ProcessDefinition processDefinition = executionLogic.getLatestDefinitionForStart(user, definitionName);
+        Map<String, Object> variablesMap = VariableConverter.unmarshal(processDefinition, variables);
+        FileVariablesUtil.unproxyFileVariables(user, null, null, variablesMap);
+        return executionLogic.startProcess(user, processDefinition, variablesMap);
     }
 
     @Override
@@ -225,13 +277,63 @@ public class ExecutionServiceBean implements ExecutionServiceLocal, ExecutionSer
         Preconditions.checkArgument(processId != null, "processId");
         Preconditions.checkArgument(variableName != null, "variableName");
         WfVariable variable = variableLogic.getVariable(user, processId, variableName);
-        if (variable != null) {
-            IFileVariable fileVariable = (IFileVariable) variable.getValue();
-            return new FileVariable(fileVariable);
+        if (variable != null && variable.getValue() != null) {
+            return new FileVariable(getFileVariable(variable));
         }
         return null;
     }
 
+    @Override
+    @WebResult(name = "result")
+    public byte[] getFileVariableValueChunk(@WebParam(name = "user") User user, @WebParam(name = "processId") Long processId,
+            @WebParam(name = "variableName") String variableName, @WebParam(name = "offset") long offset, @WebParam(name = "length") int length) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(processId != null, "processId");
+        Preconditions.checkArgument(variableName != null, "variableName");
+        Preconditions.checkArgument(offset >= 0, "offset");
+        Preconditions.checkArgument(length > 0, "length");
+        WfVariable variable = variableLogic.getVariable(user, processId, variableName);
+        if (variable != null && variable.getValue() != null) {
+            return LocalFileSystemStorage.readChunk(getFileVariable(variable), offset, length);
+        }
+        return null;
+    }
+
+    private IFileVariable getFileVariable(WfVariable variable) {
+        if (variable.getValue() instanceof IFileVariable) {
+            return (IFileVariable) variable.getValue();
+        }
+        throw new InternalApplicationException("Variable '" + variable.getDefinition().getName() + "' is not a file: "
+                + variable.getValue().getClass().getName());
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public String uploadFileVariableChunk(@WebParam(name = "user") User user, @WebParam(name = "processId") Long processId,
+            @WebParam(name = "uploadId") String uploadId, @WebParam(name = "chunk") byte[] chunk) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(chunk != null, "chunk");
+        if (uploadId == null) {
+            if (processId != null) {
+                variableLogic.checkProcessUpdateAllowed(user, processId);
+            }
+            uploadId = LocalFileSystemStorage.createUpload(user.getActor().getId(), processId);
+        }
+        LocalFileSystemStorage.appendUpload(uploadId, user.getActor().getId(), new ByteArrayInputStream(chunk));
+        return uploadId;
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public byte[] getUploadedFileChunk(@WebParam(name = "user") User user, @WebParam(name = "uploadId") String uploadId,
+            @WebParam(name = "offset") long offset, @WebParam(name = "length") int length) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(uploadId != null, "uploadId");
+        Preconditions.checkArgument(offset >= 0, "offset");
+        Preconditions.checkArgument(length > 0, "length");
+        return LocalFileSystemStorage.readUploadChunk(uploadId, user.getActor().getId(), offset, length);
+    }
+
     @WebMethod(exclude = true)
     @Override
     public void updateVariables(User user, Long processId, Map<String, Object> variables) {
@@ -254,6 +356,22 @@ public class ExecutionServiceBean implements ExecutionServiceLocal, ExecutionSer
         executionLogic.cancelProcess(user, processId);
     }
 
+    @Override
+    @WebResult(name = "result")
+    public Long deleteProcessesAsync(@WebParam(name = "user") User user, @WebParam(name = "filter") ProcessFilter filter) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(filter != null, "filter");
+        return executionLogic.deleteProcessesAsync(user, filter);
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public Long cancelProcessesAsync(@WebParam(name = "user") User user, @WebParam(name = "filter") ProcessFilter filter) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(filter != null, "filter");
+        return executionLogic.cancelProcessesAsync(user, filter);
+    }
+
     @Override
     @WebResult(name = "result")
     public List<WfSwimlane> getSwimlanes(@WebParam(name = "user") User user, @WebParam(name = "processId") Long processId) {
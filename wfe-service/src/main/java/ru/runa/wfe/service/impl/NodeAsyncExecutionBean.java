@@ -18,7 +18,7 @@ import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
 
 import ru.runa.wfe.audit.ProcessSuspendLog;
 import ru.runa.wfe.audit.dao.ProcessLogDAO;
-import ru.runa.wfe.commons.ITransactionListener;
+import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.TransactionListeners;
 import ru.runa.wfe.commons.TransactionalExecutor;
 import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
@@ -28,6 +28,7 @@ import ru.runa.wfe.execution.Token;
 import ru.runa.wfe.execution.dao.ProcessDAO;
 import ru.runa.wfe.execution.dao.TokenDAO;
 import ru.runa.wfe.execution.logic.ProcessExecutionErrors;
+import ru.runa.wfe.execution.trace.ExecutionTracer;
 import ru.runa.wfe.lang.Node;
 import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.service.interceptors.EjbExceptionSupport;
@@ -46,6 +47,7 @@ import com.google.common.base.Throwables;
 @Interceptors({ EjbExceptionSupport.class, PerformanceObserver.class, SpringBeanAutowiringInterceptor.class })
 public class NodeAsyncExecutionBean implements MessageListener {
     private static final Log log = LogFactory.getLog(NodeAsyncExecutionBean.class);
+    private static final String DELIVERY_COUNT_PROPERTY = "JMSXDeliveryCount";
     @Autowired
     private TokenDAO tokenDAO;
     @Autowired
@@ -64,15 +66,19 @@ public class NodeAsyncExecutionBean implements MessageListener {
             Long processId = message.getLongProperty("processId");
             Long tokenId = message.getLongProperty("tokenId");
             String nodeId = message.getStringProperty("nodeId");
+            // delivery count is optional JMS property, without it failure is not retried
+            int attempt = message.propertyExists(DELIVERY_COUNT_PROPERTY) ? message.getIntProperty(DELIVERY_COUNT_PROPERTY) : Integer.MAX_VALUE;
             log.debug("handling node async execution request: {processId=" + processId + ", tokenId=" + tokenId + ", nodeId=" + nodeId + "}");
-            handleMessage(processId, tokenId);
+            handleMessage(processId, tokenId, attempt);
+        } catch (MessagePostponedException e) {
+            throw e;
         } catch (Exception e) {
             log.error(jmsMessage, e);
             throw new MessagePostponedException(e.getMessage());
         }
     }
 
-    private void handleMessage(final Long processId, final Long tokenId) {
+    private void handleMessage(final Long processId, final Long tokenId, int attempt) {
         try {
             new TransactionalExecutor(context.getUserTransaction()) {
 
@@ -81,7 +87,9 @@ public class NodeAsyncExecutionBean implements MessageListener {
                     Token token = tokenDAO.getNotNull(tokenId);
                     ProcessDefinition processDefinition = processDefinitionLoader.getDefinition(token.getProcess());
                     Node node = processDefinition.getNodeNotNull(token.getNodeId());
+                    ExecutionTracer.startTrace("asyncNode");
                     try {
+                        ExecutionTracer.setProcessId(processId);
                         ExecutionContext executionContext = new ExecutionContext(processDefinition, token);
                         node.execute(executionContext);
                         ProcessExecutionErrors.removeProcessError(processId, node.getNodeId());
@@ -89,18 +97,19 @@ public class NodeAsyncExecutionBean implements MessageListener {
                         log.error(processId + ":" + tokenId, th);
                         ProcessExecutionErrors.addProcessError(processId, node.getNodeId(), node.getName(), null, th);
                         Throwables.propagate(th);
+                    } finally {
+                        ExecutionTracer.end();
                     }
                 }
             }.executeInTransaction(true);
-            for (ITransactionListener listener : TransactionListeners.get()) {
-                try {
-                    listener.onTransactionComplete(context.getUserTransaction());
-                } catch (Throwable th) {
-                    log.error(th);
-                }
-            }
-            TransactionListeners.reset();
+            TransactionListeners.fireTransactionComplete(context.getUserTransaction());
         } catch (Throwable th) {
+            int maxAttempts = SystemProperties.getNodeAsyncExecutionMaxAttempts();
+            if (attempt < maxAttempts) {
+                log.warn("Node async execution attempt " + attempt + " of " + maxAttempts + " failed for " + processId + ":" + tokenId
+                        + ", message will be redelivered");
+                throw new MessagePostponedException(th.toString());
+            }
             new TransactionalExecutor(context.getUserTransaction()) {
 
                 @Override
@@ -33,6 +33,8 @@ import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
 
 import ru.runa.wfe.audit.logic.AuditLogic;
 import ru.runa.wfe.commons.dao.Localization;
+import ru.runa.wfe.execution.dto.WfProcessBulkOperation;
+import ru.runa.wfe.execution.logic.ExecutionLogic;
 import ru.runa.wfe.security.ASystem;
 import ru.runa.wfe.service.decl.SystemServiceLocal;
 import ru.runa.wfe.service.decl.SystemServiceRemote;
@@ -54,6 +56,8 @@ import com.google.common.base.Preconditions;
 public class SystemServiceBean implements SystemServiceLocal, SystemServiceRemote {
     @Autowired
     private AuditLogic auditLogic;
+    @Autowired
+    private ExecutionLogic executionLogic;
 
     @Override
     @WebResult(name = "result")
@@ -103,4 +107,27 @@ public class SystemServiceBean implements SystemServiceLocal, SystemServiceRemot
     public void clearSettings() {
         auditLogic.clearSettings();
     }
+
+    @Override
+    @WebResult(name = "result")
+    public List<WfProcessBulkOperation> getProcessBulkOperations(@WebParam(name = "user") User user) {
+        Preconditions.checkArgument(user != null, "user");
+        return executionLogic.getProcessBulkOperations(user);
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public boolean pauseProcessBulkOperation(@WebParam(name = "user") User user, @WebParam(name = "operationId") Long operationId) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(operationId != null, "operationId");
+        return executionLogic.pauseProcessBulkOperation(user, operationId);
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public boolean resumeProcessBulkOperation(@WebParam(name = "user") User user, @WebParam(name = "operationId") Long operationId) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(operationId != null, "operationId");
+        return executionLogic.resumeProcessBulkOperation(user, operationId);
+    }
 }
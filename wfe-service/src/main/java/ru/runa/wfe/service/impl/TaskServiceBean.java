@@ -3,6 +3,8 @@ package ru.runa.wfe.service.impl;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.ejb.TransactionManagement;
 import javax.ejb.TransactionManagementType;
@@ -16,6 +18,7 @@ import javax.jws.soap.SOAPBinding;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
 
+import ru.runa.wfe.execution.dto.BulkOperationResult;
 import ru.runa.wfe.execution.logic.ExecutionLogic;
 import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.presentation.BatchPresentation;
@@ -28,13 +31,17 @@ import ru.runa.wfe.service.interceptors.EjbTransactionSupport;
 import ru.runa.wfe.service.interceptors.PerformanceObserver;
 import ru.runa.wfe.service.jaxb.Variable;
 import ru.runa.wfe.service.jaxb.VariableConverter;
+import ru.runa.wfe.service.utils.ApiProperties;
+import ru.runa.wfe.service.utils.BulkOperationExecutor;
 import ru.runa.wfe.service.utils.FileVariablesUtil;
+import ru.runa.wfe.task.dto.TaskCompletion;
 import ru.runa.wfe.task.dto.WfTask;
 import ru.runa.wfe.task.logic.TaskLogic;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 
 @Stateless(name = "TaskServiceBean")
 @TransactionManagement(TransactionManagementType.BEAN)
@@ -42,6 +49,8 @@ import com.google.common.base.Preconditions;
 @WebService(name = "TaskAPI", serviceName = "TaskWebService")
 @SOAPBinding
 public class TaskServiceBean implements TaskServiceLocal, TaskServiceRemote, TaskServiceRemoteWS {
+    @Resource
+    private SessionContext context;
     @Autowired
     private TaskLogic taskLogic;
     @Autowired
@@ -129,6 +138,58 @@ public class TaskServiceBean implements TaskServiceLocal, TaskServiceRemote, Tas
         taskLogic.markTaskOpened(user, taskId);
     }
 
+    @WebMethod(exclude = true)
+    @Override
+    public List<BulkOperationResult> completeTasks(final User user, List<TaskCompletion> completions) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(completions != null, "completions");
+        return new BulkOperationExecutor<TaskCompletion>(context.getUserTransaction(), ApiProperties.getBulkOperationChunkSize()) {
+
+            @Override
+            protected Long execute(TaskCompletion completion) {
+                return completeTaskItem(user, completion.getTaskId(), completion.getVariables(), completion.getSwimlaneActorId());
+            }
+        }.execute(completions);
+    }
+
+    @Override
+    @WebResult(name = "result")
+    public List<BulkOperationResult> completeTasksWS(@WebParam(name = "user") final User user,
+            @WebParam(name = "completions") List<ru.runa.wfe.service.jaxb.TaskCompletion> completions) {
+        Preconditions.checkArgument(user != null, "user");
+        Preconditions.checkArgument(completions != null, "completions");
+        final Map<Long, ProcessDefinition> processDefinitions = Maps.newHashMap();
+        return new BulkOperationExecutor<ru.runa.wfe.service.jaxb.TaskCompletion>(context.getUserTransaction(),
+                ApiProperties.getBulkOperationChunkSize()) {
+
+            @Override
+            protected Long execute(ru.runa.wfe.service.jaxb.TaskCompletion completion) {
+                Map<String, Object> variables = null;
+                if (completion.variables != null && completion.taskId != null) {
+                    WfTask task = taskLogic.getTask(user, completion.taskId);
+                    ProcessDefinition processDefinition = processDefinitions.get(task.getDefinitionId());
+                    if (processDefinition == null) {
+                        processDefinition = executionLogic.getDefinition(task.getDefinitionId());
+                        processDefinitions.put(task.getDefinitionId(), processDefinition);
+                    }
+                    variables = VariableConverter.unmarshal(processDefinition, completion.variables);
+                }
+                return completeTaskItem(user, completion.taskId, variables, completion.swimlaneActorId);
+            }
+        }.execute(completions);
+    }
+
+    /**
+     * Bulk operation item: lookup and unmarshalling failures are reported for the item only.
+     */
+    private Long completeTaskItem(User user, Long taskId, Map<String, Object> variables, Long swimlaneActorId) {
+        Preconditions.checkArgument(taskId != null, "taskId");
+        Long processId = taskLogic.getProcessId(user, taskId);
+        FileVariablesUtil.unproxyFileVariables(user, processId, taskId, variables);
+        taskLogic.completeTask(user, taskId, variables, swimlaneActorId);
+        return taskId;
+    }
+
     @Override
     @WebResult(name = "result")
     public void completeTaskWS(@WebParam(name = "user") User user, @WebParam(name = "taskId") Long taskId,
@@ -11,7 +11,6 @@ import org.apache.commons.logging.LogFactory;
 import org.hibernate.StaleObjectStateException;
 import org.springframework.dao.OptimisticLockingFailureException;
 
-import ru.runa.wfe.commons.ITransactionListener;
 import ru.runa.wfe.commons.TransactionListeners;
 import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.security.auth.SubjectPrincipalsHelper;
@@ -45,14 +44,7 @@ public class EjbTransactionSupport {
             return invokeWithRetry(ic, transaction, ApiProperties.getRetriesCount());
         } finally {
             UserHolder.reset();
-            for (ITransactionListener listener : TransactionListeners.get()) {
-                try {
-                    listener.onTransactionComplete(transaction);
-                } catch (Throwable th) {
-                    log.error(th);
-                }
-            }
-            TransactionListeners.reset();
+            TransactionListeners.fireTransactionComplete(transaction);
         }
     }
 
@@ -0,0 +1,16 @@
+package ru.runa.wfe.service.jaxb;
+
+import java.util.List;
+
+import com.google.common.base.Objects;
+
+public class TaskCompletion {
+    public Long taskId;
+    public List<Variable> variables;
+    public Long swimlaneActorId;
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(getClass()).add("taskId", taskId).toString();
+    }
+}
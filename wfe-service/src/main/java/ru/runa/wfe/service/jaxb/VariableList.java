@@ -0,0 +1,14 @@
+package ru.runa.wfe.service.jaxb;
+
+import java.util.List;
+
+import com.google.common.base.Objects;
+
+public class VariableList {
+    public List<Variable> variables;
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(getClass()).add("variables", variables).toString();
+    }
+}
@@ -13,6 +13,10 @@ public class ApiProperties {
         return RESOURCES.getIntegerProperty("service.invocation.retry.timeout.milliseconds", 1000);
     }
 
+    public static int getBulkOperationChunkSize() {
+        return RESOURCES.getIntegerProperty("service.bulk.operation.chunk.size", 100);
+    }
+
     public static boolean suppressExternalExceptions() {
         return RESOURCES.getBooleanProperty("service.invocation.suppress.external.exceptions", false);
     }
@@ -0,0 +1,111 @@
+package ru.runa.wfe.service.utils;
+
+import java.util.List;
+
+import javax.transaction.UserTransaction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.StaleObjectStateException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.TransactionListeners;
+import ru.runa.wfe.commons.Utils;
+import ru.runa.wfe.execution.dto.BulkOperationResult;
+import ru.runa.wfe.service.interceptors.EjbTransactionSupport;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+/**
+ * Executes bulk operation inside bean managed transaction started by {@link EjbTransactionSupport} committing it after each chunk of items. In case
+ * of failure chunk is rolled back and its items are executed again one by one in separate transactions, so each failure is reported for its item
+ * only.
+ * <p/>
+ * Optimistic lock failures are not propagated as is: {@link EjbTransactionSupport} would repeat whole operation including already committed chunks.
+ *
+ * @since 4.3.0
+ */
+public abstract class BulkOperationExecutor<T> {
+    private static final Log log = LogFactory.getLog(BulkOperationExecutor.class);
+    private final UserTransaction transaction;
+    private final int chunkSize;
+
+    public BulkOperationExecutor(UserTransaction transaction, int chunkSize) {
+        this.transaction = transaction;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public List<BulkOperationResult> execute(List<T> items) {
+        try {
+            return executeChunks(items);
+        } catch (StaleObjectStateException e) {
+            throw new InternalApplicationException("Bulk operation failed", e);
+        } catch (OptimisticLockingFailureException e) {
+            throw new InternalApplicationException("Bulk operation failed", e);
+        }
+    }
+
+    private List<BulkOperationResult> executeChunks(List<T> items) {
+        List<BulkOperationResult> results = Lists.newArrayListWithExpectedSize(items.size());
+        int chunkStartIndex = 0;
+        for (List<T> chunk : Lists.partition(items, chunkSize)) {
+            List<BulkOperationResult> chunkResults = Lists.newArrayListWithExpectedSize(chunk.size());
+            try {
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunkResults.add(new BulkOperationResult(chunkStartIndex + i, execute(chunk.get(i))));
+                }
+                completeTransaction(true);
+            } catch (Throwable th) {
+                log.warn("Chunk [" + chunkStartIndex + ", " + (chunkStartIndex + chunk.size()) + ") failed, executing items separately: " + th);
+                completeTransaction(false);
+                chunkResults.clear();
+                for (int i = 0; i < chunk.size(); i++) {
+                    int index = chunkStartIndex + i;
+                    try {
+                        Long id = execute(chunk.get(i));
+                        completeTransaction(true);
+                        chunkResults.add(new BulkOperationResult(index, id));
+                    } catch (Throwable itemThrowable) {
+                        log.error("Item " + index + " failed", itemThrowable);
+                        completeTransaction(false);
+                        chunkResults.add(new BulkOperationResult(index, itemThrowable));
+                    }
+                }
+            }
+            results.addAll(chunkResults);
+            chunkStartIndex += chunk.size();
+        }
+        return results;
+    }
+
+    /**
+     * Commits or rolls back current transaction and begins next one which is completed by {@link EjbTransactionSupport}.
+     */
+    private void completeTransaction(boolean commit) {
+        try {
+            if (commit) {
+                transaction.commit();
+            } else {
+                Utils.rollbackTransaction(transaction);
+            }
+        } catch (Exception e) {
+            Utils.rollbackTransaction(transaction);
+            throw Throwables.propagate(e);
+        } finally {
+            TransactionListeners.fireTransactionComplete(transaction);
+            try {
+                transaction.begin();
+            } catch (Exception e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    /**
+     * @return process or task id
+     */
+    protected abstract Long execute(T item) throws Exception;
+
+}
@@ -13,6 +13,8 @@ import ru.runa.wfe.var.UserTypeMap;
 import ru.runa.wfe.var.UserType;
 import ru.runa.wfe.var.dto.WfVariable;
 import ru.runa.wfe.var.file.IFileVariable;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
+import ru.runa.wfe.var.file.UploadedFileVariable;
 import ru.runa.wfe.var.format.VariableFormatContainer;
 import ru.runa.wfe.var.logic.VariableLogic;
 
@@ -70,7 +72,14 @@ public class FileVariablesUtil {
         unproxyFileVariableValues(user, processId, taskId, variables);
     }
 
+    /**
+     * Replaces proxies with file variables; checks that staged uploads are owned by user and can be used in process.
+     */
     private static Object unproxyFileVariableValues(User user, Long processId, Long taskId, Object variableValue) {
+        if (variableValue instanceof UploadedFileVariable) {
+            LocalFileSystemStorage.checkUpload(((UploadedFileVariable) variableValue).getUploadId(), user.getActor().getId(), processId);
+            return variableValue;
+        }
         if (variableValue instanceof FileVariableProxy) {
             FileVariableProxy proxy = (FileVariableProxy) variableValue;
             if (proxy.getUnproxiedClassName() != null) {
@@ -94,7 +103,7 @@ public class FileVariablesUtil {
         if (variableValue instanceof List) {
             for (int i = 0; i < TypeConversionUtil.getListSize(variableValue); i++) {
                 Object object = TypeConversionUtil.getListValue(variableValue, i);
-                if (object instanceof FileVariableProxy || object instanceof List || object instanceof Map) {
+                if (object instanceof FileVariableProxy || object instanceof UploadedFileVariable || object instanceof List || object instanceof Map) {
                     Object unproxied = unproxyFileVariableValues(user, processId, taskId, object);
                     if (object instanceof IFileVariable) {
                         TypeConversionUtil.setListValue(variableValue, i, unproxied);
@@ -106,7 +115,7 @@ public class FileVariablesUtil {
             Map<?, Object> map = (Map<?, Object>) variableValue;
             for (Map.Entry<?, Object> entry : map.entrySet()) {
                 Object object = entry.getValue();
-                if (object instanceof FileVariableProxy || object instanceof List || object instanceof Map) {
+                if (object instanceof FileVariableProxy || object instanceof UploadedFileVariable || object instanceof List || object instanceof Map) {
                     Object unproxied = unproxyFileVariableValues(user, processId, taskId, object);
                     if (object instanceof IFileVariable) {
                         entry.setValue(unproxied);
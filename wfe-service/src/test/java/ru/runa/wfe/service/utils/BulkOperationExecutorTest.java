@@ -0,0 +1,134 @@
+package ru.runa.wfe.service.utils;
+
+import java.util.List;
+
+import javax.transaction.Status;
+import javax.transaction.UserTransaction;
+
+import org.hibernate.StaleObjectStateException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.execution.dto.BulkOperationResult;
+
+import com.google.common.collect.Lists;
+
+public class BulkOperationExecutorTest extends Assert {
+    private static final Long FAILED_ID = -1L;
+    private static final Long STALE_ID = -2L;
+    private TestTransaction transaction;
+    private List<Long> executed;
+
+    @BeforeMethod
+    public void createTransaction() throws Exception {
+        transaction = new TestTransaction();
+        // started by EjbTransactionSupport
+        transaction.begin();
+        executed = Lists.newArrayList();
+    }
+
+    @Test
+    public void testChunkCommit() {
+        List<BulkOperationResult> results = createExecutor(2).execute(Lists.newArrayList(1L, 2L, 3L, 4L, 5L));
+        assertEquals(results.size(), 5);
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getIndex(), i);
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(results.get(i).getId(), Long.valueOf(i + 1));
+        }
+        assertEquals(transaction.commitCount, 3);
+        assertEquals(transaction.committed, Lists.newArrayList(1L, 2L, 3L, 4L, 5L));
+        assertEquals(executed, Lists.newArrayList(1L, 2L, 3L, 4L, 5L));
+        assertEquals(transaction.getStatus(), Status.STATUS_ACTIVE);
+    }
+
+    @Test
+    public void testItemFallback() {
+        List<BulkOperationResult> results = createExecutor(3).execute(Lists.newArrayList(1L, FAILED_ID, 3L, 4L));
+        assertEquals(results.size(), 4);
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(2).isSuccess());
+        assertTrue(results.get(3).isSuccess());
+        // failed chunk is rolled back and repeated item by item
+        assertEquals(executed, Lists.newArrayList(1L, FAILED_ID, 1L, FAILED_ID, 3L, 4L));
+        assertEquals(transaction.committed, Lists.newArrayList(1L, 3L, 4L));
+    }
+
+    @Test
+    public void testPartialFailureReport() {
+        List<BulkOperationResult> results = createExecutor(10).execute(Lists.newArrayList(FAILED_ID, 2L, STALE_ID));
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(0).getIndex(), 0);
+        assertEquals(results.get(0).getErrorClassName(), IllegalArgumentException.class.getName());
+        assertEquals(results.get(0).getErrorMessage(), "item failed");
+        assertNull(results.get(0).getId());
+        assertEquals(results.get(1).getId(), Long.valueOf(2L));
+        // commit failure is reported for its item only and is not propagated to EjbTransactionSupport
+        assertEquals(results.get(2).getIndex(), 2);
+        assertEquals(results.get(2).getErrorClassName(), StaleObjectStateException.class.getName());
+        assertEquals(transaction.committed, Lists.newArrayList(2L));
+    }
+
+    private BulkOperationExecutor<Long> createExecutor(int chunkSize) {
+        return new BulkOperationExecutor<Long>(transaction, chunkSize) {
+
+            @Override
+            protected Long execute(Long item) throws Exception {
+                executed.add(item);
+                if (FAILED_ID.equals(item)) {
+                    throw new IllegalArgumentException("item failed");
+                }
+                transaction.pending.add(item);
+                return item;
+            }
+        };
+    }
+
+    private static class TestTransaction implements UserTransaction {
+        private final List<Long> pending = Lists.newArrayList();
+        private final List<Long> committed = Lists.newArrayList();
+        private int status = Status.STATUS_NO_TRANSACTION;
+        private int commitCount;
+
+        @Override
+        public void begin() {
+            assertEquals(status, Status.STATUS_NO_TRANSACTION);
+            status = Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void commit() {
+            assertEquals(status, Status.STATUS_ACTIVE);
+            if (pending.contains(STALE_ID)) {
+                rollback();
+                throw new StaleObjectStateException("Process", STALE_ID);
+            }
+            committed.addAll(pending);
+            pending.clear();
+            status = Status.STATUS_NO_TRANSACTION;
+            commitCount++;
+        }
+
+        @Override
+        public void rollback() {
+            pending.clear();
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+    }
+}
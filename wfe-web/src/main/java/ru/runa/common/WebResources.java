@@ -158,6 +158,10 @@ public class WebResources {
         return RESOURCES.getIntegerProperty("view.logs.timeout.autoreload.seconds", 15);
     }
 
+    public static int getProcessHistoryPageSize() {
+        return RESOURCES.getIntegerProperty("process.history.page.size", 500);
+    }
+
     public static boolean isDisplayVariablesJavaType() {
         return RESOURCES.getBooleanProperty("process.variables.displayJavaType", true);
     }
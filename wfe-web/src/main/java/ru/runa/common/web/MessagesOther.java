@@ -19,6 +19,8 @@ public class MessagesOther {
     public static final StrutsMessage LABEL_SHOW_HISTORY = new StrutsMessage("label.manage_history");
     public static final StrutsMessage LABEL_HISTORY_DATE = new StrutsMessage("label.history.date");
     public static final StrutsMessage LABEL_HISTORY_EVENT = new StrutsMessage("label.history.event");
+    public static final StrutsMessage LABEL_HISTORY_NEXT_PAGE = new StrutsMessage("label.history.next_page");
+    public static final StrutsMessage LABEL_HISTORY_EXPORT = new StrutsMessage("label.history.export");
 
     public static final StrutsMessage TITLE_IMPORT_DATAFILE = new StrutsMessage("managesystem.datafile.import.title");
     public static final StrutsMessage TITLE_EXPORT_DATAFILE = new StrutsMessage("managesystem.datafile.export.title");
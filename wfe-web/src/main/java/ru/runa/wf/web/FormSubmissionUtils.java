@@ -34,6 +34,7 @@ import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.UserTypeMap;
 import ru.runa.wfe.var.VariableDefinition;
 import ru.runa.wfe.var.file.FileVariable;
+import ru.runa.wfe.var.file.UploadedFileVariable;
 import ru.runa.wfe.var.format.BooleanFormat;
 import ru.runa.wfe.var.format.ExecutorFormat;
 import ru.runa.wfe.var.format.FormatCommons;
@@ -377,6 +378,10 @@ public class FormSubmissionUtils {
                     // for process update value
                     return uploadedFile.getFileVariable();
                 }
+                if (uploadedFile.getFileVariable() instanceof UploadedFileVariable) {
+                    // large file staged in local storage
+                    return uploadedFile.getFileVariable();
+                }
                 if (uploadedFile.getContent() == null) {
                     // null for display component
                     return IGNORED_VALUE;
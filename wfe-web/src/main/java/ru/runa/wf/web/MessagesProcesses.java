@@ -82,5 +82,12 @@ public final class MessagesProcesses {
     public static final StrutsMessage LABEL_TASK_HISTORY_TABLE_DURATION = new StrutsMessage("label.task_history_table_duration");
     public static final StrutsMessage LABEL_UPDATE_CURRENT_VERSION = new StrutsMessage("batch_presentation.process_definition.update_current_version");
     public static final StrutsMessage TITLE_SUBPROCESSES_LIST = new StrutsMessage("title.process_subprocess_list");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_PROCESS_ID = new StrutsMessage("label.execution_trace_process_id");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_STARTED = new StrutsMessage("label.execution_trace_started");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_NAME = new StrutsMessage("label.execution_trace_name");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_DURATION = new StrutsMessage("label.execution_trace_duration");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_QUERIES = new StrutsMessage("label.execution_trace_queries");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_SPANS = new StrutsMessage("label.execution_trace_spans");
+    public static final StrutsMessage LABEL_EXECUTION_TRACE_EXPORT = new StrutsMessage("label.execution_trace_export");
 
 }
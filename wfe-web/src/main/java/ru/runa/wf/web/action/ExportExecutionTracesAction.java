@@ -0,0 +1,53 @@
+package ru.runa.wf.web.action;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.struts.action.ActionForm;
+import org.apache.struts.action.ActionForward;
+import org.apache.struts.action.ActionMapping;
+
+import ru.runa.common.web.action.ActionBase;
+import ru.runa.common.web.form.IdForm;
+import ru.runa.wfe.execution.trace.ChromeTraceExporter;
+import ru.runa.wfe.execution.trace.ExecutionTrace;
+import ru.runa.wfe.execution.trace.ExecutionTraces;
+import ru.runa.wfe.service.delegate.Delegates;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Downloads process execution traces in Chrome trace event format.
+ *
+ * @since 4.3.0
+ */
+public class ExportExecutionTracesAction extends ActionBase {
+    public static final String ACTION_PATH = "/export_execution_traces";
+
+    @Override
+    public ActionForward execute(ActionMapping mapping, ActionForm actionForm, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            if (!Delegates.getExecutorService().isAdministrator(getLoggedUser(request))) {
+                log.warn("Execution traces export is allowed for administrators only");
+                return null;
+            }
+            Long processId = ((IdForm) actionForm).getId();
+            List<ExecutionTrace> traces = processId != null ? ExecutionTraces.getTraces(processId) : ExecutionTraces.getTraces();
+            byte[] content = ChromeTraceExporter.export(traces).getBytes(Charsets.UTF_8);
+            String fileName = "trace" + (processId != null ? "." + processId : "") + ".json";
+            response.setContentType("application/json");
+            response.setHeader("Pragma", "public");
+            response.setHeader("Cache-Control", "max-age=0");
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+            OutputStream os = response.getOutputStream();
+            os.write(content);
+            os.flush();
+        } catch (Throwable e) {
+            log.error("export execution traces", e);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package ru.runa.wf.web.action;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.struts.action.ActionForm;
+import org.apache.struts.action.ActionForward;
+import org.apache.struts.action.ActionMapping;
+
+import ru.runa.common.WebResources;
+import ru.runa.common.web.action.ActionBase;
+import ru.runa.common.web.form.IdForm;
+import ru.runa.wfe.audit.ProcessLog;
+import ru.runa.wfe.audit.ProcessLogExportFormat;
+import ru.runa.wfe.audit.ProcessLogFilter;
+import ru.runa.wfe.audit.ProcessLogs;
+import ru.runa.wfe.audit.Severity;
+import ru.runa.wfe.audit.presentation.ExecutorIdsValue;
+import ru.runa.wfe.audit.presentation.ExecutorNameValue;
+import ru.runa.wfe.audit.presentation.FileValue;
+import ru.runa.wfe.audit.presentation.HtmlValue;
+import ru.runa.wfe.audit.presentation.ProcessIdValue;
+import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.user.User;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Downloads process history in {@link ProcessLogExportFormat}. Logs are requested page by page and written to response as soon as each page is
+ * loaded, so memory usage does not depend on history size.
+ *
+ * @since 4.3.0
+ */
+public class ExportProcessLogsAction extends ActionBase {
+    public static final String ACTION_PATH = "/export_process_logs";
+
+    @Override
+    public ActionForward execute(ActionMapping mapping, ActionForm actionForm, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            User user = getLoggedUser(request);
+            Long processId = ((IdForm) actionForm).getId();
+            ProcessLogExportFormat format = ProcessLogExportFormat.valueOf(request.getParameter("format"));
+            ProcessLogFilter filter = new ProcessLogFilter(processId);
+            filter.setIncludeSubprocessLogs(Boolean.valueOf(request.getParameter("withSubprocesses")));
+            String[] severityNames = request.getParameterValues("severities");
+            if (severityNames != null) {
+                for (String severityName : severityNames) {
+                    filter.addSeverity(Severity.valueOf(severityName));
+                }
+            }
+            filter.setPageSize(WebResources.getProcessHistoryPageSize());
+            String fileName = "history." + processId + "." + format.getFileExtension();
+            response.setContentType(format.getContentType() + "; charset=UTF-8");
+            response.setHeader("Pragma", "public");
+            response.setHeader("Cache-Control", "max-age=0");
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+            Writer writer = new OutputStreamWriter(response.getOutputStream(), Charsets.UTF_8);
+            format.writeHeader(writer);
+            Locale locale = getLocale(request);
+            do {
+                ProcessLogs logs = Delegates.getAuditService().getProcessLogs(user, filter);
+                for (ProcessLog processLog : logs.getLogs()) {
+                    format.write(writer, processLog, getDescription(request, locale, processLog));
+                }
+                writer.flush();
+                filter.setIdFrom(logs.getNextPageIdFrom());
+            } while (filter.getIdFrom() != null);
+        } catch (Throwable e) {
+            log.error("export process logs", e);
+        }
+        return null;
+    }
+
+    private String getDescription(HttpServletRequest request, Locale locale, ProcessLog processLog) {
+        try {
+            String format = getResources(request).getMessage(locale, "history.log." + processLog.getPatternName());
+            return processLog.toString(format, getPlainArguments(processLog.getPatternArguments()));
+        } catch (Exception e) {
+            return processLog.toString();
+        }
+    }
+
+    /**
+     * Unlike history page arguments are not resolved to executors and links to keep export free of service calls per log.
+     */
+    private Object[] getPlainArguments(Object[] arguments) {
+        Object[] result = new Object[arguments.length];
+        for (int i = 0; i < result.length; i++) {
+            if (arguments[i] instanceof ExecutorNameValue) {
+                result[i] = ((ExecutorNameValue) arguments[i]).getName();
+            } else if (arguments[i] instanceof ExecutorIdsValue) {
+                result[i] = ((ExecutorIdsValue) arguments[i]).getIds();
+            } else if (arguments[i] instanceof ProcessIdValue) {
+                result[i] = ((ProcessIdValue) arguments[i]).getId();
+            } else if (arguments[i] instanceof FileValue) {
+                FileValue fileValue = (FileValue) arguments[i];
+                result[i] = fileValue.getFileName() + " (ID=" + fileValue.getLogId() + ")";
+            } else if (arguments[i] instanceof HtmlValue) {
+                result[i] = ((HtmlValue) arguments[i]).getString();
+            } else {
+                result[i] = arguments[i];
+            }
+        }
+        return result;
+    }
+}
@@ -10,8 +10,6 @@ import java.util.zip.ZipInputStream;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 
 import org.apache.struts.action.ActionForm;
 import org.apache.struts.action.ActionForward;
@@ -34,6 +32,7 @@ import ru.runa.wfe.presentation.BatchPresentationFactory;
 import ru.runa.wfe.relation.Relation;
 import ru.runa.wfe.relation.RelationPair;
 import ru.runa.wfe.script.common.WorkflowScriptDto;
+import ru.runa.wfe.script.common.WorkflowScriptReader;
 import ru.runa.wfe.service.delegate.Delegates;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.SystemExecutors;
@@ -95,8 +94,7 @@ public class ImportDataFileAction extends ActionBase {
             }
             byte[] scriptXml = externalResources.remove(DataFileBuilder.PATH_TO_XML);
 
-            Unmarshaller unmarshaller = JAXBContext.newInstance(WorkflowScriptDto.class).createUnmarshaller();
-            WorkflowScriptDto data = (WorkflowScriptDto) unmarshaller.unmarshal(new ByteArrayInputStream(scriptXml));
+            WorkflowScriptDto data = WorkflowScriptReader.read(new ByteArrayInputStream(scriptXml));
             data.validate(false);
 
             User user = getLoggedUser(request);
@@ -17,7 +17,12 @@
  */
 package ru.runa.wf.web.action;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -29,8 +34,13 @@ import org.apache.struts.action.ActionMapping;
 import ru.runa.common.web.HTMLUtils;
 import ru.runa.common.web.action.ActionBase;
 import ru.runa.wf.web.form.VariableForm;
+import ru.runa.wfe.service.client.FileVariableProxy;
 import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.var.dto.WfVariable;
 import ru.runa.wfe.var.file.IFileVariable;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
+
+import com.google.common.io.ByteStreams;
 
 /**
  * Created on 27.09.2005
@@ -53,7 +63,27 @@ public class VariableDownloaderAction extends ActionBase {
             String encodedFileName = HTMLUtils.encodeFileName(request, fileVariable.getName());
             response.setHeader("Content-Disposition", "attachment; filename=\"" + encodedFileName + "\"");
             OutputStream os = response.getOutputStream();
-            os.write(fileVariable.getData());
+            File file = LocalFileSystemStorage.findContentFile(fileVariable.getStringValue());
+            if (file != null) {
+                // zero-copy transfer from local storage
+                response.setHeader("Content-Length", String.valueOf(file.length()));
+                FileInputStream fileInputStream = new FileInputStream(file);
+                try {
+                    FileChannel channel = fileInputStream.getChannel();
+                    WritableByteChannel target = Channels.newChannel(os);
+                    long position = 0;
+                    long size = channel.size();
+                    while (position < size) {
+                        position += channel.transferTo(position, size - position, target);
+                    }
+                } finally {
+                    fileInputStream.close();
+                }
+            } else if (fileVariable instanceof FileVariableProxy) {
+                ByteStreams.copy(((FileVariableProxy) fileVariable).getInputStream(), os);
+            } else {
+                os.write(fileVariable.getData());
+            }
             os.flush();
         } catch (Exception e) {
             log.error("", e);
@@ -66,7 +96,8 @@ public class VariableDownloaderAction extends ActionBase {
         if (form.getLogId() != null) {
             return (IFileVariable) Delegates.getAuditService().getProcessLogValue(getLoggedUser(request), form.getLogId());
         } else {
-            return Delegates.getExecutionService().getFileVariableValue(getLoggedUser(request), form.getId(), form.getVariableName());
+            WfVariable variable = Delegates.getExecutionService().getVariable(getLoggedUser(request), form.getId(), form.getVariableName());
+            return variable != null ? (IFileVariable) variable.getValue() : null;
         }
     }
 
@@ -81,6 +81,7 @@ public class ProcessSwimlaneAssignmentRowBuilder implements RowBuilder {
         String startExecutionDateString = "";
         ProcessLogFilter filter = new ProcessLogFilter(task.getProcessId());
         filter.setNodeId(task.getNodeId());
+        filter.addLogClass(TaskAssignLog.class);
         ProcessLogs logs = Delegates.getAuditService().getProcessLogs(user, filter);
 
         TaskAssignLog taskAssignLog = logs.getLastOrNull(TaskAssignLog.class);
@@ -48,6 +48,7 @@ public class TaskAssignmentDateTDBuilder implements TDBuilder {
         WfTask task = (WfTask) object;
         ProcessLogFilter filter = new ProcessLogFilter(task.getProcessId());
         filter.setNodeId(task.getNodeId());
+        filter.addLogClass(TaskAssignLog.class);
         ProcessLogs logs = Delegates.getAuditService().getProcessLogs(env.getUser(), filter);
         TaskAssignLog taskAssignLog = logs.getLastOrNull(TaskAssignLog.class);
         if (taskAssignLog != null) {
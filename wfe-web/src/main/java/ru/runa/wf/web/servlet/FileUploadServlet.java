@@ -1,6 +1,7 @@
 package ru.runa.wf.web.servlet;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 import javax.servlet.ServletException;
@@ -11,11 +12,13 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.JSONObject;
 
+import ru.runa.common.web.Commons;
 import ru.runa.common.web.HTMLUtils;
 import ru.runa.wf.web.FormSubmissionUtils;
 import ru.runa.wfe.InternalApplicationException;
 
 import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 
 public class FileUploadServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
@@ -70,7 +73,12 @@ public class FileUploadServlet extends HttpServlet {
             response.setContentType(file.getMimeType());
             String encodedFileName = HTMLUtils.encodeFileName(request, file.getName());
             response.setHeader("Content-disposition", "attachment; filename=\"" + encodedFileName + "\"");
-            response.getOutputStream().write(file.getContent() != null ? file.getContent() : file.getFileVariable().getData());
+            InputStream inputStream = file.openStream(Commons.getUser(request.getSession()));
+            try {
+                ByteStreams.copy(inputStream, response.getOutputStream());
+            } finally {
+                inputStream.close();
+            }
             response.getOutputStream().flush();
             response.getOutputStream().close();
         }
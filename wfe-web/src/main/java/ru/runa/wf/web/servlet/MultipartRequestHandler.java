@@ -1,6 +1,8 @@
 package ru.runa.wf.web.servlet;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
@@ -10,7 +12,14 @@ import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 
+import ru.runa.common.web.Commons;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.user.User;
+import ru.runa.wfe.var.file.UploadedFileVariable;
+
 import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
 
 public class MultipartRequestHandler {
 
@@ -54,8 +63,27 @@ public class MultipartRequestHandler {
                             name = name.substring(index + 1);
                         }
                         file.setName(name);
-                        file.setContent(item.get());
                         file.setMimeType(item.getContentType());
+                        if (SystemProperties.isLocalFileStorageEnabled() && item.getSize() > SystemProperties.getLocalFileStorageFileLimit()) {
+                            // large files are not kept in session but staged on server, web and server can be on different hosts
+                            User user = Commons.getUser(request.getSession());
+                            String uploadId = null;
+                            InputStream inputStream = item.getInputStream();
+                            try {
+                                byte[] buffer = new byte[UploadedFile.CHUNK_SIZE];
+                                int length;
+                                while ((length = ByteStreams.read(inputStream, buffer, 0, buffer.length)) > 0) {
+                                    byte[] chunk = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+                                    uploadId = Delegates.getExecutionService().uploadFileVariableChunk(user, null, uploadId, chunk);
+                                }
+                            } finally {
+                                inputStream.close();
+                            }
+                            file.setStagedContent(new UploadedFileVariable(name, item.getContentType(), uploadId), item.getSize());
+                            item.delete();
+                        } else {
+                            file.setContent(item.get());
+                        }
                     }
                 }
             } catch (FileUploadException e) {
@@ -1,6 +1,14 @@
 package ru.runa.wf.web.servlet;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import ru.runa.wfe.service.client.FileVariableProxy;
+import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.file.IFileVariable;
+import ru.runa.wfe.var.file.UploadedFileVariable;
 
 import com.google.common.base.Objects;
 
@@ -14,6 +22,7 @@ import com.google.common.base.Objects;
  * IE file removal does not remove it on server-side eventually
  */
 public class UploadedFile {
+    public static final int CHUNK_SIZE = 1024 * 1024;
     private String name;
     private String size;
     private String mimeType;
@@ -54,16 +63,77 @@ public class UploadedFile {
         this.mimeType = fileType;
     }
 
+    /**
+     * @return content held in memory, <code>null</code> for staged content (use {@link #openStream(User)})
+     */
     public byte[] getContent() {
         return content;
     }
 
+    /**
+     * Opens content. Staged content is read from server by chunks.
+     *
+     * @param user
+     *            user who staged content
+     */
+    public InputStream openStream(final User user) {
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        if (fileVariable instanceof FileVariableProxy) {
+            return ((FileVariableProxy) fileVariable).getInputStream();
+        }
+        if (fileVariable instanceof UploadedFileVariable) {
+            final String uploadId = ((UploadedFileVariable) fileVariable).getUploadId();
+            return new InputStream() {
+                private byte[] chunk = new byte[0];
+                private int position;
+                private long offset;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (position == chunk.length) {
+                        chunk = Delegates.getExecutionService().getUploadedFileChunk(user, uploadId, offset, CHUNK_SIZE);
+                        position = 0;
+                        if (chunk.length == 0) {
+                            return -1;
+                        }
+                        offset += chunk.length;
+                    }
+                    int count = Math.min(len, chunk.length - position);
+                    System.arraycopy(chunk, position, b, off, count);
+                    position += count;
+                    return count;
+                }
+            };
+        }
+        return new ByteArrayInputStream(fileVariable.getData());
+    }
+
     public void setContent(byte[] content) {
         this.content = content;
-        if (content.length > 1024 * 1024) {
-            this.size = content.length / (1024 * 1024) + " Mb";
+        setSize(content.length);
+    }
+
+    /**
+     * Sets content staged on server by {@link ru.runa.wfe.service.ExecutionService#uploadFileVariableChunk(User, Long, String, byte[])}.
+     */
+    public void setStagedContent(UploadedFileVariable fileVariable, long length) {
+        this.fileVariable = fileVariable;
+        setSize(length);
+    }
+
+    private void setSize(long length) {
+        if (length > 1024 * 1024) {
+            this.size = length / (1024 * 1024) + " Mb";
         } else {
-            this.size = content.length / 1024 + " Kb";
+            this.size = length / 1024 + " Kb";
         }
     }
 
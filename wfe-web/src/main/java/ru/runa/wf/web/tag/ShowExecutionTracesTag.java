@@ -0,0 +1,115 @@
+package ru.runa.wf.web.tag;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.ecs.ConcreteElement;
+import org.apache.ecs.StringElement;
+import org.apache.ecs.html.A;
+import org.apache.ecs.html.TD;
+import org.apache.ecs.html.TH;
+import org.apache.ecs.html.TR;
+import org.tldgen.annotations.BodyContent;
+
+import ru.runa.common.web.Commons;
+import ru.runa.common.web.Resources;
+import ru.runa.common.web.form.IdForm;
+import ru.runa.common.web.html.HeaderBuilder;
+import ru.runa.common.web.html.RowBuilder;
+import ru.runa.common.web.html.TRRowBuilder;
+import ru.runa.common.web.html.TableBuilder;
+import ru.runa.common.web.tag.VisibleTag;
+import ru.runa.wf.web.MessagesProcesses;
+import ru.runa.wf.web.action.ExportExecutionTracesAction;
+import ru.runa.wf.web.action.ShowGraphModeHelper;
+import ru.runa.wfe.commons.CalendarUtil;
+import ru.runa.wfe.commons.web.PortletUrlType;
+import ru.runa.wfe.execution.trace.ExecutionTrace;
+import ru.runa.wfe.execution.trace.ExecutionTraceSpan;
+import ru.runa.wfe.execution.trace.ExecutionTraces;
+import ru.runa.wfe.service.delegate.Delegates;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Shows latest sampled process execution traces.
+ *
+ * @since 4.3.0
+ */
+@org.tldgen.annotations.Tag(bodyContent = BodyContent.JSP, name = "viewExecutionTraces")
+public class ShowExecutionTracesTag extends VisibleTag {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_SHOWN_DEPTH = 3;
+
+    @Override
+    protected boolean isVisible() {
+        return Delegates.getExecutorService().isAdministrator(getUser());
+    }
+
+    @Override
+    protected ConcreteElement getStartElement() {
+        return new StringElement();
+    }
+
+    @Override
+    protected ConcreteElement getEndElement() {
+        List<TR> rows = Lists.newArrayList();
+        for (ExecutionTrace trace : Lists.reverse(ExecutionTraces.getTraces())) {
+            Map<String, Object> params = Maps.newHashMap();
+            params.put(IdForm.ID_INPUT_NAME, trace.getProcessId());
+            A processIdElement = new A(Commons.getActionUrl(ShowGraphModeHelper.getManageProcessAction(), params, pageContext,
+                    PortletUrlType.Render), trace.getProcessId().toString());
+            ExecutionTraceSpan rootSpan = trace.getRootSpan();
+            TR tr = new TR();
+            tr.addElement(new TD(processIdElement).setClass(Resources.CLASS_LIST_TABLE_TD));
+            tr.addElement(new TD(CalendarUtil.formatDateTime(trace.getStartDate())).setClass(Resources.CLASS_LIST_TABLE_TD));
+            tr.addElement(new TD(rootSpan.getName()).setClass(Resources.CLASS_LIST_TABLE_TD));
+            tr.addElement(new TD(String.valueOf(rootSpan.getDurationMicros() / 1000)).setClass(Resources.CLASS_LIST_TABLE_TD));
+            tr.addElement(new TD(String.valueOf(rootSpan.getQueriesCount())).setClass(Resources.CLASS_LIST_TABLE_TD));
+            StringBuilder spans = new StringBuilder();
+            for (ExecutionTraceSpan span : rootSpan.getChildren()) {
+                appendSpan(spans, span, 0);
+            }
+            tr.addElement(new TD(new StringElement("<pre>" + spans + "</pre>")).setClass(Resources.CLASS_LIST_TABLE_TD));
+            A exportElement = new A(Commons.getActionUrl(ExportExecutionTracesAction.ACTION_PATH, params, pageContext, PortletUrlType.Action),
+                    MessagesProcesses.LABEL_EXECUTION_TRACE_EXPORT.message(pageContext));
+            tr.addElement(new TD(exportElement).setClass(Resources.CLASS_LIST_TABLE_TD));
+            rows.add(tr);
+        }
+        RowBuilder rowBuilder = new TRRowBuilder(rows);
+        TableBuilder tableBuilder = new TableBuilder();
+        return tableBuilder.build(new TracesHeaderBuilder(), rowBuilder);
+    }
+
+    private void appendSpan(StringBuilder spans, ExecutionTraceSpan span, int depth) {
+        for (int i = 0; i < depth; i++) {
+            spans.append("  ");
+        }
+        spans.append(span.getKind()).append(" ").append(StringEscapeUtils.escapeHtml(span.getName())).append(": ");
+        spans.append(span.getDurationMicros() / 1000).append(" ms, ").append(span.getQueriesCount()).append(" q\n");
+        if (depth + 1 < MAX_SHOWN_DEPTH) {
+            for (ExecutionTraceSpan child : span.getChildren()) {
+                appendSpan(spans, child, depth + 1);
+            }
+        }
+    }
+
+    private class TracesHeaderBuilder implements HeaderBuilder {
+
+        @Override
+        public TR build() {
+            TR tr = new TR();
+            tr.addElement(new TH(MessagesProcesses.LABEL_EXECUTION_TRACE_PROCESS_ID.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesProcesses.LABEL_EXECUTION_TRACE_STARTED.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesProcesses.LABEL_EXECUTION_TRACE_NAME.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesProcesses.LABEL_EXECUTION_TRACE_DURATION.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesProcesses.LABEL_EXECUTION_TRACE_QUERIES.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesProcesses.LABEL_EXECUTION_TRACE_SPANS.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH().setClass(Resources.CLASS_LIST_TABLE_TH));
+            return tr;
+        }
+    }
+
+}
@@ -23,8 +23,10 @@ import java.util.Map;
 import org.apache.ecs.html.A;
 import org.apache.ecs.html.TD;
 import org.apache.ecs.html.TR;
+import org.apache.ecs.html.Table;
 import org.tldgen.annotations.BodyContent;
 
+import ru.runa.common.WebResources;
 import ru.runa.common.web.Commons;
 import ru.runa.common.web.HTMLUtils;
 import ru.runa.common.web.Messages;
@@ -38,9 +40,11 @@ import ru.runa.common.web.html.TRRowBuilder;
 import ru.runa.common.web.html.TableBuilder;
 import ru.runa.wf.web.MessagesProcesses;
 import ru.runa.wf.web.action.CancelProcessAction;
+import ru.runa.wf.web.action.ExportProcessLogsAction;
 import ru.runa.wf.web.action.ShowGraphModeHelper;
 import ru.runa.wf.web.html.HistoryHeaderBuilder;
 import ru.runa.wfe.audit.ProcessLog;
+import ru.runa.wfe.audit.ProcessLogExportFormat;
 import ru.runa.wfe.audit.ProcessLogFilter;
 import ru.runa.wfe.audit.ProcessLogs;
 import ru.runa.wfe.audit.Severity;
@@ -51,12 +55,15 @@ import ru.runa.wfe.security.Permission;
 import ru.runa.wfe.service.delegate.Delegates;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 @org.tldgen.annotations.Tag(bodyContent = BodyContent.JSP, name = "showHistory")
 public class ShowHistoryTag extends ProcessBaseFormTag {
     private static final long serialVersionUID = 1L;
+    private static final String TABLE_ID = "processHistory";
+    private static final String NEXT_PAGE_LINK_ID = "processHistoryNextPage";
 
     @Override
     protected void fillFormData(TD tdFormElement) {
@@ -65,11 +72,16 @@ public class ShowHistoryTag extends ProcessBaseFormTag {
         if (severityNames == null) {
             severityNames = new String[] { Severity.DEBUG.name(), Severity.ERROR.name(), Severity.INFO.name() };
         }
+        String idFrom = pageContext.getRequest().getParameter("idFrom");
         ProcessLogFilter filter = new ProcessLogFilter(getIdentifiableId());
         filter.setIncludeSubprocessLogs(Boolean.valueOf(withSubprocesses));
         for (String severityName : severityNames) {
             filter.addSeverity(Severity.valueOf(severityName));
         }
+        if (!Strings.isNullOrEmpty(idFrom)) {
+            filter.setIdFrom(Long.valueOf(idFrom));
+        }
+        filter.setPageSize(WebResources.getProcessHistoryPageSize());
         // filter
         String filterHtml = "\n";
         filterHtml += "<form action=\"" + Commons.getActionUrl("/show_history", pageContext, PortletUrlType.Action) + "\" method=\"get\">\n";
@@ -89,6 +101,11 @@ public class ShowHistoryTag extends ProcessBaseFormTag {
             filterHtml += "> " + severity.name() + "\n";
         }
         filterHtml += "<button type=\"submit\">" + MessagesProcesses.BUTTON_FORM.message(pageContext) + "</button>\n";
+        filterHtml += "&nbsp;" + MessagesOther.LABEL_HISTORY_EXPORT.message(pageContext) + ":\n";
+        for (ProcessLogExportFormat format : ProcessLogExportFormat.values()) {
+            String exportUrl = getFilterUrl(ExportProcessLogsAction.ACTION_PATH, filter) + "&format=" + format.name();
+            filterHtml += "<a href=\"" + exportUrl + "\" class=\"link\">" + format.name() + "</a>\n";
+        }
         filterHtml += "</td></tr></table>\n";
         tdFormElement.addElement(filterHtml);
         // content
@@ -141,7 +158,42 @@ public class ShowHistoryTag extends ProcessBaseFormTag {
                 MessagesOther.LABEL_HISTORY_EVENT.message(pageContext));
         RowBuilder rowBuilder = new TRRowBuilder(rows);
         TableBuilder tableBuilder = new TableBuilder();
-        tdFormElement.addElement(tableBuilder.build(tasksHistoryHeaderBuilder, rowBuilder));
+        Table table = tableBuilder.build(tasksHistoryHeaderBuilder, rowBuilder);
+        table.setID(TABLE_ID);
+        tdFormElement.addElement(table);
+        if (logs.getNextPageIdFrom() != null) {
+            // next pages are appended to the table without reloading
+            String nextPageUrl = getFilterUrl("/show_history", filter) + "&idFrom=" + logs.getNextPageIdFrom();
+            String nextPageHtml = "\n<a id=\"" + NEXT_PAGE_LINK_ID + "\" href=\"javascript:void(0)\" class=\"link\" pageUrl=\"" + nextPageUrl
+                    + "\">" + MessagesOther.LABEL_HISTORY_NEXT_PAGE.message(pageContext) + "</a>\n";
+            nextPageHtml += "<script>\n";
+            nextPageHtml += "$(\"#" + NEXT_PAGE_LINK_ID + "\").click(function() {\n";
+            nextPageHtml += "\tvar link = $(this);\n";
+            nextPageHtml += "\t$.get(link.attr(\"pageUrl\"), function(html) {\n";
+            nextPageHtml += "\t\tvar page = $(html);\n";
+            nextPageHtml += "\t\t$(\"#" + TABLE_ID + "\").append(page.find(\"#" + TABLE_ID + " tr\").has(\"td\"));\n";
+            nextPageHtml += "\t\tvar nextLink = page.find(\"#" + NEXT_PAGE_LINK_ID + "\");\n";
+            nextPageHtml += "\t\tif (nextLink.length > 0) {\n";
+            nextPageHtml += "\t\t\tlink.attr(\"pageUrl\", nextLink.attr(\"pageUrl\"));\n";
+            nextPageHtml += "\t\t} else {\n";
+            nextPageHtml += "\t\t\tlink.remove();\n";
+            nextPageHtml += "\t\t}\n";
+            nextPageHtml += "\t});\n";
+            nextPageHtml += "});\n";
+            nextPageHtml += "</script>\n";
+            tdFormElement.addElement(nextPageHtml);
+        }
+    }
+
+    private String getFilterUrl(String actionPath, ProcessLogFilter filter) {
+        Map<String, Object> params = Maps.newHashMap();
+        params.put(IdForm.ID_INPUT_NAME, filter.getProcessId());
+        params.put("withSubprocesses", filter.isIncludeSubprocessLogs());
+        String url = Commons.getActionUrl(actionPath, params, pageContext, PortletUrlType.Render);
+        for (Severity severity : filter.getSeverities()) {
+            url += "&severities=" + severity.name();
+        }
+        return url;
     }
 
     @Override
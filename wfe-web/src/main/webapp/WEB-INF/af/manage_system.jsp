@@ -139,6 +139,12 @@
 	</tr>
 </table>
 
+<table class='box'><tr><th class='box'><bean:message key="title.execution_traces" /></th></tr>
+<tr><td class='box'>
+	<wf:viewExecutionTraces />
+</td></tr>
+</table>
+
 <table class='box'><tr><th class='box'><bean:message key="title.errors" /></th></tr>
 <tr><td class='box'>
 	<div>